@@ -0,0 +1,44 @@
+package Argumentation.LAF.Codec;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverters;
+import org.springframework.web.servlet.config.annotation.ContentNegotiationConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Registers the {@link BinaryGraphMessageConverter} with Spring MVC.
+ *
+ * <p>
+ * Custom converters take precedence over the default ones, so a client that
+ * accepts any media type would otherwise receive the binary format. JSON is
+ * therefore declared as the preferred default content type: the binary format
+ * is used only when it is explicitly requested.
+ * </p>
+ *
+ * @author JaviDebórtoli
+ */
+@Configuration
+public class BinaryCodecConfiguration implements WebMvcConfigurer {
+
+    /**
+     * Adds the binary converter to the server converters.
+     *
+     * @param builder the server converters builder
+     */
+    @Override
+    public void configureMessageConverters(HttpMessageConverters.ServerBuilder builder) {
+        builder.addCustomConverter(new BinaryGraphMessageConverter());
+    }
+
+    /**
+     * Makes JSON the preferred representation when the client accepts any media type.
+     *
+     * @param configurer the content negotiation configurer
+     */
+    @Override
+    public void configureContentNegotiation(ContentNegotiationConfigurer configurer) {
+        // Any other type stays acceptable for endpoints that only produce, e.g., event streams
+        configurer.defaultContentType(MediaType.APPLICATION_JSON, MediaType.ALL);
+    }
+}
@@ -0,0 +1,406 @@
+package Argumentation.LAF.Codec;
+
+import Argumentation.LAF.DTO.FactDTO;
+import Argumentation.LAF.DTO.LabelOperationsDTO;
+import Argumentation.LAF.DTO.Request.GraphRequest;
+import Argumentation.LAF.DTO.Request.OperationInputRequest;
+import Argumentation.LAF.DTO.Response.GraphEdgeResponse;
+import Argumentation.LAF.DTO.Response.GraphNodeResponse;
+import Argumentation.LAF.DTO.Response.GraphResponse;
+import Argumentation.LAF.DTO.RuleDTO;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of {@link GraphRequest}s and {@link GraphResponse}s.
+ *
+ * <p>
+ * Every message starts with a magic number and a string table; the records
+ * that follow refer to strings by their index in the table, so predicates,
+ * arguments and node identifiers are written once no matter how often they
+ * appear. Label vectors whose values are plain decimal numbers are packed as
+ * IEEE-754 doubles; any other vector (e.g. symbolic labels) falls back to
+ * string references, so every message round-trips exactly.
+ * </p>
+ *
+ * <h3>Layout</h3>
+ * <pre>
+ * message  := magic:int32 kind:byte table records
+ * table    := count:varint (length:varint utf8-bytes)*
+ * ref      := varint            (0 = null, i + 1 = table[i])
+ * vector   := 0                 (null)
+ *           | 1 n:varint double*n
+ * request  := facts:varint (name:ref argument:ref vector)*
+ *             rules:varint (head:ref body:varint ref* vector)*
+ *             labels:varint (name:ref support:ref aggregation:ref conflict:ref precision:ref)*
+ * response := nodes:varint (id:ref label:ref type:ref vector vector)*
+ *             edges:varint (from:ref to:ref kind:ref)*
+ * </pre>
+ * <p>
+ * The vector tag {@code 2 n:varint ref*n} is used for vectors that cannot be
+ * packed as doubles. Messages with the former magic number "LAF1" are still
+ * read: their labels have no precision.
+ * </p>
+ *
+ * @author JaviDebórtoli
+ */
+public final class BinaryGraphCodec {
+    /** Magic number written at the start of every message ("LAF2"). */
+    private static final int MAGIC = 0x4C414632;
+    /** Magic number of the messages written before labels had a precision ("LAF1"). */
+    private static final int MAGIC_V1 = 0x4C414631;
+    private static final byte KIND_REQUEST = 1;
+    private static final byte KIND_RESPONSE = 2;
+    private static final byte VECTOR_NULL = 0;
+    private static final byte VECTOR_DOUBLES = 1;
+    private static final byte VECTOR_STRINGS = 2;
+
+    private BinaryGraphCodec() {
+    }
+
+    /**
+     * Writes a graph request.
+     *
+     * @param request the request to encode
+     * @param out     the destination stream
+     * @throws IOException if the stream cannot be written
+     */
+    public static void writeRequest(GraphRequest request, DataOutputStream out) throws IOException {
+        List<FactDTO> facts = orEmpty(request.getFacts());
+        List<RuleDTO> rules = orEmpty(request.getRules());
+        List<LabelOperationsDTO> labels = request.getOperations() == null
+                ? List.of()
+                : orEmpty(request.getOperations().getLabels());
+
+        StringTable table = new StringTable();
+        for (FactDTO fact : facts) {
+            table.add(fact.getName());
+            table.add(fact.getArgument());
+            table.addVector(fact.getAttributes());
+        }
+        for (RuleDTO rule : rules) {
+            table.add(rule.getHeadName());
+            orEmpty(rule.getBodyLiterals()).forEach(table::add);
+            table.addVector(rule.getAttributes());
+        }
+        for (LabelOperationsDTO label : labels) {
+            table.add(label.getLabelName());
+            table.add(label.getSupportFunction());
+            table.add(label.getAggregationFunction());
+            table.add(label.getConflictFunction());
+            table.add(label.getPrecision());
+        }
+
+        out.writeInt(MAGIC);
+        out.writeByte(KIND_REQUEST);
+        table.write(out);
+
+        writeVarint(out, facts.size());
+        for (FactDTO fact : facts) {
+            table.writeRef(out, fact.getName());
+            table.writeRef(out, fact.getArgument());
+            table.writeVector(out, fact.getAttributes());
+        }
+        writeVarint(out, rules.size());
+        for (RuleDTO rule : rules) {
+            table.writeRef(out, rule.getHeadName());
+            List<String> body = orEmpty(rule.getBodyLiterals());
+            writeVarint(out, body.size());
+            for (String literal : body) {
+                table.writeRef(out, literal);
+            }
+            table.writeVector(out, rule.getAttributes());
+        }
+        writeVarint(out, labels.size());
+        for (LabelOperationsDTO label : labels) {
+            table.writeRef(out, label.getLabelName());
+            table.writeRef(out, label.getSupportFunction());
+            table.writeRef(out, label.getAggregationFunction());
+            table.writeRef(out, label.getConflictFunction());
+            table.writeRef(out, label.getPrecision());
+        }
+    }
+
+    /**
+     * Reads a graph request.
+     *
+     * @param in the source stream
+     * @return the decoded request
+     * @throws IOException if the stream cannot be read or is not a binary request
+     */
+    // The codec fills the DTO through its bean setters, as the JSON mapper does
+    @SuppressWarnings("deprecation")
+    public static GraphRequest readRequest(DataInputStream in) throws IOException {
+        int magic = in.readInt();
+        String[] table = readHeader(in, magic, KIND_REQUEST);
+
+        int factCount = readVarint(in);
+        List<FactDTO> facts = new ArrayList<>(factCount);
+        for (int i = 0; i < factCount; i++) {
+            FactDTO fact = new FactDTO();
+            fact.setName(readRef(in, table));
+            fact.setArgument(readRef(in, table));
+            fact.setAttributes(readVector(in, table));
+            facts.add(fact);
+        }
+        int ruleCount = readVarint(in);
+        List<RuleDTO> rules = new ArrayList<>(ruleCount);
+        for (int i = 0; i < ruleCount; i++) {
+            RuleDTO rule = new RuleDTO();
+            rule.setHeadName(readRef(in, table));
+            int bodySize = readVarint(in);
+            List<String> body = new ArrayList<>(bodySize);
+            for (int j = 0; j < bodySize; j++) {
+                body.add(readRef(in, table));
+            }
+            rule.setBodyLiterals(body);
+            rule.setAttributes(readVector(in, table));
+            rules.add(rule);
+        }
+        int labelCount = readVarint(in);
+        List<LabelOperationsDTO> labels = new ArrayList<>(labelCount);
+        for (int i = 0; i < labelCount; i++) {
+            LabelOperationsDTO label = new LabelOperationsDTO();
+            label.setLabelName(readRef(in, table));
+            label.setSupportFunction(readRef(in, table));
+            label.setAggregationFunction(readRef(in, table));
+            label.setConflictFunction(readRef(in, table));
+            if (magic != MAGIC_V1) {
+                label.setPrecision(readRef(in, table));
+            }
+            labels.add(label);
+        }
+
+        OperationInputRequest operations = new OperationInputRequest();
+        operations.setLabels(labels);
+        GraphRequest request = new GraphRequest();
+        request.setFacts(facts);
+        request.setRules(rules);
+        request.setOperations(operations);
+        return request;
+    }
+
+    /**
+     * Writes a graph response.
+     *
+     * @param response the response to encode
+     * @param out      the destination stream
+     * @throws IOException if the stream cannot be written
+     */
+    // The codec reads the DTO through its bean getters, as the JSON mapper does
+    @SuppressWarnings("deprecation")
+    public static void writeResponse(GraphResponse response, DataOutputStream out) throws IOException {
+        List<GraphNodeResponse> nodes = orEmpty(response.getNodes());
+        List<GraphEdgeResponse> edges = orEmpty(response.getEdges());
+
+        StringTable table = new StringTable();
+        for (GraphNodeResponse node : nodes) {
+            table.add(node.getId());
+            table.add(node.getLabel());
+            table.add(node.getType());
+            table.addVector(node.getAttributes());
+            table.addVector(node.getDeltaAttributes());
+        }
+        for (GraphEdgeResponse edge : edges) {
+            table.add(edge.getFrom());
+            table.add(edge.getTo());
+            table.add(edge.getKind());
+        }
+
+        out.writeInt(MAGIC);
+        out.writeByte(KIND_RESPONSE);
+        table.write(out);
+
+        writeVarint(out, nodes.size());
+        for (GraphNodeResponse node : nodes) {
+            table.writeRef(out, node.getId());
+            table.writeRef(out, node.getLabel());
+            table.writeRef(out, node.getType());
+            table.writeVector(out, node.getAttributes());
+            table.writeVector(out, node.getDeltaAttributes());
+        }
+        writeVarint(out, edges.size());
+        for (GraphEdgeResponse edge : edges) {
+            table.writeRef(out, edge.getFrom());
+            table.writeRef(out, edge.getTo());
+            table.writeRef(out, edge.getKind());
+        }
+    }
+
+    /**
+     * Reads a graph response.
+     *
+     * @param in the source stream
+     * @return the decoded response
+     * @throws IOException if the stream cannot be read or is not a binary response
+     */
+    public static GraphResponse readResponse(DataInputStream in) throws IOException {
+        String[] table = readHeader(in, in.readInt(), KIND_RESPONSE);
+
+        int nodeCount = readVarint(in);
+        List<GraphNodeResponse> nodes = new ArrayList<>(nodeCount);
+        for (int i = 0; i < nodeCount; i++) {
+            GraphNodeResponse node = new GraphNodeResponse();
+            node.setId(readRef(in, table));
+            node.setLabel(readRef(in, table));
+            node.setType(readRef(in, table));
+            node.setAttributes(readVector(in, table));
+            node.setDeltaAttributes(readVector(in, table));
+            nodes.add(node);
+        }
+        int edgeCount = readVarint(in);
+        List<GraphEdgeResponse> edges = new ArrayList<>(edgeCount);
+        for (int i = 0; i < edgeCount; i++) {
+            GraphEdgeResponse edge = new GraphEdgeResponse();
+            edge.setFrom(readRef(in, table));
+            edge.setTo(readRef(in, table));
+            edge.setKind(readRef(in, table));
+            edges.add(edge);
+        }
+
+        GraphResponse response = new GraphResponse();
+        response.setNodes(nodes);
+        response.setEdges(edges);
+        return response;
+    }
+
+    /**
+     * Checks the magic number and message kind and reads the string table.
+     */
+    private static String[] readHeader(DataInputStream in, int magic, byte kind) throws IOException {
+        if ((magic != MAGIC && magic != MAGIC_V1) || in.readByte() != kind) {
+            throw new IOException("Not a binary LAF " + (kind == KIND_REQUEST ? "request" : "response"));
+        }
+        int count = readVarint(in);
+        String[] table = new String[count];
+        for (int i = 0; i < count; i++) {
+            byte[] bytes = new byte[readVarint(in)];
+            in.readFully(bytes);
+            table[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return table;
+    }
+
+    private static String readRef(DataInputStream in, String[] table) throws IOException {
+        int ref = readVarint(in);
+        if (ref > table.length) {
+            throw new IOException("String reference out of range: " + ref);
+        }
+        return ref == 0 ? null : table[ref - 1];
+    }
+
+    private static String[] readVector(DataInputStream in, String[] table) throws IOException {
+        byte tag = in.readByte();
+        if (tag == VECTOR_NULL) {
+            return null;
+        }
+        String[] values = new String[readVarint(in)];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = tag == VECTOR_DOUBLES
+                    ? String.valueOf(in.readDouble())
+                    : readRef(in, table);
+        }
+        return values;
+    }
+
+    /**
+     * Writes a non-negative integer using 7 bits per byte.
+     */
+    private static void writeVarint(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarint(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    /**
+     * Returns {@code true} if every value parses as a double whose canonical
+     * textual form is the value itself, so packing it loses nothing.
+     */
+    private static boolean packable(String[] values) {
+        for (String value : values) {
+            try {
+                if (value == null || !String.valueOf(Double.parseDouble(value)).equals(value)) {
+                    return false;
+                }
+            } catch (NumberFormatException exception) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static <T> List<T> orEmpty(List<T> list) {
+        return list == null ? List.of() : list;
+    }
+
+    /**
+     * String table built before writing a message.
+     */
+    private static final class StringTable {
+        private final Map<String, Integer> indexes = new LinkedHashMap<>();
+
+        void add(String value) {
+            if (value != null) {
+                indexes.putIfAbsent(value, indexes.size());
+            }
+        }
+
+        void addVector(String[] values) {
+            if (values != null && !packable(values)) {
+                for (String value : values) {
+                    add(value);
+                }
+            }
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            writeVarint(out, indexes.size());
+            for (String value : indexes.keySet()) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                writeVarint(out, bytes.length);
+                out.write(bytes);
+            }
+        }
+
+        void writeRef(DataOutputStream out, String value) throws IOException {
+            writeVarint(out, value == null ? 0 : indexes.get(value) + 1);
+        }
+
+        void writeVector(DataOutputStream out, String[] values) throws IOException {
+            if (values == null) {
+                out.writeByte(VECTOR_NULL);
+                return;
+            }
+            boolean doubles = packable(values);
+            out.writeByte(doubles ? VECTOR_DOUBLES : VECTOR_STRINGS);
+            writeVarint(out, values.length);
+            for (String value : values) {
+                if (doubles) {
+                    out.writeDouble(Double.parseDouble(value));
+                } else {
+                    writeRef(out, value);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package Argumentation.LAF.Codec;
+
+import Argumentation.LAF.DTO.Request.GraphRequest;
+import Argumentation.LAF.DTO.Response.GraphResponse;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+/**
+ * HTTP message converter for the {@link BinaryGraphCodec} wire format.
+ *
+ * <p>
+ * The converter handles {@link GraphRequest}s and {@link GraphResponse}s
+ * under the {@value #MEDIA_TYPE_VALUE} media type, in both directions. It is
+ * only selected when the client asks for it through the {@code Content-Type}
+ * or {@code Accept} headers; JSON remains the default representation.
+ * </p>
+ *
+ * @author JaviDebórtoli
+ */
+public class BinaryGraphMessageConverter extends AbstractHttpMessageConverter<Object> {
+    /** Media type of the binary wire format. */
+    public static final String MEDIA_TYPE_VALUE = "application/x-laf-binary";
+
+    /** {@link MediaType} of the binary wire format. */
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(MEDIA_TYPE_VALUE);
+
+    /**
+     * Constructs a {@code BinaryGraphMessageConverter}.
+     */
+    public BinaryGraphMessageConverter() {
+        super(MEDIA_TYPE);
+    }
+
+    /**
+     * Only graph requests and graph responses have a binary form; subclasses
+     * such as query requests keep using JSON.
+     *
+     * @param clazz the class to test
+     * @return {@code true} for {@link GraphRequest} and {@link GraphResponse}
+     */
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz == GraphRequest.class || clazz == GraphResponse.class;
+    }
+
+    /**
+     * Decodes a graph request or response from the message body.
+     *
+     * @param clazz        the type to decode
+     * @param inputMessage the HTTP message to read from
+     * @return the decoded object
+     * @throws IOException if the body cannot be read
+     */
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(inputMessage.getBody()));
+        try {
+            return clazz == GraphRequest.class
+                    ? BinaryGraphCodec.readRequest(in)
+                    : BinaryGraphCodec.readResponse(in);
+        } catch (IOException exception) {
+            throw new HttpMessageNotReadableException(exception.getMessage(), exception, inputMessage);
+        }
+    }
+
+    /**
+     * Encodes a graph request or response into the message body.
+     *
+     * @param object        the object to encode
+     * @param outputMessage the HTTP message to write to
+     * @throws IOException if the body cannot be written
+     */
+    @Override
+    protected void writeInternal(Object object, HttpOutputMessage outputMessage) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputMessage.getBody()));
+        if (object instanceof GraphRequest request) {
+            BinaryGraphCodec.writeRequest(request, out);
+        } else {
+            BinaryGraphCodec.writeResponse((GraphResponse) object, out);
+        }
+        out.flush();
+    }
+}
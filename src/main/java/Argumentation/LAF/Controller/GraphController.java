@@ -1,16 +1,40 @@
 package Argumentation.LAF.Controller;
 
+import Argumentation.LAF.DTO.Request.BatchRequest;
 import Argumentation.LAF.DTO.Request.GraphRequest;
+import Argumentation.LAF.DTO.Request.QueryRequest;
+import Argumentation.LAF.DTO.Response.GraphDeltaResponse;
 import Argumentation.LAF.DTO.Response.GraphResponse;
+import Argumentation.LAF.DTO.Response.QueryResponse;
+import Argumentation.LAF.DTO.Response.SupportMemoResponse;
+import Argumentation.LAF.Domain.ArgumentativeGraph;
+import Argumentation.LAF.Domain.CompactGraph;
+import Argumentation.LAF.Domain.OffHeapProgram;
+import Argumentation.LAF.Domain.Program;
 import Argumentation.LAF.Service.AlgebraMapperService;
+import Argumentation.LAF.Service.BatchService;
+import Argumentation.LAF.Service.DerivationStreamService;
 import Argumentation.LAF.Service.GraphBuilderService;
+import Argumentation.LAF.Service.GraphDiffService;
 import Argumentation.LAF.Service.InferenceService;
 import Argumentation.LAF.Service.ProgramMapperService;
+import Argumentation.LAF.Service.ProgramStreamService;
+import Argumentation.LAF.Service.QueryService;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.ObjectMapper;
 
 /**
  * REST controller responsible for generating argumentation graphs
@@ -27,10 +51,21 @@ import org.springframework.web.bind.annotation.RestController;
 @RestController
 @RequestMapping("/api")
 public class GraphController {
+    /** Response header carrying the identifier of a diff result. */
+    private static final String RESULT_ID_HEADER = "X-Graph-Result-Id";
+    /** Response header carrying the identifier of the result a delta applies to. */
+    private static final String BASE_ID_HEADER = "X-Graph-Base-Id";
+
     private final ProgramMapperService programMapperService;
     private final AlgebraMapperService algebraMapperService;
     private final InferenceService inferenceService;
     private final GraphBuilderService graphBuilderService;
+    private final QueryService queryService;
+    private final ProgramStreamService programStreamService;
+    private final BatchService batchService;
+    private final DerivationStreamService derivationStreamService;
+    private final GraphDiffService graphDiffService;
+    private final ObjectMapper objectMapper;
     
     /**
      * Constructs a {@code GraphController} with all required stateless services.
@@ -39,15 +74,33 @@ public class GraphController {
      * @param algebraMapperService service responsible for mapping algebraic operations
      * @param inferenceService service responsible for building the argumentation graph
      * @param graphBuilderService service responsible for serializing the graph
+     * @param queryService service responsible for goal-directed queries
+     * @param programStreamService service responsible for reading NDJSON programs
+     * @param batchService service responsible for evaluating batches of programs
+     * @param derivationStreamService service responsible for streaming derivation events
+     * @param graphDiffService service responsible for diffing graphs against previous results
+     * @param objectMapper JSON mapper used to create streaming generators
      */
     public GraphController(ProgramMapperService programMapperService,
                            AlgebraMapperService algebraMapperService,
                            InferenceService inferenceService,
-                           GraphBuilderService graphBuilderService) {
+                           GraphBuilderService graphBuilderService,
+                           QueryService queryService,
+                           ProgramStreamService programStreamService,
+                           BatchService batchService,
+                           DerivationStreamService derivationStreamService,
+                           GraphDiffService graphDiffService,
+                           ObjectMapper objectMapper) {
         this.programMapperService = programMapperService;
         this.algebraMapperService = algebraMapperService;
         this.inferenceService = inferenceService;
         this.graphBuilderService = graphBuilderService;
+        this.queryService = queryService;
+        this.programStreamService = programStreamService;
+        this.batchService = batchService;
+        this.derivationStreamService = derivationStreamService;
+        this.graphDiffService = graphDiffService;
+        this.objectMapper = objectMapper;
     }
     
     /**
@@ -76,4 +129,207 @@ public class GraphController {
 
         return ResponseEntity.ok(response);
     }
+    
+    /**
+     * Builds the graph of an edited program and returns only what changed
+     * with respect to a previous result.
+     *
+     * <p>
+     * The identifier of the new result is returned in the
+     * {@code X-Graph-Result-Id} header, to be sent as {@code base} with the
+     * next edit. The {@code X-Graph-Base-Id} header repeats the base the
+     * delta applies to; it is missing when no base was given or the base is
+     * no longer available, in which case the delta contains the whole graph.
+     * Node identifiers are always content-addressed.
+     * </p>
+     *
+     * @param request the edited program
+     * @param base    identifier of the result held by the client, if any
+     * @return the delta from the base result to the new one
+     */
+    @PostMapping("/graph/diff")
+    public ResponseEntity<GraphDeltaResponse> diffGraph(@RequestBody GraphRequest request,
+                                                        @RequestParam(required = false) String base) {
+        var facts = programMapperService.mapFacts(request.getFacts());
+        var rules = programMapperService.mapRules(request.getRules());
+        var operations = algebraMapperService.mapOperations(request.getOperations());
+        var diff = graphDiffService.diff(base, facts, rules, operations);
+
+        var response = ResponseEntity.ok().header(RESULT_ID_HEADER, diff.resultId());
+        if (diff.baseId() != null) {
+            response.header(BASE_ID_HEADER, diff.baseId());
+        }
+        return response.body(diff.delta());
+    }
+    
+    /**
+     * Builds an argumentation graph and streams it to the client.
+     *
+     * <p>
+     * The response has the same JSON structure as {@link #buildGraph(GraphRequest)},
+     * but nodes and edges are written straight from the internal graph to the
+     * output stream instead of being first collected into response DTOs. This
+     * keeps the memory footprint close to the size of the internal graph and
+     * lets clients start reading before the whole response is produced.
+     * </p>
+     *
+     * @param request the request containing facts, rules and algebraic operations
+     * @return a {@link ResponseEntity} whose body streams the graph as JSON
+     */
+    @PostMapping("/graph/stream")
+    public ResponseEntity<StreamingResponseBody> streamGraph(@RequestBody GraphRequest request) {
+        var facts = programMapperService.mapFacts(request.getFacts());
+        var rules = programMapperService.mapRules(request.getRules());
+        var operations = algebraMapperService.mapOperations(request.getOperations());
+        var argumentativeGraph = inferenceService.buildGraph(facts, rules, operations);
+
+        return streamed(argumentativeGraph);
+    }
+    
+    /**
+     * Builds an argumentation graph from a program sent as newline-delimited
+     * JSON and streams it to the client.
+     *
+     * <p>
+     * The first line of the body is a header with the rules and operations
+     * (same fields as a {@link GraphRequest}); every following line is one
+     * fact. Facts are parsed incrementally into domain objects, which allows
+     * very large fact sets to be submitted without holding the request body
+     * or a list of DTOs in memory. The response is streamed as in
+     * {@link #streamGraph(GraphRequest)}.
+     * </p>
+     *
+     * <p>
+     * With the {@code laf.stream.off-heap-facts} property, facts are read
+     * into off-heap memory owned by the request, which is released as soon
+     * as the graph is built.
+     * </p>
+     *
+     * @param body the NDJSON request body
+     * @return a {@link ResponseEntity} whose body streams the graph as JSON
+     */
+    @PostMapping(value = "/graph", consumes = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> buildGraphFromStream(InputStream body) {
+        if (programStreamService.isOffHeapFacts()) {
+            try (Arena arena = Arena.ofConfined()) {
+                OffHeapProgram program = programStreamService.read(body, arena);
+                return streamed(inferenceService.buildGraph(program.facts(), program.rules(), program.operations()));
+            }
+        }
+
+        Program program = programStreamService.read(body);
+        var argumentativeGraph = inferenceService.buildGraph(program.facts(), program.rules(), program.operations());
+
+        return streamed(argumentativeGraph);
+    }
+    
+    /**
+     * Builds an argumentation graph and streams its derivations as
+     * Server-Sent Events while the inference runs.
+     *
+     * <p>
+     * Nodes, support edges, aggregations and conflicts are sent as soon as
+     * the engine produces them, followed by a final {@code complete} event;
+     * see {@link DerivationStreamService} for the event format.
+     * </p>
+     *
+     * @param request the request containing facts, rules and algebraic operations
+     * @return a {@link ResponseEntity} whose body streams the derivation events
+     */
+    @PostMapping(value = "/graph/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamDerivations(@RequestBody GraphRequest request) {
+        var facts = programMapperService.mapFacts(request.getFacts());
+        var rules = programMapperService.mapRules(request.getRules());
+        var operations = algebraMapperService.mapOperations(request.getOperations());
+
+        StreamingResponseBody body = outputStream ->
+                derivationStreamService.stream(facts, rules, operations, outputStream);
+        return ResponseEntity.ok().contentType(MediaType.TEXT_EVENT_STREAM).body(body);
+    }
+    
+    /**
+     * Evaluates many independent programs in a single call.
+     *
+     * <p>
+     * Programs are evaluated concurrently and the response is streamed as
+     * newline-delimited JSON, one line per program with its identifier and
+     * either its graph or the reason why it could not be evaluated. By
+     * default lines are written as soon as each program completes; with
+     * {@code ordered=true} they follow the order of the request.
+     * </p>
+     *
+     * @param request the programs to evaluate
+     * @param ordered whether results must follow the order of the request
+     * @return a {@link ResponseEntity} whose body streams one result per line
+     */
+    @PostMapping("/graph/batch")
+    public ResponseEntity<StreamingResponseBody> buildGraphs(@RequestBody BatchRequest request,
+                                                             @RequestParam(defaultValue = "false") boolean ordered) {
+        StreamingResponseBody body = outputStream -> batchService.evaluate(request.getPrograms(), ordered, result -> {
+            try {
+                outputStream.write(objectMapper.writeValueAsBytes(result));
+                outputStream.write('\n');
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+    
+    /**
+     * Answers a goal-directed query: only the facts and rules that can
+     * influence the requested goal are evaluated. With a threshold or a
+     * number of answers, the query is ranked by the given label and the
+     * arguments whose goal cannot be answered are pruned when possible.
+     *
+     * @param request the request containing the program, the goal predicate
+     *                and, optionally, the goal argument and the ranking
+     * @return a {@link ResponseEntity} containing the final goal nodes and
+     *         the evaluated subgraph
+     */
+    @PostMapping("/query")
+    public ResponseEntity<QueryResponse> query(@RequestBody QueryRequest request) {
+        var facts = programMapperService.mapFacts(request.getFacts());
+        var rules = programMapperService.mapRules(request.getRules());
+        var operations = algebraMapperService.mapOperations(request.getOperations());
+        var response = request.getThreshold() == null && request.getTop() == null
+                ? queryService.query(facts, rules, operations, request.getGoal(), request.getArgument())
+                : queryService.rankedQuery(facts, rules, operations, request.getGoal(), request.getArgument(),
+                        request.getLabel() == null ? 0 : request.getLabel(), request.getThreshold(), request.getTop());
+
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Reports how often the memo of support results spares a computation.
+     *
+     * @return the size and hit rate of the memo, or {@code 404} if
+     *         memoization is disabled
+     */
+    @GetMapping("/support-memo")
+    public ResponseEntity<SupportMemoResponse> supportMemo() {
+        return ResponseEntity.of(inferenceService.supportMemoStats().map(stats -> {
+            SupportMemoResponse response = new SupportMemoResponse();
+            response.setCapacity(stats.capacity());
+            response.setSize(stats.size());
+            response.setHits(stats.hits());
+            response.setMisses(stats.misses());
+            response.setHitRate(stats.hitRate());
+            return response;
+        }));
+    }
+    
+    /**
+     * Wraps a graph in a response that writes it as JSON while streaming.
+     */
+    private ResponseEntity<StreamingResponseBody> streamed(ArgumentativeGraph argumentativeGraph) {
+        // Only the frozen form is kept until the body is written
+        CompactGraph graph = CompactGraph.of(argumentativeGraph);
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+                graphBuilderService.writeGraph(graph, generator);
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
 }
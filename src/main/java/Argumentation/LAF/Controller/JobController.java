@@ -0,0 +1,142 @@
+package Argumentation.LAF.Controller;
+
+import Argumentation.LAF.DTO.Request.GraphRequest;
+import Argumentation.LAF.DTO.Response.GraphResponse;
+import Argumentation.LAF.DTO.Response.JobResponse;
+import Argumentation.LAF.Service.AlgebraMapperService;
+import Argumentation.LAF.Service.JobService;
+import Argumentation.LAF.Service.ProgramMapperService;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.Optional;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * REST controller exposing asynchronous inference jobs.
+ *
+ * <p>
+ * A program is submitted once and evaluated in the background; the client
+ * then polls the job, or subscribes to its progress as Server-Sent Events,
+ * and fetches the graph when the job has succeeded.
+ * </p>
+ *
+ * @author JaviDebórtoli
+ */
+@RestController
+@RequestMapping("/api/jobs")
+public class JobController {
+    private final ProgramMapperService programMapperService;
+    private final AlgebraMapperService algebraMapperService;
+    private final JobService jobService;
+
+    /**
+     * Constructs a {@code JobController} with its required services.
+     *
+     * @param programMapperService service responsible for mapping facts and rules
+     * @param algebraMapperService service responsible for mapping algebraic operations
+     * @param jobService service responsible for running the jobs
+     */
+    public JobController(ProgramMapperService programMapperService,
+                         AlgebraMapperService algebraMapperService,
+                         JobService jobService) {
+        this.programMapperService = programMapperService;
+        this.algebraMapperService = algebraMapperService;
+        this.jobService = jobService;
+    }
+
+    /**
+     * Submits a program for asynchronous evaluation.
+     *
+     * @param request the request containing facts, rules and algebraic operations
+     * @return {@code 202} with the new job and its location, or {@code 503}
+     *         if the job queue is full
+     */
+    @PostMapping
+    public ResponseEntity<JobResponse> submit(@RequestBody GraphRequest request) {
+        var facts = programMapperService.mapFacts(request.getFacts());
+        var rules = programMapperService.mapRules(request.getRules());
+        var operations = algebraMapperService.mapOperations(request.getOperations());
+        Optional<JobResponse> job = jobService.submit(facts, rules, operations);
+
+        return job
+                .map(j -> ResponseEntity.accepted().location(URI.create("/api/jobs/" + j.getJobId())).body(j))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+    }
+
+    /**
+     * Returns the state and progress of a job.
+     *
+     * @param jobId the job identifier
+     * @return the job state, or {@code 404} if the job does not exist or has expired
+     */
+    @GetMapping("/{jobId}")
+    public ResponseEntity<JobResponse> status(@PathVariable String jobId) {
+        return ResponseEntity.of(jobService.status(jobId));
+    }
+
+    /**
+     * Returns the graph computed by a job.
+     *
+     * @param jobId the job identifier
+     * @return the graph, {@code 404} if the job does not exist or has expired,
+     *         or {@code 409} if the job has not succeeded
+     */
+    @GetMapping("/{jobId}/result")
+    public ResponseEntity<GraphResponse> result(@PathVariable String jobId) {
+        if (jobService.status(jobId).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return jobService.result(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT).build());
+    }
+
+    /**
+     * Streams the progress of a job as Server-Sent Events. Each
+     * {@code progress} event carries a {@link JobResponse}; the stream ends
+     * when the job finishes.
+     *
+     * @param jobId the job identifier
+     * @return the event stream, or {@code 404} if the job does not exist or has expired
+     */
+    @GetMapping("/{jobId}/events")
+    public ResponseEntity<SseEmitter> events(@PathVariable String jobId) {
+        SseEmitter emitter = new SseEmitter(0L);
+        boolean found = jobService.subscribe(jobId, progress -> {
+            try {
+                emitter.send(SseEmitter.event().name("progress").data(progress));
+                if (progress.getStatus().isFinished()) {
+                    emitter.complete();
+                }
+            } catch (IOException exception) {
+                // The client is gone: end the stream and drop the subscriber
+                emitter.completeWithError(exception);
+                throw new UncheckedIOException(exception);
+            }
+        });
+        return found ? ResponseEntity.ok(emitter) : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Cancels a job, if still running, and discards it with its result.
+     *
+     * @param jobId the job identifier
+     * @return {@code 204} if the job was discarded, {@code 404} if it did not exist
+     */
+    @DeleteMapping("/{jobId}")
+    public ResponseEntity<Void> cancel(@PathVariable String jobId) {
+        return jobService.cancel(jobId)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+}
@@ -0,0 +1,224 @@
+package Argumentation.LAF.Controller;
+
+import Argumentation.LAF.DTO.FactDTO;
+import Argumentation.LAF.DTO.Request.GraphRequest;
+import Argumentation.LAF.DTO.Response.EdgePageResponse;
+import Argumentation.LAF.DTO.Response.GraphDeltaResponse;
+import Argumentation.LAF.DTO.Response.GraphResponse;
+import Argumentation.LAF.DTO.Response.NodePageResponse;
+import Argumentation.LAF.DTO.Response.SessionResponse;
+import Argumentation.LAF.Domain.EdgeIndex;
+import Argumentation.LAF.Domain.GraphIndex;
+import Argumentation.LAF.Domain.LabelIndex;
+import Argumentation.LAF.Service.AlgebraMapperService;
+import Argumentation.LAF.Service.ProgramMapperService;
+import Argumentation.LAF.Service.ReasoningSessionService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST controller exposing incremental reasoning sessions.
+ *
+ * <p>
+ * A session is opened with a complete program, like the stateless graph
+ * endpoint, and then keeps its materialized graph on the server. Facts can
+ * afterwards be asserted or retracted one at a time; each update only
+ * re-derives the affected part of the graph and answers with the changed
+ * nodes and edges.
+ * </p>
+ *
+ * @author JaviDebórtoli
+ */
+@RestController
+@RequestMapping("/api/sessions")
+public class SessionController {
+    /** Largest page served by the listing endpoints. */
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final ProgramMapperService programMapperService;
+    private final AlgebraMapperService algebraMapperService;
+    private final ReasoningSessionService sessionService;
+
+    /**
+     * Constructs a {@code SessionController} with its required services.
+     *
+     * @param programMapperService service responsible for mapping facts and rules
+     * @param algebraMapperService service responsible for mapping algebraic operations
+     * @param sessionService service responsible for holding reasoning sessions
+     */
+    public SessionController(ProgramMapperService programMapperService,
+                             AlgebraMapperService algebraMapperService,
+                             ReasoningSessionService sessionService) {
+        this.programMapperService = programMapperService;
+        this.algebraMapperService = algebraMapperService;
+        this.sessionService = sessionService;
+    }
+
+    /**
+     * Opens a reasoning session for the program provided in the request.
+     *
+     * @param request the request containing facts, rules and algebraic operations
+     * @return the session identifier and its initial graph
+     */
+    @PostMapping
+    public ResponseEntity<SessionResponse> open(@RequestBody GraphRequest request) {
+        var facts = programMapperService.mapFacts(request.getFacts());
+        var rules = programMapperService.mapRules(request.getRules());
+        var operations = algebraMapperService.mapOperations(request.getOperations());
+        String sessionId = sessionService.open(facts, rules, operations);
+
+        SessionResponse response = new SessionResponse();
+        response.setSessionId(sessionId);
+        response.setGraph(sessionService.graph(sessionId).orElseThrow());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Returns the complete graph currently held by a session.
+     *
+     * @param sessionId the session identifier
+     * @return the session graph, or {@code 404} if the session does not exist
+     */
+    @GetMapping("/{sessionId}/graph")
+    public ResponseEntity<GraphResponse> graph(@PathVariable String sessionId) {
+        return ResponseEntity.of(sessionService.graph(sessionId));
+    }
+
+    /**
+     * Returns the neighborhood of one node of a session graph, so that
+     * clients can inspect the derivation of a conclusion without fetching
+     * the whole graph.
+     *
+     * @param sessionId the session identifier
+     * @param node      identifier of the node
+     * @param depth     maximum number of edges between the node and its neighbors
+     * @param direction {@code ANCESTORS}, {@code DESCENDANTS} or {@code BOTH}
+     * @return the ancestors and/or descendants of the node up to the given
+     *         depth with their conflict partners, or {@code 404} if the
+     *         session or the node does not exist
+     */
+    @GetMapping("/{sessionId}/neighborhood")
+    public ResponseEntity<GraphResponse> neighborhood(@PathVariable String sessionId,
+                                                      @RequestParam String node,
+                                                      @RequestParam(defaultValue = "1") int depth,
+                                                      @RequestParam(defaultValue = "BOTH") GraphIndex.Direction direction) {
+        return ResponseEntity.of(sessionService.neighborhood(sessionId, node, depth, direction));
+    }
+
+    /**
+     * Lists the nodes of a session graph matching a filter, one page at a
+     * time. With a label position, only the nodes whose label at that
+     * position is a number within {@code [min, max]} are listed, in
+     * ascending label order; range queries are answered from sorted label
+     * indexes, so their cost depends on the size of the page and not on the
+     * size of the graph.
+     *
+     * @param sessionId the session identifier
+     * @param type      {@code FACT} or {@code RULE}, optional
+     * @param predicate name of the facts or head of the rules, optional
+     * @param label     position of the label to filter on, optional
+     * @param min       lowest label value, inclusive, optional
+     * @param max       highest label value, inclusive, optional
+     * @param cursor    cursor returned with the previous page, optional
+     * @param limit     maximum number of nodes of the page
+     * @return the page, or {@code 404} if the session does not exist
+     */
+    @GetMapping("/{sessionId}/nodes")
+    public ResponseEntity<NodePageResponse> nodes(@PathVariable String sessionId,
+                                                  @RequestParam(required = false) String type,
+                                                  @RequestParam(required = false) String predicate,
+                                                  @RequestParam(required = false) Integer label,
+                                                  @RequestParam(required = false) Double min,
+                                                  @RequestParam(required = false) Double max,
+                                                  @RequestParam(required = false) String cursor,
+                                                  @RequestParam(defaultValue = "100") int limit) {
+        LabelIndex.Query query = new LabelIndex.Query(type, predicate, label, min, max);
+        return ResponseEntity.of(sessionService.nodes(sessionId, query, cursor, Math.min(limit, MAX_PAGE_SIZE)));
+    }
+
+    /**
+     * Lists the edges of a session graph, optionally of a single kind, one
+     * page at a time.
+     *
+     * @param sessionId the session identifier
+     * @param kind      {@code SUPPORT}, {@code AGGREGATION} or {@code CONFLICT}, optional
+     * @param cursor    cursor returned with the previous page, optional
+     * @param limit     maximum number of edges of the page
+     * @return the page, or {@code 404} if the session does not exist
+     */
+    @GetMapping("/{sessionId}/edges")
+    public ResponseEntity<EdgePageResponse> edges(@PathVariable String sessionId,
+                                                  @RequestParam(required = false) EdgeIndex.Kind kind,
+                                                  @RequestParam(required = false) String cursor,
+                                                  @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.of(sessionService.edges(sessionId, kind, cursor, Math.min(limit, MAX_PAGE_SIZE)));
+    }
+
+    /**
+     * Asserts a fact in a session. A fact with the same predicate and
+     * argument is replaced, which updates its labels.
+     *
+     * @param sessionId the session identifier
+     * @param fact      the fact to assert
+     * @return the changed nodes and edges, or {@code 404} if the session does not exist
+     */
+    @PostMapping("/{sessionId}/facts")
+    public ResponseEntity<GraphDeltaResponse> assertFact(@PathVariable String sessionId,
+                                                         @RequestBody FactDTO fact) {
+        return ResponseEntity.of(sessionService.assertFact(sessionId, programMapperService.mapFact(fact)));
+    }
+
+    /**
+     * Retracts a fact from a session.
+     *
+     * @param sessionId the session identifier
+     * @param name      predicate name of the fact
+     * @param argument  argument of the fact
+     * @return the changed nodes and edges, or {@code 404} if the session does not exist
+     */
+    @DeleteMapping("/{sessionId}/facts")
+    public ResponseEntity<GraphDeltaResponse> retractFact(@PathVariable String sessionId,
+                                                          @RequestParam String name,
+                                                          @RequestParam String argument) {
+        return ResponseEntity.of(sessionService.retractFact(sessionId, name, argument));
+    }
+
+    /**
+     * Persists the current state of a session, so that it is reopened with
+     * its materialized graph after a restart.
+     *
+     * @param sessionId the session identifier
+     * @return {@code 204} if the session was stored, {@code 404} if it does
+     *         not exist, or {@code 409} if persistence is disabled
+     */
+    @PostMapping("/{sessionId}/snapshot")
+    public ResponseEntity<Void> snapshot(@PathVariable String sessionId) {
+        if (!sessionService.isPersistenceEnabled()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return sessionService.persist(sessionId)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Closes a session.
+     *
+     * @param sessionId the session identifier
+     * @return {@code 204} if the session was closed, {@code 404} if it did not exist
+     */
+    @DeleteMapping("/{sessionId}")
+    public ResponseEntity<Void> close(@PathVariable String sessionId) {
+        return sessionService.close(sessionId)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+}
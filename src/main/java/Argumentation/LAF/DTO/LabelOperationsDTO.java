@@ -15,7 +15,10 @@ package Argumentation.LAF.DTO;
  *
  * <p>
  * The operations are expressed as strings and later parsed and stored
- * in an {@link Argumentation.LAF.Domain.OperationSet}.
+ * in an {@link Argumentation.LAF.Domain.OperationSet}. An optional
+ * precision ({@code "double"}, the default, or {@code "float32"}) selects
+ * how the numeric values of the label are computed, see
+ * {@link Argumentation.LAF.Domain.LabelPrecision}.
  * </p>
  * 
  * @author JaviDebórtoli
@@ -29,6 +32,8 @@ public class LabelOperationsDTO {
     private String aggregationFunction;
     /** Expression defining the conflict operation. */
     private String conflictFunction;
+    /** Precision of the numeric values of the label, or {@code null} for the default. */
+    private String precision;
 
     /**
      * Returns the label name.
@@ -65,6 +70,15 @@ public class LabelOperationsDTO {
     public String getConflictFunction() {
         return conflictFunction;
     }
+
+    /**
+     * Returns the precision of the numeric values of the label.
+     *
+     * @return {@code "double"}, {@code "float32"}, or {@code null} for the default
+     */
+    public String getPrecision() {
+        return precision;
+    }
     
     /**
      * Sets the label name.
@@ -101,4 +115,13 @@ public class LabelOperationsDTO {
     public void setConflictFunction(String conflictFunction) {
         this.conflictFunction = conflictFunction;
     }
+
+    /**
+     * Sets the precision of the numeric values of the label.
+     *
+     * @param precision {@code "double"}, {@code "float32"}, or {@code null} for the default
+     */
+    public void setPrecision(String precision) {
+        this.precision = precision;
+    }
 }
\ No newline at end of file
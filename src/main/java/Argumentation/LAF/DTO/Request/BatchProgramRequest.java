@@ -0,0 +1,35 @@
+package Argumentation.LAF.DTO.Request;
+
+/**
+ * Data Transfer Object (DTO) representing one program of a batch.
+ *
+ * <p>
+ * It carries a complete program (facts, rules and algebraic operations,
+ * inherited from {@link GraphRequest}) together with a client-chosen
+ * identifier that is echoed in the corresponding result.
+ * </p>
+ *
+ * @author JaviDebórtoli
+ */
+public class BatchProgramRequest extends GraphRequest {
+    /** Client-chosen identifier of the program. */
+    private String id;
+
+    /**
+     * Returns the identifier of the program.
+     *
+     * @return the program identifier, or {@code null} if none was given
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Sets the identifier of the program.
+     *
+     * @param id the program identifier
+     */
+    public void setId(String id) {
+        this.id = id;
+    }
+}
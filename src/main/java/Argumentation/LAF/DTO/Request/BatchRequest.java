@@ -0,0 +1,32 @@
+package Argumentation.LAF.DTO.Request;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) grouping many independent programs that must
+ * be evaluated in a single call.
+ *
+ * @author JaviDebórtoli
+ */
+public class BatchRequest {
+    /** Programs to evaluate. */
+    private List<BatchProgramRequest> programs;
+
+    /**
+     * Returns the programs of the batch.
+     *
+     * @return the list of {@link BatchProgramRequest}
+     */
+    public List<BatchProgramRequest> getPrograms() {
+        return programs;
+    }
+
+    /**
+     * Sets the programs of the batch.
+     *
+     * @param programs the list of {@link BatchProgramRequest}
+     */
+    public void setPrograms(List<BatchProgramRequest> programs) {
+        this.programs = programs;
+    }
+}
@@ -0,0 +1,123 @@
+package Argumentation.LAF.DTO.Request;
+
+/**
+ * Data Transfer Object (DTO) used to ask for the labels of a single
+ * conclusion instead of the whole argumentation graph.
+ *
+ * <p>
+ * Besides the complete program (facts, rules and algebraic operations,
+ * inherited from {@link GraphRequest}), the request names a goal predicate
+ * and, optionally, the argument it must hold for. Only the part of the
+ * program that can influence the goal is evaluated.
+ * </p>
+ *
+ * <p>
+ * A query may also be ranked: with a threshold, only the goal nodes whose
+ * final label at the given position reaches it are answered; with
+ * {@code top}, only the given number of goal nodes with the highest label.
+ * </p>
+ *
+ * @author JaviDebórtoli
+ */
+public class QueryRequest extends GraphRequest {
+    /** Predicate whose labels are requested (e.g. {@code "buy"}). */
+    private String goal;
+    /** Argument of the goal (e.g. {@code "houseA"}), or {@code null} for every argument. */
+    private String argument;
+    /** Position of the label a ranked query compares, {@code 0} when not given. */
+    private Integer label;
+    /** Lowest label value answered by a ranked query, or {@code null}. */
+    private Double threshold;
+    /** Number of goal nodes answered by a ranked query, or {@code null} for all. */
+    private Integer top;
+
+    /**
+     * Returns the goal predicate.
+     *
+     * @return the goal predicate name
+     */
+    public String getGoal() {
+        return goal;
+    }
+
+    /**
+     * Returns the argument of the goal.
+     *
+     * @return the goal argument, or {@code null} if every argument is requested
+     */
+    public String getArgument() {
+        return argument;
+    }
+
+    /**
+     * Sets the goal predicate.
+     *
+     * @param goal the goal predicate name
+     */
+    public void setGoal(String goal) {
+        this.goal = goal;
+    }
+
+    /**
+     * Sets the argument of the goal.
+     *
+     * @param argument the goal argument, or {@code null} for every argument
+     */
+    public void setArgument(String argument) {
+        this.argument = argument;
+    }
+
+    /**
+     * Returns the position of the label a ranked query compares.
+     *
+     * @return the label position, or {@code null} for the first label
+     */
+    public Integer getLabel() {
+        return label;
+    }
+
+    /**
+     * Sets the position of the label a ranked query compares.
+     *
+     * @param label the label position
+     */
+    public void setLabel(Integer label) {
+        this.label = label;
+    }
+
+    /**
+     * Returns the lowest label value answered.
+     *
+     * @return the threshold, or {@code null} if the query has none
+     */
+    public Double getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Sets the lowest label value answered.
+     *
+     * @param threshold the threshold, inclusive
+     */
+    public void setThreshold(Double threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * Returns the number of goal nodes answered.
+     *
+     * @return the number of answers, or {@code null} for all
+     */
+    public Integer getTop() {
+        return top;
+    }
+
+    /**
+     * Sets the number of goal nodes answered, those with the highest label.
+     *
+     * @param top the number of answers
+     */
+    public void setTop(Integer top) {
+        this.top = top;
+    }
+}
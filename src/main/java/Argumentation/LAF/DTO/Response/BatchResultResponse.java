@@ -0,0 +1,77 @@
+package Argumentation.LAF.DTO.Response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Data Transfer Object (DTO) holding the outcome of one program of a batch.
+ *
+ * <p>
+ * Exactly one of {@code graph} and {@code error} is present: a program that
+ * cannot be evaluated does not abort the rest of the batch.
+ * </p>
+ *
+ * @author JaviDebórtoli
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchResultResponse {
+    /** Identifier of the program, or its position in the batch if it had none. */
+    private String id;
+    /** Graph generated for the program. */
+    private GraphResponse graph;
+    /** Reason why the program could not be evaluated. */
+    private String error;
+
+    /**
+     * Returns the identifier of the program.
+     *
+     * @return the program identifier
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Returns the graph generated for the program.
+     *
+     * @return the {@link GraphResponse}, or {@code null} if evaluation failed
+     */
+    public GraphResponse getGraph() {
+        return graph;
+    }
+
+    /**
+     * Returns the reason why the program could not be evaluated.
+     *
+     * @return the error message, or {@code null} if evaluation succeeded
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Sets the identifier of the program.
+     *
+     * @param id the program identifier
+     */
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    /**
+     * Sets the graph generated for the program.
+     *
+     * @param graph the {@link GraphResponse}
+     */
+    public void setGraph(GraphResponse graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Sets the reason why the program could not be evaluated.
+     *
+     * @param error the error message
+     */
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,57 @@
+package Argumentation.LAF.DTO.Response;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) that represents one page of the edges of a
+ * session graph matching a filter.
+ *
+ * <p>
+ * The page is followed by the next one when the cursor it returns is sent
+ * with the same filter; the last page has no cursor.
+ * </p>
+ *
+ * @author JaviDebórtoli
+ */
+public class EdgePageResponse {
+    /** Edges of the page, in index order. */
+    private List<GraphEdgeResponse> edges;
+    /** Cursor of the next page, or {@code null} on the last page. */
+    private String nextCursor;
+
+    /**
+     * Returns the edges of the page.
+     *
+     * @return the list of {@link GraphEdgeResponse} elements
+     */
+    public List<GraphEdgeResponse> getEdges() {
+        return edges;
+    }
+
+    /**
+     * Sets the edges of the page.
+     *
+     * @param edges the list of {@link GraphEdgeResponse} elements
+     */
+    public void setEdges(List<GraphEdgeResponse> edges) {
+        this.edges = edges;
+    }
+
+    /**
+     * Returns the cursor of the next page.
+     *
+     * @return the cursor, or {@code null} on the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Sets the cursor of the next page.
+     *
+     * @param nextCursor the cursor, or {@code null} on the last page
+     */
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
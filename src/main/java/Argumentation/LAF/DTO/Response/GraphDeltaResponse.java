@@ -0,0 +1,126 @@
+package Argumentation.LAF.DTO.Response;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) that represents the difference between two
+ * versions of an argumentation graph.
+ *
+ * <p>
+ * Nodes are matched by identifier, so this DTO is only meaningful when both
+ * versions were produced with stable identifiers. A node whose identifier is
+ * present in both versions but whose labels differ is reported as changed.
+ * Edges have no identity of their own and are matched by their source,
+ * target and kind.
+ * </p>
+ *
+ * <p>
+ * Applying the delta to the previous version (removing, then adding and
+ * replacing) yields the new version of the graph.
+ * </p>
+ *
+ * @author JaviDebórtoli
+ */
+public class GraphDeltaResponse {
+    /** Nodes that are present only in the new version. */
+    private List<GraphNodeResponse> addedNodes = new ArrayList<>();
+    /** Nodes present in both versions whose labels changed, with their new values. */
+    private List<GraphNodeResponse> changedNodes = new ArrayList<>();
+    /** Identifiers of the nodes that are present only in the previous version. */
+    private List<String> removedNodes = new ArrayList<>();
+    /** Edges that are present only in the new version. */
+    private List<GraphEdgeResponse> addedEdges = new ArrayList<>();
+    /** Edges that are present only in the previous version. */
+    private List<GraphEdgeResponse> removedEdges = new ArrayList<>();
+
+    /**
+     * Returns the nodes added in the new version.
+     *
+     * @return the list of added {@link GraphNodeResponse} elements
+     */
+    public List<GraphNodeResponse> getAddedNodes() {
+        return addedNodes;
+    }
+
+    /**
+     * Returns the nodes whose labels changed, with their new values.
+     *
+     * @return the list of changed {@link GraphNodeResponse} elements
+     */
+    public List<GraphNodeResponse> getChangedNodes() {
+        return changedNodes;
+    }
+
+    /**
+     * Returns the identifiers of the removed nodes.
+     *
+     * @return the list of removed node identifiers
+     */
+    public List<String> getRemovedNodes() {
+        return removedNodes;
+    }
+
+    /**
+     * Returns the edges added in the new version.
+     *
+     * @return the list of added {@link GraphEdgeResponse} elements
+     */
+    public List<GraphEdgeResponse> getAddedEdges() {
+        return addedEdges;
+    }
+
+    /**
+     * Returns the edges removed in the new version.
+     *
+     * @return the list of removed {@link GraphEdgeResponse} elements
+     */
+    public List<GraphEdgeResponse> getRemovedEdges() {
+        return removedEdges;
+    }
+
+    /**
+     * Sets the nodes added in the new version.
+     *
+     * @param addedNodes the list of added {@link GraphNodeResponse} elements
+     */
+    public void setAddedNodes(List<GraphNodeResponse> addedNodes) {
+        this.addedNodes = addedNodes;
+    }
+
+    /**
+     * Sets the nodes whose labels changed.
+     *
+     * @param changedNodes the list of changed {@link GraphNodeResponse} elements
+     */
+    public void setChangedNodes(List<GraphNodeResponse> changedNodes) {
+        this.changedNodes = changedNodes;
+    }
+
+    /**
+     * Sets the identifiers of the removed nodes.
+     *
+     * @param removedNodes the list of removed node identifiers
+     */
+    public void setRemovedNodes(List<String> removedNodes) {
+        this.removedNodes = removedNodes;
+    }
+
+    /**
+     * Sets the edges added in the new version.
+     *
+     * @param addedEdges the list of added {@link GraphEdgeResponse} elements
+     */
+    public void setAddedEdges(List<GraphEdgeResponse> addedEdges) {
+        this.addedEdges = addedEdges;
+    }
+
+    /**
+     * Sets the edges removed in the new version.
+     *
+     * @param removedEdges the list of removed {@link GraphEdgeResponse} elements
+     */
+    public void setRemovedEdges(List<GraphEdgeResponse> removedEdges) {
+        this.removedEdges = removedEdges;
+    }
+}
@@ -0,0 +1,179 @@
+package Argumentation.LAF.DTO.Response;
+
+import Argumentation.LAF.Service.JobStatus;
+import java.time.Instant;
+
+/**
+ * Data Transfer Object (DTO) describing the state and progress of an
+ * asynchronous inference job.
+ *
+ * <p>
+ * Progress is reported per fixpoint round of the inference engine. The
+ * remaining work is an estimate, since the number of rounds a program needs
+ * is not known in advance.
+ * </p>
+ *
+ * @author JaviDebórtoli
+ */
+public class JobResponse {
+    /** Identifier of the job. */
+    private String jobId;
+    /** Current state of the job. */
+    private JobStatus status;
+    /** Last fixpoint round started by the engine. */
+    private int round;
+    /** Facts derived so far. */
+    private int derivedFacts;
+    /** Estimate of the rule activations still to come. */
+    private int estimatedRemaining;
+    /** Reason why the job failed, if it did. */
+    private String error;
+    /** Moment the job was submitted. */
+    private Instant submittedAt;
+    /** Moment the job finished, if it did. */
+    private Instant finishedAt;
+
+    /**
+     * Returns the identifier of the job.
+     *
+     * @return the job identifier
+     */
+    public String getJobId() {
+        return jobId;
+    }
+
+    /**
+     * Returns the current state of the job.
+     *
+     * @return the {@link JobStatus}
+     */
+    public JobStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns the last fixpoint round started by the engine.
+     *
+     * @return the round number, {@code 0} if the inference has not started
+     */
+    public int getRound() {
+        return round;
+    }
+
+    /**
+     * Returns the number of facts derived so far.
+     *
+     * @return the derived fact count
+     */
+    public int getDerivedFacts() {
+        return derivedFacts;
+    }
+
+    /**
+     * Returns the estimate of the rule activations still to come.
+     *
+     * @return the estimated remaining work
+     */
+    public int getEstimatedRemaining() {
+        return estimatedRemaining;
+    }
+
+    /**
+     * Returns the reason why the job failed.
+     *
+     * @return the error message, or {@code null} if the job did not fail
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Returns the moment the job was submitted.
+     *
+     * @return the submission instant
+     */
+    public Instant getSubmittedAt() {
+        return submittedAt;
+    }
+
+    /**
+     * Returns the moment the job finished.
+     *
+     * @return the completion instant, or {@code null} if the job is not finished
+     */
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    /**
+     * Sets the identifier of the job.
+     *
+     * @param jobId the job identifier
+     */
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    /**
+     * Sets the current state of the job.
+     *
+     * @param status the {@link JobStatus}
+     */
+    public void setStatus(JobStatus status) {
+        this.status = status;
+    }
+
+    /**
+     * Sets the last fixpoint round started by the engine.
+     *
+     * @param round the round number
+     */
+    public void setRound(int round) {
+        this.round = round;
+    }
+
+    /**
+     * Sets the number of facts derived so far.
+     *
+     * @param derivedFacts the derived fact count
+     */
+    public void setDerivedFacts(int derivedFacts) {
+        this.derivedFacts = derivedFacts;
+    }
+
+    /**
+     * Sets the estimate of the rule activations still to come.
+     *
+     * @param estimatedRemaining the estimated remaining work
+     */
+    public void setEstimatedRemaining(int estimatedRemaining) {
+        this.estimatedRemaining = estimatedRemaining;
+    }
+
+    /**
+     * Sets the reason why the job failed.
+     *
+     * @param error the error message
+     */
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    /**
+     * Sets the moment the job was submitted.
+     *
+     * @param submittedAt the submission instant
+     */
+    public void setSubmittedAt(Instant submittedAt) {
+        this.submittedAt = submittedAt;
+    }
+
+    /**
+     * Sets the moment the job finished.
+     *
+     * @param finishedAt the completion instant
+     */
+    public void setFinishedAt(Instant finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+}
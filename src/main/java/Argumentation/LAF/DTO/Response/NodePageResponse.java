@@ -0,0 +1,57 @@
+package Argumentation.LAF.DTO.Response;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) that represents one page of the nodes of a
+ * session graph matching a filter.
+ *
+ * <p>
+ * The page is followed by the next one when the cursor it returns is sent
+ * with the same filter; the last page has no cursor.
+ * </p>
+ *
+ * @author JaviDebórtoli
+ */
+public class NodePageResponse {
+    /** Nodes of the page, in index order. */
+    private List<GraphNodeResponse> nodes;
+    /** Cursor of the next page, or {@code null} on the last page. */
+    private String nextCursor;
+
+    /**
+     * Returns the nodes of the page.
+     *
+     * @return the list of {@link GraphNodeResponse} elements
+     */
+    public List<GraphNodeResponse> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Sets the nodes of the page.
+     *
+     * @param nodes the list of {@link GraphNodeResponse} elements
+     */
+    public void setNodes(List<GraphNodeResponse> nodes) {
+        this.nodes = nodes;
+    }
+
+    /**
+     * Returns the cursor of the next page.
+     *
+     * @return the cursor, or {@code null} on the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Sets the cursor of the next page.
+     *
+     * @param nextCursor the cursor, or {@code null} on the last page
+     */
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,79 @@
+package Argumentation.LAF.DTO.Response;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) returned by a goal-directed query.
+ *
+ * <p>
+ * It contains the final nodes of the goal (one per argument, after
+ * aggregation and conflict) and the part of the argumentation graph that
+ * was evaluated to obtain them. Labels coincide with those of the same
+ * nodes in the complete graph.
+ * </p>
+ *
+ * @author JaviDebórtoli
+ */
+public class QueryResponse {
+    /** Final nodes of the goal predicate. */
+    private List<GraphNodeResponse> answers;
+    /** Relevant subgraph evaluated to answer the query. */
+    private GraphResponse graph;
+    /** Number of arguments a ranked query skipped without evaluating them, or {@code null}. */
+    private Integer prunedArguments;
+
+    /**
+     * Returns the final nodes of the goal predicate.
+     *
+     * @return the list of answer {@link GraphNodeResponse} elements
+     */
+    public List<GraphNodeResponse> getAnswers() {
+        return answers;
+    }
+
+    /**
+     * Returns the relevant subgraph evaluated to answer the query.
+     *
+     * @return the relevant {@link GraphResponse}
+     */
+    public GraphResponse getGraph() {
+        return graph;
+    }
+
+    /**
+     * Sets the final nodes of the goal predicate.
+     *
+     * @param answers the list of answer {@link GraphNodeResponse} elements
+     */
+    public void setAnswers(List<GraphNodeResponse> answers) {
+        this.answers = answers;
+    }
+
+    /**
+     * Sets the relevant subgraph evaluated to answer the query.
+     *
+     * @param graph the relevant {@link GraphResponse}
+     */
+    public void setGraph(GraphResponse graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Returns the number of arguments a ranked query skipped because their
+     * goal nodes could not be answered.
+     *
+     * @return the number of pruned arguments, or {@code null} for other queries
+     */
+    public Integer getPrunedArguments() {
+        return prunedArguments;
+    }
+
+    /**
+     * Sets the number of arguments a ranked query skipped.
+     *
+     * @param prunedArguments the number of pruned arguments
+     */
+    public void setPrunedArguments(Integer prunedArguments) {
+        this.prunedArguments = prunedArguments;
+    }
+}
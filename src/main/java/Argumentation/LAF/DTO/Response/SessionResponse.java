@@ -0,0 +1,55 @@
+package Argumentation.LAF.DTO.Response;
+
+/**
+ * Data Transfer Object (DTO) returned when a reasoning session is opened.
+ *
+ * <p>
+ * It carries the identifier that must be used in subsequent session
+ * operations together with the initial materialized graph, whose node
+ * identifiers remain stable for the lifetime of the session.
+ * </p>
+ *
+ * @author JaviDebórtoli
+ */
+public class SessionResponse {
+    /** Identifier of the session. */
+    private String sessionId;
+    /** Graph materialized when the session was opened. */
+    private GraphResponse graph;
+
+    /**
+     * Returns the identifier of the session.
+     *
+     * @return the session identifier
+     */
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    /**
+     * Returns the graph materialized when the session was opened.
+     *
+     * @return the initial {@link GraphResponse}
+     */
+    public GraphResponse getGraph() {
+        return graph;
+    }
+
+    /**
+     * Sets the identifier of the session.
+     *
+     * @param sessionId the session identifier
+     */
+    public void setSessionId(String sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    /**
+     * Sets the initial graph of the session.
+     *
+     * @param graph the initial {@link GraphResponse}
+     */
+    public void setGraph(GraphResponse graph) {
+        this.graph = graph;
+    }
+}
@@ -0,0 +1,110 @@
+package Argumentation.LAF.DTO.Response;
+
+/**
+ * Data Transfer Object (DTO) that reports the usage of the memo of support
+ * results shared by the inference runs.
+ *
+ * @author JaviDebórtoli
+ */
+public class SupportMemoResponse {
+    /** Maximum number of results kept. */
+    private int capacity;
+    /** Number of results currently kept. */
+    private int size;
+    /** Number of supports answered by the memo. */
+    private long hits;
+    /** Number of supports that had to be computed. */
+    private long misses;
+    /** Fraction of supports answered by the memo. */
+    private double hitRate;
+
+    /**
+     * Returns the maximum number of results kept.
+     *
+     * @return the capacity of the memo
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Sets the maximum number of results kept.
+     *
+     * @param capacity the capacity of the memo
+     */
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Returns the number of results currently kept.
+     *
+     * @return the size of the memo
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Sets the number of results currently kept.
+     *
+     * @param size the size of the memo
+     */
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    /**
+     * Returns the number of supports answered by the memo.
+     *
+     * @return the number of hits
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Sets the number of supports answered by the memo.
+     *
+     * @param hits the number of hits
+     */
+    public void setHits(long hits) {
+        this.hits = hits;
+    }
+
+    /**
+     * Returns the number of supports that had to be computed.
+     *
+     * @return the number of misses
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Sets the number of supports that had to be computed.
+     *
+     * @param misses the number of misses
+     */
+    public void setMisses(long misses) {
+        this.misses = misses;
+    }
+
+    /**
+     * Returns the fraction of supports answered by the memo.
+     *
+     * @return the hit rate, between {@code 0} and {@code 1}
+     */
+    public double getHitRate() {
+        return hitRate;
+    }
+
+    /**
+     * Sets the fraction of supports answered by the memo.
+     *
+     * @param hitRate the hit rate
+     */
+    public void setHitRate(double hitRate) {
+        this.hitRate = hitRate;
+    }
+}
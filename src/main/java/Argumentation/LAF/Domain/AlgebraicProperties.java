@@ -0,0 +1,104 @@
+package Argumentation.LAF.Domain;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.DoubleBinaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * Recognizes label algebra functions that are associative and commutative,
+ * so that many operands can be combined by a parallel reduction instead of
+ * a left-to-right fold.
+ *
+ * <p>
+ * Only the usual aggregations are recognized, by their syntax, and replaced
+ * by a Java operator performing the same arithmetic:
+ * </p>
+ * <ul>
+ *   <li>{@code max}, written {@code (X+Y+abs(X-Y))/2};</li>
+ *   <li>{@code min}, written {@code (X+Y-abs(X-Y))/2};</li>
+ *   <li>sum, {@code X+Y};</li>
+ *   <li>probabilistic sum, {@code X+Y-X*Y};</li>
+ *   <li>product, {@code X*Y}.</li>
+ * </ul>
+ * <p>
+ * Any other function is folded, even if it happens to be associative: no
+ * finite set of samples can prove that it is.
+ * </p>
+ *
+ * <p>
+ * Even these operators are associative only up to floating-point rounding,
+ * so a reduction may differ from the fold in the last bits. The
+ * {@link #reduce reduction} therefore has a fixed shape, which depends on
+ * the number of operands only and not on how many threads run it, so that
+ * the same facts always aggregate to the same label.
+ * </p>
+ *
+ * @author JaviDebórtoli
+ */
+public final class AlgebraicProperties {
+    /** Number of consecutive operands folded by one task of a reduction. */
+    static final int CHUNK_SIZE = 256;
+
+    /** Operators perform the same floating-point operations as the expressions they replace. */
+    private static final Map<String, DoubleBinaryOperator> KNOWN = Map.ofEntries(
+            Map.entry("(X+Y+abs(X-Y))/2", (x, y) -> (x + y + Math.abs(x - y)) / 2),
+            Map.entry("(Y+X+abs(X-Y))/2", (x, y) -> (y + x + Math.abs(x - y)) / 2),
+            Map.entry("(X+Y+abs(Y-X))/2", (x, y) -> (x + y + Math.abs(y - x)) / 2),
+            Map.entry("(Y+X+abs(Y-X))/2", (x, y) -> (y + x + Math.abs(y - x)) / 2),
+            Map.entry("(X+Y-abs(X-Y))/2", (x, y) -> (x + y - Math.abs(x - y)) / 2),
+            Map.entry("(Y+X-abs(X-Y))/2", (x, y) -> (y + x - Math.abs(x - y)) / 2),
+            Map.entry("(X+Y-abs(Y-X))/2", (x, y) -> (x + y - Math.abs(y - x)) / 2),
+            Map.entry("(Y+X-abs(Y-X))/2", (x, y) -> (y + x - Math.abs(y - x)) / 2),
+            Map.entry("X+Y", (x, y) -> x + y),
+            Map.entry("Y+X", (x, y) -> y + x),
+            Map.entry("X+Y-X*Y", (x, y) -> x + y - x * y),
+            Map.entry("Y+X-X*Y", (x, y) -> y + x - x * y),
+            Map.entry("X+Y-Y*X", (x, y) -> x + y - y * x),
+            Map.entry("X*Y", (x, y) -> x * y),
+            Map.entry("Y*X", (x, y) -> y * x));
+
+    private AlgebraicProperties() {
+    }
+
+    /**
+     * Returns an operator computing a function of {@code X} and {@code Y}
+     * if the function is one of the associative and commutative
+     * aggregations recognized.
+     *
+     * @param function the function
+     * @return the operator, or empty if the function is not recognized
+     */
+    public static Optional<DoubleBinaryOperator> associativeOperator(String function) {
+        if (function == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(KNOWN.get(function.replaceAll("\\s+", "")));
+    }
+
+    /**
+     * Combines values with an associative operator, in parallel. Runs of
+     * {@link #CHUNK_SIZE} consecutive values are folded concurrently, and
+     * their results are then folded in order.
+     *
+     * @param values  the values, at least one
+     * @param combine the operator
+     * @return the combination of every value
+     */
+    static double reduce(double[] values, DoubleBinaryOperator combine) {
+        int chunks = (values.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        double[] partial = IntStream.range(0, chunks).parallel()
+                .mapToDouble(chunk -> fold(values, chunk * CHUNK_SIZE,
+                        Math.min(values.length, (chunk + 1) * CHUNK_SIZE), combine))
+                .toArray();
+        return fold(partial, 0, chunks, combine);
+    }
+
+    private static double fold(double[] values, int from, int to, DoubleBinaryOperator combine) {
+        double result = values[from];
+        for (int i = from + 1; i < to; i++) {
+            result = combine.applyAsDouble(result, values[i]);
+        }
+        return result;
+    }
+}
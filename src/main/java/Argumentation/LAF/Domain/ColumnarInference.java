@@ -0,0 +1,751 @@
+package Argumentation.LAF.Domain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import net.objecthunter.exp4j.Expression;
+
+/**
+ * Evaluates the inference of many arguments at once, one label operation
+ * over all of them at a time, instead of one argument at a time.
+ *
+ * <p>
+ * Every rule has the form {@code head(X) :- body(X)}, and what the
+ * {@link InferenceEngine} does for an argument (which rules fire, which
+ * facts are aggregated, which are in conflict) only depends on the
+ * predicates of the facts of that argument, in order, never on their
+ * labels. Arguments whose facts have the same predicates in the same order
+ * (the same <i>signature</i>) therefore go through the same derivation and
+ * only differ in their labels. For each signature:
+ * </p>
+ * <ol>
+ *   <li>The engine runs once over a template argument and records every
+ *       label operation it performs, in order.</li>
+ *   <li>The labels of all the arguments with the signature are laid out as
+ *       columns, one value per argument, and the recorded operations are
+ *       replayed over whole columns with {@link LabelKernels}. Functions that
+ *       are not built-in kernels are evaluated with exp4j, value by value.</li>
+ *   <li>The graph of the template is instantiated for every argument with
+ *       its own facts and labels.</li>
+ * </ol>
+ *
+ * <p>
+ * Operations are replayed in the order and with the arithmetic of the
+ * engine, rounded to the {@link LabelPrecision} of each label as the engine
+ * rounds them, so labels are bit-identical to running the engine over each
+ * argument. Only numeric labels are supported: when a label or a function
+ * is not numeric, the engine combined more facts than a column replay
+ * reproduces, or an aggregation detached the edges of a rule, no result is
+ * returned and the caller runs the engine instead.
+ * </p>
+ *
+ * @author JaviDebórtoli
+ */
+public final class ColumnarInference {
+
+    private ColumnarInference() {
+    }
+
+    /**
+     * Derives the graph of every argument separately, as running the
+     * engine over the facts of each argument would.
+     *
+     * <p>
+     * The base facts are put in the graphs as they are, and receive the
+     * delta attributes of the conflicts they take part in; callers that
+     * keep them pass copies.
+     * </p>
+     *
+     * @param factsByArgument base facts of each argument
+     * @param rules           rules of the program
+     * @param functions       label algebra function table
+     * @return the graph of each argument, in the order of the given map,
+     *         or empty if the program cannot be evaluated by columns
+     */
+    public static Optional<Map<String, ArgumentativeGraph>> partitions(Map<String, List<Fact>> factsByArgument,
+                                                                      List<Rule> rules, String[][] functions) {
+        return evaluate(factsByArgument, rules, functions);
+    }
+
+    /**
+     * Derives the graph of a whole program, as running the engine over all
+     * its facts would.
+     *
+     * <p>
+     * The engine derives every argument independently, so the graph of the
+     * program is the union of the graphs of its arguments.
+     * </p>
+     *
+     * @param facts     base facts of the program
+     * @param rules     rules of the program
+     * @param functions label algebra function table
+     * @return the argumentative graph, or empty if the program cannot be
+     *         evaluated by columns
+     */
+    public static Optional<ArgumentativeGraph> graph(List<Fact> facts, List<Rule> rules, String[][] functions) {
+        Map<String, List<Fact>> factsByArgument = new LinkedHashMap<>();
+        for (Fact fact : facts) {
+            factsByArgument.computeIfAbsent(fact.getArgument(), k -> new ArrayList<>()).add(fact);
+        }
+
+        return evaluate(factsByArgument, rules, functions).map(partitions -> merge(partitions.values()));
+    }
+
+    /**
+     * Derives the graph of a whole program whose base facts are held in an
+     * {@link OffHeapFactStore}, as {@link #graph(List, List, String[][])}
+     * does. Labels are read from the columns of the store, and only the base
+     * facts that take part in the graph are rebuilt on the heap.
+     *
+     * @param store      base facts of the program
+     * @param predicates predicates of the facts of the store that take part in
+     *                   the program; facts of other predicates are skipped
+     * @param rules      rules of the program
+     * @param functions  label algebra function table
+     * @return the argumentative graph, or empty if the program cannot be
+     *         evaluated by columns
+     */
+    public static Optional<ArgumentativeGraph> graph(OffHeapFactStore store, Set<String> predicates,
+                                                     List<Rule> rules, String[][] functions) {
+        if (!store.isNumeric() || store.labelCount() != functions.length) {
+            return Optional.empty();
+        }
+        Combiner[][] combiners;
+        try {
+            combiners = combiners(functions);
+        } catch (IllegalArgumentException exception) {
+            return Optional.empty();
+        }
+
+        boolean[] kept = new boolean[store.predicates().size()];
+        for (int predicate = 0; predicate < kept.length; predicate++) {
+            kept[predicate] = predicates.contains(store.predicates().get(predicate));
+        }
+
+        // Facts are sorted by argument, keeping their order within each argument
+        int arguments = store.argumentCount();
+        int[] start = new int[arguments + 1];
+        for (int fact = 0; fact < store.size(); fact++) {
+            if (kept[store.predicateId(fact)]) {
+                start[store.argumentId(fact) + 1]++;
+            }
+        }
+        for (int argument = 0; argument < arguments; argument++) {
+            start[argument + 1] += start[argument];
+        }
+        int[] order = new int[start[arguments]];
+        int[] next = Arrays.copyOf(start, arguments);
+        for (int fact = 0; fact < store.size(); fact++) {
+            if (kept[store.predicateId(fact)]) {
+                order[next[store.argumentId(fact)]++] = fact;
+            }
+        }
+
+        // Arguments are grouped by the predicates of their facts, in order
+        Map<List<Integer>, List<Integer>> groups = new LinkedHashMap<>();
+        for (int argument = 0; argument < arguments; argument++) {
+            if (start[argument + 1] == start[argument]) {
+                continue; // All the facts of the argument were skipped
+            }
+            List<Integer> signature = new ArrayList<>(start[argument + 1] - start[argument]);
+            for (int k = start[argument]; k < start[argument + 1]; k++) {
+                signature.add(store.predicateId(order[k]));
+            }
+            groups.computeIfAbsent(signature, k -> new ArrayList<>()).add(argument);
+        }
+
+        ArgumentativeGraph[] graphs = new ArgumentativeGraph[arguments];
+        for (List<Integer> members : groups.values()) {
+            int[] lanes = members.stream().mapToInt(Integer::intValue).toArray();
+            Optional<List<ArgumentativeGraph>> evaluated = evaluateGroup(
+                    new StoreGroup(store, order, start, lanes), rules, functions, combiners);
+            if (evaluated.isEmpty()) {
+                return Optional.empty();
+            }
+            for (int lane = 0; lane < lanes.length; lane++) {
+                graphs[lanes[lane]] = evaluated.get().get(lane);
+            }
+        }
+        return Optional.of(merge(Arrays.stream(graphs).filter(Objects::nonNull).toList()));
+    }
+
+    /**
+     * Joins the graphs of separate arguments into the graph of the program.
+     */
+    private static ArgumentativeGraph merge(Iterable<ArgumentativeGraph> partitions) {
+        Map<KnowledgePiece, List<Fact>> edges = new HashMap<>();
+        List<PairInConflict> conflicts = new ArrayList<>();
+        for (ArgumentativeGraph partition : partitions) {
+            partition.edges().forEach((origin, derived) ->
+                    edges.computeIfAbsent(origin, k -> new ArrayList<>()).addAll(derived));
+            conflicts.addAll(partition.conflictiveNodes());
+        }
+        return new ArgumentativeGraph(edges, conflicts);
+    }
+
+    private static Optional<Map<String, ArgumentativeGraph>> evaluate(Map<String, List<Fact>> factsByArgument,
+                                                                     List<Rule> rules, String[][] functions) {
+        Combiner[][] combiners;
+        try {
+            combiners = combiners(functions);
+        } catch (IllegalArgumentException exception) {
+            return Optional.empty();
+        }
+
+        // Arguments are grouped by the predicates of their facts, in order
+        Map<List<String>, List<String>> groups = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Fact>> entry : factsByArgument.entrySet()) {
+            List<String> signature = entry.getValue().stream().map(Fact::getName).toList();
+            groups.computeIfAbsent(signature, k -> new ArrayList<>()).add(entry.getKey());
+        }
+
+        Map<String, ArgumentativeGraph> graphs = new HashMap<>();
+        for (List<String> arguments : groups.values()) {
+            List<List<Fact>> lanes = new ArrayList<>(arguments.size());
+            for (String argument : arguments) {
+                lanes.add(factsByArgument.get(argument));
+            }
+            Optional<List<ArgumentativeGraph>> evaluated = evaluateGroup(
+                    new HeapGroup(lanes, functions.length), rules, functions, combiners);
+            if (evaluated.isEmpty()) {
+                return Optional.empty();
+            }
+            for (int lane = 0; lane < arguments.size(); lane++) {
+                graphs.put(arguments.get(lane), evaluated.get().get(lane));
+            }
+        }
+
+        Map<String, ArgumentativeGraph> ordered = new LinkedHashMap<>();
+        for (String argument : factsByArgument.keySet()) {
+            ordered.put(argument, graphs.get(argument));
+        }
+        return Optional.of(ordered);
+    }
+
+    /**
+     * Derives the graphs of the arguments of one signature.
+     */
+    private static Optional<List<ArgumentativeGraph>> evaluateGroup(Group group, List<Rule> rules,
+                                                                    String[][] functions, Combiner[][] combiners) {
+        // The template works on copies, since the engine mutates the labels of its facts
+        List<Fact> template = new ArrayList<>();
+        for (int slot = 0; slot < group.facts(); slot++) {
+            Fact fact = group.fact(0, slot);
+            template.add(new Fact(fact.getName(), fact.getArgument(), fact.getAttributes()));
+        }
+        Recorder recorder = new Recorder(template);
+        ArgumentativeGraph graph = new InferenceEngine(new ArrayList<>(template), rules, functions)
+                .buildTree(recorder);
+        // Detached rule edges are not replayed: the engine alone decides which edges survive
+        if (recorder.unsupported || recorder.ruleDetached) {
+            return Optional.empty();
+        }
+
+        Columns columns;
+        try {
+            columns = new Columns(group, LabelPrecision.of(functions));
+            columns.replay(recorder.steps, combiners);
+        } catch (IllegalArgumentException exception) {
+            return Optional.empty();
+        }
+
+        List<ArgumentativeGraph> graphs = new ArrayList<>(group.size());
+        for (int lane = 0; lane < group.size(); lane++) {
+            Optional<ArgumentativeGraph> instance = instantiate(graph, recorder, columns, group, lane);
+            if (instance.isEmpty()) {
+                return Optional.empty();
+            }
+            graphs.add(instance.get());
+        }
+        return Optional.of(graphs);
+    }
+
+    /**
+     * Builds the graph of one argument from the graph of the template.
+     */
+    private static Optional<ArgumentativeGraph> instantiate(ArgumentativeGraph graph, Recorder recorder,
+                                                            Columns columns, Group group, int lane) {
+        Fact[] facts = new Fact[recorder.slots.size()];
+        String argument = group.argument(lane);
+
+        Map<KnowledgePiece, List<Fact>> edges = new HashMap<>();
+        for (Map.Entry<KnowledgePiece, List<Fact>> entry : graph.edges().entrySet()) {
+            KnowledgePiece origin = entry.getKey() instanceof Fact fact
+                    ? instance(fact, recorder, columns, group, argument, lane, facts)
+                    : entry.getKey();
+            List<Fact> derived = new ArrayList<>(entry.getValue().size());
+            for (Fact fact : entry.getValue()) {
+                derived.add(instance(fact, recorder, columns, group, argument, lane, facts));
+            }
+            if (origin == null || derived.contains(null)) {
+                return Optional.empty();
+            }
+            edges.put(origin, derived);
+        }
+
+        List<PairInConflict> conflicts = new ArrayList<>(graph.conflictiveNodes().size());
+        for (PairInConflict pair : graph.conflictiveNodes()) {
+            Fact first = instance(pair.first(), recorder, columns, group, argument, lane, facts);
+            Fact second = instance(pair.second(), recorder, columns, group, argument, lane, facts);
+            if (first == null || second == null) {
+                return Optional.empty();
+            }
+            conflicts.add(new PairInConflict(first, second));
+        }
+        return Optional.of(new ArgumentativeGraph(edges, conflicts));
+    }
+
+    /**
+     * Returns the fact of one argument that corresponds to a fact of the
+     * template, creating it the first time.
+     *
+     * @return the fact, or {@code null} if the template fact was not recorded
+     */
+    private static Fact instance(Fact fact, Recorder recorder, Columns columns, Group group,
+                                 String argument, int lane, Fact[] facts) {
+        Integer slot = recorder.slots.get(fact);
+        if (slot == null) {
+            return null;
+        }
+        if (facts[slot] == null) {
+            facts[slot] = slot < group.facts()
+                    ? group.fact(lane, slot)
+                    : new Fact(fact.getName(), argument, columns.labels(slot, lane));
+            if (columns.attacked(slot)) {
+                facts[slot].setDeltaAttributes(columns.deltaLabels(slot, lane));
+            }
+        }
+        return facts[slot];
+    }
+
+    /**
+     * Resolves the function table: built-in operations run as kernels,
+     * other functions are compiled for exp4j.
+     *
+     * @throws IllegalArgumentException if a function is not numeric
+     */
+    private static Combiner[][] combiners(String[][] functions) {
+        Combiner[][] combiners = new Combiner[functions.length][3];
+        for (int i = 0; i < functions.length; i++) {
+            for (int j = 0; j < 3; j++) {
+                String function = functions[i][j];
+                Optional<LabelKernels.Operation> operation = LabelKernels.Operation.of(function);
+                combiners[i][j] = operation.isPresent()
+                        ? new Combiner(operation.get(), null)
+                        : new Combiner(null, ExpressionCache.compile(function));
+            }
+        }
+        return combiners;
+    }
+
+    /**
+     * Applies a label algebra function to columns of values.
+     *
+     * @param operation  the built-in operation, or {@code null}
+     * @param expression the compiled function, used when there is no built-in operation
+     */
+    private record Combiner(LabelKernels.Operation operation, Expression expression) {
+        void apply(double[] x, double[] y, double[] out) {
+            if (operation != null) {
+                LabelKernels.apply(operation, x, y, out, out.length);
+                return;
+            }
+            for (int i = 0; i < out.length; i++) {
+                out[i] = expression.setVariable("X", x[i]).setVariable("Y", y[i]).evaluate();
+            }
+        }
+    }
+
+    /**
+     * Base facts of the arguments of one signature; argument {@code lane}
+     * has its {@code slot}-th fact at position {@code (lane, slot)}.
+     */
+    private interface Group {
+        /** Number of arguments. */
+        int size();
+
+        /** Number of facts of every argument. */
+        int facts();
+
+        String argument(int lane);
+
+        /** The base fact, as it is put in the graph. */
+        Fact fact(int lane, int slot);
+
+        /**
+         * The value of a label.
+         *
+         * @throws IllegalArgumentException if the label is not numeric
+         */
+        double label(int lane, int slot, int label);
+
+        /** A label as it was written. */
+        String text(int lane, int slot, int label);
+    }
+
+    /**
+     * Base facts held on the heap.
+     */
+    private record HeapGroup(List<List<Fact>> lanes, int labels) implements Group {
+        @Override
+        public int size() {
+            return lanes.size();
+        }
+
+        @Override
+        public int facts() {
+            return lanes.getFirst().size();
+        }
+
+        @Override
+        public String argument(int lane) {
+            return lanes.get(lane).getFirst().getArgument();
+        }
+
+        @Override
+        public Fact fact(int lane, int slot) {
+            return lanes.get(lane).get(slot);
+        }
+
+        @Override
+        public double label(int lane, int slot, int label) {
+            String[] attributes = fact(lane, slot).getAttributes();
+            if (attributes == null || attributes.length != labels) {
+                throw new IllegalArgumentException("Expected " + labels + " labels");
+            }
+            return Double.parseDouble(attributes[label]);
+        }
+
+        @Override
+        public String text(int lane, int slot, int label) {
+            return fact(lane, slot).getAttributes()[label];
+        }
+    }
+
+    /**
+     * Base facts held in an {@link OffHeapFactStore}, sorted by argument
+     * in {@code order} with argument {@code a} from {@code start[a]}.
+     */
+    private record StoreGroup(OffHeapFactStore store, int[] order, int[] start, int[] arguments) implements Group {
+        @Override
+        public int size() {
+            return arguments.length;
+        }
+
+        @Override
+        public int facts() {
+            return start[arguments[0] + 1] - start[arguments[0]];
+        }
+
+        @Override
+        public String argument(int lane) {
+            return store.argument(index(lane, 0));
+        }
+
+        @Override
+        public Fact fact(int lane, int slot) {
+            return store.toFact(index(lane, slot));
+        }
+
+        @Override
+        public double label(int lane, int slot, int label) {
+            return store.label(index(lane, slot), label);
+        }
+
+        @Override
+        public String text(int lane, int slot, int label) {
+            return store.text(index(lane, slot), label);
+        }
+
+        private int index(int lane, int slot) {
+            return order[start[arguments[lane]] + slot];
+        }
+    }
+
+    /**
+     * A label operation recorded from the template. Facts are referred to
+     * by slot: slot {@code k < n} is the {@code k}-th base fact, and every
+     * fact labelled by an operation receives the next slot.
+     */
+    private sealed interface Step permits Support, Aggregation, Attack {
+    }
+
+    private record Support(int fact, int[] premises, Rule rule) implements Step {
+    }
+
+    private record Aggregation(int fact, int[] aggregated) implements Step {
+    }
+
+    private record Attack(int first, int second) implements Step {
+    }
+
+    /**
+     * Records the label operations of the template run.
+     */
+    private static final class Recorder implements InferenceEngine.LabelTrace {
+        /** Slot of each template fact; facts have identity semantics. */
+        private final Map<Fact, Integer> slots = new HashMap<>();
+        private final List<Step> steps = new ArrayList<>();
+        /** Set when the engine combined facts in a way the replay does not reproduce. */
+        private boolean unsupported;
+        /** Set when the edges of a rule were discarded by an aggregation. */
+        private boolean ruleDetached;
+
+        Recorder(List<Fact> base) {
+            for (Fact fact : base) {
+                slots.put(fact, slots.size());
+            }
+        }
+
+        @Override
+        public void supported(Fact fact, List<Fact> premises, Rule rule) {
+            int[] operands = slotsOf(premises);
+            if (operands != null) {
+                steps.add(new Support(assign(fact), operands, rule));
+            }
+        }
+
+        @Override
+        public void aggregated(Fact fact, List<Fact> aggregated) {
+            // Large aggregations may be reduced in parallel, in an order the replay does not follow
+            if (aggregated.size() >= InferenceEngine.PARALLEL_AGGREGATION_THRESHOLD) {
+                unsupported = true;
+                return;
+            }
+            int[] operands = slotsOf(aggregated);
+            if (operands != null) {
+                steps.add(new Aggregation(assign(fact), operands));
+            }
+        }
+
+        @Override
+        public void attacked(Fact first, Fact second) {
+            int[] operands = slotsOf(List.of(first, second));
+            if (operands != null) {
+                steps.add(new Attack(operands[0], operands[1]));
+            }
+        }
+
+        @Override
+        public void detached(List<KnowledgePiece> pieces) {
+            for (KnowledgePiece piece : pieces) {
+                if (piece instanceof Rule) {
+                    ruleDetached = true;
+                }
+            }
+        }
+
+        private int assign(Fact fact) {
+            int slot = slots.size();
+            slots.put(fact, slot);
+            return slot;
+        }
+
+        private int[] slotsOf(List<Fact> facts) {
+            int[] operands = new int[facts.size()];
+            for (int k = 0; k < operands.length; k++) {
+                Integer slot = slots.get(facts.get(k));
+                if (slot == null) {
+                    unsupported = true;
+                    return null;
+                }
+                operands[k] = slot;
+            }
+            return operands;
+        }
+    }
+
+    /**
+     * Label values of every slot, one column per label with one value per
+     * argument.
+     */
+    private static final class Columns {
+        private final Group group;
+        private final int lanes;
+        private final int labels;
+        private final LabelPrecision[] precisions;
+        /** Values of each slot, indexed by label and argument. */
+        private final List<double[][]> values = new ArrayList<>();
+        /**
+         * Text of each derived slot, indexed by label and argument, for values
+         * that are passed on unchanged; {@code null} where the text is that of
+         * the value. Base slots take their text from the group.
+         */
+        private final List<String[][]> texts = new ArrayList<>();
+        /** Delta values of the slots in conflict. */
+        private final Map<Integer, double[][]> deltas = new HashMap<>();
+
+        /**
+         * Lays out the labels of the base facts, read in the precision of
+         * each label.
+         *
+         * @throws IllegalArgumentException if a label is not numeric or a
+         *                                  fact does not have a value per label
+         */
+        Columns(Group group, LabelPrecision[] precisions) {
+            this.group = group;
+            this.lanes = group.size();
+            this.labels = precisions.length;
+            this.precisions = precisions;
+            for (int slot = 0; slot < group.facts(); slot++) {
+                double[][] value = new double[labels][lanes];
+                for (int lane = 0; lane < lanes; lane++) {
+                    for (int i = 0; i < labels; i++) {
+                        value[i][lane] = precisions[i] == LabelPrecision.DOUBLE
+                                ? group.label(lane, slot, i)
+                                : precisions[i].parse(group.text(lane, slot, i));
+                    }
+                }
+                values.add(value);
+                texts.add(null);
+            }
+        }
+
+        /**
+         * Replays the recorded operations over the columns.
+         *
+         * @throws IllegalArgumentException if a label of a rule is not numeric
+         *                                  or a function cannot be evaluated
+         */
+        void replay(List<Step> steps, Combiner[][] combiners) {
+            for (Step step : steps) {
+                switch (step) {
+                    case Support support -> support(support, combiners);
+                    case Aggregation aggregation -> aggregate(aggregation, combiners);
+                    case Attack attack -> attack(attack, combiners);
+                }
+            }
+        }
+
+        /**
+         * {@code 0} combined with every premise and then with the rule, clamped.
+         * Every result is rounded to the precision of the label, as the
+         * engine rounds it.
+         */
+        private void support(Support support, Combiner[][] combiners) {
+            String[] ruleLabels = support.rule().getAttributes();
+            checkLabels(ruleLabels);
+            double[][] value = new double[labels][];
+            double[] rule = new double[lanes];
+            for (int i = 0; i < labels; i++) {
+                double[] accumulator = new double[lanes];
+                for (int premise : support.premises()) {
+                    combiners[i][0].apply(accumulator, values.get(premise)[i], accumulator);
+                    precisions[i].round(accumulator, lanes);
+                }
+                Arrays.fill(rule, precisions[i].parse(ruleLabels[i]));
+                combiners[i][0].apply(accumulator, rule, accumulator);
+                precisions[i].round(accumulator, lanes);
+                LabelKernels.clamp(accumulator, lanes);
+                value[i] = accumulator;
+            }
+            add(support.fact(), value, null);
+        }
+
+        /**
+         * The first fact folded with every other one, clamped. A single fact
+         * is passed on unchanged unless it is out of range.
+         */
+        private void aggregate(Aggregation aggregation, Combiner[][] combiners) {
+            int[] aggregated = aggregation.aggregated();
+            double[][] value = new double[labels][];
+            String[][] text = null;
+            for (int i = 0; i < labels; i++) {
+                double[] accumulator = values.get(aggregated[0])[i].clone();
+                for (int k = 1; k < aggregated.length; k++) {
+                    combiners[i][1].apply(accumulator, values.get(aggregated[k])[i], accumulator);
+                    precisions[i].round(accumulator, lanes);
+                }
+                if (aggregated.length == 1) {
+                    if (text == null) {
+                        text = new String[labels][];
+                    }
+                    text[i] = new String[lanes];
+                    for (int lane = 0; lane < lanes; lane++) {
+                        text[i][lane] = accumulator[lane] > 1 ? "1.0"
+                                : accumulator[lane] < 0 ? "0.0"
+                                : text(aggregated[0], i, lane);
+                    }
+                }
+                LabelKernels.clamp(accumulator, lanes);
+                value[i] = accumulator;
+            }
+            add(aggregation.fact(), value, text);
+        }
+
+        /**
+         * Each fact attacked by the other, clamped, from their original labels.
+         */
+        private void attack(Attack attack, Combiner[][] combiners) {
+            double[][] first = new double[labels][lanes];
+            double[][] second = new double[labels][lanes];
+            for (int i = 0; i < labels; i++) {
+                combiners[i][2].apply(values.get(attack.first())[i], values.get(attack.second())[i], first[i]);
+                combiners[i][2].apply(values.get(attack.second())[i], values.get(attack.first())[i], second[i]);
+                precisions[i].round(first[i], lanes);
+                precisions[i].round(second[i], lanes);
+                LabelKernels.clamp(first[i], lanes);
+                LabelKernels.clamp(second[i], lanes);
+            }
+            deltas.put(attack.first(), first);
+            deltas.put(attack.second(), second);
+        }
+
+        private void add(int slot, double[][] value, String[][] text) {
+            if (slot != values.size()) {
+                throw new IllegalStateException("Slot " + slot + " recorded out of order");
+            }
+            values.add(value);
+            texts.add(text);
+        }
+
+        private String text(int slot, int label, int lane) {
+            if (slot < group.facts()) {
+                return group.text(lane, slot, label);
+            }
+            String[][] text = texts.get(slot);
+            return text != null && text[label] != null
+                    ? text[label][lane]
+                    : precisions[label].format(values.get(slot)[label][lane]);
+        }
+
+        /**
+         * Returns the labels of a slot for one argument, as the engine writes them.
+         */
+        String[] labels(int slot, int lane) {
+            String[] result = new String[labels];
+            for (int i = 0; i < labels; i++) {
+                result[i] = text(slot, i, lane);
+            }
+            return result;
+        }
+
+        boolean attacked(int slot) {
+            return deltas.containsKey(slot);
+        }
+
+        /**
+         * Returns the delta labels of a slot in conflict for one argument.
+         */
+        String[] deltaLabels(int slot, int lane) {
+            double[][] delta = deltas.get(slot);
+            String[] result = new String[labels];
+            for (int i = 0; i < labels; i++) {
+                result[i] = precisions[i].format(delta[i][lane]);
+            }
+            return result;
+        }
+
+        private void checkLabels(String[] attributes) {
+            if (attributes == null || attributes.length != labels) {
+                throw new IllegalArgumentException("Expected " + labels + " labels");
+            }
+        }
+    }
+}
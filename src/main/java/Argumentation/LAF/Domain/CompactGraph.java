@@ -0,0 +1,381 @@
+package Argumentation.LAF.Domain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Frozen, compact form of an {@link ArgumentativeGraph}, in compressed
+ * sparse row (CSR) layout.
+ *
+ * <p>
+ * An {@code ArgumentativeGraph} keeps a hash map entry and a list per
+ * parent, which takes several times the memory of the edges themselves.
+ * Once inference is over the graph no longer changes, so it can be frozen:
+ * every node gets an {@code int} id, and edges are kept in a few arrays of
+ * ids:
+ * </p>
+ * <ul>
+ *   <li>forward adjacency: the children of node {@code n} are
+ *       {@code children[childOffsets[n] .. childOffsets[n + 1])};</li>
+ *   <li>reverse adjacency: the parents of every node, laid out the same way;</li>
+ *   <li>conflicts: one pair of ids per conflict, packed in a single array,
+ *       plus the conflicts of every node laid out the same way.</li>
+ * </ul>
+ *
+ * <p>
+ * Serialization only walks the forward adjacency and the conflict pairs,
+ * so the reverse adjacency, the conflicts of every node and the lookup of
+ * ids by node are built on first use.
+ * </p>
+ *
+ * <p>
+ * Node ids follow the order in which nodes are serialized: the parents in
+ * the order of the edge map, then the remaining children, then the facts
+ * only involved in conflicts. Children, parents and conflicts keep the order
+ * they have in the original graph, so traversals visit them as they would
+ * visit the map. Knowledge pieces do not define equality, so nodes are
+ * identified by identity, as in {@link NodeKeys}.
+ * </p>
+ *
+ * @author JaviDebórtoli
+ */
+public final class CompactGraph {
+    /** Node of every id. */
+    private final KnowledgePiece[] nodes;
+    /** Offsets of the children of the nodes that have an entry, possibly empty, in the edge map. */
+    private final int[] childOffsets;
+    private final int[] children;
+    /** Conflicting pairs, packed: pair {@code c} is {@code (conflicts[2c], conflicts[2c + 1])}. */
+    private final int[] conflicts;
+    /** Facts that have a rule among their parents. */
+    private final BitSet supported;
+    /** Parents of every node, built on first use. */
+    private volatile Adjacency parents;
+    /** Conflict pairs of every node, as pair indexes, built on first use. */
+    private volatile Adjacency nodeConflicts;
+    /**
+     * Identity hash code of every node in the upper half and its id in the
+     * lower half, sorted, built on first use.
+     */
+    private volatile long[] lookup;
+
+    /**
+     * Lists of ids laid out in CSR form: the list of node {@code n} is
+     * {@code ids[offsets[n] .. offsets[n + 1])}.
+     */
+    private record Adjacency(int[] offsets, int[] ids) {}
+
+    private CompactGraph(KnowledgePiece[] nodes, int[] childOffsets, int[] children, int[] conflicts) {
+        this.nodes = nodes;
+        this.childOffsets = childOffsets;
+        this.children = children;
+        this.conflicts = conflicts;
+        this.supported = new BitSet(nodes.length);
+        for (int node = 0; node < childOffsets.length - 1; node++) {
+            if (nodes[node] instanceof Rule) {
+                for (int edge = childOffsets[node]; edge < childOffsets[node + 1]; edge++) {
+                    supported.set(children[edge]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Freezes a graph. The graph is only read, and may be discarded afterwards.
+     *
+     * @param graph the graph to freeze
+     * @return the compact form of the graph
+     */
+    public static CompactGraph of(ArgumentativeGraph graph) {
+        Map<KnowledgePiece, Integer> ids = new IdentityHashMap<>();
+        List<KnowledgePiece> nodes = new ArrayList<>();
+        int edgeCount = 0;
+        for (Map.Entry<KnowledgePiece, List<Fact>> entry : graph.edges().entrySet()) {
+            id(entry.getKey(), ids, nodes);
+            edgeCount += entry.getValue().size();
+        }
+        int parentCount = nodes.size();
+
+        int[] childOffsets = new int[parentCount + 1];
+        int[] children = new int[edgeCount];
+        int edge = 0;
+        int parent = 0;
+        for (List<Fact> targets : graph.edges().values()) {
+            for (Fact child : targets) {
+                children[edge++] = id(child, ids, nodes);
+            }
+            childOffsets[++parent] = edge;
+        }
+
+        int[] conflicts = new int[2 * graph.conflictiveNodes().size()];
+        int member = 0;
+        for (PairInConflict pair : graph.conflictiveNodes()) {
+            conflicts[member++] = id(pair.first(), ids, nodes);
+            conflicts[member++] = id(pair.second(), ids, nodes);
+        }
+
+        return new CompactGraph(nodes.toArray(KnowledgePiece[]::new), childOffsets, children, conflicts);
+    }
+
+    private static int id(KnowledgePiece node, Map<KnowledgePiece, Integer> ids, List<KnowledgePiece> nodes) {
+        Integer id = ids.get(node);
+        if (id == null) {
+            id = nodes.size();
+            ids.put(node, id);
+            nodes.add(node);
+        }
+        return id;
+    }
+
+    /**
+     * Builds the parents of every node, by counting sort so that every node
+     * keeps its parents in edge order.
+     */
+    private Adjacency parents() {
+        Adjacency adjacency = parents;
+        if (adjacency == null) {
+            int[] offsets = new int[nodes.length + 1];
+            for (int child : children) {
+                offsets[child + 1]++;
+            }
+            prefixSum(offsets);
+            int[] ids = new int[children.length];
+            int[] next = Arrays.copyOf(offsets, nodes.length);
+            for (int parent = 0; parent < childOffsets.length - 1; parent++) {
+                for (int edge = childOffsets[parent]; edge < childOffsets[parent + 1]; edge++) {
+                    ids[next[children[edge]]++] = parent;
+                }
+            }
+            parents = adjacency = new Adjacency(offsets, ids);
+        }
+        return adjacency;
+    }
+
+    /**
+     * Builds the conflicts of every node, keeping them in conflict order.
+     */
+    private Adjacency nodeConflicts() {
+        Adjacency adjacency = nodeConflicts;
+        if (adjacency == null) {
+            int[] offsets = new int[nodes.length + 1];
+            for (int member : conflicts) {
+                offsets[member + 1]++;
+            }
+            prefixSum(offsets);
+            int[] ids = new int[conflicts.length];
+            int[] next = Arrays.copyOf(offsets, nodes.length);
+            for (int member = 0; member < conflicts.length; member++) {
+                ids[next[conflicts[member]]++] = member / 2;
+            }
+            nodeConflicts = adjacency = new Adjacency(offsets, ids);
+        }
+        return adjacency;
+    }
+
+    private static void prefixSum(int[] offsets) {
+        for (int i = 1; i < offsets.length; i++) {
+            offsets[i] += offsets[i - 1];
+        }
+    }
+
+    /**
+     * Returns the number of nodes.
+     *
+     * @return the number of nodes; ids range from {@code 0} to this value
+     */
+    public int nodeCount() {
+        return nodes.length;
+    }
+
+    /**
+     * Returns the node with the given id.
+     *
+     * @param node the id of the node
+     * @return the fact or rule
+     */
+    public KnowledgePiece node(int node) {
+        return nodes[node];
+    }
+
+    /**
+     * Returns the id of a node.
+     *
+     * @param node a fact or rule
+     * @return the id of the node, or {@code -1} if it is not in the graph
+     */
+    public int indexOf(KnowledgePiece node) {
+        long[] lookup = this.lookup;
+        if (lookup == null) {
+            lookup = new long[nodes.length];
+            for (int id = 0; id < nodes.length; id++) {
+                lookup[id] = (long) System.identityHashCode(nodes[id]) << 32 | id;
+            }
+            Arrays.sort(lookup);
+            this.lookup = lookup;
+        }
+        int hash = System.identityHashCode(node);
+        int at = Arrays.binarySearch(lookup, (long) hash << 32);
+        for (int i = at < 0 ? -at - 1 : at; i < lookup.length && (int) (lookup[i] >>> 32) == hash; i++) {
+            int id = (int) lookup[i];
+            if (nodes[id] == node) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of support and aggregation edges.
+     *
+     * @return the number of edges, conflicts excluded
+     */
+    public int edgeCount() {
+        return children.length;
+    }
+
+    /**
+     * Returns the number of children of a node.
+     *
+     * @param node the id of the node
+     * @return the number of facts derived from, or aggregating, the node
+     */
+    public int outDegree(int node) {
+        return node < childOffsets.length - 1 ? childOffsets[node + 1] - childOffsets[node] : 0;
+    }
+
+    /**
+     * Returns a child of a node.
+     *
+     * @param node the id of the node
+     * @param i    the position of the child, in edge order
+     * @return the id of the child
+     */
+    public int child(int node, int i) {
+        return children[childOffsets[node] + i];
+    }
+
+    /**
+     * Returns the position of the first edge out of a node among all the
+     * edges, which are numbered from {@code 0} in edge order. The edges out
+     * of a node have consecutive positions.
+     *
+     * @param node the id of the node
+     * @return the position of its first edge
+     */
+    public int firstEdge(int node) {
+        return childOffsets[Math.min(node, childOffsets.length - 1)];
+    }
+
+    /**
+     * Returns the number of parents of a node.
+     *
+     * @param node the id of the node
+     * @return the number of nodes the node is derived from or aggregates
+     */
+    public int inDegree(int node) {
+        Adjacency parents = parents();
+        return parents.offsets[node + 1] - parents.offsets[node];
+    }
+
+    /**
+     * Returns a parent of a node.
+     *
+     * @param node the id of the node
+     * @param i    the position of the parent, in edge order
+     * @return the id of the parent
+     */
+    public int parent(int node, int i) {
+        Adjacency parents = parents();
+        return parents.ids[parents.offsets[node] + i];
+    }
+
+    /**
+     * Tells whether a node has a rule among its parents. The edges into
+     * such a fact are supports; the edges into any other fact are
+     * aggregations.
+     *
+     * @param node the id of the node
+     * @return {@code true} if the node is derived by a rule
+     */
+    public boolean isSupported(int node) {
+        return supported.get(node);
+    }
+
+    /**
+     * Returns the number of conflicting pairs.
+     *
+     * @return the number of conflicts
+     */
+    public int conflictCount() {
+        return conflicts.length / 2;
+    }
+
+    /**
+     * Returns the first fact of a conflicting pair.
+     *
+     * @param conflict the index of the pair
+     * @return the id of the first fact
+     */
+    public int first(int conflict) {
+        return conflicts[2 * conflict];
+    }
+
+    /**
+     * Returns the second fact of a conflicting pair.
+     *
+     * @param conflict the index of the pair
+     * @return the id of the second fact
+     */
+    public int second(int conflict) {
+        return conflicts[2 * conflict + 1];
+    }
+
+    /**
+     * Returns the number of conflicting pairs a node takes part in.
+     *
+     * @param node the id of the node
+     * @return the number of conflicts of the node
+     */
+    public int conflictDegree(int node) {
+        Adjacency conflicts = nodeConflicts();
+        return conflicts.offsets[node + 1] - conflicts.offsets[node];
+    }
+
+    /**
+     * Returns a conflicting pair a node takes part in.
+     *
+     * @param node the id of the node
+     * @param i    the position of the pair, in conflict order
+     * @return the index of the pair
+     */
+    public int conflictOf(int node, int i) {
+        Adjacency conflicts = nodeConflicts();
+        return conflicts.ids[conflicts.offsets[node] + i];
+    }
+
+    /**
+     * Rebuilds the map form of the graph.
+     *
+     * @return a new {@link ArgumentativeGraph} with the same edges and conflicts
+     */
+    public ArgumentativeGraph toGraph() {
+        Map<KnowledgePiece, List<Fact>> edges = new LinkedHashMap<>();
+        for (int parent = 0; parent < childOffsets.length - 1; parent++) {
+            List<Fact> targets = new ArrayList<>(outDegree(parent));
+            for (int edge = childOffsets[parent]; edge < childOffsets[parent + 1]; edge++) {
+                targets.add((Fact) nodes[children[edge]]);
+            }
+            edges.put(nodes[parent], targets);
+        }
+        List<PairInConflict> pairs = new ArrayList<>(conflictCount());
+        for (int conflict = 0; conflict < conflictCount(); conflict++) {
+            pairs.add(new PairInConflict((Fact) nodes[first(conflict)], (Fact) nodes[second(conflict)]));
+        }
+        return new ArgumentativeGraph(edges, pairs);
+    }
+}
@@ -0,0 +1,157 @@
+package Argumentation.LAF.Domain;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Sorted indexes over the edges of a graph, used to filter them by kind and
+ * paginate them without scanning the graph.
+ *
+ * <p>
+ * Edges are ordered by the structural keys of their endpoints, once over
+ * all edges and once per kind, so a page is a logarithmic search for the
+ * position encoded in its cursor followed by a walk over the page. As in
+ * the serialized graph, every conflict is indexed as two edges, one in
+ * each direction.
+ * </p>
+ *
+ * @author JaviDebórtoli
+ */
+public final class EdgeIndex {
+    private static final Comparator<Entry> ORDER = Comparator
+            .comparing(Entry::fromKey, Long::compareUnsigned)
+            .thenComparing(Entry::toKey, Long::compareUnsigned)
+            .thenComparing(Entry::kind);
+
+    private final NavigableSet<Entry> all = new TreeSet<>(ORDER);
+    private final Map<Kind, NavigableSet<Entry>> byKind = new EnumMap<>(Kind.class);
+
+    /**
+     * Kinds of edges.
+     */
+    public enum Kind {
+        /** From a rule to the fact it derives. */
+        SUPPORT,
+        /** From a fact to the fact aggregating it. */
+        AGGREGATION,
+        /** Between two facts in conflict. */
+        CONFLICT
+    }
+
+    /**
+     * An indexed edge.
+     *
+     * @param from    the source node
+     * @param fromKey structural key of the source node
+     * @param to      the target node
+     * @param toKey   structural key of the target node
+     * @param kind    the kind of the edge
+     */
+    public record Entry(KnowledgePiece from, long fromKey, KnowledgePiece to, long toKey, Kind kind) {}
+
+    /**
+     * Lists the edges of a graph. The kind of each support or aggregation
+     * edge is decided as in the serialized graph: the edges into a fact
+     * derived by a rule are supports, any other edge into a fact is an
+     * aggregation.
+     *
+     * @param graph the graph
+     * @param keys  structural keys of the nodes of the graph
+     * @return the edges of the graph
+     */
+    public static List<Entry> edgesOf(ArgumentativeGraph graph, Map<KnowledgePiece, Long> keys) {
+        List<Entry> edges = new ArrayList<>();
+        Map<KnowledgePiece, Boolean> supported = new IdentityHashMap<>();
+        graph.edges().forEach((parent, children) -> {
+            if (parent instanceof Rule) {
+                children.forEach(child -> supported.put(child, Boolean.TRUE));
+            }
+        });
+        graph.edges().forEach((parent, children) -> {
+            for (Fact child : children) {
+                edges.add(new Entry(parent, keys.get(parent), child, keys.get(child),
+                        supported.containsKey(child) ? Kind.SUPPORT : Kind.AGGREGATION));
+            }
+        });
+        for (PairInConflict pair : graph.conflictiveNodes()) {
+            long first = keys.get(pair.first());
+            long second = keys.get(pair.second());
+            edges.add(new Entry(pair.first(), first, pair.second(), second, Kind.CONFLICT));
+            edges.add(new Entry(pair.second(), second, pair.first(), first, Kind.CONFLICT));
+        }
+        return edges;
+    }
+
+    /**
+     * Adds an edge to the indexes.
+     *
+     * @param edge the edge
+     */
+    public void add(Entry edge) {
+        all.add(edge);
+        byKind.computeIfAbsent(edge.kind(), k -> new TreeSet<>(ORDER)).add(edge);
+    }
+
+    /**
+     * Removes an edge from the indexes.
+     *
+     * @param edge the edge
+     */
+    public void remove(Entry edge) {
+        all.remove(edge);
+        NavigableSet<Entry> index = byKind.get(edge.kind());
+        if (index != null) {
+            index.remove(edge);
+        }
+    }
+
+    /**
+     * Returns one page of the edges of a kind, ordered by the structural
+     * keys of their endpoints.
+     *
+     * @param kind   the kind of the edges, or {@code null} for every edge
+     * @param cursor cursor returned with the previous page, or {@code null}
+     *               for the first page
+     * @param limit  maximum number of edges of the page
+     * @return the page
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public Page<Entry> page(Kind kind, String cursor, int limit) {
+        NavigableSet<Entry> range = kind == null ? all : byKind.get(kind);
+        if (range == null) {
+            return new Page<>(List.of(), null);
+        }
+        if (cursor != null) {
+            range = range.tailSet(decode(cursor), false);
+        }
+
+        List<Entry> items = new ArrayList<>(Math.min(limit, 1024));
+        for (Entry edge : range) {
+            if (items.size() == limit) {
+                return new Page<>(items, encode(items.getLast()));
+            }
+            items.add(edge);
+        }
+        return new Page<>(items, null);
+    }
+
+    private static String encode(Entry edge) {
+        return Long.toHexString(edge.fromKey()) + "." + Long.toHexString(edge.toKey()) + "." + edge.kind().ordinal();
+    }
+
+    private static Entry decode(String cursor) {
+        try {
+            String[] parts = cursor.split("\\.", -1);
+            return new Entry(null, Long.parseUnsignedLong(parts[0], 16), null,
+                    Long.parseUnsignedLong(parts[1], 16), Kind.values()[Integer.parseInt(parts[2])]);
+        } catch (RuntimeException exception) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, exception);
+        }
+    }
+}
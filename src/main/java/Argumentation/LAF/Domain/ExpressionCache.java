@@ -0,0 +1,84 @@
+package Argumentation.LAF.Domain;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import net.objecthunter.exp4j.Expression;
+import net.objecthunter.exp4j.ExpressionBuilder;
+
+/**
+ * Process-wide cache of compiled label algebra expressions.
+ *
+ * <p>
+ * Parsing an exp4j expression is far more expensive than evaluating it, and
+ * the same handful of support, aggregation and conflict functions is shared
+ * by most programs. Each function is therefore compiled once into a template
+ * that is shared between threads; callers receive a private copy, since
+ * exp4j expressions keep their variable bindings and are not thread-safe.
+ * </p>
+ *
+ * <p>
+ * Functions that exp4j cannot compile (such as the symbolic {@code Union} and
+ * {@code Intersection} operators) are remembered as well, and keep throwing
+ * the same {@link IllegalArgumentException} that {@link ExpressionBuilder}
+ * throws, so the symbolic fallback of the {@link InferenceEngine} is
+ * unaffected.
+ * </p>
+ *
+ * @author JaviDebórtoli
+ */
+public final class ExpressionCache {
+    /** Maximum number of distinct functions kept in the cache. */
+    private static final int MAX_ENTRIES = 4096;
+
+    private static final Map<String, Compiled> CACHE = new ConcurrentHashMap<>();
+
+    private ExpressionCache() {
+    }
+
+    /**
+     * Compilation outcome of one function: either a template or the reason
+     * why it could not be compiled.
+     */
+    private record Compiled(Expression template, String error) {}
+
+    /**
+     * Returns a private, ready-to-use copy of the compiled function.
+     *
+     * @param function the function, over the variables {@code X} and {@code Y}
+     * @return a new expression that the caller may bind and evaluate freely
+     * @throws IllegalArgumentException if the function is not a valid exp4j expression
+     */
+    public static Expression compile(String function) {
+        if (function == null) {
+            throw new IllegalArgumentException("Expression can not be empty");
+        }
+        Compiled compiled = CACHE.get(function);
+        if (compiled == null) {
+            compiled = build(function);
+            if (CACHE.size() < MAX_ENTRIES) {
+                CACHE.putIfAbsent(function, compiled);
+            }
+        }
+        if (compiled.error() != null) {
+            throw new IllegalArgumentException(compiled.error());
+        }
+        return new Expression(compiled.template());
+    }
+
+    /**
+     * Returns the number of functions currently cached.
+     *
+     * @return the cache size
+     */
+    public static int size() {
+        return CACHE.size();
+    }
+
+    private static Compiled build(String function) {
+        try {
+            return new Compiled(new ExpressionBuilder(function).variables("X", "Y").build(), null);
+        } catch (IllegalArgumentException exception) {
+            return new Compiled(null, String.valueOf(exception.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package Argumentation.LAF.Domain;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Adjacency indexes over an {@link ArgumentativeGraph}, used to extract the
+ * neighborhood of a node without scanning the whole graph.
+ *
+ * <p>
+ * The graph only stores the children of every node; the index freezes it
+ * into a {@link CompactGraph}, whose reverse adjacency and per-node
+ * conflicts give the parents of every fact and the conflicts every fact
+ * takes part in. Building the index is linear in the size of the graph,
+ * and extracting a neighborhood is linear in the size of the neighborhood.
+ * </p>
+ *
+ * @author JaviDebórtoli
+ */
+public final class GraphIndex {
+    /** Frozen form of the indexed graph. */
+    private final CompactGraph graph;
+
+    /**
+     * Directions in which a neighborhood is explored.
+     */
+    public enum Direction {
+        /** The nodes the root is derived from. */
+        ANCESTORS,
+        /** The nodes derived from the root. */
+        DESCENDANTS,
+        /** Both ancestors and descendants. */
+        BOTH;
+
+        boolean ancestors() {
+            return this != DESCENDANTS;
+        }
+
+        boolean descendants() {
+            return this != ANCESTORS;
+        }
+    }
+
+    /**
+     * Indexes a graph. The graph must not be modified while the index is in use.
+     *
+     * @param graph the graph to index
+     */
+    public GraphIndex(ArgumentativeGraph graph) {
+        this(CompactGraph.of(graph));
+    }
+
+    /**
+     * Indexes a frozen graph.
+     *
+     * @param graph the graph to index
+     */
+    public GraphIndex(CompactGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Tells whether a node takes part in the indexed graph.
+     *
+     * @param node a fact or rule
+     * @return {@code true} if the node has an edge or a conflict in the graph
+     */
+    public boolean contains(KnowledgePiece node) {
+        return graph.indexOf(node) >= 0;
+    }
+
+    /**
+     * Tells whether a fact is derived by a rule in the indexed graph.
+     *
+     * @param node a fact or rule
+     * @return {@code true} if the node has a rule among its parents
+     */
+    public boolean isSupported(KnowledgePiece node) {
+        int id = graph.indexOf(node);
+        return id >= 0 && graph.isSupported(id);
+    }
+
+    /**
+     * Extracts the neighborhood of a node: its ancestors and/or descendants
+     * up to the given depth, with the edges followed to reach them, plus
+     * every conflict of the facts reached and their conflict partners.
+     * Conflict partners are not explored further.
+     *
+     * @param root      the node whose neighborhood is extracted
+     * @param depth     maximum number of edges between the root and a node
+     * @param direction the directions to explore
+     * @return the neighborhood, as a subgraph of the indexed graph
+     * @throws IllegalArgumentException if the depth is negative
+     */
+    public ArgumentativeGraph neighborhood(KnowledgePiece root, int depth, Direction direction) {
+        if (depth < 0) {
+            throw new IllegalArgumentException("Negative depth: " + depth);
+        }
+        int rootId = graph.indexOf(root);
+        if (rootId < 0) {
+            return new ArgumentativeGraph(new LinkedHashMap<>(), new ArrayList<>());
+        }
+        Map<Integer, Set<Integer>> edges = new LinkedHashMap<>();
+        Set<Integer> reached = new LinkedHashSet<>();
+        reached.add(rootId);
+
+        if (direction.ancestors()) {
+            List<Integer> frontier = List.of(rootId);
+            Set<Integer> visited = new LinkedHashSet<>(frontier);
+            for (int level = 0; level < depth && !frontier.isEmpty(); level++) {
+                List<Integer> next = new ArrayList<>();
+                for (int node : frontier) {
+                    for (int i = 0; i < graph.inDegree(node); i++) {
+                        int parent = graph.parent(node, i);
+                        edges.computeIfAbsent(parent, k -> new LinkedHashSet<>()).add(node);
+                        if (visited.add(parent)) {
+                            next.add(parent);
+                        }
+                    }
+                }
+                frontier = next;
+            }
+            reached.addAll(visited);
+        }
+        if (direction.descendants()) {
+            List<Integer> frontier = List.of(rootId);
+            Set<Integer> visited = new LinkedHashSet<>(frontier);
+            for (int level = 0; level < depth && !frontier.isEmpty(); level++) {
+                List<Integer> next = new ArrayList<>();
+                for (int node : frontier) {
+                    for (int i = 0; i < graph.outDegree(node); i++) {
+                        int child = graph.child(node, i);
+                        edges.computeIfAbsent(node, k -> new LinkedHashSet<>()).add(child);
+                        if (visited.add(child)) {
+                            next.add(child);
+                        }
+                    }
+                }
+                frontier = next;
+            }
+            reached.addAll(visited);
+        }
+
+        Set<PairInConflict> attacks = new LinkedHashSet<>();
+        for (int node : reached) {
+            for (int i = 0; i < graph.conflictDegree(node); i++) {
+                int conflict = graph.conflictOf(node, i);
+                attacks.add(new PairInConflict((Fact) graph.node(graph.first(conflict)),
+                        (Fact) graph.node(graph.second(conflict))));
+            }
+        }
+
+        Map<KnowledgePiece, List<Fact>> subgraph = new LinkedHashMap<>();
+        edges.forEach((parent, targets) -> {
+            List<Fact> children = new ArrayList<>(targets.size());
+            targets.forEach(child -> children.add((Fact) graph.node(child)));
+            subgraph.put(graph.node(parent), children);
+        });
+        return new ArgumentativeGraph(subgraph, new ArrayList<>(attacks));
+    }
+}
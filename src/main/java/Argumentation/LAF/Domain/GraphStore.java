@@ -0,0 +1,573 @@
+package Argumentation.LAF.Domain;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * On-disk store for the complete state of a {@link ReasoningSession}: the
+ * base facts, the compiled program (rules and label algebra) and the
+ * materialized graph of every partition.
+ *
+ * <p>
+ * A store file is a header followed by sections of fixed-layout records of
+ * big-endian integers. Strings are written once in a string table and every
+ * record refers to them by index; graph nodes are written once and edges and
+ * conflicts refer to them by index. Each section is read through its own
+ * read-only memory-mapped {@link FileChannel} region, so reopening a store
+ * only decodes records and never runs the inference again.
+ * </p>
+ *
+ * <h3>Layout</h3>
+ * <pre>
+ * header      magic:long version:int sections:int factCounter:int ruleCounter:int
+ *             (offset:long length:long) per section
+ * STRINGS     (blobOffset:int length:int)                 per string
+ * BLOB        UTF-8 bytes of every string
+ * VECTORS     string:int                                   per label value
+ * FUNCTIONS   support:int aggregation:int conflict:int precision:int  per label
+ * RULES       head:int bodyOffset:int bodyLength:int vector:int*2
+ * BODIES      string:int                                   per body literal
+ * BASE_FACTS  name:int argument:int vector:int*2
+ * NODES       kind:int ref:int argument:int attributes:int*2 delta:int*2
+ * PARTITIONS  argument:int edgeOffset:int edgeCount:int conflictOffset:int conflictCount:int
+ * EDGES       parent:int child:int
+ * CONFLICTS   first:int second:int
+ * NODE_IDS    key:long id:int
+ * </pre>
+ * <p>
+ * A vector is an {@code (offset, length)} pair into the {@code VECTORS}
+ * section, with offset {@code -1} for a missing vector. A node of kind
+ * {@code 0} is a fact whose {@code ref} is its predicate; a node of kind
+ * {@code 1} is a rule whose {@code ref} is its index in {@code RULES}.
+ * Stores of version {@code 1} have no precision in {@code FUNCTIONS}; their
+ * labels are read in {@link LabelPrecision#DOUBLE double} precision.
+ * </p>
+ *
+ * <p>
+ * Files are written to a temporary sibling and atomically moved into place,
+ * so a crash while writing leaves the previous store intact.
+ * </p>
+ *
+ * @author JaviDebórtoli
+ */
+public final class GraphStore {
+    /** Magic number at the start of every store ("LAFSTORE"). */
+    private static final long MAGIC = 0x4C414653544F5245L;
+    private static final int VERSION = 2;
+    /** Columns of a row of the function table in stores of each version, by version. */
+    private static final int[] FUNCTION_COLUMNS = {0, 3, 4};
+
+    private static final int STRINGS = 0;
+    private static final int BLOB = 1;
+    private static final int VECTORS = 2;
+    private static final int FUNCTIONS = 3;
+    private static final int RULES = 4;
+    private static final int BODIES = 5;
+    private static final int BASE_FACTS = 6;
+    private static final int NODES = 7;
+    private static final int PARTITIONS = 8;
+    private static final int EDGES = 9;
+    private static final int CONFLICTS = 10;
+    private static final int NODE_IDS = 11;
+    private static final int SECTION_COUNT = 12;
+
+    private static final int HEADER_SIZE = 8 + 4 * 4 + SECTION_COUNT * 16;
+
+    private static final int KIND_FACT = 0;
+    private static final int KIND_RULE = 1;
+
+    private GraphStore() {
+    }
+
+    /**
+     * Complete state of a reasoning session.
+     *
+     * @param rules       rules of the program
+     * @param functions   label algebra function table
+     * @param baseFacts   asserted facts grouped by argument
+     * @param partitions  materialized graph of each argument
+     * @param nodeIds     identifiers handed out, indexed by structural key
+     * @param factCounter last fact identifier number handed out
+     * @param ruleCounter last rule identifier number handed out
+     */
+    public record Snapshot(
+            List<Rule> rules,
+            String[][] functions,
+            Map<String, List<Fact>> baseFacts,
+            Map<String, ArgumentativeGraph> partitions,
+            Map<Long, String> nodeIds,
+            int factCounter,
+            int ruleCounter
+    ) {}
+
+    /**
+     * Writes a snapshot to a store file, replacing any previous content.
+     *
+     * @param file     the store file
+     * @param snapshot the state to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path file, Snapshot snapshot) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            Writer writer = new Writer(snapshot);
+            long[][] sections = writer.writeSections(channel);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putLong(MAGIC).putInt(VERSION).putInt(SECTION_COUNT)
+                    .putInt(snapshot.factCounter()).putInt(snapshot.ruleCounter());
+            for (long[] section : sections) {
+                header.putLong(section[0]).putLong(section[1]);
+            }
+            header.flip();
+            channel.write(header, 0);
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(file.toAbsolutePath().getParent());
+    }
+
+    /**
+     * Forces the entries of a directory to disk, so that a file renamed
+     * into it survives a crash; the rename is not durable until then.
+     */
+    private static void syncDirectory(Path directory) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException exception) {
+            // Some platforms, such as Windows, cannot open a directory as a channel
+            return;
+        }
+        try (channel) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Reads a snapshot from a store file.
+     *
+     * @param file the store file
+     * @return the state held by the file
+     * @throws IOException if the file cannot be read or is not a valid store
+     */
+    public static Snapshot read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("Truncated store: " + file);
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            long magic = header.getLong();
+            int version = header.getInt();
+            if (magic != MAGIC || version < 1 || version > VERSION || header.getInt() != SECTION_COUNT) {
+                throw new IOException("Not a LAF store: " + file);
+            }
+            int factCounter = header.getInt();
+            int ruleCounter = header.getInt();
+            ByteBuffer[] sections = new ByteBuffer[SECTION_COUNT];
+            for (int s = 0; s < SECTION_COUNT; s++) {
+                long offset = header.getLong();
+                long length = header.getLong();
+                if (offset + length > channel.size() || length > Integer.MAX_VALUE) {
+                    throw new IOException("Corrupted store section " + s + ": " + file);
+                }
+                sections[s] = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+            }
+            return new Reader(sections, FUNCTION_COLUMNS[version]).read(factCounter, ruleCounter);
+        }
+    }
+
+    /**
+     * Encodes a snapshot section by section.
+     */
+    private static final class Writer {
+        private final Snapshot snapshot;
+        private final Map<String, Integer> strings = new LinkedHashMap<>();
+        private final List<Integer> vectors = new ArrayList<>();
+        private final Map<Rule, Integer> ruleIndexes = new HashMap<>();
+        /** Graph nodes, indexed by identity since knowledge pieces do not define equality. */
+        private final Map<KnowledgePiece, Integer> nodeIndexes = new LinkedHashMap<>();
+        private final Map<String, int[]> partitionRanges = new LinkedHashMap<>();
+
+        Writer(Snapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        /**
+         * Writes every section after the header and returns their
+         * {@code (offset, length)} pairs.
+         */
+        long[][] writeSections(FileChannel channel) throws IOException {
+            // Records are encoded first so that the string and vector tables are complete
+            byte[][] encoded = new byte[SECTION_COUNT][];
+            for (int i = 0; i < snapshot.rules().size(); i++) {
+                ruleIndexes.put(snapshot.rules().get(i), i);
+            }
+            encoded[FUNCTIONS] = encodeFunctions();
+            encoded[RULES] = encodeRules();
+            encoded[BODIES] = encodeBodies();
+            encoded[BASE_FACTS] = encodeBaseFacts();
+            encoded[NODES] = encodeNodes();
+            encoded[EDGES] = encodeEdges();
+            encoded[CONFLICTS] = encodeConflicts();
+            encoded[PARTITIONS] = encodePartitions();
+            encoded[NODE_IDS] = encodeNodeIds();
+            encoded[VECTORS] = encodeInts(vectors);
+            encodeStrings(encoded);
+
+            long[][] sections = new long[SECTION_COUNT][2];
+            long position = HEADER_SIZE;
+            channel.position(position);
+            OutputStream out = Channels.newOutputStream(channel);
+            for (int s = 0; s < SECTION_COUNT; s++) {
+                sections[s][0] = position;
+                sections[s][1] = encoded[s].length;
+                out.write(encoded[s]);
+                position += encoded[s].length;
+            }
+            return sections;
+        }
+
+        private byte[] encodeFunctions() throws IOException {
+            return encode(out -> {
+                for (String[] row : snapshot.functions()) {
+                    for (int j = 0; j < 3; j++) {
+                        out.writeInt(string(row[j]));
+                    }
+                    out.writeInt(string(LabelPrecision.of(row.length > 3 ? row[3] : null).id()));
+                }
+            });
+        }
+
+        private byte[] encodeRules() throws IOException {
+            int[] bodyOffset = {0};
+            return encode(out -> {
+                for (Rule rule : snapshot.rules()) {
+                    out.writeInt(string(rule.getHead()));
+                    out.writeInt(bodyOffset[0]);
+                    out.writeInt(rule.getBody().size());
+                    writeVector(out, rule.getAttributes());
+                    bodyOffset[0] += rule.getBody().size();
+                }
+            });
+        }
+
+        private byte[] encodeBodies() throws IOException {
+            return encode(out -> {
+                for (Rule rule : snapshot.rules()) {
+                    for (String literal : rule.getBody()) {
+                        out.writeInt(string(literal));
+                    }
+                }
+            });
+        }
+
+        private byte[] encodeBaseFacts() throws IOException {
+            return encode(out -> {
+                for (List<Fact> facts : snapshot.baseFacts().values()) {
+                    for (Fact fact : facts) {
+                        out.writeInt(string(fact.getName()));
+                        out.writeInt(string(fact.getArgument()));
+                        writeVector(out, fact.getAttributes());
+                    }
+                }
+            });
+        }
+
+        private byte[] encodeNodes() throws IOException {
+            for (ArgumentativeGraph partition : snapshot.partitions().values()) {
+                for (Map.Entry<KnowledgePiece, List<Fact>> entry : partition.edges().entrySet()) {
+                    node(entry.getKey());
+                    entry.getValue().forEach(this::node);
+                }
+                for (PairInConflict pair : partition.conflictiveNodes()) {
+                    node(pair.first());
+                    node(pair.second());
+                }
+            }
+            return encode(out -> {
+                for (KnowledgePiece kp : nodeIndexes.keySet()) {
+                    if (kp instanceof Rule rule) {
+                        Integer index = ruleIndexes.get(rule);
+                        if (index == null) {
+                            throw new IllegalStateException("Graph rule not in program: " + rule);
+                        }
+                        out.writeInt(KIND_RULE);
+                        out.writeInt(index);
+                        out.writeInt(-1);
+                    } else {
+                        Fact fact = (Fact) kp;
+                        out.writeInt(KIND_FACT);
+                        out.writeInt(string(fact.getName()));
+                        out.writeInt(string(fact.getArgument()));
+                    }
+                    writeVector(out, kp.getAttributes());
+                    writeVector(out, kp.getDeltaAttributes());
+                }
+            });
+        }
+
+        private byte[] encodeEdges() throws IOException {
+            return encode(out -> {
+                int offset = 0;
+                for (Map.Entry<String, ArgumentativeGraph> partition : snapshot.partitions().entrySet()) {
+                    int count = 0;
+                    for (Map.Entry<KnowledgePiece, List<Fact>> entry : partition.getValue().edges().entrySet()) {
+                        for (Fact child : entry.getValue()) {
+                            out.writeInt(nodeIndexes.get(entry.getKey()));
+                            out.writeInt(nodeIndexes.get(child));
+                            count++;
+                        }
+                    }
+                    partitionRanges.put(partition.getKey(), new int[] {offset, count, 0, 0});
+                    offset += count;
+                }
+            });
+        }
+
+        private byte[] encodeConflicts() throws IOException {
+            return encode(out -> {
+                int offset = 0;
+                for (Map.Entry<String, ArgumentativeGraph> partition : snapshot.partitions().entrySet()) {
+                    List<PairInConflict> conflicts = partition.getValue().conflictiveNodes();
+                    for (PairInConflict pair : conflicts) {
+                        out.writeInt(nodeIndexes.get(pair.first()));
+                        out.writeInt(nodeIndexes.get(pair.second()));
+                    }
+                    int[] range = partitionRanges.get(partition.getKey());
+                    range[2] = offset;
+                    range[3] = conflicts.size();
+                    offset += conflicts.size();
+                }
+            });
+        }
+
+        private byte[] encodePartitions() throws IOException {
+            return encode(out -> {
+                for (Map.Entry<String, int[]> partition : partitionRanges.entrySet()) {
+                    out.writeInt(string(partition.getKey()));
+                    for (int value : partition.getValue()) {
+                        out.writeInt(value);
+                    }
+                }
+            });
+        }
+
+        private byte[] encodeNodeIds() throws IOException {
+            return encode(out -> {
+                for (Map.Entry<Long, String> entry : snapshot.nodeIds().entrySet()) {
+                    out.writeLong(entry.getKey());
+                    out.writeInt(string(entry.getValue()));
+                }
+            });
+        }
+
+        /**
+         * Encodes the string index and blob; must run after every other section.
+         */
+        private void encodeStrings(byte[][] encoded) throws IOException {
+            List<byte[]> bytes = new ArrayList<>(strings.size());
+            for (String value : strings.keySet()) {
+                bytes.add(value.getBytes(StandardCharsets.UTF_8));
+            }
+            encoded[STRINGS] = encode(out -> {
+                int offset = 0;
+                for (byte[] value : bytes) {
+                    out.writeInt(offset);
+                    out.writeInt(value.length);
+                    offset += value.length;
+                }
+            });
+            encoded[BLOB] = encode(out -> {
+                for (byte[] value : bytes) {
+                    out.write(value);
+                }
+            });
+        }
+
+        private void node(KnowledgePiece kp) {
+            nodeIndexes.putIfAbsent(kp, nodeIndexes.size());
+        }
+
+        private int string(String value) {
+            if (value == null) {
+                return -1;
+            }
+            return strings.computeIfAbsent(value, v -> strings.size());
+        }
+
+        private void writeVector(DataOutputStream out, String[] values) throws IOException {
+            if (values == null) {
+                out.writeInt(-1);
+                out.writeInt(0);
+                return;
+            }
+            out.writeInt(vectors.size());
+            out.writeInt(values.length);
+            for (String value : values) {
+                vectors.add(string(value));
+            }
+        }
+
+        private static byte[] encodeInts(List<Integer> values) throws IOException {
+            return encode(out -> {
+                for (int value : values) {
+                    out.writeInt(value);
+                }
+            });
+        }
+
+        private static byte[] encode(RecordWriter records) throws IOException {
+            var bytes = new java.io.ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(bytes))) {
+                records.write(out);
+            }
+            return bytes.toByteArray();
+        }
+    }
+
+    /**
+     * Writes the records of one section.
+     */
+    @FunctionalInterface
+    private interface RecordWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Decodes a snapshot from the mapped sections.
+     */
+    private static final class Reader {
+        private final ByteBuffer[] sections;
+        /** Columns of a row of the function table. */
+        private final int functionColumns;
+        private String[] strings;
+
+        Reader(ByteBuffer[] sections, int functionColumns) {
+            this.sections = sections;
+            this.functionColumns = functionColumns;
+        }
+
+        Snapshot read(int factCounter, int ruleCounter) {
+            readStrings();
+
+            ByteBuffer functionRecords = sections[FUNCTIONS];
+            String[][] functions = new String[functionRecords.limit() / (functionColumns * 4)][4];
+            for (int i = 0; i < functions.length; i++) {
+                for (int j = 0; j < 4; j++) {
+                    functions[i][j] = j < functionColumns
+                            ? string(functionRecords.getInt((i * functionColumns + j) * 4))
+                            : LabelPrecision.DOUBLE.id();
+                }
+            }
+
+            ByteBuffer ruleRecords = sections[RULES];
+            ByteBuffer bodies = sections[BODIES];
+            List<Rule> rules = new ArrayList<>(ruleRecords.limit() / 20);
+            for (int at = 0; at < ruleRecords.limit(); at += 20) {
+                int bodyOffset = ruleRecords.getInt(at + 4);
+                List<String> body = new ArrayList<>(ruleRecords.getInt(at + 8));
+                for (int b = 0; b < ruleRecords.getInt(at + 8); b++) {
+                    body.add(string(bodies.getInt((bodyOffset + b) * 4)));
+                }
+                rules.add(new Rule(string(ruleRecords.getInt(at)), body, vector(ruleRecords, at + 12)));
+            }
+
+            ByteBuffer factRecords = sections[BASE_FACTS];
+            Map<String, List<Fact>> baseFacts = new LinkedHashMap<>();
+            for (int at = 0; at < factRecords.limit(); at += 16) {
+                Fact fact = new Fact(string(factRecords.getInt(at)), string(factRecords.getInt(at + 4)),
+                        vector(factRecords, at + 8));
+                baseFacts.computeIfAbsent(fact.getArgument(), k -> new ArrayList<>()).add(fact);
+            }
+
+            ByteBuffer nodeRecords = sections[NODES];
+            KnowledgePiece[] nodes = new KnowledgePiece[nodeRecords.limit() / 28];
+            for (int n = 0; n < nodes.length; n++) {
+                int at = n * 28;
+                if (nodeRecords.getInt(at) == KIND_RULE) {
+                    nodes[n] = rules.get(nodeRecords.getInt(at + 4));
+                } else {
+                    Fact fact = new Fact(string(nodeRecords.getInt(at + 4)), string(nodeRecords.getInt(at + 8)),
+                            vector(nodeRecords, at + 12));
+                    fact.setDeltaAttributes(vector(nodeRecords, at + 20));
+                    nodes[n] = fact;
+                }
+            }
+
+            ByteBuffer partitionRecords = sections[PARTITIONS];
+            ByteBuffer edges = sections[EDGES];
+            ByteBuffer conflicts = sections[CONFLICTS];
+            Map<String, ArgumentativeGraph> partitions = new LinkedHashMap<>();
+            for (int at = 0; at < partitionRecords.limit(); at += 20) {
+                Map<KnowledgePiece, List<Fact>> partitionEdges = new HashMap<>();
+                int edgeOffset = partitionRecords.getInt(at + 4);
+                for (int e = 0; e < partitionRecords.getInt(at + 8); e++) {
+                    int record = (edgeOffset + e) * 8;
+                    partitionEdges.computeIfAbsent(nodes[edges.getInt(record)], k -> new ArrayList<>())
+                            .add((Fact) nodes[edges.getInt(record + 4)]);
+                }
+                List<PairInConflict> partitionConflicts = new ArrayList<>();
+                int conflictOffset = partitionRecords.getInt(at + 12);
+                for (int c = 0; c < partitionRecords.getInt(at + 16); c++) {
+                    int record = (conflictOffset + c) * 8;
+                    partitionConflicts.add(new PairInConflict(
+                            (Fact) nodes[conflicts.getInt(record)], (Fact) nodes[conflicts.getInt(record + 4)]));
+                }
+                partitions.put(string(partitionRecords.getInt(at)),
+                        new ArgumentativeGraph(partitionEdges, partitionConflicts));
+            }
+
+            ByteBuffer idRecords = sections[NODE_IDS];
+            Map<Long, String> nodeIds = new HashMap<>();
+            for (int at = 0; at < idRecords.limit(); at += 12) {
+                nodeIds.put(idRecords.getLong(at), string(idRecords.getInt(at + 8)));
+            }
+
+            return new Snapshot(rules, functions, baseFacts, partitions, nodeIds, factCounter, ruleCounter);
+        }
+
+        private void readStrings() {
+            ByteBuffer index = sections[STRINGS];
+            ByteBuffer blob = sections[BLOB];
+            strings = new String[index.limit() / 8];
+            for (int i = 0; i < strings.length; i++) {
+                byte[] bytes = new byte[index.getInt(i * 8 + 4)];
+                blob.get(index.getInt(i * 8), bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+        }
+
+        private String string(int index) {
+            return index < 0 ? null : strings[index];
+        }
+
+        private String[] vector(ByteBuffer records, int at) {
+            int offset = records.getInt(at);
+            if (offset < 0) {
+                return null;
+            }
+            String[] values = new String[records.getInt(at + 4)];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = string(sections[VECTORS].getInt((offset + i) * 4));
+            }
+            return values;
+        }
+    }
+}
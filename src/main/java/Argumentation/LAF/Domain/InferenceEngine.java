@@ -1,15 +1,17 @@
 package Argumentation.LAF.Domain;
 
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.function.DoubleBinaryOperator;
 import net.objecthunter.exp4j.Expression;
-import net.objecthunter.exp4j.ExpressionBuilder;
 
 /**
  * Executes the inferential process over a knowledge program composed of
@@ -34,11 +36,32 @@ import net.objecthunter.exp4j.ExpressionBuilder;
  *
  * <h3>Label Interpretation</h3>
  * <ul>
- *   <li>If attributes parse as doubles -> numeric algebra via exp4j</li>
- *   <li>If not -> interpreted as sets of strings (support = Union,
- *       aggregation = Union, conflict = Intersection)</li>
+ *   <li>If attributes parse as doubles -> numeric algebra via exp4j, in the
+ *       {@link LabelPrecision} of each label</li>
+ *   <li>If not -> interpreted as sets of strings, combined by the
+ *       symbolic operators {@code Union} and {@code Intersection} (e.g.
+ *       support = Union, aggregation = Union, conflict = Intersection);
+ *       the sets are held as bitmaps over a dictionary of the elements
+ *       seen by the run (see {@link SetLabels})</li>
  * </ul>
  *
+ * <h3>Aggregation and the graph</h3>
+ * When an aggregation replaces a fact, the facts derived from its outdated
+ * versions are erased from the graph, and so are the edges towards them:
+ * <ul>
+ *   <li>a rule is a single node shared by every argument, so it only loses
+ *       its edges towards the facts of the aggregated argument;</li>
+ *   <li>a premise that is not erased itself only loses its edges towards
+ *       erased facts, and keeps those towards its other conclusions.</li>
+ * </ul>
+ * A node leaves the graph once it has no edges left.
+ * <p>
+ * A derived fact is aggregated with every known fact of the same predicate
+ * and argument, not only with those already in the graph: a base fact that
+ * no rule has used yet joins the graph as a source of the aggregation, so
+ * the graph does not depend on the order of the rules.
+ * </p>
+ *
  * <h3>Returned Structure</h3>
  * The engine returns an {@link ArgumentativeGraph} containing:
  * <ul>
@@ -49,6 +72,9 @@ import net.objecthunter.exp4j.ExpressionBuilder;
  * @JaviDebórtoli
  */
 public class InferenceEngine {
+    /** Number of facts from which an associative aggregation is reduced in parallel. */
+    static final int PARALLEL_AGGREGATION_THRESHOLD = 1024;
+    
     /** Stores argumentation edges used when constructing the graph. */
     private final Map<KnowledgePiece, List<Fact>> edges;
     /** Active list of facts during the inference cycle. */
@@ -57,10 +83,65 @@ public class InferenceEngine {
     private final List<Rule> rules;
     /** Matrix storing the label algebra functions. */
     private final String[][] functions;
+    /** Precision of the numeric values of each label. */
+    private final LabelPrecision[] precisions;
     /** Temporary list of edges that need to be removed after conflict resolution. */
     private final List<KnowledgePiece> removableEdges;
+    /** Facts derived from an outdated version of the aggregation in progress, erased with all of their edges. */
+    private final Set<Fact> erasedFacts;
     /** Pairs of contradictory facts detected during the conflict phase. */
     private final List<PairInConflict> conflictiveNodes;
+    /** Compiled label algebra functions owned by this engine, indexed by function. */
+    private final Map<String, Expression> expressions;
+    /** Listener notified of the progress of the inference. */
+    private final InferenceListener listener;
+    /** Memo of support results shared with other runs, or {@code null}. */
+    private final SupportMemo supportMemo;
+    /** Recorder of the label operations performed, or {@code null}. */
+    private LabelTrace trace;
+    /** Dictionary of the set-valued labels of this run, created on first use. */
+    private SetLabels setLabels;
+    
+    /**
+     * Records the label operations performed by a run, in order, so that
+     * they can be replayed over the labels of other arguments.
+     *
+     * @see ColumnarInference
+     */
+    interface LabelTrace {
+        /**
+         * A fact received the labels of the SUPPORT of a rule.
+         *
+         * @param fact     the derived fact
+         * @param premises the premises, in the order they were combined
+         * @param rule     the rule
+         */
+        void supported(Fact fact, List<Fact> premises, Rule rule);
+
+        /**
+         * A fact received the labels of the AGGREGATION of other facts.
+         *
+         * @param fact       the aggregated fact
+         * @param aggregated the facts, in the order they were combined
+         */
+        void aggregated(Fact fact, List<Fact> aggregated);
+
+        /**
+         * Two facts in conflict received the labels of their mutual ATTACK
+         * as delta attributes.
+         *
+         * @param first  the first fact of the pair
+         * @param second the second fact of the pair
+         */
+        void attacked(Fact first, Fact second);
+
+        /**
+         * Edges were removed from the graph to rebuild it after an aggregation.
+         *
+         * @param pieces the origins of the removed edges
+         */
+        void detached(List<KnowledgePiece> pieces);
+    }
     
     /**
      * Creates a new inference engine from lists of facts, rules,
@@ -73,12 +154,44 @@ public class InferenceEngine {
      * @param functions  A 2D array representing the label algebra
      */
     public InferenceEngine(List<Fact> facts, List<Rule> rules, String[][] functions) {
+        this(facts, rules, functions, InferenceListener.NONE);
+    }
+    
+    /**
+     * Creates a new inference engine that reports its progress to a listener.
+     * 
+     * @param facts      The initial list of known facts.
+     * @param rules      The set of rules that may produce new facts during evaluation.
+     * @param functions  A 2D array representing the label algebra
+     * @param listener   The listener notified of rounds and derived facts.
+     */
+    public InferenceEngine(List<Fact> facts, List<Rule> rules, String[][] functions, InferenceListener listener) {
+        this(facts, rules, functions, listener, null);
+    }
+    
+    /**
+     * Creates a new inference engine that reports its progress to a listener
+     * and reuses the support results kept in a memo.
+     * 
+     * @param facts       The initial list of known facts.
+     * @param rules       The set of rules that may produce new facts during evaluation.
+     * @param functions   A 2D array representing the label algebra
+     * @param listener    The listener notified of rounds and derived facts.
+     * @param supportMemo The memo of support results, or {@code null} to compute every support.
+     */
+    public InferenceEngine(List<Fact> facts, List<Rule> rules, String[][] functions, InferenceListener listener,
+                           SupportMemo supportMemo) {
         this.edges = new HashMap<>();               
         this.facts = facts;                         
         this.rules = rules;                         
         this.functions = functions;                 
+        this.precisions = LabelPrecision.of(functions);
         this.removableEdges = new ArrayList<>();    
+        this.erasedFacts = Collections.newSetFromMap(new IdentityHashMap<>());
         this.conflictiveNodes = new ArrayList<>();
+        this.expressions = new HashMap<>();
+        this.listener = listener;
+        this.supportMemo = supportMemo;
     }
     
     /**
@@ -104,16 +217,17 @@ public class InferenceEngine {
         boolean anyNewFact;
         Fact newFact = null;
         int bodyPartsVerified;
-        List<String> arguments = new ArrayList<>();
-        // All arguments different from the facts are obtained.
+        Set<String> arguments = new LinkedHashSet<>();
+        // All arguments different from the facts are obtained, in order of appearance.
         for (Fact fact : facts) {
-            if (!arguments.contains(fact.getArgument())) {
-                arguments.add(fact.getArgument());
-            }
+            arguments.add(fact.getArgument());
         }
         
+        int round = 0;
+        int derivedFacts = 0;
         do {
             anyNewFact = false; // Indicates whether the graph has been modified and the cycle must be repeated.
+            listener.roundStarted(++round);
 
             for (String argument : arguments) { // Arguments cycle
                 for (Rule rule : rules) { // Rules cycle
@@ -139,15 +253,22 @@ public class InferenceEngine {
 
                         addFact(potentialFacts, newFact, rule); // New fact added 
                         anyNewFact = true; // Indicates that the major cycle must be repeated
+                        derivedFacts++;
+                        listener.factDerived(newFact, rule);
                     } else if ( bodyPartsVerified == rule.getBody().size() 
                             && !alreadyExists(newFact, rule) 
                             && anyAggregation(newFact) ){
 
                         doAggregation(potentialFacts, newFact, rule); // New aggregated fact added
                         anyNewFact = true; // Indicates that the major cycle must be repeated
+                        derivedFacts++;
+                        listener.factDerived(newFact, rule);
                     }
                 }
             }
+            // A rule normally fires once per argument, which gives an estimate of the remaining work
+            listener.roundCompleted(round, derivedFacts,
+                    Math.max(0, rules.size() * arguments.size() - derivedFacts));
         } while (anyNewFact);
         
         conflict(); // Conflicts between facts are resolved
@@ -155,6 +276,22 @@ public class InferenceEngine {
         return new ArgumentativeGraph(edges, conflictiveNodes);
     }
     
+    /**
+     * Executes the complete inference cycle as {@link #buildTree()} does,
+     * reporting every label operation to a trace.
+     *
+     * @param trace the recorder of label operations
+     * @return the argumentative graph
+     */
+    ArgumentativeGraph buildTree(LabelTrace trace) {
+        this.trace = trace;
+        try {
+            return buildTree();
+        } finally {
+            this.trace = null;
+        }
+    }
+    
     /**
      * Registers a newly inferred fact into the inference state and updates the graph structure.
      * <p>
@@ -183,6 +320,9 @@ public class InferenceEngine {
     private void addFact (List<Fact> potentialFacts, Fact newFact, Rule rule) {
         // Calculate label values 
         newFact.setAttributes( calculateSupport (potentialFacts, rule) );
+        if (trace != null) {
+            trace.supported(newFact, List.copyOf(potentialFacts), rule);
+        }
         // Add new fact to facts list
         facts.add(newFact); 
         // Add edge between the activated rule and the new fact.
@@ -190,15 +330,43 @@ public class InferenceEngine {
             edges.put(rule, new ArrayList<>());
         }
         edges.get(rule).add(newFact);
+        listener.supportAdded(rule, newFact);
         // Add edge between the ancestors facts and the new fact.
         for (Fact potentialFact : potentialFacts) {
             if (!edges.containsKey(potentialFact)) {
                 edges.put(potentialFact, new ArrayList<>());
             }
             edges.get(potentialFact).add(newFact);
+            listener.supportAdded(potentialFact, newFact);
         }
     }
     
+    /**
+     * Combines the numeric values of label {@code i} of many facts with a
+     * parallel reduction, if the aggregation operator is one of the
+     * associative and commutative ones.
+     *
+     * @param aggregatedFacts   The facts whose labels are merged.
+     * @param i                 The label index.
+     * @return                  The unclamped aggregated value, or {@code null} if the operator
+     *                          does not allow reordering.
+     * @throws NumberFormatException if a label is not numeric
+     */
+    private String reduceInParallel(List<Fact> aggregatedFacts, int i) {
+        Optional<DoubleBinaryOperator> operator = AlgebraicProperties.associativeOperator(functions[i][1]);
+        if (operator.isEmpty()) {
+            return null;
+        }
+        LabelPrecision precision = precisions[i];
+        DoubleBinaryOperator combine = operator.get();
+        double[] values = new double[aggregatedFacts.size()];
+        for (int j = 0; j < values.length; j++) {
+            values[j] = precision.parse(aggregatedFacts.get(j).getAttributes()[i]);
+        }
+        return precision.format(AlgebraicProperties.reduce(values,
+                (x, y) -> precision.round(combine.applyAsDouble(x, y))));
+    }
+    
     /**
      * Computes the SUPPORT operation for a newly inferred fact according to the
      * label algebra defined in {@code functions[i][0]}.
@@ -212,16 +380,22 @@ public class InferenceEngine {
      * <ul>
      *   <li>Evaluates the expression in {@code functions[i][0]} using exp4j</li>
      *   <li>Sequentially combines: accumulator -> premises -> rule</li>
+     *   <li>Rounds every intermediate result to the {@link LabelPrecision} of the label</li>
      *   <li>Clamps the numeric result to the range {@code [0.0, 1.0]}</li>
      * </ul>
      *
      * <h3>Symbolic / Set-based fallback</h3>
-     * If numeric evaluation fails (IllegalArgumentException), the method performs
-     * a symbolic operation. Currently:
+     * If numeric evaluation fails (IllegalArgumentException), the labels are sets
+     * and the method combines the premises and the rule with the symbolic operator:
      * <ul>
-     *   <li>{@code "Union"} → merges all textual labels without repetition</li>
+     *   <li>{@code "Union"} → merges all the elements without repetition</li>
+     *   <li>{@code "Intersection"} → keeps the elements common to all the labels</li>
      * </ul>
      *
+     * <h3>Memoization</h3>
+     * When the engine has a {@link SupportMemo}, the result is looked up by
+     * the labels of the premises and the rule before being computed.
+     *
      * @param potentialFacts    The list of facts that satisfied the body of the rule
      *                          and enable the derivation of a new fact.
      * @param rule              The rule being activated; its label participates last in the
@@ -231,31 +405,44 @@ public class InferenceEngine {
      *          the SUPPORT algebra to the given premises and rule.
      */
     private String[] calculateSupport (List<Fact> potentialFacts, Rule rule) {
+        if (supportMemo == null) {
+            return computeSupport(potentialFacts, rule);
+        }
+        SupportMemo.Key key = SupportMemo.keyOf(functions, potentialFacts, rule);
+        String[] atributtes = supportMemo.get(key);
+        if (atributtes == null) {
+            atributtes = computeSupport(potentialFacts, rule);
+            supportMemo.put(key, atributtes);
+        }
+        return atributtes;
+    }
+    
+    /**
+     * Computes the SUPPORT operation, without looking up the memo.
+     * 
+     * @see #calculateSupport(List, Rule)
+     */
+    private String[] computeSupport (List<Fact> potentialFacts, Rule rule) {
         String[] atributtes = new String[ potentialFacts.getFirst().getAttributes().length ];
         Expression expression;
-        LinkedHashSet<String> union = new LinkedHashSet<>();
         
         for (int i = 0; i < atributtes.length ; i++) {
             atributtes[i] = "0.0";
             // Reemplazar los valores de X y Y, y evaluar la funcion para cada uno de los antecedentes
             try {
                 for (Fact fact : potentialFacts) {
-                    expression = new ExpressionBuilder( functions[i][0] )
-                        .variables("X", "Y")
-                        .build()
-                        .setVariable("X", Double.parseDouble(atributtes[i]))
-                        .setVariable("Y", Double.parseDouble(fact.getAttributes()[i]));
+                    expression = expression(functions[i][0])
+                        .setVariable("X", precisions[i].parse(atributtes[i]))
+                        .setVariable("Y", precisions[i].parse(fact.getAttributes()[i]));
 
-                    atributtes[i] = String.valueOf(expression.evaluate());
+                    atributtes[i] = precisions[i].format(expression.evaluate());
                 }
                 // Reemplazar los valores de X y Y, y evaluar la funcion para la regla
-                expression = new ExpressionBuilder( functions[i][0] )
-                        .variables("X", "Y")
-                        .build()
-                        .setVariable("X", Double.parseDouble(atributtes[i]))
-                        .setVariable("Y", Double.parseDouble(rule.getAttributes()[i]));
+                expression = expression(functions[i][0])
+                        .setVariable("X", precisions[i].parse(atributtes[i]))
+                        .setVariable("Y", precisions[i].parse(rule.getAttributes()[i]));
 
-                atributtes[i] = String.valueOf(expression.evaluate());
+                atributtes[i] = precisions[i].format(expression.evaluate());
                 // Ubicar los valores en el intervalo [0, 1]
                 if (Double.parseDouble(atributtes[i])>1) {
                     atributtes[i] = "1.0";
@@ -263,35 +450,12 @@ public class InferenceEngine {
                     atributtes[i] = "0.0";
                 }
             } catch (IllegalArgumentException exception1) {
-                
-                /*
-                *
-                * ONLY UNION SUPPORTED!!!!!!!!!!
-                *
-                */
-                
-                try {
-                    union.clear();
-                    
-                    switch (functions[i][0]) {
-                        case "Union" -> {
-                            for (Fact fact : potentialFacts) {
-                                union.add(fact.getAttributes()[i]);
-                            }
-                            union.add(rule.getAttributes()[i]);
-                            atributtes[i] = String.join(" ", union);
-                            break;
-                        }
-                        
-                        /*
-                        *
-                        * TO DO: OTHER OPERATORS
-                        *
-                        */
-                    
-                    }
-                } catch (Exception exception2) {
-                    throw exception2;
+                // Set-valued labels: premises, then rule
+                List<String> labels = labelsAt(potentialFacts, i);
+                labels.add(rule.getAttributes()[i]);
+                String combined = combineSets(functions[i][0], labels);
+                if (combined != null) {
+                    atributtes[i] = combined;
                 }
             }
         }
@@ -299,6 +463,56 @@ public class InferenceEngine {
         return atributtes;
     }
     
+    /**
+     * Returns the compiled form of a label algebra function.
+     * <p>
+     * Functions are taken from the shared {@link ExpressionCache} the first time
+     * they are used and then reused by this engine; the engine runs on a single
+     * thread, so its copy can be rebound for every evaluation.
+     *
+     * @param function  The function over the variables {@code X} and {@code Y}
+     * @return          The compiled expression
+     * @throws IllegalArgumentException if the function is not numeric (e.g. {@code "Union"})
+     */
+    private Expression expression(String function) {
+        Expression expression = expressions.get(function);
+        if (expression == null) {
+            expression = ExpressionCache.compile(function);
+            expressions.put(function, expression);
+        }
+        return expression;
+    }
+    
+    /**
+     * Combines set-valued labels with a symbolic operator, over the
+     * dictionary of this run.
+     *
+     * @param function  The operator, {@code "Union"} or {@code "Intersection"}
+     * @param labels    The labels to combine, in order
+     * @return          The combined label, or {@code null} if the function is
+     *                  not a set operator
+     */
+    private String combineSets(String function, List<String> labels) {
+        if (!SetLabels.isSetOperator(function)) {
+            return null;
+        }
+        if (setLabels == null) {
+            setLabels = new SetLabels();
+        }
+        return setLabels.combine(function, labels);
+    }
+    
+    /**
+     * Returns the labels at one position of some facts, in a new list.
+     */
+    private static List<String> labelsAt(List<Fact> facts, int i) {
+        List<String> labels = new ArrayList<>(facts.size() + 1);
+        for (Fact fact : facts) {
+            labels.add(fact.getAttributes()[i]);
+        }
+        return labels;
+    }
+    
     /**
      * Determines whether two facts represent the same logical statement in the
      * knowledge base, ignoring their attribute values.
@@ -376,9 +590,12 @@ public class InferenceEngine {
      * </p>
      *
      * <p>
-     * The search is performed through the current graph structure stored in
-     * {@code edges}. A match triggers the aggregation process which will merge
-     * labels, update edges, and unify the fact representation.
+     * The search is performed through the known facts and the current graph
+     * structure stored in {@code edges}. A base fact that no rule has used yet
+     * is not in the graph, but it still takes part in the aggregation, so the
+     * result does not depend on the order of the rules. A match triggers the
+     * aggregation process which will merge labels, update edges, and unify the
+     * fact representation.
      * </p>
      * 
      * @param newFact The newly generated fact whose presence in the graph must be checked
@@ -387,6 +604,12 @@ public class InferenceEngine {
      *           {@code false} otherwise
      */
     private boolean anyAggregation(Fact newFact) {
+        for (Fact fact : facts) {
+            if (equalFacts(fact, newFact)) {
+                return true;
+            }
+        }
+        
         boolean aggregation = false;
 
         for (Map.Entry<KnowledgePiece, List<Fact>> entry : edges.entrySet()) {
@@ -469,25 +692,35 @@ public class InferenceEngine {
 
         if (auxFact != null) {
             facts.remove(auxFact); // The same fact is removed
+            // A base fact that no rule has used yet joins the graph as a source of the aggregation
+            edges.putIfAbsent(auxFact, new ArrayList<>());
         } else {
             auxFact = combineFacts(newFact);
         }
 
         newFact.setAttributes(calculateSupport(potentialFacts, rule)); // Calculate the attributes values
+        if (trace != null) {
+            trace.supported(newFact, List.copyOf(potentialFacts), rule);
+        }
         // Add the edge from the activated rule to the new fact
         if (!edges.containsKey(rule)) {
             edges.put(rule, new ArrayList<>());
         }
         edges.get(rule).add(newFact);
+        listener.supportAdded(rule, newFact);
         // Add edges between ancestors and the new fact
         for (Fact potentialFact : potentialFacts) {
             if (!edges.containsKey(potentialFact)) {
                 edges.put(potentialFact, new ArrayList<>());
             }
             edges.get(potentialFact).add(newFact);
+            listener.supportAdded(potentialFact, newFact);
         }
         // Calculate the attributes values
         Fact aggregatedFact = new Fact(newFact.getName(), newFact.getArgument(), calculateAggregation(newFact, auxFact));
+        if (trace != null) {
+            trace.aggregated(aggregatedFact, List.of(newFact, auxFact));
+        }
         // Add new fact to facts list
         facts.add(aggregatedFact);
         // Re-build argumentative graph with the new aggregation
@@ -541,7 +774,11 @@ public class InferenceEngine {
             }
         }
         // The matching facts are combined
-        return new Fact(newFact.getName(), newFact.getArgument(), calculateAggregation(aggregatedFacts) );
+        Fact combinedFact = new Fact(newFact.getName(), newFact.getArgument(), calculateAggregation(aggregatedFacts) );
+        if (trace != null) {
+            trace.aggregated(combinedFact, aggregatedFacts);
+        }
+        return combinedFact;
     }
         
     /**
@@ -577,6 +814,7 @@ public class InferenceEngine {
      */
     private void reBuilTree (Fact newFact) {
         removableEdges.clear(); // Cleam removable edges list
+        erasedFacts.clear();
         Set<KnowledgePiece> newEdges = new HashSet<>(); // Source facts of the new edges towards the aggregate fact
         // Looking for matching facts in the graph
         for (Map.Entry<KnowledgePiece, List<Fact>> entry : edges.entrySet()) {
@@ -596,7 +834,16 @@ public class InferenceEngine {
         }
         // Remove edges
         for (KnowledgePiece removableEdge : removableEdges) {
-            edges.remove(removableEdge);
+            if (removableEdge instanceof Rule) {
+                detachRule((Rule) removableEdge, newFact.getArgument());
+            } else if (newEdges.contains(removableEdge) || erasedFacts.contains(removableEdge)) {
+                edges.remove(removableEdge);
+            } else {
+                detachPremise((Fact) removableEdge);
+            }
+        }
+        if (trace != null) {
+            trace.detached(removableEdges);
         }
         // Add new aggregation edges
         for (KnowledgePiece edge : newEdges) {
@@ -605,6 +852,49 @@ public class InferenceEngine {
             }
             edges.get(edge).add(newFact);
         }
+        listener.factAggregated(newFact, newEdges);
+    }
+    
+    /**
+     * Removes the edges of a rule towards the facts of one argument.
+     * <p>
+     * A rule is a single node shared by every argument, so its edges towards
+     * the facts of other arguments are kept: an aggregation in one argument
+     * never changes the derivations of another one. The rule leaves the
+     * graph when it has no edges left.
+     *
+     * @param rule      The rule whose edges are removed
+     * @param argument  The argument of the aggregation
+     */
+    private void detachRule (Rule rule, String argument) {
+        List<Fact> derived = edges.get(rule);
+        if (derived == null) {
+            return;
+        }
+        derived.removeIf(fact -> fact.getArgument().equals(argument));
+        if (derived.isEmpty()) {
+            edges.remove(rule);
+        }
+    }
+    
+    /**
+     * Removes the edges of a premise towards erased facts.
+     * <p>
+     * A fact that is not erased itself keeps its edges towards the facts
+     * that are still in the graph, such as the other conclusions it
+     * supports. It leaves the graph when it has no edges left.
+     *
+     * @param premise  The parent of some erased fact
+     */
+    private void detachPremise (Fact premise) {
+        List<Fact> derived = edges.get(premise);
+        if (derived == null) {
+            return;
+        }
+        derived.removeIf(erasedFacts::contains);
+        if (derived.isEmpty()) {
+            edges.remove(premise);
+        }
     }
     
     /**
@@ -625,7 +915,9 @@ public class InferenceEngine {
      *       processed to propagate removal upward through the derivation chain.</li>
      *   <li>The fact itself is marked for deletion in {@code removableEdges}.</li>
      *   <li>All parents that link to this fact (i.e. those for whom it appears as
-     *       a destination in an edge) are also marked for removal.</li>
+     *       a destination in an edge) are also marked for removal. For a rule,
+     *       only its edges towards the argument of the fact are removed; for a
+     *       fact that is not erased itself, only its edges towards erased facts.</li>
      * </ol>
      *
      * <h3>Conceptual purpose</h3>
@@ -648,6 +940,7 @@ public class InferenceEngine {
             }
             // Remove node
             removableEdges.add(value); 
+            erasedFacts.add(value);
             // Remove edges that have the removed node as their destination
             for (Map.Entry<KnowledgePiece, List<Fact>> entry : edges.entrySet()) {
                 for (Fact fact : entry.getValue()) {
@@ -683,7 +976,7 @@ public class InferenceEngine {
      * If numeric parsing fails at any index:
      * <ul>
      *   <li>The method performs a set-based merge of symbolic labels</li>
-     *   <li>Only the {@code "Union"} operator is currently supported</li>
+     *   <li>The {@code "Union"} and {@code "Intersection"} operators are supported</li>
      * </ul>
      * 
      * <h3>Operator reference</h3>
@@ -701,19 +994,16 @@ public class InferenceEngine {
     private String[] calculateAggregation(Fact newFact, Fact removableFact) {
         String[] atributtes = new String[ newFact.getAttributes().length ];
         Expression expression;
-        LinkedHashSet<String> union = new LinkedHashSet<>();
         
         for (int i = 0; i < atributtes.length ; i++) {
             try {
                 atributtes[i] = "0.0";
                 // Replace X and Y in the expresion
-                expression = new ExpressionBuilder( functions[i][1] )
-                        .variables("X", "Y")
-                        .build()
-                        .setVariable("X", Double.parseDouble(newFact.getAttributes()[i]))
-                        .setVariable("Y", Double.parseDouble(removableFact.getAttributes()[i]));
+                expression = expression(functions[i][1])
+                        .setVariable("X", precisions[i].parse(newFact.getAttributes()[i]))
+                        .setVariable("Y", precisions[i].parse(removableFact.getAttributes()[i]));
                 // Evaluate the expression with the current parameters
-                atributtes[i] = String.valueOf(expression.evaluate());
+                atributtes[i] = precisions[i].format(expression.evaluate());
                 // Normalize values
                 if (Double.parseDouble(atributtes[i])>1) {
                     atributtes[i] = "1.0";
@@ -721,29 +1011,11 @@ public class InferenceEngine {
                     atributtes[i] = "0.0";
                 }
             } catch (IllegalArgumentException exception1) {
-                /*
-                *
-                * ONLY UNION SUPPORTED!!!!!!!!!!
-                *
-                */
-                try {
-                    union.clear();
-                    
-                    switch (functions[i][1]) {
-                        case "Union" -> {
-                            union.addAll(Arrays.asList(newFact.getAttributes()[i].split(" ")));
-                            union.addAll(Arrays.asList(removableFact.getAttributes()[i].split(" ")));
-                            
-                            atributtes[i] = String.join(" ", union);
-                        }
-                        /*
-                        *
-                        * TO DO: OTHER OPERATORS
-                        *
-                        */
-                    }
-                } catch (Exception exception2) {
-                    throw exception2;
+                // Set-valued labels
+                String combined = combineSets(functions[i][1],
+                        labelsAt(List.of(newFact, removableFact), i));
+                if (combined != null) {
+                    atributtes[i] = combined;
                 }
             }
         }
@@ -775,10 +1047,18 @@ public class InferenceEngine {
      * If numeric parsing fails for a dimension:
      * <ul>
      *   <li>The dimension falls back to symbolic aggregation</li>
-     *   <li>Currently only the {@code "Union"} operator is supported</li>
-     *   <li>Duplicates are removed via {@link LinkedHashSet}</li>
+     *   <li>The {@code "Union"} and {@code "Intersection"} operators are supported</li>
+     *   <li>Sets are combined as bitmaps, see {@link SetLabels}</li>
      * </ul>
      * 
+     * <h3>Parallel reduction</h3>
+     * When at least {@link #PARALLEL_AGGREGATION_THRESHOLD} facts are merged
+     * and the operator is one of the associative and commutative ones (see
+     * {@link AlgebraicProperties}), the values are combined by a parallel
+     * reduction instead of the left-to-right fold. The result is the same
+     * up to floating-point rounding, and does not depend on the number of
+     * threads.
+     * 
      * <h3>Algebra reference</h3>
      * Aggregation operator for label index {@code i}:
      * <pre>
@@ -793,24 +1073,25 @@ public class InferenceEngine {
     private String[] calculateAggregation(List<Fact> aggregatedFacts) {
         String[] atributtes = new String[ aggregatedFacts.getFirst().getAttributes().length ];
         Expression expression;
-        LinkedHashSet<String> union = new LinkedHashSet<>();
         
         for (int i = 0; i < atributtes.length ; i++) {
             try {
-                atributtes[i] = null;
-            
-                for (Fact fact : aggregatedFacts) {
-                    if(atributtes[i] == null){
-                        atributtes[i] = fact.getAttributes()[i];
-                    } else {
-                        // Replace X and Y in the expresion
-                        expression = new ExpressionBuilder(functions[i][1])
-                                .variables("X", "Y")
-                                .build()
-                                .setVariable("X", Double.parseDouble(atributtes[i]))
-                                .setVariable("Y", Double.parseDouble(fact.getAttributes()[i]));
-                        // Evaluate the expression with the current parameters
-                        atributtes[i] = String.valueOf(expression.evaluate());
+                atributtes[i] = aggregatedFacts.size() >= PARALLEL_AGGREGATION_THRESHOLD
+                        ? reduceInParallel(aggregatedFacts, i)
+                        : null;
+
+                if (atributtes[i] == null) { // Ordered fold
+                    for (Fact fact : aggregatedFacts) {
+                        if(atributtes[i] == null){
+                            atributtes[i] = fact.getAttributes()[i];
+                        } else {
+                            // Replace X and Y in the expresion
+                            expression = expression(functions[i][1])
+                                    .setVariable("X", precisions[i].parse(atributtes[i]))
+                                    .setVariable("Y", precisions[i].parse(fact.getAttributes()[i]));
+                            // Evaluate the expression with the current parameters
+                            atributtes[i] = precisions[i].format(expression.evaluate());
+                        }
                     }
                 }
                 // Normalize values
@@ -820,30 +1101,10 @@ public class InferenceEngine {
                     atributtes[i] = "0.0";
                 }
             } catch (IllegalArgumentException exception1) {
-                /*
-                *
-                * ONLY UNION SUPPORTED!!!!!!!!!!
-                *
-                */
-                try {
-                    union.clear();
-                    
-                    switch (functions[i][1]) {
-                        case "Union" -> {
-                            for (Fact fact : aggregatedFacts) {
-                                union.addAll(Arrays.asList(fact.getAttributes()[i].split(" ")));
-                            }
-                            
-                            atributtes[i] = String.join(" ", union);
-                        }
-                        /*
-                        *
-                        * TO DO: OTHER OPERATORS
-                        *
-                        */
-                    }
-                } catch (Exception exception2) {
-                    throw exception2;
+                // Set-valued labels
+                String combined = combineSets(functions[i][1], labelsAt(aggregatedFacts, i));
+                if (combined != null) {
+                    atributtes[i] = combined;
                 }
             }
         }
@@ -921,6 +1182,10 @@ public class InferenceEngine {
                     fact.setDeltaAttributes(Attributte2);
                     
                     conflictiveNodes.add(new PairInConflict(nf, fact)); // Calculate delta attributes
+                    if (trace != null) {
+                        trace.attacked(nf, fact);
+                    }
+                    listener.conflictDetected(nf, fact);
                 }
             }
         }
@@ -948,9 +1213,10 @@ public class InferenceEngine {
      * <h3>Symbolic attack (fallback)</h3>
      * If numeric parsing fails:
      * <ul>
-     *   <li>Only {@code "Intersection"} is currently supported</li>
-     *   <li>Each dimension is processed by set intersection</li>
-     *   <li>Duplicates are removed and order is preserved</li>
+     *   <li>{@code "Intersection"} keeps the elements common to both labels,
+     *       {@code "Union"} merges them</li>
+     *   <li>Elements are written once each, in the order in which they first
+     *       appear in the two labels</li>
      * </ul>
      * 
      * <h3>Algebra index reference</h3>
@@ -967,20 +1233,16 @@ public class InferenceEngine {
     private String[] calculateAttack (Fact f1, Fact f2) {
         String[] attributtes = new String[f1.getAttributes().length];
         Expression expression;
-        LinkedHashSet<String> intersection1 = new LinkedHashSet<>();
-        LinkedHashSet<String> intersection2 = new LinkedHashSet<>();
         
         for (int i = 0; i < attributtes.length; i++) { 
             try {
                 // Replace X and Y in the expresion
-                expression = new ExpressionBuilder( functions[i][2] )
-                        .variables("X", "Y")
-                        .build()
-                        .setVariable("X", Double.parseDouble(f1.getAttributes()[i]))
-                        .setVariable("Y", Double.parseDouble(f2.getAttributes()[i]));
+                expression = expression(functions[i][2])
+                        .setVariable("X", precisions[i].parse(f1.getAttributes()[i]))
+                        .setVariable("Y", precisions[i].parse(f2.getAttributes()[i]));
 
                 // Evaluate the expression with the current parameters
-                attributtes[i] = String.valueOf(expression.evaluate());
+                attributtes[i] = precisions[i].format(expression.evaluate());
                 // Normalize values
                 if (Double.parseDouble(attributtes[i])>1) {
                     attributtes[i] = "1.0";
@@ -988,32 +1250,10 @@ public class InferenceEngine {
                     attributtes[i] = "0.0";
                 }
             } catch (IllegalArgumentException exception1) {
-                /*
-                *
-                * ONLY INTERSECTION SUPPORTED!!!!!!!!!!
-                *
-                */
-                try {
-                    intersection1.clear();
-                    intersection2.clear();
-                    
-                    switch (functions[i][2]) {
-                        case "Intersection" -> {
-                            intersection1.addAll(Arrays.asList(f1.getAttributes()[i].split(" ")));
-                            intersection2.addAll(Arrays.asList(f2.getAttributes()[i].split(" ")));
-                            
-                            intersection1.retainAll(intersection2);
-                            
-                            attributtes[i] = String.join(" ", intersection1);
-                        }
-                        /*
-                        *
-                        * TO DO: OTHER OPERATORS
-                        *
-                        */
-                    }
-                } catch (Exception exception2) {
-                    throw exception2;
+                // Set-valued labels
+                String combined = combineSets(functions[i][2], labelsAt(List.of(f1, f2), i));
+                if (combined != null) {
+                    attributtes[i] = combined;
                 }
             }
         }
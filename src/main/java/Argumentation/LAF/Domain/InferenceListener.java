@@ -0,0 +1,81 @@
+package Argumentation.LAF.Domain;
+
+import java.util.Collection;
+
+/**
+ * Callback interface notified by the {@link InferenceEngine} while it runs.
+ *
+ * <p>
+ * The engine repeats fixpoint rounds over every argument and rule until a
+ * round derives nothing new. Listeners are called on the thread running the
+ * engine, in the order in which the events happen, and must not modify the
+ * facts they receive. Every method has an empty default implementation, so
+ * listeners only override what they need.
+ * </p>
+ *
+ * @author JaviDebórtoli
+ */
+public interface InferenceListener {
+    /** Listener that ignores every event. */
+    InferenceListener NONE = new InferenceListener() {};
+
+    /**
+     * Called when a fixpoint round starts.
+     *
+     * @param round the round number, starting at {@code 1}
+     */
+    default void roundStarted(int round) {
+    }
+
+    /**
+     * Called when a rule fires and derives a fact, whether the fact is new
+     * or is later aggregated with an existing one.
+     *
+     * @param fact the derived fact, with its support labels
+     * @param rule the rule that derived it
+     */
+    default void factDerived(Fact fact, Rule rule) {
+    }
+
+    /**
+     * Called when a support edge is added, from the rule or from one of the
+     * premises of a derived fact.
+     *
+     * @param parent the rule or premise
+     * @param child  the derived fact
+     */
+    default void supportAdded(KnowledgePiece parent, Fact child) {
+    }
+
+    /**
+     * Called when several versions of the same fact are aggregated into a
+     * new one. Nodes above the aggregated versions may have been removed from
+     * the graph at this point.
+     *
+     * @param aggregated the fact holding the aggregated labels
+     * @param sources    the versions it aggregates
+     */
+    default void factAggregated(Fact aggregated, Collection<? extends KnowledgePiece> sources) {
+    }
+
+    /**
+     * Called when a fact and its negation are found for the same argument,
+     * once the conflict labels of both have been computed.
+     *
+     * @param negative the negated fact ({@code ~p})
+     * @param positive the positive fact ({@code p})
+     */
+    default void conflictDetected(Fact negative, Fact positive) {
+    }
+
+    /**
+     * Called when a fixpoint round ends.
+     *
+     * @param round              the round number
+     * @param derivedFacts       facts derived since inference started
+     * @param estimatedRemaining estimate of the rule activations still to
+     *                           come, assuming each rule fires once per argument
+     */
+    default void roundCompleted(int round, int derivedFacts, int estimatedRemaining) {
+    }
+}
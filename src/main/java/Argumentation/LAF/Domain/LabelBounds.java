@@ -0,0 +1,156 @@
+package Argumentation.LAF.Domain;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Upper bounds of the numeric labels a program can derive, computed without
+ * running the inference.
+ *
+ * <p>
+ * The bounds are only available for label algebras that are known to be
+ * monotone and non-inflationary, recognized syntactically:
+ * </p>
+ * <ul>
+ *   <li>support: {@code max}, {@code min} or {@code X*Y};</li>
+ *   <li>aggregation: {@code max}, {@code min} or {@code X*Y}, which never
+ *       exceed the larger of their operands;</li>
+ *   <li>conflict: {@code X-Y}, {@code X*(1-Y)}, {@code X*Y}, {@code min}
+ *       or {@code X}, which never exceed the label being weakened.</li>
+ * </ul>
+ * <p>
+ * {@code max} and {@code min} are written as {@code (X+Y+abs(X-Y))/2} and
+ * {@code (X+Y-abs(X-Y))/2}. Operators whose result depends on how many
+ * premises match, such as {@code X+Y}, are not bounded: the engine may match
+ * several versions of the same premise while a fact is being aggregated.
+ * </p>
+ *
+ * <p>
+ * Under such an algebra, and with every label of the program in
+ * {@code [0, 1]}, the final label of a fact never exceeds the largest value
+ * among its base facts and the supports of the rules deriving it, where each
+ * support is computed from the bounds of the premises. The bounds of all
+ * predicates are the least fixpoint of these equations. The engine rounds
+ * the result of every operation, so {@code max} may come out a unit in the
+ * last place above its largest operand; the bounds are widened by a few
+ * units in the last place of the precision of the label per rule.
+ * </p>
+ *
+ * @author JaviDebórtoli
+ */
+public final class LabelBounds {
+    private static final Set<String> MAX = Set.of(
+            "(X+Y+abs(X-Y))/2", "(Y+X+abs(X-Y))/2", "(X+Y+abs(Y-X))/2", "(Y+X+abs(Y-X))/2");
+    private static final Set<String> MIN = Set.of(
+            "(X+Y-abs(X-Y))/2", "(Y+X-abs(X-Y))/2", "(X+Y-abs(Y-X))/2", "(Y+X-abs(Y-X))/2");
+    private static final Set<String> PRODUCT = Set.of("X*Y", "Y*X");
+    private static final Set<String> WEAKENING = Set.of("X-Y", "X*(1-Y)", "(1-Y)*X", "X");
+
+    private LabelBounds() {
+    }
+
+    /**
+     * Tells whether the labels computed by an algebra can be bounded.
+     *
+     * @param functions support, aggregation and conflict functions of one label
+     * @return {@code true} if {@link #upperBound} applies to the label
+     */
+    public static boolean isBounded(String[] functions) {
+        String support = normalize(functions[0]);
+        String aggregation = normalize(functions[1]);
+        String conflict = normalize(functions[2]);
+        return (MAX.contains(support) || MIN.contains(support) || PRODUCT.contains(support))
+                && (MAX.contains(aggregation) || MIN.contains(aggregation) || PRODUCT.contains(aggregation))
+                && (WEAKENING.contains(conflict) || MIN.contains(conflict) || PRODUCT.contains(conflict));
+    }
+
+    /**
+     * Computes an upper bound of the final label of the facts of a predicate
+     * derived from the facts of a single argument. The algebra of the label
+     * must be {@link #isBounded bounded}.
+     *
+     * @param goal      the predicate
+     * @param facts     the base facts of the argument
+     * @param rules     the rules of the program
+     * @param functions support, aggregation and conflict functions of the label
+     * @param label     position of the label
+     * @return the bound; {@link Double#NEGATIVE_INFINITY} if no fact of the
+     *         predicate can be derived, {@link Double#POSITIVE_INFINITY} if
+     *         some label of the program is not a number in {@code [0, 1]}
+     */
+    public static double upperBound(String goal, List<Fact> facts, List<Rule> rules,
+                                    String[] functions, int label) {
+        boolean max = MAX.contains(normalize(functions[0]));
+        LabelPrecision precision = functions.length > 3 ? LabelPrecision.of(functions[3]) : LabelPrecision.DOUBLE;
+        Map<String, Double> bounds = new HashMap<>();
+        for (Fact fact : facts) {
+            double value = valueOf(fact, label);
+            if (Double.isNaN(value)) {
+                return Double.POSITIVE_INFINITY;
+            }
+            bounds.merge(fact.getName(), value, Math::max);
+        }
+        for (Rule rule : rules) {
+            if (Double.isNaN(valueOf(rule, label))) {
+                return Double.POSITIVE_INFINITY;
+            }
+        }
+
+        // Bounds only take values among the labels of the program, so the
+        // fixpoint is reached after at most one round per rule
+        boolean changed = true;
+        for (int round = 0; changed && round <= rules.size(); round++) {
+            changed = false;
+            for (Rule rule : rules) {
+                // The engine fires a rule when it matches as many facts as
+                // the rule has premises, so one premise may already suffice
+                boolean fires = rule.getBody().isEmpty();
+                double support = 0.0;
+                for (String premise : rule.getBody()) {
+                    Double bound = bounds.get(premise);
+                    if (bound != null) {
+                        fires = true;
+                        support = max ? Math.max(support, bound) : Math.min(support, bound);
+                    }
+                }
+                if (!fires) {
+                    continue;
+                }
+                support = max ? Math.max(support, valueOf(rule, label)) : Math.min(support, valueOf(rule, label));
+                Double previous = bounds.get(rule.getHead());
+                if (previous == null || support > previous) {
+                    bounds.put(rule.getHead(), support);
+                    changed = true;
+                }
+            }
+        }
+        if (changed) {
+            return 1.0;
+        }
+        double ulp = precision == LabelPrecision.FLOAT32 ? Math.ulp(1.0f) : Math.ulp(1.0);
+        return bounds.getOrDefault(goal, Double.NEGATIVE_INFINITY) + 4 * (rules.size() + 1) * ulp;
+    }
+
+    private static String normalize(String function) {
+        return function == null ? "" : function.replaceAll("\\s+", "");
+    }
+
+    /**
+     * Returns a label of a fact or rule, or {@code NaN} if it is not a
+     * number in {@code [0, 1]}.
+     */
+    private static double valueOf(KnowledgePiece piece, int label) {
+        String[] labels = piece.getAttributes();
+        if (labels == null || label >= labels.length || labels[label] == null) {
+            return Double.NaN;
+        }
+        try {
+            double value = Double.parseDouble(labels[label]);
+            return value >= 0.0 && value <= 1.0 ? value : Double.NaN;
+        } catch (NumberFormatException exception) {
+            return Double.NaN;
+        }
+    }
+}
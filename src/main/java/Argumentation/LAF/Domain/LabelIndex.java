@@ -0,0 +1,213 @@
+package Argumentation.LAF.Domain;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Sorted indexes over the nodes of a graph, used to filter and paginate
+ * them without scanning the graph.
+ *
+ * <p>
+ * Nodes are indexed by structural key, by predicate (the name of a fact or
+ * the head of a rule) and, for every label position {@code k}, by the final
+ * value of their label {@code deltaAttributes[k]}, both over all nodes and
+ * per predicate. Only labels holding a number are indexed by value. A range
+ * query is therefore a logarithmic search for its lower bound followed by
+ * a walk over the page, and pages are resumed from a cursor that encodes
+ * the position of the last node returned.
+ * </p>
+ *
+ * @author JaviDebórtoli
+ */
+public final class LabelIndex {
+    private static final Comparator<Entry> BY_KEY = (a, b) -> Long.compareUnsigned(a.key(), b.key());
+    private static final Comparator<Entry> BY_VALUE = Comparator.comparingDouble(Entry::value).thenComparing(BY_KEY);
+
+    private final NavigableSet<Entry> all = new TreeSet<>(BY_KEY);
+    private final Map<String, NavigableSet<Entry>> byPredicate = new HashMap<>();
+    private final Map<Integer, NavigableSet<Entry>> byLabel = new HashMap<>();
+    private final Map<String, Map<Integer, NavigableSet<Entry>>> byPredicateLabel = new HashMap<>();
+
+    /**
+     * An indexed node.
+     *
+     * @param node  the fact or rule
+     * @param key   its structural key
+     * @param value the label value the entry is sorted by, {@code 0} in key-ordered indexes
+     */
+    public record Entry(KnowledgePiece node, long key, double value) {}
+
+    /**
+     * Filter of a node query. Every criterion is optional.
+     *
+     * @param type      {@code FACT} or {@code RULE}
+     * @param predicate name of the facts or head of the rules
+     * @param label     position of the label the range applies to
+     * @param min       lowest accepted label value, inclusive
+     * @param max       highest accepted label value, inclusive
+     */
+    public record Query(String type, String predicate, Integer label, Double min, Double max) {}
+
+    /**
+     * Adds a node to the indexes.
+     *
+     * @param node the fact or rule
+     * @param key  its structural key
+     */
+    public void add(KnowledgePiece node, long key) {
+        Entry entry = new Entry(node, key, 0);
+        all.add(entry);
+        byPredicate.computeIfAbsent(predicateOf(node), p -> new TreeSet<>(BY_KEY)).add(entry);
+
+        String[] labels = node.getDeltaAttributes();
+        for (int k = 0; labels != null && k < labels.length; k++) {
+            double value = valueOf(labels[k]);
+            if (!Double.isNaN(value)) {
+                Entry valued = new Entry(node, key, value);
+                byLabel.computeIfAbsent(k, i -> new TreeSet<>(BY_VALUE)).add(valued);
+                byPredicateLabel.computeIfAbsent(predicateOf(node), p -> new HashMap<>())
+                        .computeIfAbsent(k, i -> new TreeSet<>(BY_VALUE)).add(valued);
+            }
+        }
+    }
+
+    /**
+     * Removes a node from the indexes. The labels of the node must not have
+     * changed since it was added.
+     *
+     * @param node the fact or rule
+     * @param key  its structural key
+     */
+    public void remove(KnowledgePiece node, long key) {
+        Entry entry = new Entry(node, key, 0);
+        all.remove(entry);
+        String predicate = predicateOf(node);
+        removeFrom(byPredicate, predicate, entry);
+
+        String[] labels = node.getDeltaAttributes();
+        for (int k = 0; labels != null && k < labels.length; k++) {
+            double value = valueOf(labels[k]);
+            if (!Double.isNaN(value)) {
+                Entry valued = new Entry(node, key, value);
+                removeFrom(byLabel, k, valued);
+                Map<Integer, NavigableSet<Entry>> labelsOfPredicate = byPredicateLabel.get(predicate);
+                if (labelsOfPredicate != null) {
+                    removeFrom(labelsOfPredicate, k, valued);
+                    if (labelsOfPredicate.isEmpty()) {
+                        byPredicateLabel.remove(predicate);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns one page of the nodes matching a query. Nodes are ordered by
+     * label value when the query has a label, by structural key otherwise.
+     * A range whose lowest value is above its highest one, or a cursor past
+     * the end of the range, gives an empty last page.
+     *
+     * @param query  the filter
+     * @param cursor cursor returned with the previous page, or {@code null}
+     *               for the first page
+     * @param limit  maximum number of nodes of the page
+     * @return the page
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public Page<Entry> page(Query query, String cursor, int limit) {
+        boolean valued = query.label() != null;
+        NavigableSet<Entry> index = valued
+                ? (query.predicate() == null
+                        ? byLabel.get(query.label())
+                        : byPredicateLabel.getOrDefault(query.predicate(), Map.of()).get(query.label()))
+                : (query.predicate() == null ? all : byPredicate.get(query.predicate()));
+        if (index == null) {
+            return new Page<>(List.of(), null);
+        }
+
+        // The page starts after the cursor or at the lowest value, whichever is last
+        Entry from = valued && query.min() != null ? new Entry(null, 0, query.min()) : null;
+        boolean inclusive = true;
+        if (cursor != null) {
+            Entry after = decode(cursor, valued);
+            if (from == null || index.comparator().compare(after, from) >= 0) {
+                from = after;
+                inclusive = false;
+            }
+        }
+        Entry to = valued && query.max() != null ? new Entry(null, -1L, query.max()) : null;
+        NavigableSet<Entry> range;
+        if (from != null && to != null) {
+            int order = index.comparator().compare(from, to);
+            if (order > 0 || order == 0 && !inclusive) {
+                return new Page<>(List.of(), null);
+            }
+            range = index.subSet(from, inclusive, to, true);
+        } else if (from != null) {
+            range = index.tailSet(from, inclusive);
+        } else {
+            range = to != null ? index.headSet(to, true) : index;
+        }
+
+        List<Entry> items = new ArrayList<>(Math.min(limit, 1024));
+        for (Entry entry : range) {
+            if (query.type() != null && !query.type().equals(typeOf(entry.node()))) {
+                continue;
+            }
+            if (items.size() == limit) {
+                return new Page<>(items, encode(items.getLast(), valued));
+            }
+            items.add(entry);
+        }
+        return new Page<>(items, null);
+    }
+
+    private static <K> void removeFrom(Map<K, NavigableSet<Entry>> indexes, K name, Entry entry) {
+        NavigableSet<Entry> index = indexes.get(name);
+        if (index != null) {
+            index.remove(entry);
+            if (index.isEmpty()) {
+                indexes.remove(name);
+            }
+        }
+    }
+
+    private static String encode(Entry entry, boolean valued) {
+        String key = Long.toHexString(entry.key());
+        return valued ? Long.toHexString(Double.doubleToLongBits(entry.value())) + "." + key : key;
+    }
+
+    private static Entry decode(String cursor, boolean valued) {
+        try {
+            if (!valued) {
+                return new Entry(null, Long.parseUnsignedLong(cursor, 16), 0);
+            }
+            int separator = cursor.indexOf('.');
+            return new Entry(null, Long.parseUnsignedLong(cursor.substring(separator + 1), 16),
+                    Double.longBitsToDouble(Long.parseUnsignedLong(cursor.substring(0, separator), 16)));
+        } catch (RuntimeException exception) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, exception);
+        }
+    }
+
+    private static String predicateOf(KnowledgePiece node) {
+        return node instanceof Rule rule ? rule.getHead() : ((Fact) node).getName();
+    }
+
+    private static String typeOf(KnowledgePiece node) {
+        return node instanceof Rule ? "RULE" : "FACT";
+    }
+
+    private static double valueOf(String label) {
+        try {
+            return label == null ? Double.NaN : Double.parseDouble(label);
+        } catch (NumberFormatException exception) {
+            return Double.NaN;
+        }
+    }
+}
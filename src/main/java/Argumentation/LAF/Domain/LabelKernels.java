@@ -0,0 +1,179 @@
+package Argumentation.LAF.Domain;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Batch evaluation of the built-in label operations over whole arrays of
+ * label values, for inference that runs column-wise.
+ *
+ * <p>
+ * When the {@code jdk.incubator.vector} module is present (the application
+ * must be started with {@code --add-modules jdk.incubator.vector}), the
+ * operations run as SIMD kernels of the Vector API; otherwise, or when the
+ * {@code laf.vector.disabled} system property is {@code true}, they run as
+ * scalar loops. Both paths perform the same floating-point operations in
+ * the same order as the label algebra expressions they replace, so their
+ * results are bit-identical to an exp4j evaluation of those expressions.
+ * </p>
+ *
+ * @author JaviDebórtoli
+ */
+public final class LabelKernels {
+    /** {@code true} if the operations run on the Vector API. */
+    private static final boolean VECTORIZED = !Boolean.getBoolean("laf.vector.disabled")
+            && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    private LabelKernels() {
+    }
+
+    /**
+     * Built-in binary label operations.
+     */
+    public enum Operation {
+        /** {@code X*Y}. */
+        PRODUCT,
+        /** {@code X+Y}. */
+        SUM,
+        /** {@code X+Y} capped at {@code 1}. */
+        BOUNDED_SUM,
+        /** {@code X+Y-X*Y}. */
+        PROBABILISTIC_SUM,
+        /** {@code (X+Y+abs(X-Y))/2}. */
+        MAX,
+        /** {@code (X+Y-abs(X-Y))/2}. */
+        MIN,
+        /** {@code X-Y}. */
+        DIFFERENCE,
+        /** {@code X*(1-Y)}. */
+        DISCOUNT;
+
+        /** Floating-point addition, multiplication and {@code abs(X-Y)} are commutative, so operands may be swapped. */
+        private static final Map<String, Operation> FORMS = Map.ofEntries(
+                Map.entry("X*Y", PRODUCT),
+                Map.entry("Y*X", PRODUCT),
+                Map.entry("X+Y", SUM),
+                Map.entry("Y+X", SUM),
+                Map.entry("X+Y-X*Y", PROBABILISTIC_SUM),
+                Map.entry("Y+X-X*Y", PROBABILISTIC_SUM),
+                Map.entry("X+Y-Y*X", PROBABILISTIC_SUM),
+                Map.entry("(X+Y+abs(X-Y))/2", MAX),
+                Map.entry("(Y+X+abs(X-Y))/2", MAX),
+                Map.entry("(X+Y+abs(Y-X))/2", MAX),
+                Map.entry("(Y+X+abs(Y-X))/2", MAX),
+                Map.entry("(X+Y-abs(X-Y))/2", MIN),
+                Map.entry("(Y+X-abs(X-Y))/2", MIN),
+                Map.entry("(X+Y-abs(Y-X))/2", MIN),
+                Map.entry("(Y+X-abs(Y-X))/2", MIN),
+                Map.entry("X-Y", DIFFERENCE),
+                Map.entry("X*(1-Y)", DISCOUNT),
+                Map.entry("(1-Y)*X", DISCOUNT));
+
+        /**
+         * Recognizes a label algebra function computed by a built-in operation.
+         *
+         * @param function the function of {@code X} and {@code Y}
+         * @return the operation, or empty if the function is not built in
+         */
+        public static Optional<Operation> of(String function) {
+            return function == null
+                    ? Optional.empty()
+                    : Optional.ofNullable(FORMS.get(function.replaceAll("\\s+", "")));
+        }
+
+        /**
+         * Applies the operation to two values.
+         *
+         * @param x the value bound to {@code X}
+         * @param y the value bound to {@code Y}
+         * @return the result
+         */
+        public double apply(double x, double y) {
+            return switch (this) {
+                case PRODUCT -> x * y;
+                case SUM -> x + y;
+                case BOUNDED_SUM -> Math.min(x + y, 1.0);
+                case PROBABILISTIC_SUM -> x + y - x * y;
+                case MAX -> (x + y + Math.abs(x - y)) / 2;
+                case MIN -> (x + y - Math.abs(x - y)) / 2;
+                case DIFFERENCE -> x - y;
+                case DISCOUNT -> x * (1 - y);
+            };
+        }
+    }
+
+    /**
+     * Tells whether the operations run on the Vector API.
+     *
+     * @return {@code true} for SIMD kernels, {@code false} for scalar loops
+     */
+    public static boolean isVectorized() {
+        return VECTORIZED;
+    }
+
+    /**
+     * Applies an operation element-wise: {@code out[i] = op(x[i], y[i])}.
+     * The output may be one of the inputs.
+     *
+     * @param operation the operation
+     * @param x         values bound to {@code X}
+     * @param y         values bound to {@code Y}
+     * @param out       receives the results
+     * @param length    number of elements to process
+     */
+    public static void apply(Operation operation, double[] x, double[] y, double[] out, int length) {
+        if (VECTORIZED) {
+            VectorLabelKernels.apply(operation, x, y, out, length);
+        } else {
+            applyScalar(operation, x, y, out, length);
+        }
+    }
+
+    /**
+     * Clamps values to {@code [0, 1]} in place, as the inference engine
+     * does: values above {@code 1} become {@code 1}, values below {@code 0}
+     * become {@code 0}, and anything else, {@code NaN} included, is kept.
+     *
+     * @param values the values
+     * @param length number of elements to process
+     */
+    public static void clamp(double[] values, int length) {
+        if (VECTORIZED) {
+            VectorLabelKernels.clamp(values, length);
+        } else {
+            clampScalar(values, length);
+        }
+    }
+
+    /**
+     * Scalar implementation of {@link #apply}, also used for the tail of
+     * the vector loops.
+     */
+    static void applyScalar(Operation operation, double[] x, double[] y, double[] out, int length) {
+        applyScalar(operation, x, y, out, 0, length);
+    }
+
+    static void applyScalar(Operation operation, double[] x, double[] y, double[] out, int from, int to) {
+        for (int i = from; i < to; i++) {
+            out[i] = operation.apply(x[i], y[i]);
+        }
+    }
+
+    /**
+     * Scalar implementation of {@link #clamp}, also used for the tail of
+     * the vector loop.
+     */
+    static void clampScalar(double[] values, int length) {
+        clampScalar(values, 0, length);
+    }
+
+    static void clampScalar(double[] values, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (values[i] > 1) {
+                values[i] = 1.0;
+            } else if (values[i] < 0) {
+                values[i] = 0.0;
+            }
+        }
+    }
+}
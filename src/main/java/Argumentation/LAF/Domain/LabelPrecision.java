@@ -0,0 +1,165 @@
+package Argumentation.LAF.Domain;
+
+import java.util.Locale;
+
+/**
+ * Precision in which the numeric values of a label are read, computed and
+ * written.
+ *
+ * <p>
+ * Labels are confidences in {@code [0, 1]}, for which the 53 bits of a
+ * {@code double} are rarely needed. With {@link #FLOAT32}, the values of a
+ * label are read as {@code float}s, every operation is evaluated from
+ * {@code float} operands and its result is rounded to the nearest
+ * {@code float}, and labels are written as {@link Float#toString(float)}
+ * writes them, at most 9 significant digits long instead of up to 17.
+ * </p>
+ *
+ * <p>
+ * This is a choice of precision, not a memory saving for the graph: facts
+ * keep their labels as strings, only a few characters shorter, and the
+ * engine and the column-wise inference still compute in {@code double}s.
+ * Only the {@link OffHeapFactStore off-heap fact columns} hold values in
+ * the precision of the label, 4 bytes instead of 8.
+ * </p>
+ *
+ * <h3>Error with respect to {@link #DOUBLE}</h3>
+ * <p>
+ * Rounding a value of {@code [0, 1]} to a {@code float} changes it by at
+ * most half a unit in the last place, that is by at most
+ * {@code 2^-25} (about {@code 3.0e-8}) for values in {@code [0.5, 1]},
+ * and by at most {@code 2^-24} relative to the value below {@code 0.5}.
+ * The input labels and the result of every operation are rounded once, so
+ * for the built-in operations, which never magnify the difference of
+ * their operands ({@code max}, {@code min}, products, probabilistic and
+ * bounded sums), a label derived through {@code n} operations differs from
+ * its {@code double} value by at most about {@code (n + 1) * 6.0e-8}. Sums
+ * and differences add the errors of their operands instead, and
+ * differences of close values lose their relative accuracy, as they do
+ * in {@code double}. These bounds hold for the built-in operations only;
+ * an arbitrary expression may amplify the rounding errors as much as it
+ * amplifies any other difference of its operands. Clamping to
+ * {@code [0, 1]} is exact in both precisions.
+ * </p>
+ *
+ * <p>
+ * Inference runs the same operations in the same order in both
+ * precisions, so the inference engine and the column-wise inference give
+ * the same labels in either of them.
+ * </p>
+ *
+ * @author JaviDebórtoli
+ */
+public enum LabelPrecision {
+    /** 64-bit values, the default. */
+    DOUBLE("double", Double.BYTES),
+    /** 32-bit values. */
+    FLOAT32("float32", Float.BYTES);
+
+    private final String id;
+    private final int byteSize;
+
+    LabelPrecision(String id, int byteSize) {
+        this.id = id;
+        this.byteSize = byteSize;
+    }
+
+    /**
+     * Resolves a precision by name.
+     *
+     * @param id {@code "double"} or {@code "float32"}, in any case; {@code null}
+     *           or blank for the default
+     * @return the precision
+     * @throws IllegalArgumentException if the name is unknown
+     */
+    public static LabelPrecision of(String id) {
+        if (id == null || id.isBlank()) {
+            return DOUBLE;
+        }
+        String name = id.strip().toLowerCase(Locale.ROOT);
+        for (LabelPrecision precision : values()) {
+            if (precision.id.equals(name)) {
+                return precision;
+            }
+        }
+        throw new IllegalArgumentException("Unknown label precision: " + id);
+    }
+
+    /**
+     * Returns the precision of every label of a function table, which is
+     * held after the support, aggregation and conflict functions of each row.
+     *
+     * @param functions label algebra function table
+     * @return the precision of each label; {@link #DOUBLE} for rows without one
+     */
+    public static LabelPrecision[] of(String[][] functions) {
+        LabelPrecision[] precisions = new LabelPrecision[functions.length];
+        for (int i = 0; i < functions.length; i++) {
+            precisions[i] = functions[i].length > 3 ? of(functions[i][3]) : DOUBLE;
+        }
+        return precisions;
+    }
+
+    /**
+     * Returns the name of the precision, as accepted by {@link #of(String)}.
+     *
+     * @return the name
+     */
+    public String id() {
+        return id;
+    }
+
+    /**
+     * Returns the size of one value.
+     *
+     * @return the number of bytes
+     */
+    public int byteSize() {
+        return byteSize;
+    }
+
+    /**
+     * Reads a numeric label.
+     *
+     * @param label the text of the label
+     * @return its value, in this precision
+     * @throws NumberFormatException if the label is not a number
+     */
+    public double parse(String label) {
+        return this == FLOAT32 ? Float.parseFloat(label) : Double.parseDouble(label);
+    }
+
+    /**
+     * Rounds a value to this precision.
+     *
+     * @param value the value
+     * @return the nearest value representable in this precision
+     */
+    public double round(double value) {
+        return this == FLOAT32 ? (float) value : value;
+    }
+
+    /**
+     * Rounds values to this precision, in place.
+     *
+     * @param values the values
+     * @param length number of elements to process
+     */
+    public void round(double[] values, int length) {
+        if (this == FLOAT32) {
+            for (int i = 0; i < length; i++) {
+                values[i] = (float) values[i];
+            }
+        }
+    }
+
+    /**
+     * Writes a value as a label.
+     *
+     * @param value the value
+     * @return the text of the value rounded to this precision
+     */
+    public String format(double value) {
+        return this == FLOAT32 ? String.valueOf((float) value) : String.valueOf(value);
+    }
+}
@@ -0,0 +1,30 @@
+package Argumentation.LAF.Domain;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Neighborhood of a node of a {@link ReasoningSession}, extracted with a
+ * {@link GraphIndex}.
+ *
+ * <p>
+ * The structural keys are those the nodes have in the whole session graph
+ * (see {@link ReasoningSession#keyedGraph()}), not in the extracted
+ * subgraph, in which a node may miss some of the parents its key depends on.
+ * </p>
+ *
+ * @param root  the node whose neighborhood was extracted
+ * @param graph the neighborhood, as a subgraph of the session graph
+ * @param keys  structural key of every node of the neighborhood
+ * @param supported facts of the neighborhood derived by a rule in the
+ *                  session graph, whether or not the rule is part of the
+ *                  neighborhood
+ *
+ * @author JaviDebórtoli
+ */
+public record Neighborhood(
+        KnowledgePiece root,
+        ArgumentativeGraph graph,
+        Map<KnowledgePiece, Long> keys,
+        Set<Fact> supported
+) {}
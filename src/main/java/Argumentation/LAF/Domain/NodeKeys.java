@@ -0,0 +1,334 @@
+package Argumentation.LAF.Domain;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Computes structural keys for the nodes of an {@link ArgumentativeGraph}.
+ * <p>
+ * A key identifies a node by <b>what</b> it is and <b>where</b> it was
+ * derived from, never by its labels or by the order in which the engine
+ * produced it:
+ * </p>
+ * <ul>
+ *   <li>Rules are keyed by head, body and label vector.</li>
+ *   <li>Base facts (no parents) are keyed by predicate and argument.</li>
+ *   <li>Derived and aggregated facts are keyed by predicate, argument and
+ *       the keys of their parents, so two derivations of the same fact
+ *       through different rules obtain different keys.</li>
+ * </ul>
+ *
+ * <p>
+ * Because labels are excluded, a fact whose labels change after an update
+ * keeps its key, which makes it possible to report it as a modified node
+ * instead of a removed and re-added one.
+ * </p>
+ *
+ * @author JaviDebórtoli
+ */
+public final class NodeKeys {
+    /** Salt applied to facts that lie on a derivation cycle. */
+    private static final long CYCLE_SALT = 0x5DEECE66DL;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private NodeKeys() {
+    }
+
+    /**
+     * Computes a key for every node that appears in the given graph,
+     * either as an edge endpoint or as a member of a conflict pair.
+     *
+     * <p>
+     * Keys are unique within the returned map. Structurally identical
+     * nodes (same content and same parents) are told apart by an ordinal.
+     * </p>
+     *
+     * @param graph the graph whose nodes must be keyed
+     * @return a map from each node to its structural key
+     */
+    public static Map<KnowledgePiece, Long> of(ArgumentativeGraph graph) {
+        Map<KnowledgePiece, Long> keys = new IdentityHashMap<>();
+        forEach(graph, keys::put);
+        return keys;
+    }
+
+    /**
+     * Computes the key of every node that appears in the given graph and
+     * hands each node with its key to the consumer, without building a map.
+     * Each node is handed exactly once; the cost is linear in the size of
+     * the graph.
+     *
+     * @param graph    the graph whose nodes must be keyed
+     * @param consumer receives every node with its key
+     * @see #of(ArgumentativeGraph)
+     */
+    public static void forEach(ArgumentativeGraph graph, ObjLongConsumer<KnowledgePiece> consumer) {
+        CompactGraph compact = CompactGraph.of(graph);
+        long[] keys = of(compact);
+        for (int node = 0; node < keys.length; node++) {
+            consumer.accept(compact.node(node), keys[node]);
+        }
+    }
+
+    /**
+     * Computes the key of every node of a frozen graph. The cost is linear
+     * in the size of the graph, and the working state is a few arrays
+     * indexed by node id.
+     *
+     * @param graph the graph whose nodes must be keyed
+     * @return the key of every node, indexed by node id
+     * @see #of(ArgumentativeGraph)
+     */
+    public static long[] of(CompactGraph graph) {
+        int count = graph.nodeCount();
+        long[] keys = new long[count];
+        // Unsalted keys, folded into the keys of the children
+        long[] raw = new long[count];
+        // Number of fact parents not keyed yet; -1 once the node is keyed
+        int[] pending = new int[count];
+
+        LongSet used = new LongSet(count);
+        // Next ordinal to try for each key that collided; only those have an entry
+        Map<Long, Integer> ordinals = new HashMap<>();
+        IntQueue ready = new IntQueue(count);
+        for (int node = 0; node < count; node++) {
+            for (int i = 0; i < graph.inDegree(node); i++) {
+                if (graph.node(graph.parent(node, i)) instanceof Fact) {
+                    pending[node]++;
+                }
+            }
+            if (graph.node(node) instanceof Rule rule) {
+                // Rules first, so that facts can fold their keys in
+                keys[node] = assign(used, ordinals, ruleKey(rule));
+            } else if (pending[node] == 0) {
+                ready.add(node);
+            }
+        }
+        // Facts in topological order
+        while (!ready.isEmpty()) {
+            int node = ready.poll();
+            raw[node] = factKey((Fact) graph.node(node), node, graph, keys, raw);
+            keys[node] = assign(used, ordinals, raw[node]);
+            pending[node] = -1;
+
+            for (int i = 0; i < graph.outDegree(node); i++) {
+                int child = graph.child(node, i);
+                if (--pending[child] == 0) {
+                    ready.add(child);
+                }
+            }
+        }
+        for (int node = 0; node < count; node++) {
+            if (graph.node(node) instanceof Fact fact && pending[node] != -1) {
+                // Facts left behind lie on a derivation cycle
+                raw[node] = mix(baseKey(fact) ^ CYCLE_SALT);
+                keys[node] = assign(used, ordinals, raw[node]);
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Builds the content-addressed identifier of a node from its key: the
+     * usual {@code F}/{@code R} prefix followed by the key as 16 hexadecimal
+     * digits.
+     *
+     * @param node the fact or rule
+     * @param key  the structural key of the node
+     * @return the identifier of the node
+     */
+    public static String toId(KnowledgePiece node, long key) {
+        char[] id = new char[17];
+        id[0] = node instanceof Rule ? 'R' : 'F';
+        for (int i = 16; i > 0; i--) {
+            id[i] = HEX_DIGITS[(int) (key & 0xF)];
+            key >>>= 4;
+        }
+        return new String(id);
+    }
+
+    /**
+     * Recovers the key of a node from its content-addressed identifier.
+     *
+     * @param id an identifier built by {@link #toId(KnowledgePiece, long)}
+     * @return the key, or empty if the identifier is not content-addressed
+     */
+    public static OptionalLong keyOf(String id) {
+        if (id == null || id.length() != 17 || (id.charAt(0) != 'F' && id.charAt(0) != 'R')) {
+            return OptionalLong.empty();
+        }
+        try {
+            return OptionalLong.of(Long.parseUnsignedLong(id, 1, 17, 16));
+        } catch (NumberFormatException exception) {
+            return OptionalLong.empty();
+        }
+    }
+
+    /**
+     * Computes the key of a rule from its head, body and label vector.
+     *
+     * @param rule the rule to key
+     * @return the structural key of the rule
+     */
+    public static long ruleKey(Rule rule) {
+        long key = mix(hash(rule.getHead()));
+        for (String literal : rule.getBody()) {
+            key = mix(key ^ hash(literal));
+        }
+        if (rule.getAttributes() != null) {
+            for (String attribute : rule.getAttributes()) {
+                key = mix(key ^ hash(attribute));
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Computes the key of a fact from its content and the unsalted keys
+     * of its parents. Parent keys are combined in an order-independent way.
+     */
+    private static long factKey(Fact fact, int node, CompactGraph graph, long[] keys, long[] raw) {
+        long key = baseKey(fact);
+        if (graph.inDegree(node) == 0) {
+            return key;
+        }
+
+        long combined = 0;
+        for (int i = 0; i < graph.inDegree(node); i++) {
+            int parent = graph.parent(node, i);
+            combined += mix(graph.node(parent) instanceof Rule ? keys[parent] : raw[parent]);
+        }
+        return mix(key ^ combined);
+    }
+
+    /**
+     * Computes the key shared by every fact with the given predicate and argument.
+     */
+    private static long baseKey(Fact fact) {
+        return mix(mix(hash(fact.getName())) ^ hash(fact.getArgument()));
+    }
+
+    /**
+     * Returns the key to store for a node, salting it with an ordinal while
+     * it collides with a key already handed out. The ordinals tried for a
+     * key stay taken, so the next node with the same key resumes after the
+     * last one instead of trying them again; otherwise keying many
+     * identical nodes, such as the applications of a rule, is quadratic.
+     */
+    private static long assign(LongSet used, Map<Long, Integer> ordinals, long key) {
+        if (used.add(key)) {
+            return key;
+        }
+        int ordinal = ordinals.getOrDefault(key, 1);
+        long candidate = mix(key + ordinal);
+        while (!used.add(candidate)) {
+            candidate = mix(key + ++ordinal);
+        }
+        ordinals.put(key, ordinal + 1);
+        return candidate;
+    }
+
+    /**
+     * 64-bit FNV-1a hash of a string ({@code 0} for {@code null}).
+     */
+    private static long hash(String value) {
+        if (value == null) {
+            return 0;
+        }
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * SplitMix64 finalizer, used to spread bits after combining values.
+     */
+    private static long mix(long value) {
+        long z = value + 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * First-in, first-out queue of node ids. Every node is added at most
+     * once, so the capacity is the number of nodes.
+     */
+    private static final class IntQueue {
+        private final int[] items;
+        private int head;
+        private int tail;
+
+        IntQueue(int capacity) {
+            items = new int[capacity];
+        }
+
+        void add(int item) {
+            items[tail++] = item;
+        }
+
+        int poll() {
+            return items[head++];
+        }
+
+        boolean isEmpty() {
+            return head == tail;
+        }
+    }
+
+    /**
+     * Open-addressing set of {@code long} values, used to detect key
+     * collisions without boxing.
+     */
+    private static final class LongSet {
+        private long[] slots;
+        private boolean[] occupied;
+        private int size;
+
+        LongSet(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(4, expected) * 2 - 1) << 1;
+            slots = new long[capacity];
+            occupied = new boolean[capacity];
+        }
+
+        /**
+         * Adds a value, returning {@code false} if it was already present.
+         */
+        boolean add(long value) {
+            if (size * 2 >= slots.length) {
+                grow();
+            }
+            int mask = slots.length - 1;
+            int i = (int) mix(value) & mask;
+            while (occupied[i]) {
+                if (slots[i] == value) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            slots[i] = value;
+            occupied[i] = true;
+            size++;
+            return true;
+        }
+
+        private void grow() {
+            long[] oldSlots = slots;
+            boolean[] oldOccupied = occupied;
+            slots = new long[oldSlots.length * 2];
+            occupied = new boolean[oldSlots.length * 2];
+            size = 0;
+            for (int i = 0; i < oldSlots.length; i++) {
+                if (oldOccupied[i]) {
+                    add(oldSlots[i]);
+                }
+            }
+        }
+    }
+}
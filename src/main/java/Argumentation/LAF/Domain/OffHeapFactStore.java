@@ -0,0 +1,349 @@
+package Argumentation.LAF.Domain;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Columnar store of base facts kept off the Java heap.
+ *
+ * <p>
+ * A {@link Fact} is a heap object with its own label array of strings, so
+ * a program with millions of facts puts millions of objects under the
+ * garbage collector. The store keeps, for every fact, a predicate id, an
+ * argument id and its label values as doubles (or floats, for labels in
+ * {@link LabelPrecision#FLOAT32 float32} precision), in columns of
+ * {@link MemorySegment}s allocated from an {@link Arena}. The only heap
+ * objects are the dictionaries of predicate and argument names and the
+ * text of the few labels that are not written as {@code Double.toString}
+ * (or {@code Float.toString}) writes them, so that facts can be rebuilt
+ * exactly.
+ * </p>
+ *
+ * <p>
+ * Columns grow in chunks of {@value #CHUNK_SIZE} facts and are never
+ * freed one by one: the store lives as long as its arena, and its memory
+ * is released all at once, deterministically, when the arena is closed
+ * (typically at the end of the request that read the program). A store is
+ * confined to the thread of a confined arena.
+ * </p>
+ *
+ * <p>
+ * Facts whose labels are not numeric, or whose number of labels differs
+ * from that of the store, are kept on the heap as they are; the store is
+ * then no longer {@link #isNumeric() numeric}.
+ * </p>
+ *
+ * @author JaviDebórtoli
+ */
+public final class OffHeapFactStore {
+    /** Number of facts per chunk of every column. */
+    static final int CHUNK_SIZE = 1 << 16;
+
+    private final Arena arena;
+    private final int labels;
+    private final LabelPrecision precision;
+    /** Layout of a label value, as wide as the precision. */
+    private final ValueLayout layout;
+    /** Predicate id of each fact, one segment per chunk. */
+    private final List<MemorySegment> predicateChunks = new ArrayList<>();
+    /** Argument id of each fact, one segment per chunk. */
+    private final List<MemorySegment> argumentChunks = new ArrayList<>();
+    /** Label values of each fact, in fact-major order, one segment per chunk. */
+    private final List<MemorySegment> labelChunks = new ArrayList<>();
+    private final List<String> predicateNames = new ArrayList<>();
+    private final Map<String, Integer> predicateIds = new HashMap<>();
+    private final List<String> argumentNames = new ArrayList<>();
+    private final Map<String, Integer> argumentIds = new HashMap<>();
+    /** Text of the labels not written as the precision writes them, by label position. */
+    private final Map<Long, String> texts = new HashMap<>();
+    /** Labels of the facts that do not fit in the columns, by fact. */
+    private final Map<Integer, String[]> irregular = new HashMap<>();
+    private int size;
+
+    /**
+     * Creates an empty store of labels in double precision.
+     *
+     * @param arena  the arena that allocates, and eventually frees, the columns
+     * @param labels number of labels of every fact
+     */
+    public OffHeapFactStore(Arena arena, int labels) {
+        this(arena, labels, LabelPrecision.DOUBLE);
+    }
+
+    /**
+     * Creates an empty store.
+     *
+     * @param arena     the arena that allocates, and eventually frees, the columns
+     * @param labels    number of labels of every fact
+     * @param precision precision in which label values are read and kept
+     */
+    public OffHeapFactStore(Arena arena, int labels, LabelPrecision precision) {
+        this.arena = arena;
+        this.labels = labels;
+        this.precision = precision;
+        this.layout = precision == LabelPrecision.FLOAT32 ? ValueLayout.JAVA_FLOAT : ValueLayout.JAVA_DOUBLE;
+    }
+
+    /**
+     * Appends a fact.
+     *
+     * @param name       predicate of the fact
+     * @param argument   argument of the fact
+     * @param attributes labels of the fact
+     * @return the index of the fact
+     */
+    public int add(String name, String argument, String[] attributes) {
+        int fact = size;
+        if (fact % CHUNK_SIZE == 0) {
+            predicateChunks.add(arena.allocate(ValueLayout.JAVA_INT.byteSize() * CHUNK_SIZE,
+                    ValueLayout.JAVA_INT.byteAlignment()));
+            argumentChunks.add(arena.allocate(ValueLayout.JAVA_INT.byteSize() * CHUNK_SIZE,
+                    ValueLayout.JAVA_INT.byteAlignment()));
+            labelChunks.add(arena.allocate(layout.byteSize() * CHUNK_SIZE * Math.max(1, labels),
+                    layout.byteAlignment()));
+        }
+        int chunk = fact / CHUNK_SIZE;
+        int offset = fact % CHUNK_SIZE;
+
+        predicateChunks.get(chunk).setAtIndex(ValueLayout.JAVA_INT, offset, id(name, predicateNames, predicateIds));
+        argumentChunks.get(chunk).setAtIndex(ValueLayout.JAVA_INT, offset, id(argument, argumentNames, argumentIds));
+
+        double[] values = parse(attributes);
+        if (values == null) {
+            irregular.put(fact, attributes);
+        } else {
+            MemorySegment column = labelChunks.get(chunk);
+            for (int i = 0; i < labels; i++) {
+                set(column, (long) offset * labels + i, values[i]);
+                if (!precision.format(values[i]).equals(attributes[i])) {
+                    texts.put((long) fact * labels + i, attributes[i]);
+                }
+            }
+        }
+        size++;
+        return fact;
+    }
+
+    /**
+     * Returns the number of facts in the store.
+     *
+     * @return the number of facts
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of labels of every fact.
+     *
+     * @return the number of labels
+     */
+    public int labelCount() {
+        return labels;
+    }
+
+    /**
+     * Returns the precision in which label values are kept.
+     *
+     * @return the precision
+     */
+    public LabelPrecision precision() {
+        return precision;
+    }
+
+    /**
+     * Returns the number of distinct arguments in the store.
+     *
+     * @return the number of arguments; argument ids range from {@code 0}
+     *         to this value, in order of first appearance
+     */
+    public int argumentCount() {
+        return argumentNames.size();
+    }
+
+    /**
+     * Returns the distinct predicates of the facts in the store.
+     *
+     * @return the predicates, indexed by predicate id
+     */
+    public List<String> predicates() {
+        return Collections.unmodifiableList(predicateNames);
+    }
+
+    /**
+     * Tells whether every label of every fact is a number held in the
+     * columns.
+     *
+     * @return {@code true} if no fact is kept on the heap
+     */
+    public boolean isNumeric() {
+        return irregular.isEmpty();
+    }
+
+    /**
+     * Returns the predicate of a fact.
+     *
+     * @param fact the index of the fact
+     * @return the predicate
+     */
+    public String predicate(int fact) {
+        return predicateNames.get(predicateId(fact));
+    }
+
+    /**
+     * Returns the predicate id of a fact.
+     *
+     * @param fact the index of the fact
+     * @return the predicate id, in order of first appearance
+     */
+    public int predicateId(int fact) {
+        return predicateChunks.get(fact / CHUNK_SIZE).getAtIndex(ValueLayout.JAVA_INT, fact % CHUNK_SIZE);
+    }
+
+    /**
+     * Returns the argument of a fact.
+     *
+     * @param fact the index of the fact
+     * @return the argument
+     */
+    public String argument(int fact) {
+        return argumentNames.get(argumentId(fact));
+    }
+
+    /**
+     * Returns the argument id of a fact.
+     *
+     * @param fact the index of the fact
+     * @return the argument id, in order of first appearance
+     */
+    public int argumentId(int fact) {
+        return argumentChunks.get(fact / CHUNK_SIZE).getAtIndex(ValueLayout.JAVA_INT, fact % CHUNK_SIZE);
+    }
+
+    /**
+     * Returns the value of a label of a fact.
+     *
+     * @param fact  the index of the fact
+     * @param label the label position
+     * @return the value of the label
+     * @throws IllegalArgumentException if the fact is not held in the columns
+     */
+    public double label(int fact, int label) {
+        if (!irregular.isEmpty() && irregular.containsKey(fact)) {
+            throw new IllegalArgumentException("Fact " + fact + " does not have numeric labels");
+        }
+        MemorySegment column = labelChunks.get(fact / CHUNK_SIZE);
+        long index = (long) (fact % CHUNK_SIZE) * labels + label;
+        return layout == ValueLayout.JAVA_FLOAT
+                ? column.getAtIndex(ValueLayout.JAVA_FLOAT, index)
+                : column.getAtIndex(ValueLayout.JAVA_DOUBLE, index);
+    }
+
+    private void set(MemorySegment column, long index, double value) {
+        if (layout == ValueLayout.JAVA_FLOAT) {
+            column.setAtIndex(ValueLayout.JAVA_FLOAT, index, (float) value);
+        } else {
+            column.setAtIndex(ValueLayout.JAVA_DOUBLE, index, value);
+        }
+    }
+
+    /**
+     * Returns a label of a fact as it was written.
+     *
+     * @param fact  the index of the fact
+     * @param label the label position
+     * @return the text of the label
+     */
+    public String text(int fact, int label) {
+        String[] attributes = irregular.isEmpty() ? null : irregular.get(fact);
+        if (attributes != null) {
+            return attributes[label];
+        }
+        String text = texts.isEmpty() ? null : texts.get((long) fact * labels + label);
+        return text != null ? text : precision.format(label(fact, label));
+    }
+
+    /**
+     * Rebuilds a fact on the heap.
+     *
+     * @param fact the index of the fact
+     * @return a new {@link Fact} equal to the one that was added
+     */
+    public Fact toFact(int fact) {
+        String[] attributes = irregular.get(fact);
+        if (attributes == null) {
+            attributes = new String[labels];
+            for (int i = 0; i < labels; i++) {
+                attributes[i] = text(fact, i);
+            }
+        }
+        return new Fact(predicate(fact), argument(fact), attributes);
+    }
+
+    /**
+     * Rebuilds every fact on the heap, in order.
+     *
+     * @return the facts
+     */
+    public List<Fact> toFacts() {
+        List<Fact> facts = new ArrayList<>(size);
+        for (int fact = 0; fact < size; fact++) {
+            facts.add(toFact(fact));
+        }
+        return facts;
+    }
+
+    /**
+     * Returns the off-heap memory allocated for the columns.
+     *
+     * @return the number of bytes
+     */
+    public long byteSize() {
+        long bytes = 0;
+        for (int chunk = 0; chunk < predicateChunks.size(); chunk++) {
+            bytes += predicateChunks.get(chunk).byteSize()
+                    + argumentChunks.get(chunk).byteSize()
+                    + labelChunks.get(chunk).byteSize();
+        }
+        return bytes;
+    }
+
+    private static int id(String name, List<String> names, Map<String, Integer> ids) {
+        Integer id = ids.get(name);
+        if (id == null) {
+            id = names.size();
+            names.add(name);
+            ids.put(name, id);
+        }
+        return id;
+    }
+
+    /**
+     * Parses the labels of a fact.
+     *
+     * @return the values, or {@code null} if the fact does not fit in the columns
+     */
+    private double[] parse(String[] attributes) {
+        if (attributes == null || attributes.length != labels) {
+            return null;
+        }
+        double[] values = new double[labels];
+        try {
+            for (int i = 0; i < labels; i++) {
+                if (attributes[i] == null) {
+                    return null;
+                }
+                values[i] = precision.parse(attributes[i]);
+            }
+        } catch (NumberFormatException exception) {
+            return null;
+        }
+        return values;
+    }
+}
@@ -0,0 +1,25 @@
+package Argumentation.LAF.Domain;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Knowledge program whose base facts are held off the Java heap, in an
+ * {@link OffHeapFactStore}.
+ *
+ * <p>
+ * The facts live as long as the arena of their store, so the program must
+ * be evaluated before that arena is closed.
+ * </p>
+ *
+ * @param facts      base facts of the program
+ * @param rules      rules of the program
+ * @param operations algebraic operations indexed by label name
+ *
+ * @author JaviDebórtoli
+ */
+public record OffHeapProgram(
+        OffHeapFactStore facts,
+        List<Rule> rules,
+        Map<String, OperationSet> operations
+) {}
@@ -24,6 +24,11 @@ package Argumentation.LAF.Domain;
  * </ul>
  * </p>
  *
+ * <p>
+ * Numeric labels are computed in the {@link LabelPrecision} of the set,
+ * {@link LabelPrecision#DOUBLE} unless stated otherwise.
+ * </p>
+ *
  * @author JaviDebórtoli
  */
 public class OperationSet {
@@ -33,18 +38,34 @@ public class OperationSet {
     private final String aggregationExpr;
     /** Expression used for the conflict operation of this label. */
     private final String conflictExpr;
+    /** Precision of the numeric values of this label. */
+    private final LabelPrecision precision;
 
     /**
-     * Creates a new set of operations for a label.
+     * Creates a new set of operations for a label, computed in double precision.
      *
      * @param supportExpr     expression for support (e.g. "X * Y" or "Union")
      * @param aggregationExpr expression for aggregation (e.g. "X + Y")
      * @param conflictExpr    expression for conflict (e.g. "max(X,Y)" or "Intersection")
      */
     public OperationSet(String supportExpr, String aggregationExpr, String conflictExpr) {
+        this(supportExpr, aggregationExpr, conflictExpr, LabelPrecision.DOUBLE);
+    }
+
+    /**
+     * Creates a new set of operations for a label.
+     *
+     * @param supportExpr     expression for support (e.g. "X * Y" or "Union")
+     * @param aggregationExpr expression for aggregation (e.g. "X + Y")
+     * @param conflictExpr    expression for conflict (e.g. "max(X,Y)" or "Intersection")
+     * @param precision       precision of the numeric values of the label
+     */
+    public OperationSet(String supportExpr, String aggregationExpr, String conflictExpr,
+                        LabelPrecision precision) {
         this.supportExpr = supportExpr;
         this.aggregationExpr = aggregationExpr;
         this.conflictExpr = conflictExpr;
+        this.precision = precision;
     }
 
     /**
@@ -68,4 +89,11 @@ public class OperationSet {
      */
     public String getConflictExpr() { return conflictExpr; }
     
+    /**
+     * Returns the precision of the numeric values of the label.
+     * 
+     * @return label precision.
+     */
+    public LabelPrecision getPrecision() { return precision; }
+    
 }
@@ -0,0 +1,15 @@
+package Argumentation.LAF.Domain;
+
+import java.util.List;
+
+/**
+ * One page of the results of an indexed query.
+ *
+ * @param items      the results of the page, in index order
+ * @param nextCursor cursor to pass to get the next page, or {@code null}
+ *                   if this is the last page
+ * @param <T>        type of the results
+ *
+ * @author JaviDebórtoli
+ */
+public record Page<T>(List<T> items, String nextCursor) {}
@@ -0,0 +1,25 @@
+package Argumentation.LAF.Domain;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Complete knowledge program ready to be evaluated: the facts and rules of
+ * the knowledge base together with the label algebra.
+ *
+ * <p>
+ * This record groups the domain-level inputs of the inference process when
+ * they are produced together, e.g. when a program is read from a stream.
+ * </p>
+ *
+ * @param facts      base facts of the program
+ * @param rules      rules of the program
+ * @param operations algebraic operations indexed by label name
+ *
+ * @author JaviDebórtoli
+ */
+public record Program(
+        List<Fact> facts,
+        List<Rule> rules,
+        Map<String, OperationSet> operations
+) {}
@@ -0,0 +1,165 @@
+package Argumentation.LAF.Domain;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Static relevance pre-pass that removes the parts of a program that can
+ * never contribute to the argumentative graph.
+ *
+ * <p>
+ * Two kinds of elements are removed:
+ * </p>
+ * <ul>
+ *   <li><b>Underivable rules</b>: rules with a body predicate that is neither
+ *       a fact nor the head of a rule that can fire. Derivability is computed
+ *       bottom-up with one counter per rule (number of body predicates still
+ *       missing), so each rule and each predicate is visited once.</li>
+ *   <li><b>Unused facts</b>: facts whose predicate does not appear in the body
+ *       of any derivable rule, is not the head of a derivable rule and has no
+ *       derivable complement ({@code p} / {@code ~p}) to conflict with. Such
+ *       facts never become a node of the graph.</li>
+ * </ul>
+ *
+ * <p>
+ * The pass runs in time linear in the size of the program and preserves the
+ * relative order of the remaining rules and facts, so the inference engine
+ * produces exactly the same graph.
+ * </p>
+ *
+ * <p>
+ * Rules with an empty body fire for every argument present in the facts,
+ * so when a derivable rule has an empty body no fact is removed.
+ * </p>
+ *
+ * <p>
+ * Arguments and labels play no part: which rules are kept depends only on
+ * the set of predicates that have facts, and whether a fact is kept only
+ * on its predicate. Pruning one fact per predicate therefore keeps the same
+ * rules and predicates as pruning every fact.
+ * </p>
+ *
+ * @author JaviDebórtoli
+ */
+public final class ProgramPruner {
+
+    private ProgramPruner() {
+    }
+
+    /**
+     * Result of pruning a program.
+     *
+     * @param facts  the facts that may contribute to the graph
+     * @param rules  the rules that may fire
+     * @param report summary of what was removed
+     */
+    public record Result(List<Fact> facts, List<Rule> rules, PruningReport report) {}
+
+    /**
+     * Removes underivable rules and unused facts from the program.
+     *
+     * @param facts the facts of the program
+     * @param rules the rules of the program
+     * @return the pruned program together with a {@link PruningReport}
+     */
+    public static Result prune(List<Fact> facts, List<Rule> rules) {
+        // Index rules by body predicate and count missing body predicates
+        Map<String, List<Integer>> rulesByBody = new HashMap<>();
+        int[] missing = new int[rules.size()];
+        for (int r = 0; r < rules.size(); r++) {
+            Set<String> body = new HashSet<>(rules.get(r).getBody());
+            missing[r] = body.size();
+            for (String predicate : body) {
+                rulesByBody.computeIfAbsent(predicate, k -> new ArrayList<>()).add(r);
+            }
+        }
+
+        Set<String> derivable = new HashSet<>();
+        Deque<String> pending = new ArrayDeque<>();
+        boolean[] live = new boolean[rules.size()];
+        boolean emptyBody = false;
+        for (Fact fact : facts) {
+            pending.add(fact.getName());
+        }
+        for (int r = 0; r < rules.size(); r++) {
+            if (missing[r] == 0) {
+                live[r] = true;
+                emptyBody = true;
+                pending.add(rules.get(r).getHead());
+            }
+        }
+        // Bottom-up derivability
+        while (!pending.isEmpty()) {
+            String predicate = pending.poll();
+            if (!derivable.add(predicate)) {
+                continue;
+            }
+            for (int r : rulesByBody.getOrDefault(predicate, List.of())) {
+                if (--missing[r] == 0) {
+                    live[r] = true;
+                    pending.add(rules.get(r).getHead());
+                }
+            }
+        }
+
+        List<Rule> keptRules = new ArrayList<>();
+        Set<String> prunedRules = new LinkedHashSet<>();
+        Set<String> used = new HashSet<>();
+        for (int r = 0; r < rules.size(); r++) {
+            Rule rule = rules.get(r);
+            if (live[r]) {
+                keptRules.add(rule);
+                used.addAll(rule.getBody());
+                used.add(rule.getHead());
+            } else {
+                prunedRules.add(rule.toString());
+            }
+        }
+
+        List<Fact> keptFacts = new ArrayList<>();
+        Set<String> prunedPredicates = new LinkedHashSet<>();
+        for (Fact fact : facts) {
+            if (emptyBody
+                    || used.contains(fact.getName())
+                    || derivable.contains(GoalRelevance.complement(fact.getName()))) {
+                keptFacts.add(fact);
+            } else {
+                prunedPredicates.add(fact.getName());
+            }
+        }
+
+        PruningReport report = new PruningReport(
+                rules.size() - keptRules.size(),
+                facts.size() - keptFacts.size(),
+                List.copyOf(prunedRules),
+                List.copyOf(prunedPredicates),
+                matchChecks(facts, rules),
+                matchChecks(keptFacts, keptRules));
+
+        return new Result(keptFacts, keptRules, report);
+    }
+
+    /**
+     * Estimates the number of body-literal checks performed by one round of
+     * the inference engine: every rule body literal is compared against every
+     * fact, once per argument.
+     */
+    private static long matchChecks(List<Fact> facts, List<Rule> rules) {
+        Set<String> arguments = new HashSet<>();
+        for (Fact fact : facts) {
+            arguments.add(fact.getArgument());
+        }
+        long literals = 0;
+        for (Rule rule : rules) {
+            literals += rule.getBody().size();
+        }
+        return arguments.size() * literals * facts.size();
+    }
+}
@@ -0,0 +1,48 @@
+package Argumentation.LAF.Domain;
+
+import java.util.List;
+
+/**
+ * Summary of the elements removed by {@link ProgramPruner}.
+ *
+ * <p>
+ * The amount of work saved is expressed as the number of body-literal
+ * checks that one round of the inference engine performs before and after
+ * pruning, since that comparison dominates the cost of each round.
+ * </p>
+ *
+ * @param prunedRuleCount   number of rules removed because they can never fire
+ * @param prunedFactCount   number of facts removed because they are never used
+ * @param prunedRules       textual form of the removed rules
+ * @param prunedPredicates  predicates of the removed facts
+ * @param matchChecksBefore body-literal checks per round before pruning
+ * @param matchChecksAfter  body-literal checks per round after pruning
+ *
+ * @author JaviDebórtoli
+ */
+public record PruningReport(
+        int prunedRuleCount,
+        int prunedFactCount,
+        List<String> prunedRules,
+        List<String> prunedPredicates,
+        long matchChecksBefore,
+        long matchChecksAfter
+) {
+    /**
+     * Returns whether anything was removed.
+     *
+     * @return {@code true} if at least one rule or fact was pruned
+     */
+    public boolean anyPruned() {
+        return prunedRuleCount > 0 || prunedFactCount > 0;
+    }
+
+    /**
+     * Returns the fraction of body-literal checks saved per round.
+     *
+     * @return a value in {@code [0, 1]}; {@code 0} when there was no work to save
+     */
+    public double savedFraction() {
+        return matchChecksBefore == 0 ? 0 : 1 - (double) matchChecksAfter / matchChecksBefore;
+    }
+}
@@ -0,0 +1,597 @@
+package Argumentation.LAF.Domain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+
+/**
+ * Stateful reasoning context that keeps a materialized argumentative
+ * graph and updates it as facts are asserted or retracted.
+ *
+ * <p>
+ * Every rule of the program has the form {@code head(X) :- body(X)}, so a
+ * derivation, an aggregation or a conflict always involves facts that share
+ * the same argument. The session exploits this by keeping one partition
+ * (an independent {@link ArgumentativeGraph}) per argument:
+ * </p>
+ * <ol>
+ *   <li>An update to a fact deletes the partition of its argument
+ *       (the only one whose derivations may depend on that fact).</li>
+ *   <li>The partition is re-derived by running the {@link InferenceEngine}
+ *       over the base facts of that argument only.</li>
+ * </ol>
+ *
+ * <p>
+ * The cost of an update is therefore proportional to the size of one
+ * partition and independent of the number of arguments in the knowledge base.
+ * </p>
+ *
+ * <p>
+ * Node identifiers handed out by a session are stable: a node keeps its
+ * identifier across updates for as long as its {@link NodeKeys structural key}
+ * does not change.
+ * </p>
+ *
+ * <p>
+ * Neighborhood queries are answered from a {@link GraphIndex} per partition,
+ * and filtered, paginated listings of nodes and edges from a
+ * {@link LabelIndex} and an {@link EdgeIndex} over the whole graph. The
+ * indexes are built on the first query and then kept up to date: an update
+ * only re-indexes the partition it re-derives.
+ * </p>
+ *
+ * @author JaviDebórtoli
+ */
+public class ReasoningSession {
+    /** Rule set of the program. Rules are shared by every partition. */
+    private final List<Rule> rules;
+    /** Matrix storing the label algebra functions. */
+    private final String[][] functions;
+    /** Base (asserted) facts grouped by argument. */
+    private final Map<String, List<Fact>> baseFacts;
+    /** Materialized graph of each argument. */
+    private final Map<String, ArgumentativeGraph> partitions;
+    /** Number of partitions in which each rule takes part. */
+    private final Map<Rule, Integer> ruleUsage;
+    /** Identifiers handed out so far, indexed by structural key. */
+    private final Map<Long, String> nodeIds;
+    /** Structural keys indexed by the identifiers handed out. */
+    private final Map<String, Long> keysById = new HashMap<>();
+    /** Adjacency index of each partition, or {@code null} until the first query. */
+    private Map<String, PartitionIndex> indexes;
+    /** Arguments of the partitions containing each structural key, or {@code null} with the indexes. */
+    private Map<Long, Set<String>> locations;
+    /** Sorted indexes over the nodes of the graph, or {@code null} with the indexes. */
+    private LabelIndex labels;
+    /** Sorted indexes over the edges of the graph, or {@code null} with the indexes. */
+    private EdgeIndex edgeIndex;
+    /** Counter used to generate identifiers for fact nodes. */
+    private int factCounter;
+    /** Counter used to generate identifiers for rule nodes. */
+    private int ruleCounter;
+    /** Memo of support results used when re-deriving partitions, or {@code null}. */
+    private final SupportMemo supportMemo;
+
+    /**
+     * Creates a session and materializes the graph of the given program.
+     *
+     * @param facts     initial base facts
+     * @param rules     rules of the program
+     * @param functions label algebra function table
+     */
+    public ReasoningSession(List<Fact> facts, List<Rule> rules, String[][] functions) {
+        this(facts, rules, functions, null);
+    }
+
+    /**
+     * Creates a session whose inference runs reuse the support results kept
+     * in a memo, and materializes the graph of the given program.
+     *
+     * @param facts       initial base facts
+     * @param rules       rules of the program
+     * @param functions   label algebra function table
+     * @param supportMemo memo of support results, or {@code null}
+     */
+    public ReasoningSession(List<Fact> facts, List<Rule> rules, String[][] functions, SupportMemo supportMemo) {
+        this(facts, rules, functions, supportMemo, false);
+    }
+
+    /**
+     * Creates a session and materializes the graph of the given program,
+     * optionally deriving the initial partitions by columns with
+     * {@link ColumnarInference}. Later updates always run the engine.
+     *
+     * @param facts       initial base facts
+     * @param rules       rules of the program
+     * @param functions   label algebra function table
+     * @param supportMemo memo of support results, or {@code null}
+     * @param columnar    whether the initial partitions are derived by columns
+     *                    when the program allows it
+     */
+    public ReasoningSession(List<Fact> facts, List<Rule> rules, String[][] functions, SupportMemo supportMemo,
+                            boolean columnar) {
+        this.supportMemo = supportMemo;
+        this.rules = List.copyOf(rules);
+        this.functions = functions;
+        this.baseFacts = new LinkedHashMap<>();
+        this.partitions = new HashMap<>();
+        this.ruleUsage = new HashMap<>();
+        this.nodeIds = new HashMap<>();
+
+        for (Fact fact : facts) {
+            baseFacts.computeIfAbsent(fact.getArgument(), k -> new ArrayList<>()).add(fact);
+        }
+        Map<String, ArgumentativeGraph> derived = Map.of();
+        if (columnar) {
+            Map<String, List<Fact>> working = new LinkedHashMap<>();
+            baseFacts.forEach((argument, base) -> working.put(argument, copies(base)));
+            derived = ColumnarInference.partitions(working, this.rules, functions).orElse(Map.of());
+        }
+        for (String argument : baseFacts.keySet()) {
+            rederive(argument, derived.get(argument));
+        }
+    }
+
+    /**
+     * Reopens a session from a stored snapshot, without running the inference.
+     *
+     * @param snapshot the stored state of the session
+     * @return the restored session
+     * @see GraphStore
+     */
+    public static ReasoningSession restore(GraphStore.Snapshot snapshot) {
+        return restore(snapshot, null);
+    }
+
+    /**
+     * Reopens a session from a stored snapshot, without running the
+     * inference; later updates reuse the support results kept in a memo.
+     *
+     * @param snapshot    the stored state of the session
+     * @param supportMemo memo of support results, or {@code null}
+     * @return the restored session
+     * @see GraphStore
+     */
+    public static ReasoningSession restore(GraphStore.Snapshot snapshot, SupportMemo supportMemo) {
+        return new ReasoningSession(snapshot, supportMemo);
+    }
+
+    private ReasoningSession(GraphStore.Snapshot snapshot, SupportMemo supportMemo) {
+        this.supportMemo = supportMemo;
+        this.rules = List.copyOf(snapshot.rules());
+        this.functions = snapshot.functions();
+        this.baseFacts = new LinkedHashMap<>(snapshot.baseFacts());
+        this.partitions = new HashMap<>(snapshot.partitions());
+        this.ruleUsage = new HashMap<>();
+        this.nodeIds = new HashMap<>(snapshot.nodeIds());
+        this.factCounter = snapshot.factCounter();
+        this.ruleCounter = snapshot.ruleCounter();
+        nodeIds.forEach((key, id) -> keysById.put(id, key));
+
+        for (ArgumentativeGraph partition : partitions.values()) {
+            for (Rule rule : rulesOf(partition)) {
+                ruleUsage.merge(rule, 1, Integer::sum);
+            }
+        }
+    }
+
+    /**
+     * Captures the current state of the session so that it can be stored.
+     * Partitions are never mutated once derived, so they are shared with the
+     * snapshot rather than copied.
+     *
+     * @return the state of the session
+     * @see GraphStore
+     */
+    public synchronized GraphStore.Snapshot snapshot() {
+        Map<String, List<Fact>> facts = new LinkedHashMap<>();
+        baseFacts.forEach((argument, list) -> facts.put(argument, List.copyOf(list)));
+
+        return new GraphStore.Snapshot(rules, functions, facts, new LinkedHashMap<>(partitions),
+                new HashMap<>(nodeIds), factCounter, ruleCounter);
+    }
+
+    /**
+     * The complete graph of a session with the structural key of every node.
+     *
+     * @param graph the graph, merging every partition
+     * @param keys  structural key of every node of the graph
+     */
+    public record KeyedGraph(ArgumentativeGraph graph, Map<KnowledgePiece, Long> keys) {}
+
+    /**
+     * Returns the complete materialized graph, merging every partition.
+     *
+     * @return the current argumentative graph of the session
+     */
+    public synchronized ArgumentativeGraph graph() {
+        Map<KnowledgePiece, List<Fact>> edges = new HashMap<>();
+        List<PairInConflict> conflicts = new ArrayList<>();
+
+        for (ArgumentativeGraph partition : partitions.values()) {
+            for (Map.Entry<KnowledgePiece, List<Fact>> entry : partition.edges().entrySet()) {
+                edges.computeIfAbsent(entry.getKey(), k -> new ArrayList<>()).addAll(entry.getValue());
+            }
+            conflicts.addAll(partition.conflictiveNodes());
+        }
+
+        return new ArgumentativeGraph(edges, conflicts);
+    }
+
+    /**
+     * Returns the complete materialized graph with the structural key of
+     * every node.
+     *
+     * <p>
+     * Nodes are keyed within their partition, as updates and neighborhoods
+     * key them, and not within the merged graph: structurally identical
+     * facts are told apart by an ordinal that depends on the order in which
+     * the graph lists them, which differs between a partition and the
+     * merged graph.
+     * </p>
+     *
+     * @return the current argumentative graph of the session, with its keys
+     */
+    public synchronized KeyedGraph keyedGraph() {
+        Map<KnowledgePiece, Long> keys = new IdentityHashMap<>();
+        partitions.forEach((argument, partition) -> {
+            if (indexes != null) {
+                indexes.get(argument).keys.forEach(keys::putIfAbsent);
+            } else {
+                NodeKeys.forEach(partition, keys::putIfAbsent);
+            }
+        });
+        return new KeyedGraph(graph(), keys);
+    }
+
+    /**
+     * Asserts a base fact. If a base fact with the same predicate and
+     * argument already exists, it is replaced, which allows labels to be
+     * updated in place.
+     *
+     * @param fact the fact to assert
+     * @return the change produced in the partition of the fact's argument
+     */
+    public synchronized SessionUpdate assertFact(Fact fact) {
+        List<Fact> current = baseFacts.computeIfAbsent(fact.getArgument(), k -> new ArrayList<>());
+        current.removeIf(f -> f.getName().equals(fact.getName()));
+        current.add(fact);
+
+        return rederive(fact.getArgument());
+    }
+
+    /**
+     * Retracts the base fact with the given predicate and argument.
+     *
+     * @param name     predicate name of the fact
+     * @param argument argument of the fact
+     * @return the change produced in the partition of the argument
+     */
+    public synchronized SessionUpdate retractFact(String name, String argument) {
+        List<Fact> current = baseFacts.get(argument);
+        if (current != null) {
+            current.removeIf(f -> f.getName().equals(name));
+            if (current.isEmpty()) {
+                baseFacts.remove(argument);
+            }
+        }
+
+        return rederive(argument);
+    }
+
+    /**
+     * Returns the identifiers of every node of the given graph, which must
+     * be one of the partitions of this session, as reported by an update;
+     * the identifiers of the whole graph are those of the keys of
+     * {@link #keyedGraph()}.
+     *
+     * @param graph a partition produced by this session
+     * @return a map from node to session-scoped identifier
+     */
+    public synchronized Map<KnowledgePiece, String> idsOf(ArgumentativeGraph graph) {
+        return assignIds(graph);
+    }
+
+    /**
+     * Hands out the identifiers of the nodes of a graph, as {@link #idsOf}
+     * does; private, so that the constructor may call it.
+     */
+    private Map<KnowledgePiece, String> assignIds(ArgumentativeGraph graph) {
+        Map<KnowledgePiece, String> ids = new HashMap<>();
+        List<Map.Entry<KnowledgePiece, Long>> unnamed = new ArrayList<>();
+
+        for (Map.Entry<KnowledgePiece, Long> entry : NodeKeys.of(graph).entrySet()) {
+            String id = nodeIds.get(entry.getValue());
+            if (id != null) {
+                ids.put(entry.getKey(), id);
+            } else {
+                unnamed.add(entry);
+            }
+        }
+        // New identifiers are handed out in key order, so that replaying the
+        // same updates hands out the same identifiers
+        unnamed.sort(Map.Entry.comparingByValue());
+        for (Map.Entry<KnowledgePiece, Long> entry : unnamed) {
+            ids.put(entry.getKey(), assignId(entry.getKey(), entry.getValue()));
+        }
+
+        return ids;
+    }
+
+    /**
+     * Returns the identifier of a node given its structural key, handing
+     * out a new one if the key has none yet.
+     *
+     * @param node the fact or rule
+     * @param key  the structural key of the node in the session graph
+     * @return the session-scoped identifier of the node
+     */
+    public synchronized String idOf(KnowledgePiece node, long key) {
+        return assignId(node, key);
+    }
+
+    private String assignId(KnowledgePiece node, long key) {
+        String id = nodeIds.get(key);
+        if (id == null) {
+            id = node instanceof Rule ? "R" + (++ruleCounter) : "F" + (++factCounter);
+            nodeIds.put(key, id);
+            keysById.put(id, key);
+        }
+        return id;
+    }
+
+    /**
+     * Returns the structural key of the node a session-scoped identifier
+     * was handed out to.
+     *
+     * @param id the identifier
+     * @return the key, or empty if the identifier was never handed out
+     */
+    public synchronized OptionalLong keyOf(String id) {
+        Long key = keysById.get(id);
+        return key == null ? OptionalLong.empty() : OptionalLong.of(key);
+    }
+
+    /**
+     * Extracts the neighborhood of a node of the session graph.
+     *
+     * <p>
+     * A fact lies in the partition of its argument, so its neighborhood is
+     * extracted from that partition only. A rule is shared by the partitions
+     * that use it, so its neighborhood is the union of its neighborhoods in
+     * each of them.
+     * </p>
+     *
+     * @param key       the structural key of the node
+     * @param depth     maximum number of edges between the node and its neighbors
+     * @param direction the directions to explore
+     * @return the neighborhood, or empty if no node has the key
+     * @see GraphIndex#neighborhood(KnowledgePiece, int, GraphIndex.Direction)
+     */
+    public synchronized Optional<Neighborhood> neighborhood(long key, int depth, GraphIndex.Direction direction) {
+        buildIndexes();
+        Set<String> arguments = locations.getOrDefault(key, Set.of());
+        if (arguments.isEmpty()) {
+            return Optional.empty();
+        }
+
+        KnowledgePiece root = null;
+        Map<KnowledgePiece, List<Fact>> edges = new LinkedHashMap<>();
+        List<PairInConflict> conflicts = new ArrayList<>();
+        Map<KnowledgePiece, Long> keys = new HashMap<>();
+        Set<Fact> supported = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (String argument : arguments) {
+            PartitionIndex partition = indexes.get(argument);
+            root = partition.nodes.get(key);
+            ArgumentativeGraph part = partition.index.neighborhood(root, depth, direction);
+            part.edges().forEach((parent, children) ->
+                    edges.computeIfAbsent(parent, k -> new ArrayList<>()).addAll(children));
+            conflicts.addAll(part.conflictiveNodes());
+            keys.put(root, key);
+            for (Map.Entry<KnowledgePiece, List<Fact>> entry : part.edges().entrySet()) {
+                keys.put(entry.getKey(), partition.keys.get(entry.getKey()));
+                for (Fact child : entry.getValue()) {
+                    keys.put(child, partition.keys.get(child));
+                    if (partition.index.isSupported(child)) {
+                        supported.add(child);
+                    }
+                }
+            }
+            for (PairInConflict pair : part.conflictiveNodes()) {
+                keys.put(pair.first(), partition.keys.get(pair.first()));
+                keys.put(pair.second(), partition.keys.get(pair.second()));
+            }
+        }
+        return Optional.of(new Neighborhood(root, new ArgumentativeGraph(edges, conflicts), keys, supported));
+    }
+
+    /**
+     * Returns one page of the nodes of the session graph that match a query.
+     *
+     * @param query  the filter
+     * @param cursor cursor returned with the previous page, or {@code null}
+     * @param limit  maximum number of nodes of the page
+     * @return the page
+     * @see LabelIndex#page(LabelIndex.Query, String, int)
+     */
+    public synchronized Page<LabelIndex.Entry> nodes(LabelIndex.Query query, String cursor, int limit) {
+        buildIndexes();
+        return labels.page(query, cursor, limit);
+    }
+
+    /**
+     * Returns one page of the edges of the session graph of a given kind.
+     *
+     * @param kind   the kind of the edges, or {@code null} for every edge
+     * @param cursor cursor returned with the previous page, or {@code null}
+     * @param limit  maximum number of edges of the page
+     * @return the page
+     * @see EdgeIndex#page(EdgeIndex.Kind, String, int)
+     */
+    public synchronized Page<EdgeIndex.Entry> edges(EdgeIndex.Kind kind, String cursor, int limit) {
+        buildIndexes();
+        return edgeIndex.page(kind, cursor, limit);
+    }
+
+    /**
+     * Deletes the partition of an argument and derives it again from the
+     * current base facts of that argument.
+     */
+    private SessionUpdate rederive(String argument) {
+        return rederive(argument, null);
+    }
+
+    /**
+     * Replaces the partition of an argument by one already derived from the
+     * current base facts of that argument, or derives it again if
+     * {@code derived} is {@code null}.
+     */
+    private SessionUpdate rederive(String argument, ArgumentativeGraph derived) {
+        ArgumentativeGraph before = partitions.remove(argument);
+        ArgumentativeGraph after = null;
+
+        List<Fact> base = baseFacts.get(argument);
+        if (base != null) {
+            after = derived != null
+                    ? derived
+                    : new InferenceEngine(copies(base), rules, functions, InferenceListener.NONE, supportMemo).buildTree();
+            partitions.put(argument, after);
+            // Identifiers are handed out as each update is applied, in update order
+            assignIds(after);
+        }
+        if (indexes != null) {
+            unindex(argument);
+            if (after != null) {
+                index(argument, after);
+            }
+        }
+
+        Set<Rule> released = rulesOf(before);
+        Set<Rule> activated = rulesOf(after);
+        Set<Rule> kept = new LinkedHashSet<>(released);
+        kept.retainAll(activated);
+        released.removeAll(kept);
+        activated.removeAll(kept);
+
+        released.removeIf(rule -> ruleUsage.merge(rule, -1, Integer::sum) > 0);
+        activated.removeIf(rule -> ruleUsage.merge(rule, 1, Integer::sum) > 1);
+        ruleUsage.values().removeIf(count -> count <= 0);
+
+        return new SessionUpdate(argument,
+                before == null ? emptyGraph() : before,
+                after == null ? emptyGraph() : after,
+                activated,
+                released);
+    }
+
+    /**
+     * Copies base facts for an inference run: the engine adds derived facts
+     * to its list and mutates labels, so it works on copies.
+     */
+    private static List<Fact> copies(List<Fact> base) {
+        List<Fact> working = new ArrayList<>();
+        for (Fact fact : base) {
+            working.add(new Fact(fact.getName(), fact.getArgument(), fact.getAttributes()));
+        }
+        return working;
+    }
+
+    /**
+     * Collects the rules that take part in a partition.
+     */
+    private Set<Rule> rulesOf(ArgumentativeGraph partition) {
+        Set<Rule> used = new LinkedHashSet<>();
+        if (partition != null) {
+            for (KnowledgePiece piece : partition.edges().keySet()) {
+                if (piece instanceof Rule rule) {
+                    used.add(rule);
+                }
+            }
+        }
+        return used;
+    }
+
+    /**
+     * Builds the indexes on the first query.
+     */
+    private void buildIndexes() {
+        if (indexes == null) {
+            indexes = new HashMap<>();
+            locations = new HashMap<>();
+            labels = new LabelIndex();
+            edgeIndex = new EdgeIndex();
+            partitions.forEach(this::index);
+        }
+    }
+
+    /**
+     * Indexes a partition. A rule shared by several partitions is added to
+     * the node index with the first of them.
+     */
+    private void index(String argument, ArgumentativeGraph partition) {
+        PartitionIndex index = new PartitionIndex(partition);
+        indexes.put(argument, index);
+        for (Map.Entry<Long, KnowledgePiece> node : index.nodes.entrySet()) {
+            Set<String> arguments = locations.computeIfAbsent(node.getKey(), k -> new HashSet<>(1));
+            if (arguments.isEmpty()) {
+                labels.add(node.getValue(), node.getKey());
+            }
+            arguments.add(argument);
+        }
+        index.edges.forEach(edgeIndex::add);
+    }
+
+    /**
+     * Drops the index of a partition.
+     */
+    private void unindex(String argument) {
+        PartitionIndex index = indexes.remove(argument);
+        if (index == null) {
+            return;
+        }
+        for (Map.Entry<Long, KnowledgePiece> node : index.nodes.entrySet()) {
+            Set<String> arguments = locations.get(node.getKey());
+            arguments.remove(argument);
+            if (arguments.isEmpty()) {
+                locations.remove(node.getKey());
+                labels.remove(node.getValue(), node.getKey());
+            }
+        }
+        index.edges.forEach(edgeIndex::remove);
+    }
+
+    /**
+     * Adjacency index, structural keys and edges of one partition.
+     */
+    private static final class PartitionIndex {
+        final GraphIndex index;
+        final Map<KnowledgePiece, Long> keys;
+        final Map<Long, KnowledgePiece> nodes = new HashMap<>();
+        final List<EdgeIndex.Entry> edges;
+
+        PartitionIndex(ArgumentativeGraph partition) {
+            CompactGraph compact = CompactGraph.of(partition);
+            this.index = new GraphIndex(compact);
+            this.keys = new IdentityHashMap<>();
+            long[] nodeKeys = NodeKeys.of(compact);
+            for (int node = 0; node < nodeKeys.length; node++) {
+                keys.put(compact.node(node), nodeKeys[node]);
+                nodes.put(nodeKeys[node], compact.node(node));
+            }
+            this.edges = EdgeIndex.edgesOf(partition, keys);
+        }
+    }
+
+    private static ArgumentativeGraph emptyGraph() {
+        return new ArgumentativeGraph(Map.of(), List.of());
+    }
+}
@@ -0,0 +1,28 @@
+package Argumentation.LAF.Domain;
+
+import java.util.Set;
+
+/**
+ * Result of asserting or retracting a fact in a {@link ReasoningSession}.
+ *
+ * <p>
+ * Only the partition of the affected argument can change, so the update
+ * is described by that partition before and after re-derivation, together
+ * with the rules that started or stopped taking part in the whole graph.
+ * </p>
+ *
+ * @param argument  argument whose partition was re-derived
+ * @param before    partition before the update (empty if it did not exist)
+ * @param after     partition after the update (empty if no fact is left)
+ * @param activated rules that were unused before and now take part in the graph
+ * @param released  rules that no longer take part in any partition
+ *
+ * @author JaviDebórtoli
+ */
+public record SessionUpdate(
+        String argument,
+        ArgumentativeGraph before,
+        ArgumentativeGraph after,
+        Set<Rule> activated,
+        Set<Rule> released
+) {}
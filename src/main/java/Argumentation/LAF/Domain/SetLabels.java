@@ -0,0 +1,227 @@
+package Argumentation.LAF.Domain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Set-valued labels, kept as bitmaps over a dictionary of interned elements.
+ *
+ * <p>
+ * A label that is not numeric is a set of elements written one after the
+ * other, separated by spaces (e.g. {@code "s1 s3"}), and is combined by
+ * the symbolic operators {@link #UNION} and {@link #INTERSECTION}. Splitting
+ * and joining strings for every operation costs far more than the operation
+ * itself, so every element is interned once into this dictionary, which
+ * gives it a bit position, and every set becomes a {@code long[]} bitmap:
+ * union and intersection are then a word-wise {@code OR} and {@code AND}.
+ * </p>
+ *
+ * <p>
+ * Bitmaps are parsed from and formatted back to text at the boundary of
+ * the engine, and both conversions are remembered, so a label is split
+ * once per distinct text and a combination joined once per distinct list
+ * of labels. Combined labels list their elements once each, in the order
+ * in which they first appear in the combined labels, as the engine always
+ * wrote them: a union keeps the elements of the first label first, and an
+ * intersection keeps the order of the first label. The empty set is the
+ * empty label.
+ * </p>
+ *
+ * <p>
+ * A dictionary belongs to a single inference run, and so to a single
+ * request: it is not thread-safe, and grows with the distinct elements and
+ * labels of the program. Bitmaps returned by {@link #parse(String)} are
+ * shared and must not be modified; the operators always return new bitmaps.
+ * </p>
+ *
+ * @author JaviDebórtoli
+ */
+public final class SetLabels {
+    /** Symbolic operator that merges sets of elements. */
+    public static final String UNION = "Union";
+    /** Symbolic operator that keeps the elements common to two sets. */
+    public static final String INTERSECTION = "Intersection";
+
+    private static final long[] EMPTY = new long[0];
+    private static final int[] NONE = new int[0];
+
+    /** Interned elements, indexed by bit position. */
+    private final List<String> elements = new ArrayList<>();
+    private final Map<String, Integer> ids = new HashMap<>();
+    /** Every label text parsed so far. */
+    private final Map<String, Label> parsed = new HashMap<>();
+    /** Label of every combination formatted so far. */
+    private final Map<Combination, String> combined = new HashMap<>();
+
+    /**
+     * A parsed label: the bitmap of its set, and the bit positions of its
+     * elements in the order in which they first appear in the text.
+     */
+    private record Label(long[] bits, int[] order) {}
+
+    /**
+     * Labels combined by an operator, as a key of the formatted combinations.
+     */
+    private record Combination(boolean union, List<String> labels) {}
+
+    /**
+     * Tells whether a label algebra function is a symbolic set operator.
+     *
+     * @param function the function
+     * @return {@code true} for {@link #UNION} and {@link #INTERSECTION}
+     */
+    public static boolean isSetOperator(String function) {
+        return UNION.equals(function) || INTERSECTION.equals(function);
+    }
+
+    /**
+     * Returns the number of distinct elements interned so far.
+     *
+     * @return the size of the dictionary
+     */
+    public int size() {
+        return elements.size();
+    }
+
+    /**
+     * Parses a label into the bitmap of its elements, interning the
+     * elements not seen before.
+     *
+     * @param label the label, elements separated by whitespace
+     * @return the bitmap of the set; shared, must not be modified
+     */
+    public long[] parse(String label) {
+        return label(label).bits();
+    }
+
+    private Label label(String text) {
+        Label label = parsed.get(text);
+        if (label == null) {
+            long[] bits = EMPTY;
+            int[] order = NONE;
+            String stripped = text == null ? "" : text.strip();
+            if (!stripped.isEmpty()) {
+                String[] members = stripped.split("\\s+");
+                order = new int[members.length];
+                int count = 0;
+                for (String element : members) {
+                    int id = intern(element);
+                    if (bits.length <= id >>> 6) {
+                        bits = Arrays.copyOf(bits, (id >>> 6) + 1);
+                    }
+                    if ((bits[id >>> 6] & 1L << id) == 0) {
+                        bits[id >>> 6] |= 1L << id;
+                        order[count++] = id;
+                    }
+                }
+                order = Arrays.copyOf(order, count);
+            }
+            label = new Label(bits, order);
+            parsed.put(text, label);
+        }
+        return label;
+    }
+
+    private int intern(String element) {
+        Integer id = ids.get(element);
+        if (id == null) {
+            id = elements.size();
+            elements.add(element);
+            ids.put(element, id);
+        }
+        return id;
+    }
+
+    /**
+     * Combines labels with a symbolic set operator, folding them from left
+     * to right; both operators are associative and commutative, so the
+     * order does not change the set, only the order in which its elements
+     * are written.
+     *
+     * @param function the operator, {@link #UNION} or {@link #INTERSECTION}
+     * @param labels   the labels to combine, at least one
+     * @return the label of the combined set, its elements in the order in
+     *         which they first appear in the labels and separated by single
+     *         spaces, or {@code null} if the function is not a set operator
+     */
+    public String combine(String function, List<String> labels) {
+        if (!isSetOperator(function)) {
+            return null;
+        }
+        Combination key = new Combination(UNION.equals(function), List.copyOf(labels));
+        String label = combined.get(key);
+        if (label == null) {
+            long[] result = null;
+            for (String text : labels) {
+                long[] bits = parse(text);
+                result = result == null ? bits : key.union() ? union(result, bits) : intersection(result, bits);
+            }
+            label = format(result == null ? EMPTY : result, labels);
+            combined.put(key, label);
+        }
+        return label;
+    }
+
+    /**
+     * Writes the elements of a set, in the order in which they first appear
+     * in some labels that hold all of them.
+     */
+    private String format(long[] bits, List<String> labels) {
+        StringBuilder label = new StringBuilder();
+        long[] written = new long[bits.length];
+        for (String text : labels) {
+            for (int id : label(text).order()) {
+                int word = id >>> 6;
+                long bit = 1L << id;
+                if (word < bits.length && (bits[word] & bit) != 0 && (written[word] & bit) == 0) {
+                    written[word] |= bit;
+                    if (!label.isEmpty()) {
+                        label.append(' ');
+                    }
+                    label.append(elements.get(id));
+                }
+            }
+        }
+        return label.toString();
+    }
+
+    /**
+     * Returns the union of two sets, as a word-wise {@code OR}.
+     *
+     * @param a a bitmap
+     * @param b another bitmap over the same dictionary
+     * @return a new bitmap
+     */
+    public static long[] union(long[] a, long[] b) {
+        long[] longer = a.length >= b.length ? a : b;
+        long[] shorter = longer == a ? b : a;
+        long[] result = longer.clone();
+        for (int word = 0; word < shorter.length; word++) {
+            result[word] |= shorter[word];
+        }
+        return result;
+    }
+
+    /**
+     * Returns the intersection of two sets, as a word-wise {@code AND}.
+     * Trailing empty words are dropped, so equal sets have equal bitmaps.
+     *
+     * @param a a bitmap
+     * @param b another bitmap over the same dictionary
+     * @return a new bitmap
+     */
+    public static long[] intersection(long[] a, long[] b) {
+        int length = Math.min(a.length, b.length);
+        long[] result = new long[length];
+        for (int word = 0; word < length; word++) {
+            result[word] = a[word] & b[word];
+        }
+        while (length > 0 && result[length - 1] == 0) {
+            length--;
+        }
+        return length == result.length ? result : Arrays.copyOf(result, length);
+    }
+}
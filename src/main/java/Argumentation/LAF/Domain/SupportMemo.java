@@ -0,0 +1,259 @@
+package Argumentation.LAF.Domain;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded memo of the results of the SUPPORT operation.
+ *
+ * <p>
+ * The labels of a fact derived by a rule only depend on the support
+ * functions, the labels of the rule and the labels of its premises, in the
+ * order they are combined: the functions of the label algebra are pure. Many
+ * arguments share the same premise labels, so the same support is computed
+ * again and again; the memo keeps the results, keyed by their content, and
+ * evicts the least recently used ones beyond its capacity. Since keys do not
+ * depend on object identity, a memo can be shared by every inference run.
+ * </p>
+ *
+ * <p>
+ * Runs look the memo up concurrently, so it is split into stripes, each an
+ * access-ordered map with its own lock and its share of the capacity; a key
+ * always falls in the same stripe, chosen by its hash. Eviction is least
+ * recently used within a stripe. Keys refer to the labels they are built
+ * from, without joining them, and are only copied when a result is kept.
+ * </p>
+ *
+ * @author JaviDebórtoli
+ */
+public final class SupportMemo {
+    /** Maximum number of stripes of a memo. */
+    private static final int STRIPES = 16;
+
+    private final int capacity;
+    /** Support results by key, in access order, one map per stripe. */
+    private final Stripe[] stripes;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Usage statistics of a memo.
+     *
+     * @param capacity maximum number of results kept
+     * @param size     number of results currently kept
+     * @param hits     number of lookups answered by the memo
+     * @param misses   number of lookups that had to compute the support
+     */
+    public record Stats(int capacity, int size, long hits, long misses) {
+        /**
+         * Returns the fraction of lookups answered by the memo.
+         *
+         * @return the hit rate, {@code 0} before the first lookup
+         */
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0.0 : (double) hits / lookups;
+        }
+    }
+
+    /**
+     * Key of a support computation: the support functions and precisions,
+     * the labels of the rule and the labels of the premises, compared by
+     * content.
+     */
+    public static final class Key {
+        private final String[][] functions;
+        /** Labels of the rule, then of the premises in the order they are combined. */
+        private final String[][] labels;
+        private final int hash;
+
+        private Key(String[][] functions, String[][] labels) {
+            this.functions = functions;
+            this.labels = labels;
+            int hash = 1;
+            for (String[] function : functions) {
+                hash = 31 * (31 * hash + Objects.hashCode(function[0])) + Objects.hashCode(precision(function));
+            }
+            for (String[] values : labels) {
+                hash = 31 * hash + Arrays.hashCode(values);
+            }
+            this.hash = hash;
+        }
+
+        /**
+         * Copies the key, so that it no longer refers to labels that may change.
+         */
+        private Key detached() {
+            String[][] functions = new String[this.functions.length][];
+            for (int i = 0; i < functions.length; i++) {
+                functions[i] = this.functions[i].clone();
+            }
+            String[][] labels = new String[this.labels.length][];
+            for (int i = 0; i < labels.length; i++) {
+                labels[i] = this.labels[i].clone();
+            }
+            return new Key(functions, labels);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Key key) || hash != key.hash || functions.length != key.functions.length
+                    || labels.length != key.labels.length) {
+                return false;
+            }
+            for (int i = 0; i < functions.length; i++) {
+                if (!Objects.equals(functions[i][0], key.functions[i][0])
+                        || !Objects.equals(precision(functions[i]), precision(key.functions[i]))) {
+                    return false;
+                }
+            }
+            for (int i = 0; i < labels.length; i++) {
+                if (!Arrays.equals(labels[i], key.labels[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        private static String precision(String[] function) {
+            return function.length > 3 ? function[3] : null;
+        }
+    }
+
+    /**
+     * A stripe of the memo: an access-ordered map holding at most its share
+     * of the capacity, guarded by its own lock.
+     */
+    private static final class Stripe extends LinkedHashMap<Key, String[]> {
+        private final int capacity;
+
+        Stripe(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, String[]> eldest) {
+            return size() > capacity;
+        }
+    }
+
+    /**
+     * Creates an empty memo.
+     *
+     * @param capacity maximum number of results kept
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public SupportMemo(int capacity) {
+        this(capacity, capacity > 0 ? Math.min(STRIPES, Integer.highestOneBit(capacity)) : 1);
+    }
+
+    /**
+     * Creates an empty memo split into a given number of stripes.
+     *
+     * @param capacity maximum number of results kept
+     * @param stripes  number of stripes, a power of two not above the capacity
+     * @throws IllegalArgumentException if the capacity is not positive, or the
+     *                                  number of stripes is not valid
+     */
+    SupportMemo(int capacity, int stripes) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Memo capacity must be positive: " + capacity);
+        }
+        if (stripes <= 0 || stripes > capacity || Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("Invalid number of memo stripes: " + stripes);
+        }
+        this.capacity = capacity;
+        this.stripes = new Stripe[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Stripe(capacity / stripes);
+        }
+    }
+
+    /**
+     * Builds the key of a support computation. The key refers to the labels
+     * of the rule and the premises, which must not change while it is used.
+     *
+     * @param functions the label algebra functions; only the support functions
+     *                  and the label precisions take part
+     * @param premises  the premises, in the order they are combined
+     * @param rule      the rule
+     * @return the key
+     */
+    public static Key keyOf(String[][] functions, List<Fact> premises, Rule rule) {
+        String[][] labels = new String[premises.size() + 1][];
+        labels[0] = rule.getAttributes();
+        for (int i = 0; i < premises.size(); i++) {
+            labels[i + 1] = premises.get(i).getAttributes();
+        }
+        return new Key(functions, labels);
+    }
+
+    /**
+     * Looks up a support result.
+     *
+     * @param key the key built by {@link #keyOf}
+     * @return a copy of the labels computed for the key, or {@code null} if
+     *         they are not kept
+     */
+    public String[] get(Key key) {
+        Stripe stripe = stripeOf(key);
+        String[] labels;
+        synchronized (stripe) {
+            labels = stripe.get(key);
+        }
+        if (labels == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return labels.clone();
+    }
+
+    /**
+     * Keeps a support result.
+     *
+     * @param key    the key built by {@link #keyOf}
+     * @param labels the labels computed for the key
+     */
+    public void put(Key key, String[] labels) {
+        Key kept = key.detached();
+        String[] values = labels.clone();
+        Stripe stripe = stripeOf(key);
+        synchronized (stripe) {
+            stripe.put(kept, values);
+        }
+    }
+
+    /**
+     * Returns the usage statistics of the memo.
+     *
+     * @return the statistics
+     */
+    public Stats stats() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return new Stats(capacity, size, hits.get(), misses.get());
+    }
+
+    private Stripe stripeOf(Key key) {
+        int hash = key.hash;
+        return stripes[(hash ^ hash >>> 16) & stripes.length - 1];
+    }
+}
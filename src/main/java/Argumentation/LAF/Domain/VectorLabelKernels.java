@@ -0,0 +1,108 @@
+package Argumentation.LAF.Domain;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API implementation of {@link LabelKernels}. This class is only
+ * loaded when the {@code jdk.incubator.vector} module is present.
+ *
+ * @author JaviDebórtoli
+ */
+final class VectorLabelKernels {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    private VectorLabelKernels() {
+    }
+
+    /**
+     * Applies an operation element-wise, one vector of lanes at a time. The
+     * operation is dispatched once, outside the loops, so that every loop
+     * compiles to straight vector instructions.
+     *
+     * @see LabelKernels#apply
+     */
+    static void apply(LabelKernels.Operation operation, double[] x, double[] y, double[] out, int length) {
+        int bound = SPECIES.loopBound(length);
+        int step = SPECIES.length();
+        switch (operation) {
+            case PRODUCT -> {
+                for (int i = 0; i < bound; i += step) {
+                    DoubleVector a = DoubleVector.fromArray(SPECIES, x, i);
+                    DoubleVector b = DoubleVector.fromArray(SPECIES, y, i);
+                    a.mul(b).intoArray(out, i);
+                }
+            }
+            case SUM -> {
+                for (int i = 0; i < bound; i += step) {
+                    DoubleVector a = DoubleVector.fromArray(SPECIES, x, i);
+                    DoubleVector b = DoubleVector.fromArray(SPECIES, y, i);
+                    a.add(b).intoArray(out, i);
+                }
+            }
+            case BOUNDED_SUM -> {
+                for (int i = 0; i < bound; i += step) {
+                    DoubleVector a = DoubleVector.fromArray(SPECIES, x, i);
+                    DoubleVector b = DoubleVector.fromArray(SPECIES, y, i);
+                    a.add(b).min(1.0).intoArray(out, i);
+                }
+            }
+            case PROBABILISTIC_SUM -> {
+                for (int i = 0; i < bound; i += step) {
+                    DoubleVector a = DoubleVector.fromArray(SPECIES, x, i);
+                    DoubleVector b = DoubleVector.fromArray(SPECIES, y, i);
+                    a.add(b).sub(a.mul(b)).intoArray(out, i);
+                }
+            }
+            case MAX -> {
+                for (int i = 0; i < bound; i += step) {
+                    DoubleVector a = DoubleVector.fromArray(SPECIES, x, i);
+                    DoubleVector b = DoubleVector.fromArray(SPECIES, y, i);
+                    a.add(b).add(a.sub(b).abs()).div(2.0).intoArray(out, i);
+                }
+            }
+            case MIN -> {
+                for (int i = 0; i < bound; i += step) {
+                    DoubleVector a = DoubleVector.fromArray(SPECIES, x, i);
+                    DoubleVector b = DoubleVector.fromArray(SPECIES, y, i);
+                    a.add(b).sub(a.sub(b).abs()).div(2.0).intoArray(out, i);
+                }
+            }
+            case DIFFERENCE -> {
+                for (int i = 0; i < bound; i += step) {
+                    DoubleVector a = DoubleVector.fromArray(SPECIES, x, i);
+                    DoubleVector b = DoubleVector.fromArray(SPECIES, y, i);
+                    a.sub(b).intoArray(out, i);
+                }
+            }
+            case DISCOUNT -> {
+                DoubleVector one = DoubleVector.broadcast(SPECIES, 1.0);
+                for (int i = 0; i < bound; i += step) {
+                    DoubleVector a = DoubleVector.fromArray(SPECIES, x, i);
+                    DoubleVector b = DoubleVector.fromArray(SPECIES, y, i);
+                    a.mul(one.sub(b)).intoArray(out, i);
+                }
+            }
+        }
+        LabelKernels.applyScalar(operation, x, y, out, bound, length);
+    }
+
+    /**
+     * Clamps values to {@code [0, 1]}, one vector of lanes at a time. Lanes
+     * are only replaced when they are out of range, so that {@code -0.0}
+     * and {@code NaN} are kept as the scalar loop keeps them.
+     *
+     * @see LabelKernels#clamp
+     */
+    static void clamp(double[] values, int length) {
+        int bound = SPECIES.loopBound(length);
+        for (int i = 0; i < bound; i += SPECIES.length()) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, values, i);
+            v = v.blend(1.0, v.compare(VectorOperators.GT, 1.0));
+            v = v.blend(0.0, v.compare(VectorOperators.LT, 0.0));
+            v.intoArray(values, i);
+        }
+        LabelKernels.clampScalar(values, bound, length);
+    }
+}
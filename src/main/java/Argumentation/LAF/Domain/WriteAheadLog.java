@@ -0,0 +1,260 @@
+package Argumentation.LAF.Domain;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of opaque records that are made durable with group commit.
+ *
+ * <p>
+ * Appending a record only buffers it and assigns it a sequence number; the
+ * caller then waits for the record to be durable with {@link #sync(long)}.
+ * A single thread at a time writes the buffer and forces it to disk, and
+ * every record buffered meanwhile is made durable by that same write, so
+ * concurrent writers share one {@code fsync} instead of paying for one each.
+ * </p>
+ *
+ * <p>
+ * Each record is framed as {@code length:int crc32:int payload}. When the
+ * log is replayed, a record that is truncated or fails its checksum marks
+ * the end of the log (the tail of a write interrupted by a crash): it and
+ * everything after it are discarded.
+ * </p>
+ *
+ * <p>
+ * A group stays buffered until it has been forced. If writing or forcing it
+ * fails, whether any of its records reached the disk is unknown, and a later
+ * {@code fsync} that succeeds would not tell otherwise; the log is therefore
+ * failed: every record that was not durable yet fails to sync, and so does
+ * every later append, until the log is {@link #reset() reset}.
+ * </p>
+ *
+ * @author JaviDebórtoli
+ */
+public final class WriteAheadLog implements Closeable {
+    private static final int FRAME_HEADER = 8;
+
+    private final FileChannel channel;
+    /** Guards the buffer of appended records and their sequence numbers. */
+    private final Object appendLock = new Object();
+    /** Held by the thread currently writing and forcing the buffer. */
+    private final Object syncLock = new Object();
+    private final Buffer pending = new Buffer();
+    private final DataOutputStream pendingOut = new DataOutputStream(pending);
+    private final CRC32 crc = new CRC32();
+    /** Sequence number of the last appended record. */
+    private long appended;
+    /** Sequence number of the last durable record. */
+    private volatile long durable;
+    /** Number of forced writes, each covering one group of records. */
+    private volatile long commits;
+    /** Why the log failed, or {@code null} while it works. */
+    private volatile IOException failure;
+
+    /**
+     * Opens a log, creating its file if needed. Records are appended after
+     * the existing content, which should be {@link #replay replayed} first.
+     *
+     * @param file the log file
+     * @throws IOException if the file cannot be opened
+     */
+    public WriteAheadLog(Path file) throws IOException {
+        this(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE));
+    }
+
+    /**
+     * Opens a log over an open channel, which the log closes when it is
+     * closed. Records are appended after the existing content.
+     *
+     * @param channel the channel of the log file, open for reading and writing
+     * @throws IOException if the size of the file cannot be read
+     */
+    public WriteAheadLog(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.channel.position(channel.size());
+    }
+
+    /**
+     * Buffers a record. The record is not durable until {@link #sync(long)}
+     * has returned for its sequence number.
+     *
+     * @param payload the record content
+     * @return the sequence number of the record
+     * @throws UncheckedIOException if the log failed
+     */
+    public long append(byte[] payload) {
+        synchronized (appendLock) {
+            if (failure != null) {
+                throw new UncheckedIOException("Write-ahead log failed", failure);
+            }
+            crc.reset();
+            crc.update(payload);
+            try {
+                pendingOut.writeInt(payload.length);
+                pendingOut.writeInt((int) crc.getValue());
+                pendingOut.write(payload);
+            } catch (IOException exception) {
+                // Writing to memory cannot fail
+                throw new IllegalStateException(exception);
+            }
+            return ++appended;
+        }
+    }
+
+    /**
+     * Waits until the record with the given sequence number, and every
+     * record before it, is durable.
+     *
+     * @param sequence the sequence number returned by {@link #append}
+     * @throws IOException if the log cannot be written, now or by an earlier group
+     */
+    public void sync(long sequence) throws IOException {
+        if (durable >= sequence) {
+            return;
+        }
+        synchronized (syncLock) {
+            // The previous group may already have covered this record
+            if (durable >= sequence) {
+                return;
+            }
+            if (failure != null) {
+                throw new IOException("Write-ahead log failed", failure);
+            }
+            byte[] group;
+            long last;
+            synchronized (appendLock) {
+                group = pending.toByteArray();
+                last = appended;
+            }
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(group);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            } catch (IOException exception) {
+                failure = exception;
+                throw exception;
+            }
+            synchronized (appendLock) {
+                pending.discard(group.length);
+            }
+            commits++;
+            durable = last;
+        }
+    }
+
+    /**
+     * Reads every complete record of the log, in order, and discards any
+     * torn tail.
+     *
+     * @param consumer receives the payload of each record
+     * @return the number of records read
+     * @throws IOException if the log cannot be read
+     */
+    public long replay(Consumer<ByteBuffer> consumer) throws IOException {
+        synchronized (syncLock) {
+            long size = channel.size();
+            long position = 0;
+            long records = 0;
+            ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER);
+            CRC32 check = new CRC32();
+            while (position + FRAME_HEADER <= size) {
+                header.clear();
+                channel.read(header, position);
+                int length = header.getInt(0);
+                if (length < 0 || position + FRAME_HEADER + length > size) {
+                    break;
+                }
+                ByteBuffer payload = ByteBuffer.allocate(length);
+                channel.read(payload, position + FRAME_HEADER);
+                check.reset();
+                check.update(payload.array());
+                if ((int) check.getValue() != header.getInt(4)) {
+                    break;
+                }
+                consumer.accept(payload.flip());
+                position += FRAME_HEADER + length;
+                records++;
+            }
+            if (position < size) {
+                channel.truncate(position);
+            }
+            channel.position(position);
+            return records;
+        }
+    }
+
+    /**
+     * Empties the log, discarding the buffered records too. Used after a
+     * checkpoint, once the state the records describe is stored elsewhere;
+     * the caller must prevent appends while the log is reset. A failed log
+     * works again once it has been reset.
+     *
+     * @throws IOException if the log cannot be truncated
+     */
+    public void reset() throws IOException {
+        synchronized (syncLock) {
+            synchronized (appendLock) {
+                pending.reset();
+                channel.truncate(0);
+                channel.position(0);
+                channel.force(true);
+                durable = appended;
+                failure = null;
+            }
+        }
+    }
+
+    /**
+     * Returns the current size of the log on disk.
+     *
+     * @return the size in bytes
+     * @throws IOException if the size cannot be read
+     */
+    public long size() throws IOException {
+        return channel.size();
+    }
+
+    /**
+     * Returns the number of forced writes performed so far.
+     *
+     * @return the number of group commits
+     */
+    public long commits() {
+        return commits;
+    }
+
+    /**
+     * Closes the log file. Buffered records that were never synced are lost.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /** Buffer of appended records whose written prefix can be discarded. */
+    private static final class Buffer extends ByteArrayOutputStream {
+
+        /**
+         * Drops the first bytes of the buffer.
+         *
+         * @param length the number of bytes to drop
+         */
+        void discard(int length) {
+            System.arraycopy(buf, length, buf, 0, count - length);
+            count -= length;
+        }
+    }
+}
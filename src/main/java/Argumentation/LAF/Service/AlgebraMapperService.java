@@ -2,6 +2,7 @@ package Argumentation.LAF.Service;
 
 import Argumentation.LAF.DTO.LabelOperationsDTO;
 import Argumentation.LAF.DTO.Request.OperationInputRequest;
+import Argumentation.LAF.Domain.LabelPrecision;
 import Argumentation.LAF.Domain.OperationSet;
 import java.util.HashMap;
 import java.util.List;
@@ -34,6 +35,7 @@ public class AlgebraMapperService {
      * @param request the input request containing label operation definitions
      * @return a map associating label names with their corresponding
      * {@link OperationSet} instances (empty if input is null)
+     * @throws IllegalArgumentException if a label has an unknown precision
      */
     public Map<String, OperationSet> mapOperations(OperationInputRequest request) {
         Map<String, OperationSet> operationsByLabel = new HashMap<>();
@@ -51,7 +53,8 @@ public class AlgebraMapperService {
             OperationSet operationSet = new OperationSet(
                     dto.getSupportFunction(),
                     dto.getAggregationFunction(),
-                    dto.getConflictFunction()
+                    dto.getConflictFunction(),
+                    LabelPrecision.of(dto.getPrecision())
             );
 
             operationsByLabel.put(dto.getLabelName(), operationSet);
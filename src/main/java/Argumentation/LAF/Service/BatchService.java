@@ -0,0 +1,211 @@
+package Argumentation.LAF.Service;
+
+import Argumentation.LAF.DTO.Request.BatchProgramRequest;
+import Argumentation.LAF.DTO.Response.BatchResultResponse;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service that evaluates many independent programs concurrently.
+ *
+ * <p>
+ * Programs are evaluated on a fixed pool of worker threads whose size is
+ * given by the {@code laf.batch.parallelism} property (by default, one
+ * thread per available processor). Each program runs its own inference
+ * engine; the compiled label algebra functions are shared between them
+ * through {@link Argumentation.LAF.Domain.ExpressionCache ExpressionCache}.
+ * </p>
+ *
+ * <p>
+ * At most a few programs per worker are in flight at any time, so the
+ * memory used by a batch does not grow with its size: results are handed to
+ * the caller as soon as they are ready, either in completion order or in
+ * submission order. If the batch ends early, because the caller's sink
+ * fails or the calling thread is interrupted, the programs still in flight
+ * are cancelled.
+ * </p>
+ *
+ * @author JaviDebórtoli
+ */
+@Service
+public class BatchService {
+    private static final Logger log = LoggerFactory.getLogger(BatchService.class);
+
+    private final ProgramMapperService programMapperService;
+    private final AlgebraMapperService algebraMapperService;
+    private final InferenceService inferenceService;
+    private final GraphBuilderService graphBuilderService;
+    /** Worker threads shared by every batch. */
+    private final ExecutorService executor;
+    /** Maximum number of programs of one batch in flight at the same time. */
+    private final int window;
+
+    /**
+     * Constructs a {@code BatchService}.
+     *
+     * @param programMapperService service used to map facts and rules
+     * @param algebraMapperService service used to map algebraic operations
+     * @param inferenceService service used to build each graph
+     * @param graphBuilderService service used to serialize each graph
+     * @param parallelism number of worker threads; {@code 0} or less uses
+     *                    one thread per available processor
+     */
+    public BatchService(ProgramMapperService programMapperService,
+                        AlgebraMapperService algebraMapperService,
+                        InferenceService inferenceService,
+                        GraphBuilderService graphBuilderService,
+                        @Value("${laf.batch.parallelism:0}") int parallelism) {
+        this.programMapperService = programMapperService;
+        this.algebraMapperService = algebraMapperService;
+        this.inferenceService = inferenceService;
+        this.graphBuilderService = graphBuilderService;
+
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.executor = Executors.newFixedThreadPool(threads,
+                Thread.ofPlatform().name("laf-batch-", 0).daemon(true).factory());
+        this.window = threads * 4;
+    }
+
+    /**
+     * Evaluates every program of a batch and hands each result to the sink.
+     *
+     * <p>
+     * Results are tagged with the identifier of their program, or with its
+     * position in the batch when it has none. A program that fails produces
+     * a result carrying the error message instead of a graph.
+     * </p>
+     *
+     * @param programs the programs to evaluate
+     * @param ordered  {@code true} to deliver results in submission order,
+     *                 {@code false} to deliver them as soon as they complete
+     * @param sink     consumer of the results, always called from the calling thread
+     */
+    public void evaluate(List<BatchProgramRequest> programs, boolean ordered, Consumer<BatchResultResponse> sink) {
+        if (programs == null || programs.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        if (ordered) {
+            evaluateOrdered(programs, sink);
+        } else {
+            evaluateUnordered(programs, sink);
+        }
+        log.debug("Evaluated batch of {} program(s) in {} ms",
+                programs.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Stops the worker threads.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void evaluateOrdered(List<BatchProgramRequest> programs, Consumer<BatchResultResponse> sink) {
+        Deque<Future<BatchResultResponse>> pending = new ArrayDeque<>();
+        try {
+            for (int i = 0; i < programs.size(); i++) {
+                if (pending.size() == window) {
+                    sink.accept(await(pending.peek()));
+                    pending.poll();
+                }
+                BatchProgramRequest program = programs.get(i);
+                String id = idOf(program, i);
+                pending.add(executor.submit(() -> evaluate(program, id)));
+            }
+            while (!pending.isEmpty()) {
+                // Polled once awaited, so that an interrupted wait still cancels it
+                sink.accept(await(pending.peek()));
+                pending.poll();
+            }
+        } finally {
+            pending.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private void evaluateUnordered(List<BatchProgramRequest> programs, Consumer<BatchResultResponse> sink) {
+        CompletionService<BatchResultResponse> completion = new ExecutorCompletionService<>(executor);
+        // Completed futures leave the set as they are taken, so it holds at most a window of programs
+        Set<Future<BatchResultResponse>> inFlight = new HashSet<>();
+        try {
+            for (int i = 0; i < programs.size(); i++) {
+                if (inFlight.size() == window) {
+                    sink.accept(await(take(completion, inFlight)));
+                }
+                BatchProgramRequest program = programs.get(i);
+                String id = idOf(program, i);
+                inFlight.add(completion.submit(() -> evaluate(program, id)));
+            }
+            while (!inFlight.isEmpty()) {
+                sink.accept(await(take(completion, inFlight)));
+            }
+        } finally {
+            inFlight.forEach(future -> future.cancel(true));
+        }
+    }
+
+    /**
+     * Evaluates a single program, turning any failure into an error result.
+     */
+    private BatchResultResponse evaluate(BatchProgramRequest program, String id) {
+        BatchResultResponse result = new BatchResultResponse();
+        result.setId(id);
+        try {
+            var facts = programMapperService.mapFacts(program.getFacts());
+            var rules = programMapperService.mapRules(program.getRules());
+            var operations = algebraMapperService.mapOperations(program.getOperations());
+            var graph = inferenceService.buildGraph(facts, rules, operations);
+            result.setGraph(graphBuilderService.toGraphResponse(graph));
+        } catch (RuntimeException exception) {
+            result.setError(String.valueOf(exception.getMessage()));
+        } catch (Error error) {
+            // E.g. a derivation too deep for the worker stack: only this program fails
+            log.warn("Program {} of the batch failed", id, error);
+            result.setError(error.toString());
+        }
+        return result;
+    }
+
+    private static String idOf(BatchProgramRequest program, int position) {
+        return program.getId() != null ? program.getId() : String.valueOf(position);
+    }
+
+    private static Future<BatchResultResponse> take(CompletionService<BatchResultResponse> completion,
+                                                    Set<Future<BatchResultResponse>> inFlight) {
+        try {
+            Future<BatchResultResponse> future = completion.take();
+            inFlight.remove(future);
+            return future;
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Batch evaluation interrupted", exception);
+        }
+    }
+
+    private static BatchResultResponse await(Future<BatchResultResponse> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Batch evaluation interrupted", exception);
+        } catch (ExecutionException exception) {
+            throw new IllegalStateException("Batch evaluation failed", exception.getCause());
+        }
+    }
+}
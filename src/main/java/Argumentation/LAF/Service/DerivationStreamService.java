@@ -0,0 +1,255 @@
+package Argumentation.LAF.Service;
+
+import Argumentation.LAF.DTO.Response.GraphDeltaResponse;
+import Argumentation.LAF.DTO.Response.GraphEdgeResponse;
+import Argumentation.LAF.Domain.ArgumentativeGraph;
+import Argumentation.LAF.Domain.Fact;
+import Argumentation.LAF.Domain.InferenceListener;
+import Argumentation.LAF.Domain.KnowledgePiece;
+import Argumentation.LAF.Domain.OperationSet;
+import Argumentation.LAF.Domain.PairInConflict;
+import Argumentation.LAF.Domain.Rule;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Service that streams the derivations of an inference as Server-Sent Events
+ * while the {@link Argumentation.LAF.Domain.InferenceEngine InferenceEngine}
+ * produces them.
+ *
+ * <p>
+ * The stream is made of the following events, whose data is JSON:
+ * </p>
+ * <ul>
+ *   <li>{@code node}: a fact or rule that appears for the first time, or a
+ *       fact whose labels changed because of a conflict
+ *       ({@link Argumentation.LAF.DTO.Response.GraphNodeResponse GraphNodeResponse}).</li>
+ *   <li>{@code support}: an edge from a rule or premise to a derived fact.</li>
+ *   <li>{@code aggregation}: an edge from a version of a fact to the fact
+ *       aggregating it.</li>
+ *   <li>{@code conflict}: an attack edge, sent once in each direction.</li>
+ *   <li>{@code complete}: the final consistency marker
+ *       ({@link GraphDeltaResponse}), sent last.</li>
+ * </ul>
+ *
+ * <p>
+ * Aggregation may replace parts of the graph that were already streamed, so
+ * the {@code complete} event lists the nodes and edges sent earlier that are
+ * not part of the final graph, and re-adds with their final kind the edges
+ * whose kind changed. Applying every event, then the removals and additions
+ * of the marker, yields exactly the graph of the {@code /api/graph}
+ * endpoint, with node identifiers that are stable within the stream. Only
+ * the identifiers of the streamed elements are kept in memory, never the
+ * response graph.
+ * </p>
+ *
+ * @author JaviDebórtoli
+ */
+@Service
+public class DerivationStreamService {
+    /** Number of events after which the output is flushed within a round. */
+    private static final int FLUSH_INTERVAL = 256;
+
+    private final InferenceService inferenceService;
+    private final GraphBuilderService graphBuilderService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Constructs a {@code DerivationStreamService}.
+     *
+     * @param inferenceService service used to run the inference
+     * @param graphBuilderService service used to serialize nodes
+     * @param objectMapper JSON mapper used to write the event data
+     */
+    public DerivationStreamService(InferenceService inferenceService,
+                                   GraphBuilderService graphBuilderService,
+                                   ObjectMapper objectMapper) {
+        this.inferenceService = inferenceService;
+        this.graphBuilderService = graphBuilderService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Runs the inference and writes its derivations to the output as
+     * Server-Sent Events.
+     *
+     * @param facts      the facts of the program
+     * @param rules      the rules of the program
+     * @param operations label algebra indexed by label name
+     * @param output     the stream the events are written to; it is flushed
+     *                   regularly but not closed
+     * @throws UncheckedIOException if the output cannot be written, which
+     *                              also stops the inference
+     */
+    public void stream(List<Fact> facts, List<Rule> rules, Map<String, OperationSet> operations,
+                       OutputStream output) {
+        EventWriter writer = new EventWriter(output);
+        ArgumentativeGraph graph = inferenceService.buildGraph(facts, rules, operations, writer);
+        writer.complete(graph);
+    }
+
+    /**
+     * Listener that turns engine callbacks into events.
+     */
+    private final class EventWriter implements InferenceListener {
+        private final OutputStream output;
+        /** Identifiers of the streamed nodes. */
+        private final Map<KnowledgePiece, String> ids = new HashMap<>();
+        /** Streamed edges, indexed by source and target identifiers. */
+        private final Map<String, GraphEdgeResponse> edges = new LinkedHashMap<>();
+        private int factCounter = 1;
+        private int ruleCounter = 1;
+        private long sequence;
+
+        EventWriter(OutputStream output) {
+            this.output = output;
+        }
+
+        @Override
+        public void supportAdded(KnowledgePiece parent, Fact child) {
+            edge("support", parent, child, "SUPPORT");
+        }
+
+        @Override
+        public void factAggregated(Fact aggregated, Collection<? extends KnowledgePiece> sources) {
+            for (KnowledgePiece source : sources) {
+                edge("aggregation", source, aggregated, "AGGREGATION");
+            }
+        }
+
+        @Override
+        public void conflictDetected(Fact negative, Fact positive) {
+            // Both facts are sent again with their conflict labels
+            for (Fact fact : List.of(negative, positive)) {
+                if (ids.containsKey(fact)) {
+                    send("node", graphBuilderService.toNodeResponse(fact, ids.get(fact)));
+                }
+            }
+            edge("conflict", negative, positive, "CONFLICT");
+            edge("conflict", positive, negative, "CONFLICT");
+        }
+
+        @Override
+        public void roundCompleted(int round, int derivedFacts, int estimatedRemaining) {
+            flush();
+        }
+
+        /**
+         * Sends the consistency marker: the streamed nodes and edges that are
+         * not part of the final graph, and the edges whose kind changed.
+         */
+        void complete(ArgumentativeGraph graph) {
+            // Facts with a rule among their final parents are supported, the others aggregated
+            Set<Fact> supported = new HashSet<>();
+            for (Map.Entry<KnowledgePiece, List<Fact>> entry : graph.edges().entrySet()) {
+                if (entry.getKey() instanceof Rule) {
+                    supported.addAll(entry.getValue());
+                }
+            }
+
+            Set<KnowledgePiece> finalNodes = new HashSet<>();
+            Map<String, String> finalEdges = new HashMap<>();
+            for (Map.Entry<KnowledgePiece, List<Fact>> entry : graph.edges().entrySet()) {
+                finalNodes.add(entry.getKey());
+                for (Fact child : entry.getValue()) {
+                    finalNodes.add(child);
+                    finalEdges.put(edgeKey(ids.get(entry.getKey()), ids.get(child)),
+                            supported.contains(child) ? "SUPPORT" : "AGGREGATION");
+                }
+            }
+            for (PairInConflict pair : graph.conflictiveNodes()) {
+                finalNodes.add(pair.first());
+                finalNodes.add(pair.second());
+                finalEdges.put(edgeKey(ids.get(pair.first()), ids.get(pair.second())), "CONFLICT");
+                finalEdges.put(edgeKey(ids.get(pair.second()), ids.get(pair.first())), "CONFLICT");
+            }
+
+            GraphDeltaResponse marker = new GraphDeltaResponse();
+            ids.forEach((kp, id) -> {
+                if (!finalNodes.contains(kp)) {
+                    marker.getRemovedNodes().add(id);
+                }
+            });
+            edges.forEach((key, edge) -> {
+                String kind = finalEdges.get(key);
+                if (kind == null) {
+                    marker.getRemovedEdges().add(edge);
+                } else if (!kind.equals(edge.getKind())) {
+                    // The edge survives with another kind, e.g. after its rule was erased
+                    GraphEdgeResponse retyped = new GraphEdgeResponse();
+                    retyped.setFrom(edge.getFrom());
+                    retyped.setTo(edge.getTo());
+                    retyped.setKind(kind);
+                    marker.getRemovedEdges().add(edge);
+                    marker.getAddedEdges().add(retyped);
+                }
+            });
+            send("complete", marker);
+            flush();
+        }
+
+        private void edge(String event, KnowledgePiece from, Fact to, String kind) {
+            String fromId = node(from);
+            String toId = node(to);
+            GraphEdgeResponse edge = new GraphEdgeResponse();
+            edge.setFrom(fromId);
+            edge.setTo(toId);
+            edge.setKind(kind);
+            if (edges.putIfAbsent(edgeKey(fromId, toId), edge) == null) {
+                send(event, edge);
+            }
+        }
+
+        /**
+         * Returns the identifier of a node, streaming the node the first
+         * time it is seen.
+         */
+        private String node(KnowledgePiece kp) {
+            String id = ids.get(kp);
+            if (id == null) {
+                id = kp instanceof Rule ? "R" + (ruleCounter++) : "F" + (factCounter++);
+                ids.put(kp, id);
+                send("node", graphBuilderService.toNodeResponse(kp, id));
+            }
+            return id;
+        }
+
+        private void send(String event, Object data) {
+            try {
+                output.write(("id:" + (++sequence) + "\nevent:" + event + "\ndata:")
+                        .getBytes(StandardCharsets.UTF_8));
+                output.write(objectMapper.writeValueAsBytes(data));
+                output.write('\n');
+                output.write('\n');
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+            if (sequence % FLUSH_INTERVAL == 0) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            try {
+                output.flush();
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+
+        private static String edgeKey(String from, String to) {
+            return from + "|" + to;
+        }
+    }
+}
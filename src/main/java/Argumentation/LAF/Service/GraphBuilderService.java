@@ -1,20 +1,28 @@
 package Argumentation.LAF.Service;
 
+import Argumentation.LAF.DTO.Response.GraphDeltaResponse;
 import Argumentation.LAF.DTO.Response.GraphEdgeResponse;
 import Argumentation.LAF.DTO.Response.GraphNodeResponse;
 import Argumentation.LAF.DTO.Response.GraphResponse;
 import Argumentation.LAF.Domain.ArgumentativeGraph;
+import Argumentation.LAF.Domain.CompactGraph;
 import Argumentation.LAF.Domain.Fact;
 import Argumentation.LAF.Domain.KnowledgePiece;
-import Argumentation.LAF.Domain.PairInConflict;
+import Argumentation.LAF.Domain.NodeKeys;
 import Argumentation.LAF.Domain.Rule;
 import java.util.ArrayList;
-import java.util.LinkedHashSet;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import tools.jackson.core.JsonGenerator;
 
 /**
  * Service responsible for transforms the internal argumentation graph into a 
@@ -41,6 +49,24 @@ import org.springframework.stereotype.Service;
  * its semantic role in the argumentative structure (AGGREGATION, SUPPORT, CONFLICT).
  * </p>
  *
+ * <p>
+ * Identifiers are sequential ({@code F1, F2, ...}, {@code R1, R2, ...}) by
+ * default. With the {@code laf.graph.content-ids} property they are derived
+ * instead from the {@link NodeKeys structural key} of each node (predicate,
+ * argument, rule structure and derivation position), so the same node gets
+ * the same identifier in every response and clients can cache node state
+ * across calls.
+ * </p>
+ *
+ * <p>
+ * Conversions run on the {@link CompactGraph frozen form} of the graph:
+ * identifiers are kept in an array indexed by node id and edges are walked
+ * over its adjacency arrays, without a hash lookup per edge. Callers that
+ * serialize a graph after returning, as streamed responses do, can freeze
+ * it first with {@link CompactGraph#of} so that only the compact form stays
+ * in memory.
+ * </p>
+ *
  * <h3>Main responsibilities</h3>
  * <ul>
  *     <li>Instantiate graph nodes for facts, rules and conflicts.</li>
@@ -64,10 +90,54 @@ import org.springframework.stereotype.Service;
  */
 @Service
 public class GraphBuilderService {
-    /** Internal counter used to generate unique identifiers for I-nodes. */
-    int factCounter;
-    /** Internal counter used to generate unique identifiers for RA-nodes */
-    int ruleCounter;
+    /** Number of nodes and edges from which a graph is converted in parallel chunks. */
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+    /** Whether identifiers are derived from the content of the nodes. */
+    private final boolean contentIds;
+
+    /**
+     * Constructs a {@code GraphBuilderService}.
+     *
+     * @param contentIds {@code true} to derive node identifiers from their
+     *                   content, {@code false} to number them sequentially
+     */
+    public GraphBuilderService(@Value("${laf.graph.content-ids:false}") boolean contentIds) {
+        this.contentIds = contentIds;
+    }
+
+    /**
+     * Tells whether node identifiers are derived from the content of the nodes.
+     *
+     * @return {@code true} if identifiers are content-addressed
+     */
+    public boolean usesContentIds() {
+        return contentIds;
+    }
+
+    /**
+     * Returns the identifier map to start a conversion with: the
+     * content-addressed identifiers of every node when they are enabled, or
+     * an empty map to be filled with sequential identifiers otherwise.
+     *
+     * @param graph the graph to convert
+     * @return a mutable map from node to identifier
+     */
+    public Map<KnowledgePiece, String> nodeIds(ArgumentativeGraph graph) {
+        return contentIds ? contentIds(graph) : new HashMap<>();
+    }
+
+    /**
+     * Computes the content-addressed identifier of every node of the graph.
+     * The cost is linear in the size of the graph.
+     *
+     * @param graph the graph whose nodes must be identified
+     * @return a mutable map from node to identifier
+     */
+    public Map<KnowledgePiece, String> contentIds(ArgumentativeGraph graph) {
+        Map<KnowledgePiece, String> ids = new IdentityHashMap<>();
+        NodeKeys.forEach(graph, (kp, key) -> ids.put(kp, NodeKeys.toId(kp, key)));
+        return ids;
+    }
     
     /**
      * Translates the internal model representation of the argumentation graph
@@ -97,118 +167,426 @@ public class GraphBuilderService {
      *              format consumable by clients or visualization components.
      */
     public GraphResponse toGraphResponse(ArgumentativeGraph graph) {
-        GraphResponse response = new GraphResponse();
-        List<GraphNodeResponse> nodeDtos = new ArrayList<>();
-        List<GraphEdgeResponse> edgeDtos = new ArrayList<>();
+        return toGraphResponse(CompactGraph.of(graph));
+    }
+    
+    /**
+     * Translates the argumentation graph into a {@link GraphResponse} using
+     * the given node identifiers.
+     *
+     * <p>
+     * Nodes already present in {@code idMap} keep their identifier; any other
+     * node receives a sequential one, as in {@link #toGraphResponse(ArgumentativeGraph)}.
+     * This allows callers that keep identifiers stable across several graphs
+     * (e.g. reasoning sessions) to reuse the same conversion.
+     * </p>
+     *
+     * @param graph the already constructed graph instance
+     * @param idMap identifiers to use for the nodes of the graph
+     * @return      a {@link GraphResponse} DTO representing the argumentation graph
+     */
+    public GraphResponse toGraphResponse(ArgumentativeGraph graph, Map<KnowledgePiece, String> idMap) {
+        return toGraphResponse(graph, idMap, null);
+    }
 
-        factCounter = 1;
-        ruleCounter = 1;
-        
-        Map<KnowledgePiece, String> idMap = new HashMap<>();
-        // All nodes of the graph
-        Set<KnowledgePiece> allNodes = new LinkedHashSet<>(graph.edges().keySet());
-        // Map values (always Facts)
-        for (List<Fact> children : graph.edges().values()) {
-            allNodes.addAll(children);
+    /**
+     * Translates the argumentation graph into a {@link GraphResponse} as
+     * {@link #toGraphResponse(ArgumentativeGraph, Map)} does, listing one
+     * more node even if it has no edge in the graph, such as the root of a
+     * neighborhood without neighbors.
+     *
+     * @param graph the already constructed graph instance
+     * @param idMap identifiers to use for the nodes of the graph
+     * @param node  the node to list, or {@code null}; it must have an
+     *              identifier in {@code idMap} if it is not in the graph
+     * @return      a {@link GraphResponse} DTO representing the argumentation graph
+     */
+    public GraphResponse toGraphResponse(ArgumentativeGraph graph, Map<KnowledgePiece, String> idMap,
+                                         KnowledgePiece node) {
+        return toGraphResponse(graph, idMap, node, null);
+    }
+
+    /**
+     * Translates part of a larger argumentation graph into a
+     * {@link GraphResponse} as
+     * {@link #toGraphResponse(ArgumentativeGraph, Map, KnowledgePiece)} does.
+     * The edges into a fact are supports if the fact is derived by a rule in
+     * the larger graph, even when the rule is not part of the graph converted.
+     *
+     * @param graph     the part of the graph to convert
+     * @param idMap     identifiers to use for the nodes of the graph
+     * @param node      the node to list, or {@code null}
+     * @param supported tells whether a fact is derived by a rule in the
+     *                  larger graph, or {@code null} to tell it from the
+     *                  graph converted
+     * @return          a {@link GraphResponse} DTO representing the argumentation graph
+     */
+    public GraphResponse toGraphResponse(ArgumentativeGraph graph, Map<KnowledgePiece, String> idMap,
+                                         KnowledgePiece node, Predicate<KnowledgePiece> supported) {
+        CompactGraph compact = CompactGraph.of(graph);
+        String[] ids = idsOf(compact, idMap);
+        for (int i = 0; i < ids.length; i++) {
+            idMap.putIfAbsent(compact.node(i), ids[i]);
         }
-        // Nodes in conflict
-        for (PairInConflict pair : graph.conflictiveNodes()) {
-            allNodes.add(pair.first());
-            allNodes.add(pair.second());
+        IntPredicate isSupported = supported == null
+                ? compact::isSupported
+                : child -> supported.test(compact.node(child));
+        return node != null && compact.indexOf(node) < 0
+                ? toGraphResponse(compact, ids, toNodeResponse(node, idMap.get(node)), isSupported)
+                : toGraphResponse(compact, ids, null, isSupported);
+    }
+
+    /**
+     * Translates a frozen argumentation graph into a {@link GraphResponse},
+     * as {@link #toGraphResponse(ArgumentativeGraph)} does.
+     *
+     * @param graph the frozen graph
+     * @return      a {@link GraphResponse} DTO representing the argumentation graph
+     */
+    public GraphResponse toGraphResponse(CompactGraph graph) {
+        return toGraphResponse(graph, nodeIds(graph), null, graph::isSupported);
+    }
+
+    /**
+     * Converts a frozen graph whose nodes all have an identifier, listing
+     * {@code extra} after its nodes unless it is {@code null}; the edges into
+     * the supported facts are supports, the others aggregations.
+     */
+    private GraphResponse toGraphResponse(CompactGraph graph, String[] ids, GraphNodeResponse extra,
+                                          IntPredicate supported) {
+        GraphResponse response = new GraphResponse();
+        int nodeCount = graph.nodeCount();
+        int edgeCount = graph.edgeCount();
+        GraphNodeResponse[] nodeDtos = new GraphNodeResponse[nodeCount];
+        GraphEdgeResponse[] edgeDtos = new GraphEdgeResponse[edgeCount];
+
+        // Edges out of a node have consecutive positions, so nodes can be converted in any order
+        IntStream nodes = IntStream.range(0, nodeCount);
+        if (nodeCount + edgeCount >= PARALLEL_THRESHOLD) {
+            nodes = nodes.parallel();
         }
-        // Create DTOs nodes
-        for (KnowledgePiece kp : allNodes) {
-            GraphNodeResponse nodeDto = new GraphNodeResponse();
-
-            switch (kp) {
-                case Fact fact -> {
-                    String id = idMap.computeIfAbsent(kp, k -> "F" + (factCounter++));
-                    nodeDto.setId(id);
-                    nodeDto.setLabel(fact.getName() + "(" + fact.getArgument() + ")");
-                    nodeDto.setType("FACT");
-                    nodeDto.setAttributes(fact.getAttributes());
-                    nodeDto.setDeltaAttributes(fact.getDeltaAttributes());
-                }
-                case Rule rule -> {
-                    String id = idMap.computeIfAbsent(kp, k -> "R" + (ruleCounter++));
-                    nodeDto.setId(id);
-                    nodeDto.setLabel(rule.toString());
-                    nodeDto.setType("RULE");
-                    nodeDto.setAttributes(rule.getAttributes());
-                    nodeDto.setDeltaAttributes(rule.getDeltaAttributes());
-                }
-                default -> throw new IllegalStateException("Unexpected value: " + kp);
+        nodes.forEach(node -> {
+            nodeDtos[node] = toNodeResponse(graph.node(node), ids[node]);
+            int edge = graph.firstEdge(node);
+            for (int i = 0; i < graph.outDegree(node); i++) {
+                int child = graph.child(node, i);
+                edgeDtos[edge + i] = toEdgeResponse(ids[node], ids[child],
+                        supported.test(child) ? "SUPPORT" : "AGGREGATION");
             }
+        });
+
+        List<GraphEdgeResponse> edges = new ArrayList<>(edgeCount + 2 * graph.conflictCount());
+        edges.addAll(Arrays.asList(edgeDtos));
+        visitConflicts(graph, ids, (fromId, toId, kind) -> edges.add(toEdgeResponse(fromId, toId, kind)));
 
-            nodeDtos.add(nodeDto);
+        List<GraphNodeResponse> nodeList = new ArrayList<>(nodeCount + 1);
+        nodeList.addAll(Arrays.asList(nodeDtos));
+        if (extra != null) {
+            nodeList.add(extra);
         }
-        // child -> parent list (KnowledgePiece)
-        Map<Fact, List<KnowledgePiece>> parentsMap = new HashMap<>();
-
-        for (Map.Entry<KnowledgePiece, List<Fact>> entry : graph.edges().entrySet()) {
-            KnowledgePiece parent = entry.getKey();
-            for (Fact child : entry.getValue()) {
-                parentsMap
-                    .computeIfAbsent(child, k -> new ArrayList<>())
-                    .add(parent);
+        response.setNodes(nodeList);
+        response.setEdges(edges);
+        return response;
+    }
+    
+    /**
+     * Translates a single node of the argumentation graph into its DTO
+     * representation.
+     *
+     * @param kp the fact or rule
+     * @param id the identifier of the node
+     * @return   the {@link GraphNodeResponse} for the node, with its current labels
+     */
+    public GraphNodeResponse toNodeResponse(KnowledgePiece kp, String id) {
+        GraphNodeResponse nodeDto = new GraphNodeResponse();
+        nodeDto.setId(id);
+        nodeDto.setLabel(labelOf(kp));
+        nodeDto.setType(kp instanceof Rule ? "RULE" : "FACT");
+        nodeDto.setAttributes(kp.getAttributes());
+        nodeDto.setDeltaAttributes(kp.getDeltaAttributes());
+        return nodeDto;
+    }
+    
+    /**
+     * Writes the argumentation graph as JSON directly to a streaming generator,
+     * without building the intermediate {@link GraphResponse}.
+     *
+     * <p>
+     * The output has the same structure and identifiers as the serialized
+     * {@link GraphResponse} produced by {@link #toGraphResponse(ArgumentativeGraph)}:
+     * an object with a {@code nodes} array followed by an {@code edges} array.
+     * Nodes and edges are written as soon as they are produced, so the memory
+     * needed is bounded by the domain graph and its identifier map.
+     * </p>
+     *
+     * @param graph     the already constructed graph instance
+     * @param generator the JSON generator the graph is written to; it is
+     *                  neither flushed nor closed by this method
+     */
+    public void writeGraph(ArgumentativeGraph graph, JsonGenerator generator) {
+        writeGraph(CompactGraph.of(graph), generator);
+    }
+
+    /**
+     * Writes a frozen argumentation graph as JSON directly to a streaming
+     * generator, as {@link #writeGraph(ArgumentativeGraph, JsonGenerator)}
+     * does.
+     *
+     * @param graph     the frozen graph
+     * @param generator the JSON generator the graph is written to; it is
+     *                  neither flushed nor closed by this method
+     */
+    public void writeGraph(CompactGraph graph, JsonGenerator generator) {
+        String[] ids = nodeIds(graph);
+
+        generator.writeStartObject();
+        generator.writeArrayPropertyStart("nodes");
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            KnowledgePiece kp = graph.node(node);
+            generator.writeStartObject();
+            generator.writeStringProperty("id", ids[node]);
+            generator.writeStringProperty("label", labelOf(kp));
+            generator.writeStringProperty("type", kp instanceof Rule ? "RULE" : "FACT");
+            writeLabels(generator, "attributes", kp.getAttributes());
+            writeLabels(generator, "deltaAttributes", kp.getDeltaAttributes());
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+        
+        generator.writeArrayPropertyStart("edges");
+        EdgeVisitor writer = (fromId, toId, kind) -> {
+            generator.writeStartObject();
+            generator.writeStringProperty("from", fromId);
+            generator.writeStringProperty("to", toId);
+            generator.writeStringProperty("kind", kind);
+            generator.writeEndObject();
+        };
+        visitEdges(graph, ids, writer);
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+    
+    /**
+     * Returns the identifier of every node of a frozen graph: its
+     * content-addressed identifier when they are enabled, or a sequential
+     * one otherwise.
+     */
+    private String[] nodeIds(CompactGraph graph) {
+        String[] ids = new String[graph.nodeCount()];
+        if (contentIds) {
+            long[] keys = NodeKeys.of(graph);
+            for (int node = 0; node < ids.length; node++) {
+                ids[node] = NodeKeys.toId(graph.node(node), keys[node]);
             }
         }
-        // Create support edges
-        for (Map.Entry<KnowledgePiece, List<Fact>> entry : graph.edges().entrySet()) {
-            KnowledgePiece fromKp = entry.getKey();
-            String fromId = idMap.get(fromKp);
-            if (fromId == null) {
-                continue;
+        assignIds(graph, ids);
+        return ids;
+    }
+    
+    /**
+     * Assigns a sequential identifier to every node of the graph that has
+     * none yet. Nodes are numbered in id order: parents first, then derived
+     * facts, then facts only involved in conflicts.
+     */
+    private static void assignIds(CompactGraph graph, String[] ids) {
+        // Counters used to generate identifiers for I-nodes and RA-nodes; kept
+        // local so that concurrent conversions do not interfere with each other
+        int factCounter = 1;
+        int ruleCounter = 1;
+        
+        for (int node = 0; node < ids.length; node++) {
+            if (ids[node] == null) {
+                ids[node] = switch (graph.node(node)) {
+                    case Fact fact -> "F" + (factCounter++);
+                    case Rule rule -> "R" + (ruleCounter++);
+                    default -> throw new IllegalStateException("Unexpected value: " + graph.node(node));
+                };
             }
+        }
+    }
+    
+    /**
+     * Returns the kind of the edges into a fact: supports if it has a rule
+     * among its parents, aggregations otherwise.
+     */
+    private static String kindOf(CompactGraph graph, int child) {
+        return graph.isSupported(child) ? "SUPPORT" : "AGGREGATION";
+    }
+    
+    /**
+     * Hands both directions of every conflict of the graph to the visitor.
+     */
+    private static void visitConflicts(CompactGraph graph, String[] ids, EdgeVisitor visitor) {
+        for (int conflict = 0; conflict < graph.conflictCount(); conflict++) {
+            String id1 = ids[graph.first(conflict)];
+            String id2 = ids[graph.second(conflict)];
+            visitor.accept(id1, id2, "CONFLICT");
+            visitor.accept(id2, id1, "CONFLICT");
+        }
+    }
+    
+    /**
+     * Converts an edge into its DTO representation.
+     *
+     * @param fromId identifier of the source node
+     * @param toId   identifier of the target node
+     * @param kind   SUPPORT, AGGREGATION or CONFLICT
+     * @return the {@link GraphEdgeResponse} representing the edge
+     */
+    public static GraphEdgeResponse toEdgeResponse(String fromId, String toId, String kind) {
+        GraphEdgeResponse edgeDto = new GraphEdgeResponse();
+        edgeDto.setFrom(fromId);
+        edgeDto.setTo(toId);
+        edgeDto.setKind(kind);
+        return edgeDto;
+    }
+    
+    /**
+     * Returns the human-readable label of a node.
+     */
+    private static String labelOf(KnowledgePiece kp) {
+        return kp instanceof Fact fact
+                ? fact.getName() + "(" + fact.getArgument() + ")"
+                : kp.toString();
+    }
+    
+    /**
+     * Writes a label vector as a JSON array property, or {@code null} if absent.
+     */
+    private static void writeLabels(JsonGenerator generator, String name, String[] labels) {
+        generator.writeName(name);
+        if (labels == null) {
+            generator.writeNull();
+        } else {
+            generator.writeArray(labels, 0, labels.length);
+        }
+    }
+    
+    /**
+     * Computes the difference between two versions of a graph.
+     *
+     * <p>
+     * Nodes are matched by identifier and reported as added, removed or
+     * changed (same identifier, different labels). Edges are matched by
+     * source, target and kind, and reported as added or removed. Nodes
+     * without an identifier in their map receive a sequential one, as in
+     * {@link #toGraphResponse(ArgumentativeGraph, Map)}.
+     * </p>
+     *
+     * @param before    the previous version of the graph
+     * @param idsBefore identifiers of the nodes of {@code before}
+     * @param after     the new version of the graph
+     * @param idsAfter  identifiers of the nodes of {@code after}
+     * @return a {@link GraphDeltaResponse} that turns {@code before} into {@code after}
+     */
+    public GraphDeltaResponse toGraphDelta(ArgumentativeGraph before, Map<KnowledgePiece, String> idsBefore,
+                                           ArgumentativeGraph after, Map<KnowledgePiece, String> idsAfter) {
+        return toGraphDelta(before, idsBefore, after, idsAfter, kp -> true);
+    }
 
-            for (Fact toFact : entry.getValue()) {
-                String toId = idMap.get(toFact);
-                if (toId == null) {
-                    continue;
-                }
+    /**
+     * Computes the difference between two versions of a graph, as
+     * {@link #toGraphDelta(ArgumentativeGraph, Map, ArgumentativeGraph, Map)}
+     * does, leaving out of the added and removed nodes those that the
+     * caller knows to be present in both versions of a larger graph.
+     *
+     * @param before    the previous version of the graph
+     * @param idsBefore identifiers of the nodes of {@code before}
+     * @param after     the new version of the graph
+     * @param idsAfter  identifiers of the nodes of {@code after}
+     * @param reported  tells whether a node may be reported as added or removed
+     * @return a {@link GraphDeltaResponse} that turns {@code before} into {@code after}
+     */
+    public GraphDeltaResponse toGraphDelta(ArgumentativeGraph before, Map<KnowledgePiece, String> idsBefore,
+                                           ArgumentativeGraph after, Map<KnowledgePiece, String> idsAfter,
+                                           Predicate<KnowledgePiece> reported) {
+        GraphDeltaResponse delta = new GraphDeltaResponse();
+        CompactGraph previous = CompactGraph.of(before);
+        CompactGraph current = CompactGraph.of(after);
+        String[] previousIds = idsOf(previous, idsBefore);
+        String[] currentIds = idsOf(current, idsAfter);
 
-                GraphEdgeResponse edgeDto = new GraphEdgeResponse();
-                edgeDto.setFrom(fromId);
-                edgeDto.setTo(toId);
-                // Select edge type
-                List<KnowledgePiece> parents = parentsMap.getOrDefault(toFact, List.of());
-                boolean hasRuleParent = parents.stream().anyMatch(p -> p instanceof Rule);
-                boolean allParentsFacts = !parents.isEmpty()
-                        && parents.stream().allMatch(p -> p instanceof Fact);
-
-                if (hasRuleParent) {
-                    edgeDto.setKind("SUPPORT");
-                } else if (allParentsFacts) {
-                    edgeDto.setKind("AGGREGATION");
+        Map<String, KnowledgePiece> previousNodes = new LinkedHashMap<>();
+        for (int node = 0; node < previous.nodeCount(); node++) {
+            previousNodes.put(previousIds[node], previous.node(node));
+        }
+        for (int node = 0; node < current.nodeCount(); node++) {
+            KnowledgePiece kp = current.node(node);
+            KnowledgePiece old = previousNodes.remove(currentIds[node]);
+            if (old == null) {
+                if (reported.test(kp)) {
+                    delta.getAddedNodes().add(toNodeResponse(kp, currentIds[node]));
                 }
-                
-                edgeDtos.add(edgeDto);
+            } else if (!Arrays.equals(old.getAttributes(), kp.getAttributes())
+                    || !Arrays.equals(old.getDeltaAttributes(), kp.getDeltaAttributes())) {
+                delta.getChangedNodes().add(toNodeResponse(kp, currentIds[node]));
             }
         }
-        
-        // Create conflict edges
-        for (PairInConflict pair : graph.conflictiveNodes()) {
-            Fact f1 = pair.first();
-            Fact f2 = pair.second();
-            String id1 = idMap.get(f1);
-            String id2 = idMap.get(f2);
-            if (id1 == null || id2 == null) continue;
-
-            GraphEdgeResponse e1 = new GraphEdgeResponse();
-            e1.setFrom(id1);
-            e1.setTo(id2);
-            e1.setKind("CONFLICT");
-            edgeDtos.add(e1);
-
-            GraphEdgeResponse e2 = new GraphEdgeResponse();
-            e2.setFrom(id2);
-            e2.setTo(id1);
-            e2.setKind("CONFLICT");
-            edgeDtos.add(e2);
+        previousNodes.forEach((id, kp) -> {
+            if (reported.test(kp)) {
+                delta.getRemovedNodes().add(id);
+            }
+        });
+
+        Map<String, GraphEdgeResponse> previousEdges = new LinkedHashMap<>();
+        visitEdges(previous, previousIds, (fromId, toId, kind) ->
+                previousEdges.put(edgeKey(fromId, toId, kind), toEdgeResponse(fromId, toId, kind)));
+        visitEdges(current, currentIds, (fromId, toId, kind) -> {
+            if (previousEdges.remove(edgeKey(fromId, toId, kind)) == null) {
+                delta.getAddedEdges().add(toEdgeResponse(fromId, toId, kind));
+            }
+        });
+        delta.getRemovedEdges().addAll(previousEdges.values());
+
+        return delta;
+    }
+
+    /**
+     * Returns the identifier of every node of a frozen graph, taken from a
+     * map or handed out sequentially.
+     */
+    private static String[] idsOf(CompactGraph graph, Map<KnowledgePiece, String> idMap) {
+        String[] ids = new String[graph.nodeCount()];
+        for (int node = 0; node < ids.length; node++) {
+            ids[node] = idMap.get(graph.node(node));
         }
+        assignIds(graph, ids);
+        return ids;
+    }
 
-        response.setNodes(nodeDtos);
-        response.setEdges(edgeDtos);
-        return response;
+    /**
+     * Hands every edge of a frozen graph to the visitor: derivation edges in
+     * node order, then both directions of every conflict.
+     */
+    private static void visitEdges(CompactGraph graph, String[] ids, EdgeVisitor visitor) {
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            for (int i = 0; i < graph.outDegree(node); i++) {
+                int child = graph.child(node, i);
+                visitor.accept(ids[node], ids[child], kindOf(graph, child));
+            }
+        }
+        visitConflicts(graph, ids, visitor);
+    }
+
+    /**
+     * Builds the key used to match edges between two versions of a graph.
+     */
+    private static String edgeKey(String fromId, String toId, String kind) {
+        return fromId + "->" + toId + ":" + kind;
+    }
+    
+    /**
+     * Receives the edges produced while traversing a graph.
+     */
+    @FunctionalInterface
+    private interface EdgeVisitor {
+        /**
+         * Handles one edge.
+         *
+         * @param fromId identifier of the source node
+         * @param toId   identifier of the target node
+         * @param kind   SUPPORT, AGGREGATION or CONFLICT
+         */
+        void accept(String fromId, String toId, String kind);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,118 @@
+package Argumentation.LAF.Service;
+
+import Argumentation.LAF.DTO.Response.GraphDeltaResponse;
+import Argumentation.LAF.Domain.ArgumentativeGraph;
+import Argumentation.LAF.Domain.Fact;
+import Argumentation.LAF.Domain.KnowledgePiece;
+import Argumentation.LAF.Domain.OperationSet;
+import Argumentation.LAF.Domain.Rule;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service that answers edits of a program with the difference between the
+ * new graph and a graph computed earlier, instead of the whole new graph.
+ *
+ * <p>
+ * Every graph computed by this service is kept, under a result identifier,
+ * in a bounded cache evicting the least recently used results (the
+ * {@code laf.diff.cache-size} property). A client sends the identifier of
+ * the result it holds together with the edited program and receives the
+ * delta that turns its result into the new one, plus the identifier of the
+ * new result for the next edit.
+ * </p>
+ *
+ * <p>
+ * Nodes are matched across results by their content-addressed identifiers
+ * (see {@link GraphBuilderService#contentIds}), whatever the identifier
+ * scheme configured for the other endpoints.
+ * </p>
+ *
+ * @author JaviDebórtoli
+ */
+@Service
+public class GraphDiffService {
+    private final InferenceService inferenceService;
+    private final GraphBuilderService graphBuilderService;
+    /** Computed results by identifier, in access order. */
+    private final Map<String, Result> results;
+
+    /**
+     * A computed graph with the content-addressed identifiers of its nodes.
+     */
+    private record Result(ArgumentativeGraph graph, Map<KnowledgePiece, String> ids) {}
+
+    /**
+     * Result of a diff.
+     *
+     * @param resultId identifier of the new result
+     * @param baseId   identifier of the result the delta applies to, or
+     *                 {@code null} if the delta applies to the empty graph
+     * @param delta    the changes from the base result to the new one
+     */
+    public record Diff(String resultId, String baseId, GraphDeltaResponse delta) {}
+
+    /**
+     * Constructs a {@code GraphDiffService}.
+     *
+     * @param inferenceService service used to run the inference
+     * @param graphBuilderService service used to serialize and compare graphs
+     * @param cacheSize maximum number of results kept
+     */
+    public GraphDiffService(InferenceService inferenceService,
+                            GraphBuilderService graphBuilderService,
+                            @Value("${laf.diff.cache-size:64}") int cacheSize) {
+        this.inferenceService = inferenceService;
+        this.graphBuilderService = graphBuilderService;
+        this.results = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Result> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Evaluates a program and compares its graph with a previous result.
+     *
+     * <p>
+     * When the base result is not given, or is no longer cached, the delta
+     * is computed against the empty graph, i.e. it contains the whole new
+     * graph; {@link Diff#baseId()} tells the client which case applies.
+     * </p>
+     *
+     * @param baseId     identifier of the previous result, may be {@code null}
+     * @param facts      the facts of the edited program
+     * @param rules      the rules of the edited program
+     * @param operations label algebra indexed by label name
+     * @return the delta and the identifier of the new result
+     */
+    public Diff diff(String baseId, List<Fact> facts, List<Rule> rules, Map<String, OperationSet> operations) {
+        ArgumentativeGraph graph = inferenceService.buildGraph(facts, rules, operations);
+        Result after = new Result(graph, graphBuilderService.contentIds(graph));
+
+        Result before = baseId == null ? null : get(baseId);
+        if (before == null) {
+            before = new Result(new ArgumentativeGraph(Map.of(), List.of()), Map.of());
+            baseId = null;
+        }
+        GraphDeltaResponse delta = graphBuilderService.toGraphDelta(before.graph(), before.ids(),
+                after.graph(), after.ids());
+
+        String resultId = UUID.randomUUID().toString();
+        synchronized (results) {
+            results.put(resultId, after);
+        }
+        return new Diff(resultId, baseId, delta);
+    }
+
+    private Result get(String resultId) {
+        synchronized (results) {
+            return results.get(resultId);
+        }
+    }
+}
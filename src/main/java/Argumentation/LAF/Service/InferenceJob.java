@@ -0,0 +1,270 @@
+package Argumentation.LAF.Service;
+
+import Argumentation.LAF.DTO.Response.GraphResponse;
+import Argumentation.LAF.DTO.Response.JobResponse;
+import Argumentation.LAF.Domain.Fact;
+import Argumentation.LAF.Domain.InferenceListener;
+import Argumentation.LAF.Domain.Rule;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * State of one asynchronous inference, updated by the engine through the
+ * {@link InferenceListener} callbacks and read by {@link JobService}.
+ *
+ * <p>
+ * Progress snapshots are published to the subscribers at the end of every
+ * fixpoint round and when the job changes state. A subscriber that throws
+ * is dropped. Snapshots are queued for each subscriber under the job
+ * monitor, in order, and delivered outside it; a thread that finds a
+ * subscriber already being served leaves its snapshot to the thread serving
+ * it. A slow subscriber thus never blocks a status poll, a cancellation or
+ * the inference, and only delays what it receives itself.
+ * </p>
+ *
+ * <p>
+ * A job finishes once: after it is cancelled, the outcome of the inference
+ * is ignored. The engine has no cancellation points of its own, so the job
+ * checks for cancellation whenever a round starts and whenever a rule
+ * fires.
+ * </p>
+ *
+ * @author JaviDebórtoli
+ */
+final class InferenceJob implements InferenceListener {
+    private final String id;
+    private final Instant submittedAt = Instant.now();
+    private final List<Subscription> subscribers = new ArrayList<>();
+    /** Facts derived so far, counted as the rules fire. */
+    private final AtomicInteger derivedFacts = new AtomicInteger();
+
+    private JobStatus status = JobStatus.QUEUED;
+    private volatile boolean cancelled;
+    private volatile int round;
+    private int estimatedRemaining;
+    private String error;
+    private Instant finishedAt;
+    private GraphResponse result;
+    private Future<?> future;
+
+    /**
+     * Creates a queued job.
+     *
+     * @param id        the job identifier
+     * @param rules     the rules of the program, used for the initial estimate
+     * @param facts     the facts of the program, used for the initial estimate
+     */
+    InferenceJob(String id, List<Rule> rules, List<Fact> facts) {
+        this.id = id;
+        this.estimatedRemaining = rules.size() * (int) facts.stream().map(Fact::getArgument).distinct().count();
+    }
+
+    String id() {
+        return id;
+    }
+
+    synchronized void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    void cancel() {
+        cancelled = true;
+        synchronized (this) {
+            if (future != null) {
+                future.cancel(true);
+            }
+        }
+        fail("Cancelled");
+    }
+
+    void start() {
+        synchronized (this) {
+            if (status != JobStatus.QUEUED) {
+                return;
+            }
+            status = JobStatus.RUNNING;
+        }
+        publish();
+    }
+
+    void succeed(GraphResponse graph) {
+        synchronized (this) {
+            if (status.isFinished()) {
+                return;
+            }
+            result = graph;
+            estimatedRemaining = 0;
+            finish(JobStatus.SUCCEEDED);
+        }
+        publish();
+    }
+
+    void fail(String message) {
+        synchronized (this) {
+            if (status.isFinished()) {
+                return;
+            }
+            error = message;
+            finish(JobStatus.FAILED);
+        }
+        publish();
+    }
+
+    synchronized GraphResponse result() {
+        return result;
+    }
+
+    synchronized JobStatus status() {
+        return status;
+    }
+
+    /**
+     * Returns whether the job finished more than {@code ttl} ago.
+     */
+    synchronized boolean expired(Instant now, Duration ttl) {
+        return finishedAt != null && finishedAt.plus(ttl).isBefore(now);
+    }
+
+    /**
+     * Hands the current state to the subscriber and, unless the job is
+     * already finished, every later progress update.
+     */
+    void subscribe(Consumer<JobResponse> subscriber) {
+        Subscription subscription = new Subscription(subscriber);
+        synchronized (this) {
+            subscription.offer(snapshot());
+            if (!status.isFinished()) {
+                subscribers.add(subscription);
+            }
+        }
+        subscription.deliver();
+    }
+
+    synchronized JobResponse snapshot() {
+        JobResponse response = new JobResponse();
+        response.setJobId(id);
+        response.setStatus(status);
+        response.setRound(round);
+        response.setDerivedFacts(derivedFacts.get());
+        response.setEstimatedRemaining(estimatedRemaining);
+        response.setError(error);
+        response.setSubmittedAt(submittedAt);
+        response.setFinishedAt(finishedAt);
+        return response;
+    }
+
+    @Override
+    public void roundStarted(int round) {
+        checkCancelled();
+        this.round = round;
+    }
+
+    @Override
+    public void factDerived(Fact fact, Rule rule) {
+        checkCancelled();
+        derivedFacts.incrementAndGet();
+    }
+
+    @Override
+    public void roundCompleted(int round, int derivedFacts, int estimatedRemaining) {
+        synchronized (this) {
+            this.derivedFacts.set(derivedFacts);
+            this.estimatedRemaining = estimatedRemaining;
+        }
+        publish();
+    }
+
+    private void checkCancelled() {
+        if (cancelled || Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Cancelled");
+        }
+    }
+
+    private void finish(JobStatus finalStatus) {
+        status = finalStatus;
+        finishedAt = Instant.now();
+    }
+
+    /**
+     * Delivers the current state to the subscribers, and forgets them once
+     * the job has finished.
+     */
+    private void publish() {
+        List<Subscription> targets;
+        synchronized (this) {
+            JobResponse snapshot = snapshot();
+            subscribers.removeIf(Subscription::dropped);
+            for (Subscription subscription : subscribers) {
+                subscription.offer(snapshot);
+            }
+            targets = List.copyOf(subscribers);
+            if (status.isFinished()) {
+                subscribers.clear();
+            }
+        }
+        for (Subscription subscription : targets) {
+            subscription.deliver();
+        }
+    }
+
+    /** A subscriber with the snapshots not yet delivered to it. */
+    private static final class Subscription {
+        private final Consumer<JobResponse> subscriber;
+        private final Queue<JobResponse> undelivered = new ArrayDeque<>();
+        /** Whether a thread is currently delivering to the subscriber. */
+        private boolean delivering;
+        private volatile boolean dropped;
+
+        Subscription(Consumer<JobResponse> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        boolean dropped() {
+            return dropped;
+        }
+
+        synchronized void offer(JobResponse snapshot) {
+            if (!dropped) {
+                undelivered.add(snapshot);
+            }
+        }
+
+        /**
+         * Delivers the queued snapshots, unless another thread already is.
+         */
+        void deliver() {
+            synchronized (this) {
+                if (delivering) {
+                    return;
+                }
+                delivering = true;
+            }
+            while (true) {
+                JobResponse next;
+                synchronized (this) {
+                    next = undelivered.poll();
+                    if (next == null) {
+                        delivering = false;
+                        return;
+                    }
+                }
+                try {
+                    subscriber.accept(next);
+                } catch (RuntimeException exception) {
+                    synchronized (this) {
+                        dropped = true;
+                        undelivered.clear();
+                    }
+                }
+            }
+        }
+    }
+}
@@ -1,12 +1,24 @@
 package Argumentation.LAF.Service;
 
 import Argumentation.LAF.Domain.ArgumentativeGraph;
+import Argumentation.LAF.Domain.ColumnarInference;
 import Argumentation.LAF.Domain.Fact;
 import Argumentation.LAF.Domain.InferenceEngine;
+import Argumentation.LAF.Domain.InferenceListener;
+import Argumentation.LAF.Domain.OffHeapFactStore;
 import Argumentation.LAF.Domain.OperationSet;
+import Argumentation.LAF.Domain.ProgramPruner;
+import Argumentation.LAF.Domain.PruningReport;
 import Argumentation.LAF.Domain.Rule;
+import Argumentation.LAF.Domain.SupportMemo;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 /**
@@ -27,6 +39,22 @@ import org.springframework.stereotype.Service;
  * Framework (LAF).
  * </p>
  *
+ * <p>
+ * With the {@code laf.inference.support-memo-size} property, the results of
+ * the SUPPORT operation are memoized in a {@link SupportMemo} shared by every
+ * run, including those of reasoning sessions, so premises with the same
+ * labels are combined only once.
+ * </p>
+ *
+ * <p>
+ * With the {@code laf.inference.columnar} property, programs are evaluated
+ * by {@link ColumnarInference}: arguments whose facts have the same
+ * predicates share one run of the engine, and their labels are computed
+ * together, one column per label, with vector kernels. The graph is the
+ * same; programs that cannot be evaluated that way, and runs reporting
+ * progress to a listener, use the engine.
+ * </p>
+ *
  * @see ArgumentativeGraph
  * @see Fact
  * @see Rule
@@ -36,6 +64,27 @@ import org.springframework.stereotype.Service;
  */
 @Service
 public class InferenceService {
+    private static final Logger log = LoggerFactory.getLogger(InferenceService.class);
+    
+    /** Memo of support results shared by every inference run, or {@code null} if disabled. */
+    private final SupportMemo supportMemo;
+    /** Whether programs are evaluated by columns when they allow it. */
+    private final boolean columnar;
+    
+    /**
+     * Constructs an {@code InferenceService}.
+     *
+     * @param supportMemoSize number of support results memoized across
+     *                        inference runs, {@code 0} to disable the memo
+     * @param columnar        whether programs are evaluated by columns
+     *                        when they allow it
+     */
+    public InferenceService(@Value("${laf.inference.support-memo-size:0}") int supportMemoSize,
+                            @Value("${laf.inference.columnar:false}") boolean columnar) {
+        this.supportMemo = supportMemoSize > 0 ? new SupportMemo(supportMemoSize) : null;
+        this.columnar = columnar;
+    }
+    
     /**
      * Builds an {@link ArgumentativeGraph} from the given facts, rules and
      * operation sets.
@@ -48,6 +97,14 @@ public class InferenceService {
      * </p>
      *
      * <p>
+     * Before inference, the program is pruned with {@link ProgramPruner}:
+     * rules that can never fire and facts that are never used are removed,
+     * which does not change the resulting graph. How much was pruned, and
+     * the work it saves, is logged at info level, and what was pruned at
+     * debug level.
+     * </p>
+     *
+     * <p>
      * Each {@link OperationSet} specifies the expressions used for support,
      * aggregation and conflict handling, which are incorporated into the
      * resulting graph structure to enable subsequent evaluation and labeling.
@@ -63,20 +120,151 @@ public class InferenceService {
      *         structure derived from the provided facts, rules and operations
      */
     public ArgumentativeGraph buildGraph(List<Fact> facts, List<Rule> rules, Map<String, OperationSet> operations) {
+        return buildGraph(facts, rules, operations, InferenceListener.NONE);
+    }
+    
+    /**
+     * Builds an {@link ArgumentativeGraph} as {@link #buildGraph(List, List, Map)}
+     * does, reporting the progress of the inference to a listener.
+     *
+     * @param facts the list of initial facts
+     * @param rules the list of inference rules
+     * @param operations a mapping between operation identifiers and their
+     *                   corresponding {@link OperationSet} definitions
+     * @param listener the listener notified of rounds and derived facts
+     * @return an {@link ArgumentativeGraph} representing the inferential
+     *         structure derived from the provided facts, rules and operations
+     */
+    public ArgumentativeGraph buildGraph(List<Fact> facts, List<Rule> rules, Map<String, OperationSet> operations,
+                                         InferenceListener listener) {
+        String[][] functions = functionTable(operations);
+        // Rules that can never fire and facts that are never used do not reach the engine
+        ProgramPruner.Result pruned = ProgramPruner.prune(facts, rules);
+        PruningReport report = pruned.report();
+        if (report.anyPruned()) {
+            log.info("Pruned {} rule(s) and {} fact(s); match checks per round {} -> {} ({}% saved)",
+                    report.prunedRuleCount(), report.prunedFactCount(),
+                    report.matchChecksBefore(), report.matchChecksAfter(),
+                    Math.round(report.savedFraction() * 100));
+            log.debug("Pruned rules {} and facts with predicates {}", report.prunedRules(), report.prunedPredicates());
+        }
+
+        if (columnar && listener == InferenceListener.NONE) {
+            Optional<ArgumentativeGraph> graph = ColumnarInference.graph(pruned.facts(), pruned.rules(), functions);
+            if (graph.isPresent()) {
+                return graph.get();
+            }
+            log.debug("Program cannot be evaluated by columns, running the inference engine");
+        }
+
+        InferenceEngine engine = new InferenceEngine(pruned.facts(), pruned.rules(), functions, listener, supportMemo);
+        return engine.buildTree();
+    }
+    
+    /**
+     * Builds an {@link ArgumentativeGraph} from facts held in an
+     * {@link OffHeapFactStore}.
+     *
+     * <p>
+     * The program is pruned as in {@link #buildGraph(List, List, Map)} and
+     * evaluated by {@link ColumnarInference} straight from the columns of the
+     * store, whatever the {@code laf.inference.columnar} property says, so
+     * that the facts are only rebuilt on the heap where they take part in
+     * the graph. Programs that cannot be evaluated that way are rebuilt as a
+     * whole and run through the engine.
+     * </p>
+     *
+     * <p>
+     * The pruner keeps a rule depending only on which predicates have facts,
+     * and keeps a fact depending only on its predicate, so the program is
+     * pruned with one placeholder fact per predicate of the store: the rules
+     * and predicates it keeps are those that pruning every fact would keep.
+     * </p>
+     *
+     * @param facts the store of initial facts; it must stay open until this
+     *              method returns, but the graph does not depend on it
+     * @param rules the list of inference rules
+     * @param operations a mapping between operation identifiers and their
+     *                   corresponding {@link OperationSet} definitions
+     * @return an {@link ArgumentativeGraph} representing the inferential
+     *         structure derived from the provided facts, rules and operations
+     */
+    public ArgumentativeGraph buildGraph(OffHeapFactStore facts, List<Rule> rules, Map<String, OperationSet> operations) {
+        String[][] functions = functionTable(operations);
+        // Pruning only looks at predicates, so one fact per predicate stands for every fact of the store
+        List<Fact> predicates = facts.predicates().stream()
+                .map(predicate -> new Fact(predicate, "", null))
+                .toList();
+        ProgramPruner.Result pruned = ProgramPruner.prune(predicates, rules);
+        Set<String> kept = pruned.facts().stream().map(Fact::getName).collect(Collectors.toSet());
+
+        Optional<ArgumentativeGraph> graph = ColumnarInference.graph(facts, kept, pruned.rules(), functions);
+        if (graph.isPresent()) {
+            return graph.get();
+        }
+        log.debug("Off-heap program cannot be evaluated by columns, running the inference engine");
+        return buildGraph(facts.toFacts(), rules, operations);
+    }
+    
+    /**
+     * Tells whether programs are evaluated by columns, as set by the
+     * {@code laf.inference.columnar} property.
+     *
+     * @return {@code true} if columnar evaluation is enabled
+     */
+    public boolean isColumnar() {
+        return columnar;
+    }
+    
+    /**
+     * Returns the memo of support results shared by every inference run.
+     * Its size is set by the {@code laf.inference.support-memo-size} property.
+     *
+     * @return the memo, or {@code null} if memoization is disabled
+     */
+    public SupportMemo supportMemo() {
+        return supportMemo;
+    }
+    
+    /**
+     * Returns the usage statistics of the support memo.
+     *
+     * @return the statistics, or empty if memoization is disabled
+     */
+    public Optional<SupportMemo.Stats> supportMemoStats() {
+        return Optional.ofNullable(supportMemo).map(SupportMemo::stats);
+    }
+    
+    /**
+     * Builds the label algebra function table expected by the
+     * {@link InferenceEngine} from the given operation sets.
+     *
+     * <p>
+     * Row {@code i} holds the support, aggregation and conflict expressions
+     * of the {@code i}-th label, in that order, followed by the name of its
+     * {@link Argumentation.LAF.Domain.LabelPrecision}.
+     * </p>
+     *
+     * @param operations a mapping between label names and their
+     *                   corresponding {@link OperationSet} definitions
+     * @return the function table, with one row per label
+     * @throws IllegalStateException if no operations are defined
+     */
+    public String[][] functionTable(Map<String, OperationSet> operations) {
         if (operations == null || operations.isEmpty()) {
             throw new IllegalStateException("Missing functions");
         }
         
-        String[][] functions = new String[operations.size()][3];
+        String[][] functions = new String[operations.size()][4];
         int i = 0;
         for (OperationSet set : operations.values()) {
             functions[i][0] = set.getSupportExpr();
             functions[i][1] = set.getAggregationExpr();
             functions[i][2] = set.getConflictExpr();
+            functions[i][3] = set.getPrecision().id();
             i++;
         }
-
-        InferenceEngine engine = new InferenceEngine(facts, rules, functions);
-        return engine.buildTree();
+        
+        return functions;
     }
 }
\ No newline at end of file
@@ -0,0 +1,198 @@
+package Argumentation.LAF.Service;
+
+import Argumentation.LAF.DTO.Response.GraphResponse;
+import Argumentation.LAF.DTO.Response.JobResponse;
+import Argumentation.LAF.Domain.Fact;
+import Argumentation.LAF.Domain.OperationSet;
+import Argumentation.LAF.Domain.Rule;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service that runs inferences asynchronously.
+ *
+ * <p>
+ * A submitted program is evaluated in the background and identified by a
+ * job id, which can be used to poll its progress, subscribe to progress
+ * updates and, once finished, fetch the resulting graph. This avoids
+ * holding an HTTP request open for programs whose inference takes minutes.
+ * </p>
+ *
+ * <p>
+ * Jobs run on a bounded pool: at most {@code laf.jobs.concurrency} jobs run
+ * at the same time and at most {@code laf.jobs.queue-capacity} wait for a
+ * worker; further submissions are rejected. Finished jobs, with their
+ * results, are discarded {@code laf.jobs.ttl} after they finish, by a
+ * background sweep as well as on every request, so that the results of
+ * jobs nobody asks about again do not pile up.
+ * </p>
+ *
+ * @author JaviDebórtoli
+ */
+@Service
+public class JobService {
+    private final InferenceService inferenceService;
+    private final GraphBuilderService graphBuilderService;
+    /** Bounded pool running the jobs. */
+    private final ThreadPoolExecutor executor;
+    /** Time finished jobs are kept. */
+    private final Duration ttl;
+    /** Periodically discards the expired jobs. */
+    private final ScheduledExecutorService purger;
+    /** Known jobs indexed by identifier. */
+    private final Map<String, InferenceJob> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a {@code JobService}.
+     *
+     * @param inferenceService service used to run the inference
+     * @param graphBuilderService service used to serialize the results
+     * @param concurrency maximum number of jobs running at the same time
+     * @param queueCapacity maximum number of jobs waiting for a worker
+     * @param ttl time a finished job and its result are kept
+     */
+    public JobService(InferenceService inferenceService,
+                      GraphBuilderService graphBuilderService,
+                      @Value("${laf.jobs.concurrency:2}") int concurrency,
+                      @Value("${laf.jobs.queue-capacity:100}") int queueCapacity,
+                      @Value("${laf.jobs.ttl:10m}") Duration ttl) {
+        this.inferenceService = inferenceService;
+        this.graphBuilderService = graphBuilderService;
+        this.executor = new ThreadPoolExecutor(concurrency, concurrency, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("laf-job-", 0).daemon(true).factory());
+        this.ttl = ttl;
+        this.purger = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("laf-job-purger").daemon(true).factory());
+    }
+
+    /**
+     * Starts discarding expired jobs in the background.
+     */
+    @PostConstruct
+    public void startPurging() {
+        long period = Math.clamp(ttl.toMillis(), 1, 60_000);
+        purger.scheduleWithFixedDelay(this::purgeExpired, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Submits a program for asynchronous evaluation.
+     *
+     * @param facts      the facts of the program
+     * @param rules      the rules of the program
+     * @param operations label algebra indexed by label name
+     * @return the state of the new job, or an empty {@link Optional} if the
+     *         job queue is full
+     */
+    public Optional<JobResponse> submit(List<Fact> facts, List<Rule> rules, Map<String, OperationSet> operations) {
+        purgeExpired();
+        InferenceJob job = new InferenceJob(UUID.randomUUID().toString(), rules, facts);
+        jobs.put(job.id(), job);
+        try {
+            job.setFuture(executor.submit(() -> run(job, facts, rules, operations)));
+        } catch (RejectedExecutionException exception) {
+            jobs.remove(job.id());
+            return Optional.empty();
+        }
+        return Optional.of(job.snapshot());
+    }
+
+    /**
+     * Returns the state and progress of a job.
+     *
+     * @param jobId the job identifier
+     * @return the job state, or an empty {@link Optional} if the job does not exist
+     */
+    public Optional<JobResponse> status(String jobId) {
+        return find(jobId).map(InferenceJob::snapshot);
+    }
+
+    /**
+     * Returns the graph computed by a job.
+     *
+     * @param jobId the job identifier
+     * @return the graph, or an empty {@link Optional} if the job does not
+     *         exist or has not succeeded
+     */
+    public Optional<GraphResponse> result(String jobId) {
+        return find(jobId).map(InferenceJob::result);
+    }
+
+    /**
+     * Subscribes to the progress of a job. The subscriber immediately
+     * receives the current state and then one update per fixpoint round and
+     * per state change, the last one carrying a finished {@link JobStatus}.
+     *
+     * @param jobId      the job identifier
+     * @param subscriber consumer of the progress updates
+     * @return {@code false} if the job does not exist
+     */
+    public boolean subscribe(String jobId, Consumer<JobResponse> subscriber) {
+        Optional<InferenceJob> job = find(jobId);
+        job.ifPresent(j -> j.subscribe(subscriber));
+        return job.isPresent();
+    }
+
+    /**
+     * Cancels a job, if still running, and discards it.
+     *
+     * @param jobId the job identifier
+     * @return {@code true} if the job existed
+     */
+    public boolean cancel(String jobId) {
+        InferenceJob job = jobs.remove(jobId);
+        if (job == null) {
+            return false;
+        }
+        job.cancel();
+        return true;
+    }
+
+    /**
+     * Stops the worker threads and the background sweep.
+     */
+    @PreDestroy
+    public void shutdown() {
+        purger.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    private void run(InferenceJob job, List<Fact> facts, List<Rule> rules, Map<String, OperationSet> operations) {
+        job.start();
+        try {
+            var graph = inferenceService.buildGraph(facts, rules, operations, job);
+            job.succeed(graphBuilderService.toGraphResponse(graph));
+        } catch (RuntimeException exception) {
+            job.fail(String.valueOf(exception.getMessage()));
+        }
+    }
+
+    private Optional<InferenceJob> find(String jobId) {
+        purgeExpired();
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    /**
+     * Discards the jobs whose time-to-live has elapsed.
+     */
+    private void purgeExpired() {
+        Instant now = Instant.now();
+        jobs.values().removeIf(job -> job.expired(now, ttl));
+    }
+}
@@ -0,0 +1,26 @@
+package Argumentation.LAF.Service;
+
+/**
+ * Lifecycle states of an asynchronous inference job.
+ *
+ * @author JaviDebórtoli
+ */
+public enum JobStatus {
+    /** The job is waiting for a free worker. */
+    QUEUED,
+    /** The inference is running. */
+    RUNNING,
+    /** The inference finished and its graph can be fetched. */
+    SUCCEEDED,
+    /** The inference failed or was cancelled. */
+    FAILED;
+
+    /**
+     * Returns whether the job has reached a final state.
+     *
+     * @return {@code true} for {@link #SUCCEEDED} and {@link #FAILED}
+     */
+    public boolean isFinished() {
+        return this == SUCCEEDED || this == FAILED;
+    }
+}
@@ -36,16 +36,24 @@ public class ProgramMapperService {
         }
 
         for (FactDTO dto : factDtos) {
-            Fact fact = new Fact(
-                    dto.getName(),
-                    dto.getArgument(),
-                    dto.getAttributes()
-            );
-            facts.add(fact);
+            facts.add(mapFact(dto));
         }
 
         return facts;
     }
+    /**
+     * Maps a single {@link FactDTO} into a domain {@link Fact}.
+     *
+     * @param dto the fact DTO received from the client
+     * @return the mapped {@link Fact} instance
+     */
+    public Fact mapFact(FactDTO dto) {
+        return new Fact(
+                dto.getName(),
+                dto.getArgument(),
+                dto.getAttributes()
+        );
+    }
     /**
      * Maps a list of {@link RuleDTO} objects into a list of domain {@link Rule}s.
      *
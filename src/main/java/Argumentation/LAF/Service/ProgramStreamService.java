@@ -0,0 +1,218 @@
+package Argumentation.LAF.Service;
+
+import Argumentation.LAF.DTO.Request.GraphRequest;
+import Argumentation.LAF.Domain.Fact;
+import Argumentation.LAF.Domain.LabelPrecision;
+import Argumentation.LAF.Domain.OffHeapFactStore;
+import Argumentation.LAF.Domain.OffHeapProgram;
+import Argumentation.LAF.Domain.OperationSet;
+import Argumentation.LAF.Domain.Program;
+import java.io.InputStream;
+import java.lang.foreign.Arena;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.databind.DeserializationFeature;
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Service that reads a program from a newline-delimited JSON (NDJSON) stream.
+ *
+ * <p>
+ * The stream is made of one JSON object per line:
+ * </p>
+ * <ol>
+ *   <li>The first object is a header with the same fields as a
+ *       {@link GraphRequest} ({@code rules}, {@code operations} and,
+ *       optionally, {@code facts}).</li>
+ *   <li>Every following object is a single fact, with the same fields as a
+ *       {@link Argumentation.LAF.DTO.FactDTO FactDTO}
+ *       ({@code name}, {@code argument}, {@code attributes}).</li>
+ * </ol>
+ *
+ * <p>
+ * Facts are parsed token by token and turned directly into domain
+ * {@link Fact}s, without building an intermediate list of DTOs, so only one
+ * fact is in transit at any time. Predicate names, arguments and label
+ * values are deduplicated while reading, since large fact sets repeat them
+ * heavily.
+ * </p>
+ *
+ * <p>
+ * With the {@code laf.stream.off-heap-facts} property, callers read the
+ * facts with {@link #read(InputStream, Arena)} instead, straight into an
+ * {@link OffHeapFactStore}, so that they stay off the Java heap until the
+ * program is evaluated. The property is off by default: reading labels into
+ * columns and rebuilding the facts that take part in the graph costs more
+ * time than it saves, so the store only pays off for fact sets that would
+ * otherwise strain the heap.
+ * </p>
+ *
+ * @author JaviDebórtoli
+ */
+@Service
+public class ProgramStreamService {
+    private final ObjectMapper objectMapper;
+    private final ProgramMapperService programMapperService;
+    private final AlgebraMapperService algebraMapperService;
+    /** Whether facts are read into off-heap stores. */
+    private final boolean offHeapFacts;
+
+    /**
+     * Constructs a {@code ProgramStreamService}.
+     *
+     * @param objectMapper JSON mapper used to create the streaming parser
+     * @param programMapperService service used to map the header facts and rules
+     * @param algebraMapperService service used to map the header operations
+     * @param offHeapFacts whether facts are read into off-heap stores
+     */
+    public ProgramStreamService(ObjectMapper objectMapper,
+                                ProgramMapperService programMapperService,
+                                AlgebraMapperService algebraMapperService,
+                                @Value("${laf.stream.off-heap-facts:false}") boolean offHeapFacts) {
+        this.objectMapper = objectMapper;
+        this.programMapperService = programMapperService;
+        this.algebraMapperService = algebraMapperService;
+        this.offHeapFacts = offHeapFacts;
+    }
+
+    /**
+     * Tells whether facts are read into off-heap stores, as set by the
+     * {@code laf.stream.off-heap-facts} property.
+     *
+     * @return {@code true} if callers should use {@link #read(InputStream, Arena)}
+     */
+    public boolean isOffHeapFacts() {
+        return offHeapFacts;
+    }
+
+    /**
+     * Reads a complete program from an NDJSON stream.
+     *
+     * @param input the NDJSON stream; it is not closed by this method
+     * @return the program read from the stream
+     * @throws IllegalArgumentException if the stream is empty or a line is not a valid fact
+     */
+    public Program read(InputStream input) {
+        try (JsonParser parser = objectMapper.createParser(input)) {
+            GraphRequest header = readHeader(parser);
+
+            List<Fact> facts = programMapperService.mapFacts(header.getFacts());
+            Map<String, String> pool = new HashMap<>();
+            while (parser.nextToken() != null) {
+                facts.add(readFact(parser, pool));
+            }
+
+            return new Program(
+                    facts,
+                    programMapperService.mapRules(header.getRules()),
+                    algebraMapperService.mapOperations(header.getOperations()));
+        }
+    }
+
+    /**
+     * Reads a complete program from an NDJSON stream, keeping its facts in an
+     * {@link OffHeapFactStore} allocated from the given arena.
+     *
+     * <p>
+     * Every fact is added to the store as soon as it is read, so no list of
+     * facts is built on the heap. Labels are not deduplicated, since the
+     * store keeps their values rather than their text.
+     * </p>
+     *
+     * @param input the NDJSON stream; it is not closed by this method
+     * @param arena the arena of the store; the program can only be used
+     *              while it is open
+     * @return the program read from the stream
+     * @throws IllegalArgumentException if the stream is empty or a line is not a valid fact
+     */
+    public OffHeapProgram read(InputStream input, Arena arena) {
+        try (JsonParser parser = objectMapper.createParser(input)) {
+            GraphRequest header = readHeader(parser);
+            Map<String, OperationSet> operations = algebraMapperService.mapOperations(header.getOperations());
+
+            // Values are only kept as floats when no label needs doubles
+            boolean float32 = !operations.isEmpty() && operations.values().stream()
+                    .allMatch(set -> set.getPrecision() == LabelPrecision.FLOAT32);
+            OffHeapFactStore facts = new OffHeapFactStore(arena, operations.size(),
+                    float32 ? LabelPrecision.FLOAT32 : LabelPrecision.DOUBLE);
+            for (Fact fact : programMapperService.mapFacts(header.getFacts())) {
+                facts.add(fact.getName(), fact.getArgument(), fact.getAttributes());
+            }
+            while (parser.nextToken() != null) {
+                Fact fact = readFact(parser, null);
+                facts.add(fact.getName(), fact.getArgument(), fact.getAttributes());
+            }
+
+            return new OffHeapProgram(facts, programMapperService.mapRules(header.getRules()), operations);
+        }
+    }
+
+    /**
+     * Reads the header object, leaving the parser on its last token.
+     */
+    private GraphRequest readHeader(JsonParser parser) {
+        if (parser.nextToken() == null) {
+            throw new IllegalArgumentException("Empty program stream");
+        }
+        // The header is followed by the facts, which must not be treated as trailing garbage
+        return objectMapper.readerFor(GraphRequest.class)
+                .without(DeserializationFeature.FAIL_ON_TRAILING_TOKENS)
+                .readValue(parser);
+    }
+
+    /**
+     * Reads one fact object, starting at its {@code START_OBJECT} token.
+     * Strings are deduplicated through the pool, unless it is {@code null}.
+     */
+    private Fact readFact(JsonParser parser, Map<String, String> pool) {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            throw new IllegalArgumentException("Expected a fact object but found " + parser.currentToken());
+        }
+
+        String name = null;
+        String argument = null;
+        String[] attributes = null;
+
+        String field;
+        while ((field = parser.nextName()) != null) {
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "name" -> name = dedupe(parser.getValueAsString(), pool);
+                case "argument" -> argument = dedupe(parser.getValueAsString(), pool);
+                case "attributes" -> attributes = value == JsonToken.START_ARRAY
+                        ? readLabels(parser, pool)
+                        : null;
+                default -> parser.skipChildren();
+            }
+        }
+
+        if (name == null || argument == null) {
+            throw new IllegalArgumentException("Fact without name or argument");
+        }
+        return new Fact(name, argument, attributes);
+    }
+
+    /**
+     * Reads a label array, accepting both strings and numbers.
+     */
+    private String[] readLabels(JsonParser parser, Map<String, String> pool) {
+        List<String> labels = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            labels.add(dedupe(parser.getValueAsString(), pool));
+        }
+        return labels.toArray(String[]::new);
+    }
+
+    /**
+     * Returns a canonical instance of the given string for this stream.
+     */
+    private static String dedupe(String value, Map<String, String> pool) {
+        return value == null || pool == null ? value : pool.computeIfAbsent(value, v -> v);
+    }
+}
@@ -0,0 +1,281 @@
+package Argumentation.LAF.Service;
+
+import Argumentation.LAF.DTO.Response.GraphNodeResponse;
+import Argumentation.LAF.DTO.Response.GraphResponse;
+import Argumentation.LAF.DTO.Response.QueryResponse;
+import Argumentation.LAF.Domain.ArgumentativeGraph;
+import Argumentation.LAF.Domain.Fact;
+import Argumentation.LAF.Domain.GoalRelevance;
+import Argumentation.LAF.Domain.KnowledgePiece;
+import Argumentation.LAF.Domain.LabelBounds;
+import Argumentation.LAF.Domain.OperationSet;
+import Argumentation.LAF.Domain.PairInConflict;
+import Argumentation.LAF.Domain.Rule;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service that answers goal-directed queries.
+ *
+ * <p>
+ * Instead of materializing the whole program, the service restricts it to
+ * the facts and rules relevant to the goal (see {@link GoalRelevance}) and
+ * runs the inference engine over that restriction only. The engine derives
+ * every argument independently of the others, and an aggregation only
+ * detaches the edges of the facts it replaces and of what was derived from
+ * them, so the rules that cannot reach the goal do not change how the
+ * relevant facts are derived: the goal, its ancestors and their conflicts
+ * get the same edges and labels as in the complete graph. As there, a base
+ * fact is only a node when it takes part in a derivation or a conflict, so
+ * a base fact of the goal that only the irrelevant rules use is not an
+ * answer.
+ * </p>
+ *
+ * <p>
+ * Ranked queries (a threshold and/or the top {@code k} goal nodes by one
+ * label) evaluate each argument on its own, for the same reason. When the
+ * algebra of the label admits {@link LabelBounds}, the arguments are visited by decreasing upper bound of the goal label, and
+ * those whose bound falls below the threshold, or below the {@code k}-th
+ * best label found so far, are skipped without running the inference. The
+ * bounds are sound, so the answers are exactly those of a full evaluation;
+ * with any other algebra every argument is evaluated.
+ * </p>
+ *
+ * @author JaviDebórtoli
+ */
+@Service
+public class QueryService {
+    private final InferenceService inferenceService;
+    private final GraphBuilderService graphBuilderService;
+
+    /**
+     * Constructs a {@code QueryService}.
+     *
+     * @param inferenceService service used to run the inference
+     * @param graphBuilderService service used to serialize the result
+     */
+    public QueryService(InferenceService inferenceService, GraphBuilderService graphBuilderService) {
+        this.inferenceService = inferenceService;
+        this.graphBuilderService = graphBuilderService;
+    }
+
+    /**
+     * Evaluates the part of a program relevant to a goal.
+     *
+     * @param facts      the facts of the program
+     * @param rules      the rules of the program
+     * @param operations label algebra indexed by label name
+     * @param goal       the goal predicate
+     * @param argument   the goal argument, or {@code null} for every argument
+     * @return the final goal nodes and the evaluated subgraph
+     */
+    public QueryResponse query(List<Fact> facts, List<Rule> rules, Map<String, OperationSet> operations,
+                               String goal, String argument) {
+        if (goal == null || goal.isBlank()) {
+            throw new IllegalArgumentException("Missing goal");
+        }
+
+        Set<String> relevant = GoalRelevance.relevantPredicates(goal, rules);
+        ArgumentativeGraph graph = inferenceService.buildGraph(
+                GoalRelevance.relevantFacts(facts, relevant, argument),
+                GoalRelevance.relevantRules(rules, relevant),
+                operations);
+
+        Map<KnowledgePiece, String> idMap = graphBuilderService.nodeIds(graph);
+        GraphResponse subgraph = graphBuilderService.toGraphResponse(graph, idMap);
+
+        List<GraphNodeResponse> answers = new ArrayList<>();
+        for (Fact fact : finalFacts(graph, goal, argument)) {
+            answers.add(graphBuilderService.toNodeResponse(fact, idMap.get(fact)));
+        }
+
+        QueryResponse response = new QueryResponse();
+        response.setAnswers(answers);
+        response.setGraph(subgraph);
+        return response;
+    }
+
+    /**
+     * Evaluates the part of a program relevant to a goal and answers the
+     * goal nodes whose label reaches a threshold and/or the goal nodes with
+     * the highest label.
+     *
+     * <p>
+     * Answers of a top query are sorted by decreasing label, ties being
+     * broken by the order of the arguments in the program; answers of a
+     * threshold-only query keep that order. The returned graph is made of
+     * the partitions of the arguments answered.
+     * </p>
+     *
+     * @param facts      the facts of the program
+     * @param rules      the rules of the program
+     * @param operations label algebra indexed by label name
+     * @param goal       the goal predicate
+     * @param argument   the goal argument, or {@code null} for every argument
+     * @param label      position of the compared label
+     * @param threshold  lowest label answered, or {@code null}
+     * @param top        number of answers, or {@code null} for all
+     * @return the answers, the graph they were derived in and the number of
+     *         arguments skipped
+     * @throws IllegalArgumentException if the goal is missing, the label does
+     *         not exist or the number of answers is not positive
+     */
+    public QueryResponse rankedQuery(List<Fact> facts, List<Rule> rules, Map<String, OperationSet> operations,
+                                     String goal, String argument, int label, Double threshold, Integer top) {
+        if (goal == null || goal.isBlank()) {
+            throw new IllegalArgumentException("Missing goal");
+        }
+        String[][] functions = inferenceService.functionTable(operations);
+        if (label < 0 || label >= functions.length) {
+            throw new IllegalArgumentException("Unknown label position: " + label);
+        }
+        if (top != null && top <= 0) {
+            throw new IllegalArgumentException("The number of answers must be positive: " + top);
+        }
+        double minimum = threshold == null ? Double.NEGATIVE_INFINITY : threshold;
+
+        Set<String> relevant = GoalRelevance.relevantPredicates(goal, rules);
+        List<Rule> relevantRules = GoalRelevance.relevantRules(rules, relevant);
+        Map<String, List<Fact>> byArgument = new LinkedHashMap<>();
+        for (Fact fact : GoalRelevance.relevantFacts(facts, relevant, argument)) {
+            byArgument.computeIfAbsent(fact.getArgument(), k -> new ArrayList<>()).add(fact);
+        }
+
+        boolean bounded = LabelBounds.isBounded(functions[label]);
+        List<Candidate> candidates = new ArrayList<>();
+        for (Map.Entry<String, List<Fact>> entry : byArgument.entrySet()) {
+            double bound = bounded
+                    ? LabelBounds.upperBound(goal, entry.getValue(), relevantRules, functions[label], label)
+                    : Double.POSITIVE_INFINITY;
+            candidates.add(new Candidate(candidates.size(), entry.getKey(), bound));
+        }
+        candidates.sort(Comparator.comparingDouble(Candidate::bound).reversed());
+
+        List<Answer> answers = new ArrayList<>();
+        Map<Integer, ArgumentativeGraph> graphs = new HashMap<>();
+        PriorityQueue<Double> best = new PriorityQueue<>();
+        int pruned = 0;
+        for (Candidate candidate : candidates) {
+            if (candidate.bound() < minimum
+                    || (top != null && best.size() == top && candidate.bound() < best.peek())) {
+                pruned++;
+                continue;
+            }
+            ArgumentativeGraph graph = inferenceService.buildGraph(
+                    byArgument.get(candidate.argument()), relevantRules, operations);
+            List<Fact> finals = finalFacts(graph, goal, candidate.argument());
+            for (int i = 0; i < finals.size(); i++) {
+                double value = labelOf(finals.get(i), label);
+                if (value >= minimum) {
+                    answers.add(new Answer(candidate.order(), i, finals.get(i), value));
+                    graphs.put(candidate.order(), graph);
+                    best.add(value);
+                    if (top != null && best.size() > top) {
+                        best.poll();
+                    }
+                }
+            }
+        }
+
+        Comparator<Answer> order = Comparator.comparingInt(Answer::argument).thenComparingInt(Answer::position);
+        if (top != null) {
+            answers.sort(Comparator.comparingDouble(Answer::value).reversed().thenComparing(order));
+            answers = answers.subList(0, Math.min(top, answers.size()));
+        } else {
+            answers.sort(order);
+        }
+
+        Map<KnowledgePiece, List<Fact>> edges = new LinkedHashMap<>();
+        List<PairInConflict> conflicts = new ArrayList<>();
+        answers.stream().map(Answer::argument).distinct().sorted().forEach(index -> {
+            ArgumentativeGraph graph = graphs.get(index);
+            graph.edges().forEach((parent, children) ->
+                    edges.computeIfAbsent(parent, k -> new ArrayList<>()).addAll(children));
+            conflicts.addAll(graph.conflictiveNodes());
+        });
+        ArgumentativeGraph graph = new ArgumentativeGraph(edges, conflicts);
+        Map<KnowledgePiece, String> idMap = graphBuilderService.nodeIds(graph);
+        GraphResponse subgraph = graphBuilderService.toGraphResponse(graph, idMap);
+
+        QueryResponse response = new QueryResponse();
+        response.setAnswers(answers.stream()
+                .map(answer -> graphBuilderService.toNodeResponse(answer.fact(), idMap.get(answer.fact())))
+                .toList());
+        response.setGraph(subgraph);
+        response.setPrunedArguments(pruned);
+        return response;
+    }
+
+    /**
+     * An argument of a ranked query with the upper bound of its goal label.
+     */
+    private record Candidate(int order, String argument, double bound) {}
+
+    /**
+     * A goal node answered by a ranked query, with the position of its
+     * argument in the program and its position among the goal nodes of
+     * that argument.
+     */
+    private record Answer(int argument, int position, Fact fact, double value) {}
+
+    /**
+     * Returns the final value of a label of a fact, or {@code NaN} if it is
+     * not a number.
+     */
+    private static double labelOf(Fact fact, int label) {
+        String[] labels = fact.getDeltaAttributes();
+        if (labels == null || label >= labels.length || labels[label] == null) {
+            return Double.NaN;
+        }
+        try {
+            return Double.parseDouble(labels[label]);
+        } catch (NumberFormatException exception) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Collects the final versions of the goal facts, i.e. those that are not
+     * aggregated into a later version of the same fact.
+     */
+    private List<Fact> finalFacts(ArgumentativeGraph graph, String goal, String argument) {
+        Set<Fact> candidates = new LinkedHashSet<>();
+        for (Map.Entry<KnowledgePiece, List<Fact>> entry : graph.edges().entrySet()) {
+            if (entry.getKey() instanceof Fact fact) {
+                candidates.add(fact);
+            }
+            candidates.addAll(entry.getValue());
+        }
+        for (PairInConflict pair : graph.conflictiveNodes()) {
+            candidates.add(pair.first());
+            candidates.add(pair.second());
+        }
+
+        List<Fact> finals = new ArrayList<>();
+        for (Fact fact : candidates) {
+            if (!fact.getName().equals(goal)
+                    || (argument != null && !argument.equals(fact.getArgument()))) {
+                continue;
+            }
+            boolean aggregated = false;
+            for (Fact child : graph.edges().getOrDefault(fact, List.of())) {
+                if (child.getName().equals(fact.getName()) && child.getArgument().equals(fact.getArgument())) {
+                    aggregated = true;
+                    break;
+                }
+            }
+            if (!aggregated) {
+                finals.add(fact);
+            }
+        }
+        return finals;
+    }
+}
@@ -0,0 +1,772 @@
+package Argumentation.LAF.Service;
+
+import Argumentation.LAF.DTO.Response.EdgePageResponse;
+import Argumentation.LAF.DTO.Response.GraphDeltaResponse;
+import Argumentation.LAF.DTO.Response.GraphResponse;
+import Argumentation.LAF.DTO.Response.NodePageResponse;
+import Argumentation.LAF.Domain.ArgumentativeGraph;
+import Argumentation.LAF.Domain.EdgeIndex;
+import Argumentation.LAF.Domain.Fact;
+import Argumentation.LAF.Domain.GraphIndex;
+import Argumentation.LAF.Domain.GraphStore;
+import Argumentation.LAF.Domain.KnowledgePiece;
+import Argumentation.LAF.Domain.LabelIndex;
+import Argumentation.LAF.Domain.NodeKeys;
+import Argumentation.LAF.Domain.OperationSet;
+import Argumentation.LAF.Domain.Page;
+import Argumentation.LAF.Domain.ReasoningSession;
+import Argumentation.LAF.Domain.Rule;
+import Argumentation.LAF.Domain.SessionUpdate;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service that manages stateful {@link ReasoningSession}s.
+ *
+ * <p>
+ * Unlike the request-driven graph endpoint, a session keeps its materialized
+ * graph between calls, so that asserting or retracting a single fact only
+ * re-derives the part of the graph affected by that fact. Each update is
+ * answered with a {@link GraphDeltaResponse} describing the changed nodes
+ * and edges, using identifiers that are stable for the lifetime of the session.
+ * </p>
+ *
+ * <p>
+ * Sessions are kept in memory and are independent from each other; each
+ * session serializes its own updates.
+ * </p>
+ *
+ * <p>
+ * When the {@code laf.store.dir} property names a directory, sessions can be
+ * persisted there as {@link GraphStore} files, one per session. Stored
+ * sessions are persisted again on shutdown and reopened, with the same
+ * identifier and materialized graph, when the application starts.
+ * </p>
+ *
+ * <p>
+ * With {@code laf.store.wal.enabled}, every session is durable: it is stored
+ * when opened, and each assertion or retraction is written to a
+ * {@link SessionJournal write-ahead journal}, and applied and acknowledged
+ * once the journal is durable. When the journal cannot be written the update
+ * fails without being applied, and all sessions are checkpointed so that the
+ * journal works again.
+ * Every {@code laf.store.wal.checkpoint-interval} updates all sessions are
+ * stored again and the journal is emptied. On startup the stored sessions
+ * are reopened and then the journal is replayed over them.
+ * </p>
+ *
+ * <p>
+ * Sessions that have not been used for {@code laf.sessions.idle-ttl} are
+ * evicted from memory, and so are the least recently used ones while more
+ * than {@code laf.sessions.max-count} are open; zero disables either limit.
+ * With a store directory an evicted session is stored, and reopened from its
+ * store file on its next use, with the same identifier; the limits default
+ * to 30 minutes and 1000 sessions. Without one an evicted session is
+ * discarded, as if it had been closed, so sessions are only evicted when
+ * the limits are set.
+ * </p>
+ *
+ * @see ReasoningSession
+ *
+ * @author JaviDebórtoli
+ */
+@Service
+public class ReasoningSessionService {
+    private static final Logger log = LoggerFactory.getLogger(ReasoningSessionService.class);
+    /** Idle time-to-live of sessions when a store directory is configured and none is set. */
+    private static final Duration DEFAULT_IDLE_TTL = Duration.ofMinutes(30);
+    /** Maximum number of sessions when a store directory is configured and none is set. */
+    private static final int DEFAULT_MAX_COUNT = 1000;
+    /** Extension of the session store files. */
+    private static final String STORE_EXTENSION = ".laf";
+    /** Name of the journal file within the store directory. */
+    private static final String JOURNAL_FILE = "sessions.wal";
+
+    private final InferenceService inferenceService;
+    private final GraphBuilderService graphBuilderService;
+    /** Directory holding the stored sessions, or {@code null} if persistence is disabled. */
+    private final Path storeDirectory;
+    /** Whether session updates are journaled. */
+    private final boolean journaled;
+    /** Number of journaled updates between two checkpoints. */
+    private final int checkpointInterval;
+    /** Journal of session updates, or {@code null} if updates are not journaled. */
+    private SessionJournal journal;
+    /** Time after which an unused session is evicted, or zero. */
+    private final Duration idleTtl;
+    /** Maximum number of sessions kept in memory, or zero. */
+    private final int maxCount;
+    /** Runs the eviction of sessions, or {@code null} if sessions are never evicted. */
+    private final ScheduledExecutorService evictor;
+    /** Open sessions indexed by identifier. */
+    private final Map<String, OpenSession> sessions = new ConcurrentHashMap<>();
+    /** Identifiers of the sessions evicted to their store file. */
+    private final Set<String> evicted = ConcurrentHashMap.newKeySet();
+
+    /**
+     * A session held in memory. Its users and eviction are only changed
+     * within the compute methods of {@link #sessions}, so eviction never
+     * removes a session that a request is using.
+     */
+    private static final class OpenSession {
+        private final ReasoningSession session;
+        /** Serializes the journaled updates of the session, without blocking its readers. */
+        private final Object updates = new Object();
+        /** Number of requests using the session. */
+        private int users;
+        /** Token of the eviction storing the session, or {@code null}; a new user cancels it. */
+        private Object eviction;
+        /** Time of the last use, in {@link System#nanoTime()} units. */
+        private volatile long lastUsed = System.nanoTime();
+
+        private OpenSession(ReasoningSession session) {
+            this.session = session;
+        }
+    }
+
+    /**
+     * Constructs a {@code ReasoningSessionService}.
+     *
+     * @param inferenceService service used to build the label algebra function table
+     * @param graphBuilderService service used to serialize graphs and deltas
+     * @param storeDirectory directory where sessions are persisted; empty to
+     *                       keep sessions in memory only
+     * @param journaled whether session updates are written to a journal
+     * @param checkpointInterval number of journaled updates between two checkpoints
+     * @param idleTtl time after which an unused session is evicted; zero to keep
+     *                it, {@code null} for the default
+     * @param maxCount maximum number of sessions kept in memory; zero for no
+     *                 limit, {@code null} for the default
+     * @throws IllegalStateException if the journal is enabled without a store directory
+     */
+    public ReasoningSessionService(InferenceService inferenceService,
+                                   GraphBuilderService graphBuilderService,
+                                   @Value("${laf.store.dir:}") String storeDirectory,
+                                   @Value("${laf.store.wal.enabled:false}") boolean journaled,
+                                   @Value("${laf.store.wal.checkpoint-interval:10000}") int checkpointInterval,
+                                   @Value("${laf.sessions.idle-ttl:#{null}}") Duration idleTtl,
+                                   @Value("${laf.sessions.max-count:#{null}}") Integer maxCount) {
+        this.inferenceService = inferenceService;
+        this.graphBuilderService = graphBuilderService;
+        this.storeDirectory = storeDirectory.isBlank() ? null : Path.of(storeDirectory);
+        this.journaled = journaled;
+        this.checkpointInterval = checkpointInterval;
+        // Sessions evicted without a store directory are lost, so only evict them when asked to
+        boolean stored = this.storeDirectory != null;
+        this.idleTtl = idleTtl != null ? idleTtl : stored ? DEFAULT_IDLE_TTL : Duration.ZERO;
+        this.maxCount = maxCount != null ? maxCount : stored ? DEFAULT_MAX_COUNT : 0;
+        if (journaled && this.storeDirectory == null) {
+            throw new IllegalStateException("laf.store.wal.enabled requires laf.store.dir");
+        }
+        this.evictor = this.idleTtl.isZero() && this.maxCount <= 0
+                ? null
+                : Executors.newSingleThreadScheduledExecutor(
+                        Thread.ofPlatform().name("laf-session-evictor").daemon(true).factory());
+    }
+
+    /**
+     * Reopens every session found in the store directory, then replays the
+     * journal over them, and starts evicting sessions.
+     *
+     * @throws IOException if the store directory or the journal cannot be read
+     */
+    @PostConstruct
+    public void restoreStoredSessions() throws IOException {
+        if (storeDirectory != null) {
+            restore();
+        }
+        if (evictor != null) {
+            // Eviction starts after the replay, which only applies updates to sessions in memory
+            long period = idleTtl.isZero() ? 60_000 : Math.clamp(idleTtl.toMillis(), 1, 60_000);
+            evictor.scheduleWithFixedDelay(this::evictSessions, period, period, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void restore() throws IOException {
+        Files.createDirectories(storeDirectory);
+        long start = System.nanoTime();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(storeDirectory, "*" + STORE_EXTENSION)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    sessions.put(name.substring(0, name.length() - STORE_EXTENSION.length()), new OpenSession(
+                            ReasoningSession.restore(GraphStore.read(file), inferenceService.supportMemo())));
+                } catch (IOException | RuntimeException exception) {
+                    log.warn("Skipping unreadable session store {}: {}", file, exception.getMessage());
+                }
+            }
+        }
+        log.info("Restored {} session(s) from {} in {} ms",
+                sessions.size(), storeDirectory, (System.nanoTime() - start) / 1_000_000);
+
+        if (journaled) {
+            journal = openJournal(storeDirectory.resolve(JOURNAL_FILE));
+            long bytes = journal.size();
+            start = System.nanoTime();
+            long records = journal.replay(this::replay);
+            log.info("Replayed {} journal record(s) ({} bytes) in {} ms",
+                    records, bytes, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    /**
+     * Opens the journal of session updates.
+     *
+     * @param file the journal file
+     * @return the journal
+     * @throws IOException if the journal cannot be opened
+     */
+    SessionJournal openJournal(Path file) throws IOException {
+        return new SessionJournal(file, checkpointInterval);
+    }
+
+    /**
+     * Persists every open session that has been stored before, so that
+     * their latest state survives the restart. With a journal, this is a
+     * final checkpoint of every session.
+     */
+    @PreDestroy
+    public void persistStoredSessions() {
+        if (evictor != null) {
+            evictor.shutdownNow();
+        }
+        if (storeDirectory == null) {
+            return;
+        }
+        if (journal != null) {
+            try {
+                checkpoint(true);
+                journal.close();
+            } catch (IOException | UncheckedIOException exception) {
+                log.warn("Could not checkpoint sessions: {}", exception.getMessage());
+            }
+            return;
+        }
+        for (String sessionId : sessions.keySet()) {
+            if (Files.exists(storeFile(sessionId))) {
+                try {
+                    persist(sessionId);
+                } catch (UncheckedIOException exception) {
+                    log.warn("Could not persist session {}: {}", sessionId, exception.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Opens a new session and materializes the graph of the given program.
+     *
+     * @param facts      initial base facts
+     * @param rules      rules of the program
+     * @param operations label algebra indexed by label name
+     * @return the identifier of the new session
+     */
+    public String open(List<Fact> facts, List<Rule> rules, Map<String, OperationSet> operations) {
+        ReasoningSession session = new ReasoningSession(facts, rules, inferenceService.functionTable(operations),
+                inferenceService.supportMemo(), inferenceService.isColumnar());
+        String id = UUID.randomUUID().toString();
+        sessions.put(id, new OpenSession(session));
+        if (journal != null) {
+            // Updates are journaled from here on, so the session must be stored first
+            persist(id);
+        }
+        if (maxCount > 0 && sessions.size() > maxCount) {
+            evictSessions();
+        }
+        return id;
+    }
+
+    /**
+     * Returns the complete graph currently held by a session.
+     *
+     * @param sessionId the session identifier
+     * @return the graph of the session, or empty if the session does not exist
+     */
+    public Optional<GraphResponse> graph(String sessionId) {
+        return withSession(sessionId, session -> {
+            ReasoningSession.KeyedGraph graph = session.keyedGraph();
+            Map<KnowledgePiece, String> ids = new HashMap<>();
+            graph.keys().forEach((kp, key) -> ids.put(kp, idOf(session, kp, key)));
+            return graphBuilderService.toGraphResponse(graph.graph(), ids);
+        });
+    }
+
+    /**
+     * Returns the neighborhood of a node of a session graph: its ancestors
+     * and/or descendants up to the given depth, with their conflicts. Nodes
+     * keep the identifiers they have in the whole session graph.
+     *
+     * @param sessionId the session identifier
+     * @param nodeId    identifier of the node, as returned by the session
+     * @param depth     maximum number of edges between the node and its neighbors
+     * @param direction the directions to explore
+     * @return the neighborhood, or empty if the session or the node does not exist
+     * @throws IllegalArgumentException if the depth is negative
+     */
+    public Optional<GraphResponse> neighborhood(String sessionId, String nodeId, int depth,
+                                                GraphIndex.Direction direction) {
+        return withSession(sessionId, session -> {
+            OptionalLong key = graphBuilderService.usesContentIds() ? NodeKeys.keyOf(nodeId) : session.keyOf(nodeId);
+            if (key.isEmpty()) {
+                return null;
+            }
+
+            return session.neighborhood(key.getAsLong(), depth, direction).map(neighborhood -> {
+                Map<KnowledgePiece, String> ids = new HashMap<>();
+                neighborhood.keys().forEach((kp, k) -> ids.put(kp, idOf(session, kp, k)));
+                // A node without neighbors in the explored directions is still returned
+                return graphBuilderService.toGraphResponse(neighborhood.graph(), ids, neighborhood.root(),
+                        neighborhood.supported()::contains);
+            }).orElse(null);
+        });
+    }
+
+    /**
+     * Returns one page of the nodes of a session graph that match a query,
+     * ordered by the value of the queried label, or by structural key when
+     * the query has no label.
+     *
+     * @param sessionId the session identifier
+     * @param query     the filter
+     * @param cursor    cursor returned with the previous page, or {@code null}
+     * @param limit     maximum number of nodes of the page
+     * @return the page, or empty if the session does not exist
+     * @throws IllegalArgumentException if the cursor is malformed or the limit is not positive
+     */
+    public Optional<NodePageResponse> nodes(String sessionId, LabelIndex.Query query, String cursor, int limit) {
+        checkLimit(limit);
+        return withSession(sessionId, session -> {
+            Page<LabelIndex.Entry> page = session.nodes(query, cursor, limit);
+            NodePageResponse response = new NodePageResponse();
+            response.setNodes(page.items().stream()
+                    .map(entry -> graphBuilderService.toNodeResponse(entry.node(),
+                            idOf(session, entry.node(), entry.key())))
+                    .toList());
+            response.setNextCursor(page.nextCursor());
+            return response;
+        });
+    }
+
+    /**
+     * Returns one page of the edges of a session graph, ordered by their
+     * endpoints.
+     *
+     * @param sessionId the session identifier
+     * @param kind      the kind of the edges, or {@code null} for every edge
+     * @param cursor    cursor returned with the previous page, or {@code null}
+     * @param limit     maximum number of edges of the page
+     * @return the page, or empty if the session does not exist
+     * @throws IllegalArgumentException if the cursor is malformed or the limit is not positive
+     */
+    public Optional<EdgePageResponse> edges(String sessionId, EdgeIndex.Kind kind, String cursor, int limit) {
+        checkLimit(limit);
+        return withSession(sessionId, session -> {
+            Page<EdgeIndex.Entry> page = session.edges(kind, cursor, limit);
+            EdgePageResponse response = new EdgePageResponse();
+            response.setEdges(page.items().stream()
+                    .map(edge -> GraphBuilderService.toEdgeResponse(
+                            idOf(session, edge.from(), edge.fromKey()),
+                            idOf(session, edge.to(), edge.toKey()),
+                            edge.kind().name()))
+                    .toList());
+            response.setNextCursor(page.nextCursor());
+            return response;
+        });
+    }
+
+    /**
+     * Asserts (adds or replaces) a base fact in a session.
+     *
+     * @param sessionId the session identifier
+     * @param fact      the fact to assert
+     * @return the changes produced in the graph, or empty if the session does not exist
+     */
+    public Optional<GraphDeltaResponse> assertFact(String sessionId, Fact fact) {
+        return withOpenSession(sessionId, open -> toDelta(open.session, update(open,
+                new SessionJournal.Entry(sessionId, false, fact.getName(), fact.getArgument(),
+                        fact.getAttributes()),
+                () -> open.session.assertFact(fact))));
+    }
+
+    /**
+     * Retracts a base fact from a session.
+     *
+     * @param sessionId the session identifier
+     * @param name      predicate name of the fact
+     * @param argument  argument of the fact
+     * @return the changes produced in the graph, or empty if the session does not exist
+     */
+    public Optional<GraphDeltaResponse> retractFact(String sessionId, String name, String argument) {
+        return withOpenSession(sessionId, open -> toDelta(open.session, update(open,
+                new SessionJournal.Entry(sessionId, true, name, argument, null),
+                () -> open.session.retractFact(name, argument))));
+    }
+
+    /**
+     * Tells whether sessions can be persisted.
+     *
+     * @return {@code true} if a store directory is configured
+     */
+    public boolean isPersistenceEnabled() {
+        return storeDirectory != null;
+    }
+
+    /**
+     * Writes the current state of a session to the store directory,
+     * replacing any previous snapshot of the session.
+     *
+     * @param sessionId the session identifier
+     * @return {@code true} if the session existed
+     * @throws IllegalStateException if persistence is disabled
+     * @throws UncheckedIOException if the store file cannot be written
+     */
+    public boolean persist(String sessionId) {
+        if (storeDirectory == null) {
+            throw new IllegalStateException("Session persistence is disabled (laf.store.dir is not set)");
+        }
+        OpenSession open = sessions.get(sessionId);
+        if (open == null) {
+            // An evicted session was persisted when it was evicted
+            return evicted.contains(sessionId);
+        }
+        try {
+            store(sessionId, open);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        return true;
+    }
+
+    /**
+     * Closes a session and releases its graph, deleting its stored snapshot.
+     *
+     * @param sessionId the session identifier
+     * @return {@code true} if the session existed
+     */
+    public boolean close(String sessionId) {
+        if (journal != null) {
+            // A concurrent checkpoint must not store the session again once it is closed
+            return journal.withoutCheckpoint(() -> remove(sessionId));
+        }
+        return remove(sessionId);
+    }
+
+    private boolean remove(String sessionId) {
+        boolean open = sessions.remove(sessionId) != null;
+        boolean existed = evicted.remove(sessionId) || open;
+        if (existed && storeDirectory != null) {
+            try {
+                Files.deleteIfExists(storeFile(sessionId));
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+        return existed;
+    }
+
+    private Path storeFile(String sessionId) {
+        return storeDirectory.resolve(sessionId + STORE_EXTENSION);
+    }
+
+    /**
+     * Applies an action to a session, reopening it if it was evicted to its
+     * store file. The session is not evicted while the action runs.
+     *
+     * @return the result of the action, or empty if the session does not
+     *         exist or the action returned {@code null}
+     */
+    private <T> Optional<T> withSession(String sessionId, Function<ReasoningSession, T> action) {
+        return withOpenSession(sessionId, open -> action.apply(open.session));
+    }
+
+    /**
+     * Applies an action to an open session, as {@link #withSession} does.
+     */
+    private <T> Optional<T> withOpenSession(String sessionId, Function<OpenSession, T> action) {
+        OpenSession open = sessions.computeIfPresent(sessionId, (id, current) -> use(current));
+        if (open == null) {
+            open = reopen(sessionId);
+            if (open == null) {
+                return Optional.empty();
+            }
+        }
+        try {
+            return Optional.ofNullable(action.apply(open));
+        } finally {
+            sessions.computeIfPresent(sessionId, (id, current) -> {
+                current.users--;
+                current.lastUsed = System.nanoTime();
+                return current;
+            });
+        }
+    }
+
+    /**
+     * Counts one more user of a session, cancelling its eviction if it is
+     * being stored.
+     */
+    private static OpenSession use(OpenSession open) {
+        open.eviction = null;
+        open.users++;
+        return open;
+    }
+
+    /**
+     * Reads an evicted session back from its store file and counts one user
+     * of it. The file is read outside of {@link #sessions}, so several
+     * requests may read it; the first one to finish puts the session back
+     * and the others use it.
+     *
+     * @return the session, or {@code null} if it was not evicted or was closed meanwhile
+     * @throws UncheckedIOException if the store file cannot be read
+     */
+    private OpenSession reopen(String sessionId) {
+        if (!evicted.contains(sessionId)) {
+            return null;
+        }
+        OpenSession restored;
+        try {
+            restored = new OpenSession(
+                    ReasoningSession.restore(GraphStore.read(storeFile(sessionId)), inferenceService.supportMemo()));
+        } catch (IOException exception) {
+            if (!evicted.contains(sessionId)) {
+                // Closed while its file was read
+                return null;
+            }
+            throw new UncheckedIOException(exception);
+        }
+        return sessions.compute(sessionId, (id, current) -> {
+            if (current != null) {
+                return use(current);
+            }
+            return evicted.remove(id) ? use(restored) : null;
+        });
+    }
+
+    /**
+     * Evicts the sessions that have been idle for longer than the idle
+     * time-to-live, then the least recently used ones while there are more
+     * than the maximum count. Sessions in use are kept.
+     */
+    void evictSessions() {
+        if (!idleTtl.isZero()) {
+            long now = System.nanoTime();
+            for (String sessionId : sessions.keySet()) {
+                evict(sessionId, open -> now - open.lastUsed >= idleTtl.toNanos());
+            }
+        }
+        int excess = sessions.size() - maxCount;
+        if (maxCount > 0 && excess > 0) {
+            List<String> leastRecentlyUsed = sessions.entrySet().stream()
+                    .sorted(Comparator.comparingLong(entry -> entry.getValue().lastUsed))
+                    .map(Map.Entry::getKey)
+                    .limit(excess)
+                    .toList();
+            for (String sessionId : leastRecentlyUsed) {
+                evict(sessionId, open -> true);
+            }
+        }
+    }
+
+    /**
+     * Evicts a session unless it is in use or does not meet a condition,
+     * storing it first if there is a store directory. The store file is
+     * written outside of {@link #sessions}, and the eviction is cancelled
+     * if a request uses the session meanwhile.
+     */
+    private void evict(String sessionId, Predicate<OpenSession> condition) {
+        Object eviction = new Object();
+        boolean[] started = {false};
+        OpenSession open = sessions.computeIfPresent(sessionId, (id, current) -> {
+            if (current.users == 0 && current.eviction == null && condition.test(current)) {
+                current.eviction = eviction;
+                started[0] = true;
+            }
+            return current;
+        });
+        if (!started[0]) {
+            return;
+        }
+        if (storeDirectory != null) {
+            try {
+                store(sessionId, open);
+            } catch (IOException exception) {
+                log.warn("Could not evict session {}: {}", sessionId, exception.getMessage());
+                sessions.computeIfPresent(sessionId, (id, current) -> {
+                    if (current.eviction == eviction) {
+                        current.eviction = null;
+                    }
+                    return current;
+                });
+                return;
+            }
+        }
+        sessions.computeIfPresent(sessionId, (id, current) -> {
+            if (current.eviction != eviction) {
+                // Used meanwhile; the store file written for it is just an older snapshot
+                return current;
+            }
+            if (storeDirectory != null) {
+                evicted.add(id);
+            }
+            log.debug("Evicted session {}", id);
+            return null;
+        });
+    }
+
+    /**
+     * Writes a snapshot of an open session to its store file. Snapshots of
+     * a session are written one at a time, as they share a temporary file.
+     */
+    private void store(String sessionId, OpenSession open) throws IOException {
+        synchronized (open) {
+            GraphStore.write(storeFile(sessionId), open.session.snapshot());
+        }
+    }
+
+    /**
+     * Applies an update to a session, journaling it first when the journal
+     * is enabled, and stores a checkpoint when one is due.
+     *
+     * <p>
+     * An update that cannot be journaled is not applied. The records that
+     * failed with it may have reached the log file in part, so all sessions,
+     * none of which saw them, are checkpointed to empty the log.
+     * </p>
+     */
+    private SessionUpdate update(OpenSession open, SessionJournal.Entry entry, Supplier<SessionUpdate> apply) {
+        if (journal == null) {
+            return apply.get();
+        }
+        SessionUpdate update;
+        try {
+            update = journal.write(entry, open.updates, apply);
+        } catch (UncheckedIOException exception) {
+            try {
+                checkpoint(true);
+            } catch (UncheckedIOException checkpointFailure) {
+                log.warn("Could not checkpoint sessions after a journal failure: {}", checkpointFailure.getMessage());
+            }
+            throw exception;
+        }
+        if (journal.checkpointDue()) {
+            checkpoint(false);
+        }
+        return update;
+    }
+
+    /**
+     * Stores every session and empties the journal.
+     *
+     * @param force {@code false} to skip the checkpoint if another thread
+     *              made one since it was found to be due
+     */
+    private synchronized void checkpoint(boolean force) {
+        if (!force && !journal.checkpointDue()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            journal.checkpoint(() -> sessions.keySet().forEach(this::persist));
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        log.debug("Checkpointed {} session(s) in {} ms",
+                sessions.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Applies a journaled update while the journal is replayed. Updates of
+     * sessions that were closed since are skipped.
+     */
+    private void replay(SessionJournal.Entry entry) {
+        OpenSession open = sessions.get(entry.sessionId());
+        if (open == null) {
+            return;
+        }
+        ReasoningSession session = open.session;
+        try {
+            if (entry.retraction()) {
+                session.retractFact(entry.name(), entry.argument());
+            } else {
+                session.assertFact(new Fact(entry.name(), entry.argument(), entry.attributes()));
+            }
+        } catch (RuntimeException exception) {
+            // The update failed when it was first applied too
+            log.warn("Skipping journaled update of session {}: {}", entry.sessionId(), exception.getMessage());
+        }
+    }
+
+    /**
+     * Returns the identifiers of the nodes of a session graph: their
+     * content-addressed identifiers when enabled, otherwise the identifiers
+     * handed out by the session.
+     */
+    private Map<KnowledgePiece, String> idsOf(ReasoningSession session, ArgumentativeGraph graph) {
+        return graphBuilderService.usesContentIds()
+                ? graphBuilderService.contentIds(graph)
+                : session.idsOf(graph);
+    }
+
+    /**
+     * Returns the identifier of one node of a session graph, as
+     * {@link #idsOf} would.
+     */
+    private String idOf(ReasoningSession session, KnowledgePiece node, long key) {
+        return graphBuilderService.usesContentIds() ? NodeKeys.toId(node, key) : session.idOf(node, key);
+    }
+
+    private static void checkLimit(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page limit must be positive: " + limit);
+        }
+    }
+
+    /**
+     * Converts a partition update into a delta of the whole session graph.
+     *
+     * <p>
+     * Rule nodes are shared by every partition, so a rule is only reported
+     * as added or removed when it starts or stops being used by the graph.
+     * </p>
+     */
+    private GraphDeltaResponse toDelta(ReasoningSession session, SessionUpdate update) {
+        Set<KnowledgePiece> shared = new HashSet<>();
+        for (ArgumentativeGraph graph : List.of(update.before(), update.after())) {
+            for (KnowledgePiece kp : graph.edges().keySet()) {
+                if (kp instanceof Rule rule
+                        && !update.activated().contains(rule) && !update.released().contains(rule)) {
+                    shared.add(rule);
+                }
+            }
+        }
+        return graphBuilderService.toGraphDelta(update.before(), idsOf(session, update.before()),
+                update.after(), idsOf(session, update.after()), kp -> !shared.contains(kp));
+    }
+}
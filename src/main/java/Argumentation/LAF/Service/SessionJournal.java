@@ -0,0 +1,256 @@
+package Argumentation.LAF.Service;
+
+import Argumentation.LAF.Domain.WriteAheadLog;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Write-ahead journal of the fact assertions and retractions applied to
+ * reasoning sessions.
+ *
+ * <p>
+ * Every update is appended to a {@link WriteAheadLog} and applied only once
+ * the log is durable, so an update whose record could not be written is
+ * neither acknowledged nor seen by the session; updates of concurrent
+ * requests to different sessions share the same group commit. After a given
+ * number of records, the owner stores a checkpoint of every session and the
+ * log is emptied, so the log only ever holds the updates made since the last
+ * checkpoint.
+ * </p>
+ *
+ * @author JaviDebórtoli
+ */
+final class SessionJournal implements Closeable {
+    private static final byte ASSERT = 1;
+    private static final byte RETRACT = 2;
+
+    private final WriteAheadLog log;
+    private final int checkpointInterval;
+    /** Updates hold the read lock, checkpoints the write lock. */
+    private final ReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+    /** Number of records appended since the last checkpoint. */
+    private final AtomicLong sinceCheckpoint = new AtomicLong();
+
+    /**
+     * A journaled update.
+     *
+     * @param sessionId  the session the update applies to
+     * @param retraction {@code true} for a retraction, {@code false} for an assertion
+     * @param name       predicate name of the fact
+     * @param argument   argument of the fact
+     * @param attributes labels of an asserted fact, {@code null} for a retraction
+     */
+    record Entry(String sessionId, boolean retraction, String name, String argument, String[] attributes) {}
+
+    /**
+     * Opens the journal.
+     *
+     * @param file               the log file
+     * @param checkpointInterval number of records after which a checkpoint is due
+     * @throws IOException if the log cannot be opened
+     */
+    SessionJournal(Path file, int checkpointInterval) throws IOException {
+        this(new WriteAheadLog(file), checkpointInterval);
+    }
+
+    /**
+     * Opens the journal over a log.
+     *
+     * @param log                the log, which the journal closes when it is closed
+     * @param checkpointInterval number of records after which a checkpoint is due
+     */
+    SessionJournal(WriteAheadLog log, int checkpointInterval) {
+        this.log = log;
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * Logs an update and applies it once it is durable. The session lock is
+     * held from the append until the update is applied, so that the log
+     * order matches the order in which the session sees its updates; a
+     * checkpoint cannot start meanwhile, so every applied update is either
+     * in the log or in the next checkpoint.
+     *
+     * <p>
+     * If the record cannot be made durable the update is not applied, and
+     * the log fails every later update until the next checkpoint empties it.
+     * </p>
+     *
+     * @param entry       the update
+     * @param sessionLock lock serializing the updates of the session
+     * @param apply       applies the update to the session
+     * @param <T>         type of the result of the update
+     * @return the result of the update
+     * @throws UncheckedIOException if the log cannot be written
+     */
+    <T> T write(Entry entry, Object sessionLock, Supplier<T> apply) {
+        byte[] payload = encode(entry);
+        T result;
+        checkpointLock.readLock().lock();
+        try {
+            synchronized (sessionLock) {
+                log.sync(log.append(payload));
+                result = apply.get();
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+        sinceCheckpoint.incrementAndGet();
+        return result;
+    }
+
+    /**
+     * Tells whether enough records were logged to make a checkpoint worthwhile.
+     *
+     * @return {@code true} if a checkpoint is due
+     */
+    boolean checkpointDue() {
+        return sinceCheckpoint.get() >= checkpointInterval;
+    }
+
+    /**
+     * Stores a checkpoint and empties the log. Updates are blocked while
+     * the checkpoint runs, so the stored state covers every logged record.
+     *
+     * @param store stores the state of every session
+     * @throws IOException if the log cannot be emptied
+     */
+    void checkpoint(Runnable store) throws IOException {
+        checkpointLock.writeLock().lock();
+        try {
+            store.run();
+            log.reset();
+            sinceCheckpoint.set(0);
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Runs an action that no checkpoint may overlap with.
+     *
+     * @param action the action
+     * @param <T>    type of the result of the action
+     * @return the result of the action
+     */
+    <T> T withoutCheckpoint(Supplier<T> action) {
+        checkpointLock.readLock().lock();
+        try {
+            return action.get();
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Replays the updates logged since the last checkpoint.
+     *
+     * @param consumer receives each update, in log order
+     * @return the number of updates replayed
+     * @throws IOException if the log cannot be read
+     */
+    long replay(Consumer<Entry> consumer) throws IOException {
+        long records = log.replay(payload -> consumer.accept(decode(payload)));
+        sinceCheckpoint.set(records);
+        return records;
+    }
+
+    /**
+     * Returns the size of the log.
+     *
+     * @return the size in bytes
+     * @throws IOException if the size cannot be read
+     */
+    long size() throws IOException {
+        return log.size();
+    }
+
+    /**
+     * Returns the number of group commits performed so far.
+     *
+     * @return the number of forced writes of the log
+     */
+    long commits() {
+        return log.commits();
+    }
+
+    @Override
+    public void close() throws IOException {
+        log.close();
+    }
+
+    private static byte[] encode(Entry entry) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(entry.retraction() ? RETRACT : ASSERT);
+            writeString(out, entry.sessionId());
+            writeString(out, entry.name());
+            writeString(out, entry.argument());
+            if (!entry.retraction()) {
+                String[] attributes = entry.attributes();
+                out.writeInt(attributes == null ? -1 : attributes.length);
+                if (attributes != null) {
+                    for (String attribute : attributes) {
+                        writeString(out, attribute);
+                    }
+                }
+            }
+        } catch (IOException exception) {
+            // Writing to memory cannot fail
+            throw new IllegalStateException(exception);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Entry decode(ByteBuffer in) {
+        byte type = in.get();
+        if (type != ASSERT && type != RETRACT) {
+            throw new IllegalStateException("Unknown journal record type " + type);
+        }
+        String sessionId = readString(in);
+        String name = readString(in);
+        String argument = readString(in);
+        if (type == RETRACT) {
+            return new Entry(sessionId, true, name, argument, null);
+        }
+        int count = in.getInt();
+        String[] attributes = count < 0 ? null : new String[count];
+        for (int i = 0; i < count; i++) {
+            attributes[i] = readString(in);
+        }
+        return new Entry(sessionId, false, name, argument, attributes);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,105 @@
+package Argumentation.LAF.Codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import Argumentation.LAF.DTO.Request.GraphRequest;
+import Argumentation.LAF.DTO.Response.GraphResponse;
+import Argumentation.LAF.Domain.InferenceEngine;
+import Argumentation.LAF.Domain.Programs;
+import Argumentation.LAF.Service.GraphBuilderService;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Tests of {@link BinaryGraphCodec}: messages are compared with the
+ * originals as JSON, the way clients see them.
+ *
+ * @author JaviDebórtoli
+ */
+class BinaryGraphCodecTest {
+    private final JsonMapper mapper = JsonMapper.builder().build();
+
+    @Test
+    void requestRoundTrips() throws IOException {
+        GraphRequest request = mapper.readValue("""
+                {"facts": [
+                   {"name": "goodArea", "argument": "houseA", "attributes": ["0.8", "0.5"]},
+                   {"name": "cheap", "argument": "houseA", "attributes": ["0.10", "1e-3"]},
+                   {"name": "color", "argument": "houseB", "attributes": ["red", "0.5"]},
+                   {"name": "bare", "argument": "houseB"}],
+                 "rules": [
+                   {"headName": "buy", "bodyLiterals": ["goodArea", "cheap"], "attributes": ["0.9", "0.8"]},
+                   {"headName": "~buy", "bodyLiterals": [], "attributes": ["0.7", "0.6"]}],
+                 "operations": {"labels": [
+                   {"labelName": "l0", "supportFunction": "X*Y", "aggregationFunction": "X+Y-X*Y",
+                    "conflictFunction": "X-Y", "precision": "float32"},
+                   {"labelName": "l1", "supportFunction": "X*Y", "aggregationFunction": "Union",
+                    "conflictFunction": "X"}]}}
+                """, GraphRequest.class);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BinaryGraphCodec.writeRequest(request, new DataOutputStream(bytes));
+        GraphRequest decoded = BinaryGraphCodec.readRequest(input(bytes.toByteArray()));
+
+        assertThat(json(decoded)).isEqualTo(json(request));
+    }
+
+    @Test
+    void responseRoundTrips() throws IOException {
+        GraphBuilderService graphBuilderService = new GraphBuilderService(false);
+        for (long seed = 1; seed <= 20; seed++) {
+            Programs.Program program = Programs.random(seed, 4, seed % 2 == 0 ? "double" : "float32");
+            GraphResponse response = graphBuilderService.toGraphResponse(
+                    new InferenceEngine(program.facts(), program.rules(), program.functions()).buildTree());
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            BinaryGraphCodec.writeResponse(response, new DataOutputStream(bytes));
+            GraphResponse decoded = BinaryGraphCodec.readResponse(input(bytes.toByteArray()));
+
+            assertThat(json(decoded)).as("seed %d", seed).isEqualTo(json(response));
+        }
+    }
+
+    @Test
+    void requestWithoutPrecisionsIsRead() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0x4C414631);
+        out.writeByte(1);
+        String[] table = {"p", "a", "l0", "X*Y", "X+Y", "X-Y"};
+        out.writeByte(table.length);
+        for (String value : table) {
+            out.writeByte(value.length());
+            out.write(value.getBytes(StandardCharsets.UTF_8));
+        }
+        // One fact p(a) with label 0.5, no rules, one label without precision
+        out.write(new byte[] {1, 1, 2, 1, 1});
+        out.writeDouble(0.5);
+        out.write(new byte[] {0, 1, 3, 4, 5, 6});
+
+        GraphRequest decoded = BinaryGraphCodec.readRequest(input(bytes.toByteArray()));
+
+        assertThat(json(decoded)).isEqualTo(mapper.readTree("""
+                {"facts": [{"name": "p", "argument": "a", "attributes": ["0.5"]}],
+                 "rules": [],
+                 "operations": {"labels": [
+                   {"labelName": "l0", "supportFunction": "X*Y", "aggregationFunction": "X+Y",
+                    "conflictFunction": "X-Y", "precision": null}]}}
+                """));
+    }
+
+    private static DataInputStream input(byte[] bytes) {
+        return new DataInputStream(new ByteArrayInputStream(bytes));
+    }
+
+    private JsonNode json(Object message) {
+        return mapper.valueToTree(message);
+    }
+}
@@ -0,0 +1,127 @@
+package Argumentation.LAF.Domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.DoubleBinaryOperator;
+import net.objecthunter.exp4j.Expression;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of {@link AlgebraicProperties}.
+ *
+ * @author JaviDebórtoli
+ */
+class AlgebraicPropertiesTest {
+    private static final List<String> KNOWN = List.of(
+            "(X+Y+abs(X-Y))/2", "(X + Y - abs(Y - X)) / 2", "X+Y", "Y+X-X*Y", "X * Y");
+
+    @Test
+    void onlyTheRecognizedAggregationsAreReordered() {
+        for (String function : KNOWN) {
+            assertThat(AlgebraicProperties.associativeOperator(function)).as(function).isPresent();
+        }
+        // Associative and commutative, yet not recognized
+        for (String function : new String[] {"max(X,Y)", "X+Y+X*Y", "Union", "X-Y", "(X+Y)/2", "X", null}) {
+            assertThat(AlgebraicProperties.associativeOperator(function)).as(function).isEmpty();
+        }
+    }
+
+    @Test
+    void recognizedOperatorsComputeTheirExpression() {
+        SplittableRandom random = new SplittableRandom(1);
+        for (String function : KNOWN) {
+            DoubleBinaryOperator operator = AlgebraicProperties.associativeOperator(function).orElseThrow();
+            Expression expression = ExpressionCache.compile(function);
+            for (int i = 0; i < 1000; i++) {
+                double x = random.nextDouble();
+                double y = random.nextDouble();
+                assertThat(operator.applyAsDouble(x, y)).as("%s(%s, %s)", function, x, y)
+                        .isEqualTo(expression.setVariable("X", x).setVariable("Y", y).evaluate());
+            }
+        }
+    }
+
+    @Test
+    void reductionsAcrossChunksAreThoseComputedByHand() {
+        // Three full chunks and one more value; every value is a sum of powers of two, so the results are exact
+        double[] values = new double[3 * AlgebraicProperties.CHUNK_SIZE + 1];
+        Arrays.fill(values, 0.25);
+        values[300] = 0.125;
+        values[700] = 0.75;
+        assertThat(AlgebraicProperties.reduce(values, operator("(X+Y+abs(X-Y))/2"))).isEqualTo(0.75);
+        assertThat(AlgebraicProperties.reduce(values, operator("(X+Y-abs(X-Y))/2"))).isEqualTo(0.125);
+        // 767 * 0.25 + 0.125 + 0.75
+        assertThat(AlgebraicProperties.reduce(values, operator("X+Y"))).isEqualTo(192.625);
+
+        // One 0.5 in each of the first three chunks: 1 - 0.5^3
+        Arrays.fill(values, 0.0);
+        values[0] = 0.5;
+        values[AlgebraicProperties.CHUNK_SIZE] = 0.5;
+        values[2 * AlgebraicProperties.CHUNK_SIZE] = 0.5;
+        assertThat(AlgebraicProperties.reduce(values, operator("X+Y-X*Y"))).isEqualTo(0.875);
+        Arrays.fill(values, 1.0);
+        values[5] = 0.5;
+        values[AlgebraicProperties.CHUNK_SIZE + 5] = 0.25;
+        assertThat(AlgebraicProperties.reduce(values, operator("X*Y"))).isEqualTo(0.125);
+    }
+
+    @Test
+    void reductionFoldsEachChunkBeforeCombiningThem() {
+        // 1e16 + 1 rounds back to 1e16, so the fold from the left loses every 1; the first chunk
+        // does too, but the second sums its 256 ones before they are added to 1e16
+        double[] values = new double[2 * AlgebraicProperties.CHUNK_SIZE];
+        Arrays.fill(values, 1.0);
+        values[0] = 1e16;
+        DoubleBinaryOperator sum = operator("X+Y");
+        double fold = values[0];
+        for (int i = 1; i < values.length; i++) {
+            fold = sum.applyAsDouble(fold, values[i]);
+        }
+
+        assertThat(fold).isEqualTo(1e16);
+        assertThat(AlgebraicProperties.reduce(values, sum)).isEqualTo(1e16 + 256);
+    }
+
+    @Test
+    void reductionIsTheFoldUpToRoundingWhateverTheNumberOfThreads() throws Exception {
+        SplittableRandom random = new SplittableRandom(2);
+        for (String function : KNOWN) {
+            DoubleBinaryOperator operator = AlgebraicProperties.associativeOperator(function).orElseThrow();
+            // Labels in [0, 1]; sums of many labels grow, products shrink
+            double scale = function.equals("X+Y") ? 1.0 / 5000 : 1;
+            for (int length : new int[] {1, AlgebraicProperties.CHUNK_SIZE - 1, 1024, 5000}) {
+                double[] values = new double[length];
+                for (int i = 0; i < length; i++) {
+                    values[i] = function.equals("X * Y") ? 1 - random.nextDouble() / 1000 : random.nextDouble() * scale;
+                }
+                double fold = values[0];
+                for (int i = 1; i < length; i++) {
+                    fold = operator.applyAsDouble(fold, values[i]);
+                }
+
+                double reduction = AlgebraicProperties.reduce(values, operator);
+                assertThat(reduction).as("%s over %d values", function, length)
+                        .isCloseTo(fold, within(1e-12));
+                for (int parallelism : new int[] {1, 3, 8}) {
+                    ForkJoinPool pool = new ForkJoinPool(parallelism);
+                    try {
+                        assertThat(pool.submit(() -> AlgebraicProperties.reduce(values, operator)).get())
+                                .as("%s over %d values, %d threads", function, length, parallelism)
+                                .isEqualTo(reduction);
+                    } finally {
+                        pool.shutdown();
+                    }
+                }
+            }
+        }
+    }
+
+    private static DoubleBinaryOperator operator(String function) {
+        return AlgebraicProperties.associativeOperator(function).orElseThrow();
+    }
+}
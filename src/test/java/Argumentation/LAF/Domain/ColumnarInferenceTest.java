@@ -0,0 +1,112 @@
+package Argumentation.LAF.Domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of {@link ColumnarInference}: whenever it returns a graph, the graph
+ * is the one the {@link InferenceEngine} derives, labels included.
+ *
+ * @author JaviDebórtoli
+ */
+class ColumnarInferenceTest {
+
+    @Test
+    void columnarGraphIsTheGraphOfTheEngine() {
+        int evaluated = 0;
+        for (Programs.Program program : programs()) {
+            Optional<ArgumentativeGraph> columnar = ColumnarInference.graph(program.facts(), program.rules(),
+                    program.functions());
+            if (columnar.isPresent()) {
+                evaluated++;
+                assertThat(Programs.canonical(columnar.get()))
+                        .isEqualTo(Programs.canonical(
+                                new InferenceEngine(program.facts(), program.rules(), program.functions()).buildTree()));
+            }
+        }
+        assertThat(evaluated).isPositive();
+    }
+
+    @Test
+    void columnarPartitionsAreTheGraphsOfTheArguments() {
+        int evaluated = 0;
+        for (Programs.Program program : programs()) {
+            Map<String, List<Fact>> factsByArgument = new LinkedHashMap<>();
+            for (String argument : program.arguments()) {
+                factsByArgument.put(argument, program.facts(argument));
+            }
+            Optional<Map<String, ArgumentativeGraph>> partitions = ColumnarInference.partitions(factsByArgument,
+                    program.rules(), program.functions());
+            if (partitions.isPresent()) {
+                evaluated++;
+                assertThat(partitions.get().keySet()).containsExactlyElementsOf(program.arguments());
+                partitions.get().forEach((argument, graph) -> assertThat(Programs.canonical(graph))
+                        .as("argument %s", argument)
+                        .isEqualTo(Programs.canonical(new InferenceEngine(program.facts(argument), program.rules(),
+                                program.functions()).buildTree())));
+            }
+        }
+        assertThat(evaluated).isPositive();
+    }
+
+    @Test
+    void columnsOfAHandWrittenProgramHaveTheLabelsComputedByHand() {
+        // x and y share a signature and are replayed as two lanes; z lacks b, so d :- a, b never fires for it
+        Map<String, List<Fact>> factsByArgument = new LinkedHashMap<>();
+        factsByArgument.put("x", List.of(Programs.fact("a", "x", "0.75"), Programs.fact("b", "x", "0.25")));
+        factsByArgument.put("z", List.of(Programs.fact("a", "z", "1.0")));
+        factsByArgument.put("y", List.of(Programs.fact("a", "y", "0.125"), Programs.fact("b", "y", "0.25")));
+        List<Rule> rules = List.of(Programs.rule("d", List.of("a", "b"), "0.5"),
+                Programs.rule("e", List.of("d"), "0.25"), Programs.rule("~e", List.of("b"), "0.125"));
+        String[][] functions = {{"(X+Y+abs(X-Y))/2", "(X+Y+abs(X-Y))/2", "X-Y", "double"}};
+
+        Map<String, ArgumentativeGraph> partitions = ColumnarInference.partitions(factsByArgument, rules, functions)
+                .orElseThrow();
+
+        // d is the max of its premises and 0.5, e the max of d and 0.25, ~e the max of b and 0.125;
+        // then e loses the label of ~e, and ~e drops to 0
+        assertThat(partitions.keySet()).containsExactly("x", "z", "y");
+        assertThat(Programs.canonical(partitions.get("x"))).containsExactly(
+                "a(x).0.75 -> d(x).0.75",
+                "b(x).0.25 -> d(x).0.75",
+                "b(x).0.25 -> ~e(x).0.0",
+                "d(X) :- a(X), b(X).0.5 -> d(x).0.75",
+                "d(x).0.75 -> e(x).0.5",
+                "e(X) :- d(X).0.25 -> e(x).0.5",
+                "~e(X) :- b(X).0.125 -> ~e(x).0.0",
+                "~e(x).0.0 x e(x).0.5");
+        assertThat(Programs.canonical(partitions.get("y"))).containsExactly(
+                "a(y).0.125 -> d(y).0.5",
+                "b(y).0.25 -> d(y).0.5",
+                "b(y).0.25 -> ~e(y).0.0",
+                "d(X) :- a(X), b(X).0.5 -> d(y).0.5",
+                "d(y).0.5 -> e(y).0.25",
+                "e(X) :- d(X).0.25 -> e(y).0.25",
+                "~e(X) :- b(X).0.125 -> ~e(y).0.0",
+                "~e(y).0.0 x e(y).0.25");
+        assertThat(Programs.canonical(partitions.get("z"))).isEmpty();
+    }
+
+    /**
+     * Random programs, most of which are not evaluated by columns, and
+     * programs of houses, which are, in both precisions.
+     */
+    private static List<Programs.Program> programs() {
+        List<Programs.Program> programs = new ArrayList<>();
+        for (String precision : new String[] {"double", "float32"}) {
+            for (long seed = 1; seed <= 50; seed++) {
+                programs.add(Programs.random(seed, 8, precision));
+            }
+            for (long seed = 1; seed <= 5; seed++) {
+                programs.add(Programs.houses(seed, 200, precision));
+            }
+        }
+        return programs;
+    }
+}
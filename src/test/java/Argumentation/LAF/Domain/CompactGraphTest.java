@@ -0,0 +1,175 @@
+package Argumentation.LAF.Domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of {@link CompactGraph}: the compact form of a graph answers every
+ * query as the edge map and conflict list of the graph do, and a small graph
+ * gets the ids and offsets worked out by hand.
+ *
+ * @author JaviDebórtoli
+ */
+class CompactGraphTest {
+
+    @Test
+    void compactGraphRebuildsTheGraph() {
+        for (long seed = 1; seed <= 50; seed++) {
+            for (ArgumentativeGraph graph : graphs(seed)) {
+                assertThat(Programs.canonical(CompactGraph.of(graph).toGraph())).as("seed %d", seed)
+                        .isEqualTo(Programs.canonical(graph));
+            }
+        }
+    }
+
+    @Test
+    void adjacencyFollowsTheEdgeMap() {
+        for (long seed = 1; seed <= 50; seed++) {
+            for (ArgumentativeGraph graph : graphs(seed)) {
+                CompactGraph compact = CompactGraph.of(graph);
+                Map<KnowledgePiece, List<KnowledgePiece>> parents = new IdentityHashMap<>();
+                int edges = 0;
+                for (Map.Entry<KnowledgePiece, List<Fact>> entry : graph.edges().entrySet()) {
+                    int node = compact.indexOf(entry.getKey());
+                    assertThat(node).as("seed %d, %s", seed, entry.getKey()).isNotNegative();
+                    assertThat(compact.firstEdge(node)).as("seed %d", seed).isEqualTo(edges);
+                    assertThat(children(compact, node)).as("seed %d, %s", seed, entry.getKey())
+                            .containsExactlyElementsOf(entry.getValue());
+                    for (Fact child : entry.getValue()) {
+                        parents.computeIfAbsent(child, key -> new ArrayList<>()).add(entry.getKey());
+                    }
+                    edges += entry.getValue().size();
+                }
+                assertThat(compact.edgeCount()).as("seed %d", seed).isEqualTo(edges);
+
+                for (int node = 0; node < compact.nodeCount(); node++) {
+                    KnowledgePiece piece = compact.node(node);
+                    assertThat(compact.indexOf(piece)).as("seed %d", seed).isEqualTo(node);
+                    List<KnowledgePiece> expected = parents.getOrDefault(piece, List.of());
+                    List<KnowledgePiece> actual = new ArrayList<>();
+                    for (int i = 0; i < compact.inDegree(node); i++) {
+                        actual.add(compact.node(compact.parent(node, i)));
+                    }
+                    assertThat(actual).as("seed %d, %s", seed, piece).containsExactlyElementsOf(expected);
+                    assertThat(compact.isSupported(node)).as("seed %d, %s", seed, piece)
+                            .isEqualTo(expected.stream().anyMatch(Rule.class::isInstance));
+                }
+            }
+        }
+    }
+
+    @Test
+    void conflictsFollowTheConflictList() {
+        for (long seed = 1; seed <= 50; seed++) {
+            for (ArgumentativeGraph graph : graphs(seed)) {
+                CompactGraph compact = CompactGraph.of(graph);
+                List<PairInConflict> pairs = graph.conflictiveNodes();
+                Map<KnowledgePiece, List<Integer>> conflicts = new IdentityHashMap<>();
+                assertThat(compact.conflictCount()).as("seed %d", seed).isEqualTo(pairs.size());
+                for (int conflict = 0; conflict < pairs.size(); conflict++) {
+                    PairInConflict pair = pairs.get(conflict);
+                    assertThat(compact.node(compact.first(conflict))).isSameAs(pair.first());
+                    assertThat(compact.node(compact.second(conflict))).isSameAs(pair.second());
+                    conflicts.computeIfAbsent(pair.first(), key -> new ArrayList<>()).add(conflict);
+                    conflicts.computeIfAbsent(pair.second(), key -> new ArrayList<>()).add(conflict);
+                }
+
+                for (int node = 0; node < compact.nodeCount(); node++) {
+                    List<Integer> actual = new ArrayList<>();
+                    for (int i = 0; i < compact.conflictDegree(node); i++) {
+                        actual.add(compact.conflictOf(node, i));
+                    }
+                    assertThat(actual).as("seed %d, %s", seed, compact.node(node))
+                            .containsExactlyElementsOf(conflicts.getOrDefault(compact.node(node), List.of()));
+                }
+            }
+        }
+    }
+
+    @Test
+    void handBuiltGraphHasTheArraysLaidOutByHand() {
+        Rule both = Programs.rule("d", List.of("a", "b"), "0.5");
+        Rule chain = Programs.rule("e", List.of("d"), "0.5");
+        Fact a = Programs.fact("a", "x", "0.5");
+        Fact b = Programs.fact("b", "x", "0.5");
+        Fact c = Programs.fact("c", "x", "0.5");
+        Fact d = Programs.fact("d", "x", "0.5");
+        Fact e = Programs.fact("e", "x", "0.5");
+        Fact notE = Programs.fact("~e", "x", "0.5");
+        Map<KnowledgePiece, List<Fact>> edges = new LinkedHashMap<>();
+        edges.put(both, List.of(d));
+        edges.put(a, List.of(d));
+        edges.put(b, List.of(d));
+        edges.put(d, List.of(e));
+        edges.put(chain, List.of(e));
+        // A base fact that joined an aggregation and has no children yet
+        edges.put(c, List.of());
+
+        CompactGraph compact = CompactGraph.of(new ArgumentativeGraph(edges, List.of(new PairInConflict(notE, e))));
+
+        // Ids: the parents in map order, then e, the only other child, then ~e, only in a conflict
+        List<KnowledgePiece> nodes = new ArrayList<>();
+        for (int node = 0; node < compact.nodeCount(); node++) {
+            nodes.add(compact.node(node));
+        }
+        assertThat(nodes).containsExactly(both, a, b, d, chain, c, e, notE);
+        assertThat(compact.edgeCount()).isEqualTo(5);
+        int[] firstEdges = new int[compact.nodeCount()];
+        int[] outDegrees = new int[compact.nodeCount()];
+        int[] inDegrees = new int[compact.nodeCount()];
+        for (int node = 0; node < compact.nodeCount(); node++) {
+            firstEdges[node] = compact.firstEdge(node);
+            outDegrees[node] = compact.outDegree(node);
+            inDegrees[node] = compact.inDegree(node);
+        }
+        assertThat(firstEdges).containsExactly(0, 1, 2, 3, 4, 5, 5, 5);
+        assertThat(outDegrees).containsExactly(1, 1, 1, 1, 1, 0, 0, 0);
+        assertThat(inDegrees).containsExactly(0, 0, 0, 3, 0, 0, 2, 0);
+        assertThat(compact.child(3, 0)).isEqualTo(6);
+        assertThat(List.of(compact.parent(3, 0), compact.parent(3, 1), compact.parent(3, 2))).containsExactly(0, 1, 2);
+        assertThat(List.of(compact.parent(6, 0), compact.parent(6, 1))).containsExactly(3, 4);
+        assertThat(compact.isSupported(3)).isTrue();
+        assertThat(compact.isSupported(6)).isTrue();
+        assertThat(compact.isSupported(1)).isFalse();
+        assertThat(compact.isSupported(7)).isFalse();
+
+        assertThat(compact.conflictCount()).isEqualTo(1);
+        assertThat(compact.first(0)).isEqualTo(7);
+        assertThat(compact.second(0)).isEqualTo(6);
+        assertThat(compact.conflictDegree(3)).isZero();
+        assertThat(compact.conflictDegree(6)).isEqualTo(1);
+        assertThat(compact.conflictOf(7, 0)).isZero();
+        assertThat(compact.indexOf(notE)).isEqualTo(7);
+    }
+
+    @Test
+    void nodesOutsideTheGraphHaveNoId() {
+        Programs.Program program = Programs.random(1, 4, "double");
+        CompactGraph compact = CompactGraph.of(
+                new InferenceEngine(program.facts(), program.rules(), program.functions()).buildTree());
+
+        assertThat(compact.indexOf(program.facts().get(0))).isEqualTo(-1);
+    }
+
+    private static List<ArgumentativeGraph> graphs(long seed) {
+        List<ArgumentativeGraph> graphs = new ArrayList<>();
+        for (Programs.Program program : List.of(Programs.random(seed, 4, "double"), Programs.houses(seed, 4, "double"))) {
+            graphs.add(new InferenceEngine(program.facts(), program.rules(), program.functions()).buildTree());
+        }
+        return graphs;
+    }
+
+    private static List<KnowledgePiece> children(CompactGraph compact, int node) {
+        List<KnowledgePiece> children = new ArrayList<>();
+        for (int i = 0; i < compact.outDegree(node); i++) {
+            children.add(compact.node(compact.child(node, i)));
+        }
+        return children;
+    }
+}
@@ -0,0 +1,129 @@
+package Argumentation.LAF.Domain;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * File channel whose forced writes fail on demand, as on a failing disk.
+ *
+ * @author JaviDebórtoli
+ */
+public final class FailingChannel extends FileChannel {
+    private final FileChannel channel;
+    /** Number of forced writes left to fail. */
+    private final AtomicInteger failures = new AtomicInteger();
+
+    /**
+     * Wraps a channel.
+     *
+     * @param channel the channel every call is delegated to
+     */
+    public FailingChannel(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Makes the next forced writes fail.
+     *
+     * @param count the number of forced writes to fail
+     */
+    public void failForces(int count) {
+        failures.set(count);
+    }
+
+    @Override
+    public void force(boolean metaData) throws IOException {
+        if (failures.getAndUpdate(left -> Math.max(left - 1, 0)) > 0) {
+            throw new IOException("Input/output error");
+        }
+        channel.force(metaData);
+    }
+
+    @Override
+    public int read(ByteBuffer destination) throws IOException {
+        return channel.read(destination);
+    }
+
+    @Override
+    public long read(ByteBuffer[] destinations, int offset, int length) throws IOException {
+        return channel.read(destinations, offset, length);
+    }
+
+    @Override
+    public int write(ByteBuffer source) throws IOException {
+        return channel.write(source);
+    }
+
+    @Override
+    public long write(ByteBuffer[] sources, int offset, int length) throws IOException {
+        return channel.write(sources, offset, length);
+    }
+
+    @Override
+    public long position() throws IOException {
+        return channel.position();
+    }
+
+    @Override
+    public FileChannel position(long newPosition) throws IOException {
+        channel.position(newPosition);
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        return channel.size();
+    }
+
+    @Override
+    public FileChannel truncate(long size) throws IOException {
+        channel.truncate(size);
+        return this;
+    }
+
+    @Override
+    public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+        return channel.transferTo(position, count, target);
+    }
+
+    @Override
+    public long transferFrom(ReadableByteChannel source, long position, long count) throws IOException {
+        return channel.transferFrom(source, position, count);
+    }
+
+    @Override
+    public int read(ByteBuffer destination, long position) throws IOException {
+        return channel.read(destination, position);
+    }
+
+    @Override
+    public int write(ByteBuffer source, long position) throws IOException {
+        return channel.write(source, position);
+    }
+
+    @Override
+    public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+        return channel.map(mode, position, size);
+    }
+
+    @Override
+    public FileLock lock(long position, long size, boolean shared) throws IOException {
+        return channel.lock(position, size, shared);
+    }
+
+    @Override
+    public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+        return channel.tryLock(position, size, shared);
+    }
+
+    @Override
+    protected void implCloseChannel() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,56 @@
+package Argumentation.LAF.Domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of {@link GoalRelevance}.
+ *
+ * @author JaviDebórtoli
+ */
+class GoalRelevanceTest {
+
+    @Test
+    void relevantPredicatesFollowBodiesAndComplements() {
+        List<Rule> rules = List.of(
+                Programs.rule("buy", List.of("goodArea", "cheap")),
+                Programs.rule("~buy", List.of("expensive")),
+                Programs.rule("recommend", List.of("buy")),
+                Programs.rule("visit", List.of("nearSchool")));
+
+        assertThat(GoalRelevance.relevantPredicates("recommend", rules))
+                .containsExactlyInAnyOrder("recommend", "~recommend", "buy", "~buy", "goodArea", "~goodArea",
+                        "cheap", "~cheap", "expensive", "~expensive");
+    }
+
+    @Test
+    void restrictedProgramDerivesTheRelevantPartOfTheGraph() {
+        for (long seed = 1; seed <= 100; seed++) {
+            Programs.Program program = Programs.random(seed, 4, "double");
+            ArgumentativeGraph full = new InferenceEngine(program.facts(), program.rules(), program.functions())
+                    .buildTree();
+
+            List<String> arguments = new ArrayList<>(program.arguments());
+            arguments.add(null);
+            for (int predicate = 3; predicate < 8; predicate++) {
+                String goal = "p" + predicate;
+                Set<String> relevant = GoalRelevance.relevantPredicates(goal, program.rules());
+                for (String argument : arguments) {
+                    ArgumentativeGraph restricted = new InferenceEngine(
+                            GoalRelevance.relevantFacts(program.facts(), relevant, argument),
+                            GoalRelevance.relevantRules(program.rules(), relevant),
+                            program.functions()).buildTree();
+
+                    assertThat(Programs.canonical(restricted))
+                            .as("seed %d, goal %s, argument %s", seed, goal, argument)
+                            .isEqualTo(Programs.canonical(full, fact -> relevant.contains(fact.getName())
+                                    && (argument == null || argument.equals(fact.getArgument()))));
+                }
+            }
+        }
+    }
+}
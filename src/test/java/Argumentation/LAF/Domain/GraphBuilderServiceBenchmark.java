@@ -0,0 +1,89 @@
+package Argumentation.LAF.Domain;
+
+import Argumentation.LAF.DTO.Response.GraphResponse;
+import Argumentation.LAF.Service.GraphBuilderService;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Measures the conversion of graphs by {@link GraphBuilderService}, on
+ * graphs below and above the size from which nodes are converted in
+ * parallel. Run it from the test classpath with
+ * {@code java -cp <test classpath> org.openjdk.jmh.Main GraphBuilderServiceBenchmark}.
+ *
+ * @author JaviDebórtoli
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class GraphBuilderServiceBenchmark {
+    /**
+     * Number of arguments; a graph has 15 nodes and edges per argument.
+     */
+    @Param({"1000", "5000"})
+    private int arguments;
+
+    @Param({"false", "true"})
+    private boolean contentIds;
+
+    private GraphBuilderService service;
+    private ArgumentativeGraph graph;
+    private CompactGraph compact;
+    private final JsonMapper mapper = JsonMapper.builder().build();
+
+    /**
+     * Builds the graph and its frozen form.
+     */
+    @Setup
+    public void setUp() {
+        service = new GraphBuilderService(contentIds);
+        graph = Programs.largeGraph(arguments);
+        compact = CompactGraph.of(graph);
+    }
+
+    /**
+     * Converts the graph, freezing it first.
+     *
+     * @return the response
+     */
+    @Benchmark
+    public GraphResponse toGraphResponse() {
+        return service.toGraphResponse(graph);
+    }
+
+    /**
+     * Converts the frozen graph.
+     *
+     * @return the response
+     */
+    @Benchmark
+    public GraphResponse frozenToGraphResponse() {
+        return service.toGraphResponse(compact);
+    }
+
+    /**
+     * Writes the frozen graph as JSON, discarding the output.
+     */
+    @Benchmark
+    public void writeGraph() {
+        try (JsonGenerator generator = mapper.createGenerator(OutputStream.nullOutputStream())) {
+            service.writeGraph(compact, generator);
+        }
+    }
+}
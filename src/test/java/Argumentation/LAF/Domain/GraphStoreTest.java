@@ -0,0 +1,222 @@
+package Argumentation.LAF.Domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests of {@link GraphStore}.
+ *
+ * @author JaviDebórtoli
+ */
+class GraphStoreTest {
+    /** Offset of the version in the header. */
+    private static final int VERSION_OFFSET = 8;
+    /** Offset of the section table in the header. */
+    private static final int SECTIONS_OFFSET = 24;
+    private static final int SECTION_COUNT = 12;
+    private static final int FUNCTIONS = 3;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void restoredSessionIsTheStoredSession() throws IOException {
+        for (long seed = 1; seed <= 20; seed++) {
+            for (String precision : new String[] {"double", "float32"}) {
+                Programs.Program program = Programs.random(seed, 5, precision);
+                ReasoningSession session = new ReasoningSession(program.facts(), program.rules(), program.functions(),
+                        null, false);
+                SplittableRandom random = new SplittableRandom(seed);
+                update(session, random);
+                ids(session);
+                Path file = directory.resolve(seed + "-" + precision + ".laf");
+                GraphStore.write(file, session.snapshot());
+
+                ReasoningSession restored = ReasoningSession.restore(GraphStore.read(file));
+
+                String as = "seed %d, %s".formatted(seed, precision);
+                assertSameState(restored, session, as);
+                // Both sessions go on the same way, handing out the same identifiers
+                long next = random.nextLong();
+                update(session, new SplittableRandom(next));
+                update(restored, new SplittableRandom(next));
+                assertSameState(restored, session, as + ", updated");
+                assertThat(ids(restored)).as(as).isEqualTo(ids(session));
+            }
+        }
+    }
+
+    @Test
+    void storeOfAHandWrittenSessionHasTheRecordsCountedByHand() throws IOException {
+        ReasoningSession session = new ReasoningSession(
+                List.of(Programs.fact("a", "x", "0.25"), Programs.fact("b", "x", "0.5"),
+                        Programs.fact("c", "y", "0.75")),
+                List.of(Programs.rule("d", List.of("a", "b"), "0.5"), Programs.rule("d", List.of("c"), "0.25"),
+                        Programs.rule("e", List.of("d"), "0.25"), Programs.rule("~e", List.of("c"), "0.5")),
+                new String[][] {{"(X+Y+abs(X-Y))/2", "(X+Y+abs(X-Y))/2", "X-Y", "double"}}, null, false);
+        Path file = directory.resolve("session.laf");
+        GraphStore.write(file, session.snapshot());
+        ByteBuffer store = ByteBuffer.wrap(Files.readAllBytes(file));
+
+        // x derives d(x) and e(x); y derives d(y), e(y) and ~e(y), which attack each other.
+        // Rule e :- d is shared, so the nodes are 4 rules, 3 base facts and 5 derived facts
+        assertThat(store.getInt(VERSION_OFFSET)).isEqualTo(2);
+        assertThat(store.getInt(VERSION_OFFSET + 8)).as("fact counter").isEqualTo(8);
+        assertThat(store.getInt(VERSION_OFFSET + 12)).as("rule counter").isEqualTo(4);
+        long[] lengths = new long[SECTION_COUNT];
+        for (int section = 0; section < SECTION_COUNT; section++) {
+            lengths[section] = store.getLong(SECTIONS_OFFSET + section * 16 + 8);
+        }
+        assertThat(Arrays.copyOfRange(lengths, FUNCTIONS, SECTION_COUNT)).containsExactly(
+                1 * 16,         // FUNCTIONS: one label
+                4 * 20,         // RULES
+                5 * 4,          // BODIES: a, b, c, d, c
+                3 * 16,         // BASE_FACTS
+                12 * 28,        // NODES
+                2 * 20,         // PARTITIONS: x, y
+                (5 + 6) * 8,    // EDGES
+                1 * 8,          // CONFLICTS: ~e(y) and e(y), once
+                12 * 12);       // NODE_IDS: every node has one
+
+        // e(y) and ~e(y) are both max(0.75, 0.25 or 0.5), and weaken each other to 0
+        GraphStore.Snapshot restored = GraphStore.read(file);
+        assertThat(Programs.canonical(restored.partitions().get("y"))).containsExactly(
+                "c(y).0.75 -> d(y).0.75",
+                "c(y).0.75 -> ~e(y).0.0",
+                "d(X) :- c(X).0.25 -> d(y).0.75",
+                "d(y).0.75 -> e(y).0.0",
+                "e(X) :- d(X).0.25 -> e(y).0.0",
+                "~e(X) :- c(X).0.5 -> ~e(y).0.0",
+                "~e(y).0.0 x e(y).0.0");
+        assertSameState(ReasoningSession.restore(restored), session, "restored");
+    }
+
+    @Test
+    void versionOneStoreIsReadInDoublePrecision() throws IOException {
+        for (long seed = 1; seed <= 10; seed++) {
+            Programs.Program program = Programs.random(seed, 4, "double");
+            ReasoningSession session = new ReasoningSession(program.facts(), program.rules(), program.functions(),
+                    null, false);
+            Path file = directory.resolve(seed + ".laf");
+            GraphStore.write(file, session.snapshot());
+            Files.write(file, versionOne(Files.readAllBytes(file)));
+
+            GraphStore.Snapshot snapshot = GraphStore.read(file);
+
+            assertThat(snapshot.functions()).as("seed %d", seed).isDeepEqualTo(program.functions());
+            assertThat(Programs.canonical(ReasoningSession.restore(snapshot).graph())).as("seed %d", seed)
+                    .isEqualTo(Programs.canonical(session.graph()));
+        }
+    }
+
+    @Test
+    void unknownVersionsAndTruncatedStoresAreRejected() throws IOException {
+        Programs.Program program = Programs.random(1, 4, "float32");
+        Path file = directory.resolve("session.laf");
+        GraphStore.write(file, new ReasoningSession(program.facts(), program.rules(), program.functions(),
+                null, false).snapshot());
+        byte[] store = Files.readAllBytes(file);
+
+        byte[] newer = store.clone();
+        ByteBuffer.wrap(newer).putInt(VERSION_OFFSET, 3);
+        Files.write(file, newer);
+        assertThatThrownBy(() -> GraphStore.read(file)).isInstanceOf(IOException.class)
+                .hasMessageStartingWith("Not a LAF store");
+
+        Files.write(file, Arrays.copyOf(store, store.length / 2));
+        assertThatThrownBy(() -> GraphStore.read(file)).isInstanceOf(IOException.class)
+                .hasMessageStartingWith("Corrupted store section");
+
+        Files.write(file, Arrays.copyOf(store, 16));
+        assertThatThrownBy(() -> GraphStore.read(file)).isInstanceOf(IOException.class)
+                .hasMessageStartingWith("Truncated store");
+    }
+
+    private static void assertSameState(ReasoningSession actual, ReasoningSession expected, String as) {
+        GraphStore.Snapshot restored = actual.snapshot();
+        GraphStore.Snapshot stored = expected.snapshot();
+        assertThat(Programs.canonical(actual.graph())).as(as).isEqualTo(Programs.canonical(expected.graph()));
+        assertThat(restored.rules()).as(as).map(GraphStoreTest::describe)
+                .containsExactlyElementsOf(stored.rules().stream().map(GraphStoreTest::describe).toList());
+        assertThat(restored.functions()).as(as).isDeepEqualTo(stored.functions());
+        assertThat(restored.baseFacts().keySet()).as(as).isEqualTo(stored.baseFacts().keySet());
+        stored.baseFacts().forEach((argument, facts) -> assertThat(restored.baseFacts().get(argument))
+                .as("%s, %s", as, argument).map(GraphStoreTest::describe)
+                .containsExactlyElementsOf(facts.stream().map(GraphStoreTest::describe).toList()));
+        assertThat(restored.partitions().keySet()).as(as).isEqualTo(stored.partitions().keySet());
+        stored.partitions().forEach((argument, partition) ->
+                assertThat(Programs.canonical(restored.partitions().get(argument))).as("%s, %s", as, argument)
+                        .isEqualTo(Programs.canonical(partition)));
+        assertThat(restored.nodeIds()).as(as).isEqualTo(stored.nodeIds());
+        assertThat(restored.factCounter()).as(as).isEqualTo(stored.factCounter());
+        assertThat(restored.ruleCounter()).as(as).isEqualTo(stored.ruleCounter());
+    }
+
+    /**
+     * Asserts and retracts a few facts.
+     */
+    private static void update(ReasoningSession session, SplittableRandom random) {
+        for (int update = 0; update < 10; update++) {
+            String name = "p" + random.nextInt(4);
+            String argument = "a" + random.nextInt(6);
+            if (random.nextInt(3) == 0) {
+                session.retractFact(name, argument);
+            } else {
+                session.assertFact(Programs.fact(name, argument, String.valueOf(random.nextInt(101) / 100.0),
+                        String.valueOf(random.nextInt(101) / 100.0)));
+            }
+        }
+    }
+
+    /**
+     * Hands out identifiers to every node of the graph of a session.
+     */
+    private static List<String> ids(ReasoningSession session) {
+        List<String> ids = new ArrayList<>();
+        session.keyedGraph().keys().forEach((piece, key) ->
+                ids.add(describe(piece) + " = " + session.idOf(piece, key)));
+        ids.sort(null);
+        return ids;
+    }
+
+    private static String describe(KnowledgePiece piece) {
+        return piece + String.join(",", piece.getAttributes());
+    }
+
+    /**
+     * Rewrites a store in the layout of version {@code 1}, whose function
+     * table has no precision column.
+     */
+    private static byte[] versionOne(byte[] store) {
+        ByteBuffer in = ByteBuffer.wrap(store);
+        int headerSize = SECTIONS_OFFSET + SECTION_COUNT * 16;
+        ByteBuffer out = ByteBuffer.allocate(store.length);
+        out.put(store, 0, headerSize).putInt(VERSION_OFFSET, 1);
+        for (int s = 0; s < SECTION_COUNT; s++) {
+            int offset = (int) in.getLong(SECTIONS_OFFSET + s * 16);
+            int length = (int) in.getLong(SECTIONS_OFFSET + s * 16 + 8);
+            int start = out.position();
+            if (s == FUNCTIONS) {
+                for (int at = offset; at < offset + length; at += 16) {
+                    out.putInt(in.getInt(at)).putInt(in.getInt(at + 4)).putInt(in.getInt(at + 8));
+                }
+            } else {
+                out.put(store, offset, length);
+            }
+            out.putLong(SECTIONS_OFFSET + s * 16, start).putLong(SECTIONS_OFFSET + s * 16 + 8, out.position() - start);
+        }
+        return Arrays.copyOf(out.array(), out.position());
+    }
+}
@@ -0,0 +1,143 @@
+package Argumentation.LAF.Domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of {@link InferenceEngine}.
+ *
+ * @author JaviDebórtoli
+ */
+class InferenceEngineTest {
+    /** Set-valued labels: union for support and aggregation, intersection for conflicts. */
+    private static final String[][] SETS = {{"Union", "Union", "Intersection", "double"}};
+
+    @Test
+    void aggregationKeepsTheDerivationsOfOtherArguments() {
+        Programs.Program program = Programs.crossArgumentAggregation();
+        ArgumentativeGraph graph = new InferenceEngine(program.facts(), program.rules(), program.functions()).buildTree();
+
+        // d(y) is derived once, from b(y) and the rule, and keeps its label
+        List<String> parents = new ArrayList<>();
+        for (Map.Entry<KnowledgePiece, List<Fact>> edge : graph.edges().entrySet()) {
+            for (Fact fact : edge.getValue()) {
+                if (fact.getName().equals("d") && fact.getArgument().equals("y")) {
+                    parents.add(edge.getKey() + " " + fact.getDeltaAttributes()[0]);
+                }
+            }
+        }
+        assertThat(parents).containsExactlyInAnyOrder("b(y). 0.65625", "d(X) :- b(X). 0.65625");
+        assertThat(Programs.canonical(graph)).isEqualTo(separately(program));
+    }
+
+    @Test
+    void aggregationKeepsThePremiseEdgesTowardsOtherConclusions() {
+        // f(x) supports both d(x) and g(x); the aggregation of b(x) erases d(x) only
+        Programs.Program program = new Programs.Program(
+                List.of(Programs.fact("a", "x", "0.5"), Programs.fact("f", "x", "0.4"), Programs.fact("c", "x", "0.8")),
+                List.of(Programs.rule("b", List.of("a"), "1.0"), Programs.rule("d", List.of("b", "f"), "1.0"),
+                        Programs.rule("g", List.of("f"), "0.5"), Programs.rule("b", List.of("c"), "1.0")),
+                new String[][] {{"(X+Y)/2", "X+Y", "X-Y", "double"}});
+        ArgumentativeGraph graph = new InferenceEngine(program.facts(), program.rules(), program.functions()).buildTree();
+
+        // Removing every edge of f(x) used to drop f(x) -> g(x) as well
+        assertThat(Programs.canonical(graph)).filteredOn(line -> line.startsWith("f(x)"))
+                .containsExactly("f(x).0.4 -> d(x).0.725", "f(x).0.4 -> g(x).0.35");
+    }
+
+    @Test
+    void derivationIsAggregatedWithTheBaseFactWhateverTheRuleOrder() {
+        // c :- b used b(x) before it is derived; without it, b(x) used to be left out of the graph
+        Rule derive = Programs.rule("b", List.of("a"), "0.8");
+        Rule use = Programs.rule("c", List.of("b"), "1.0");
+        for (List<Rule> rules : List.of(List.of(derive), List.of(use, derive), List.of(derive, use))) {
+            Programs.Program program = new Programs.Program(
+                    List.of(Programs.fact("a", "x", "0.5"), Programs.fact("b", "x", "0.3")),
+                    rules, new String[][] {{"(X+Y)/2", "X+Y", "X-Y", "double"}});
+            ArgumentativeGraph graph = new InferenceEngine(program.facts(), program.rules(), program.functions())
+                    .buildTree();
+
+            assertThat(Programs.canonical(graph)).as("rules %s", rules).filteredOn(line -> line.contains("-> b(x)"))
+                    .containsExactly("a(x).0.5 -> b(x).0.525", "b(X) :- a(X).0.8 -> b(x).0.525",
+                            "b(x).0.3 -> b(x).0.825", "b(x).0.525 -> b(x).0.825");
+        }
+    }
+
+    @Test
+    void setLabelsKeepTheOrderOfTheirElements() {
+        // Elements are written in the order they first appear, as before sets were bitmaps
+        Programs.Program program = new Programs.Program(
+                List.of(Programs.fact("a", "x", "s3 s1"), Programs.fact("b", "x", "s2"), Programs.fact("c", "x", "s5 s1"),
+                        Programs.fact("~c", "x", "s4 s1 s5 s0"), Programs.fact("a", "y", "s3 s1"),
+                        Programs.fact("b", "y", "s2")),
+                List.of(Programs.rule("c", List.of("a", "b"), "s0")), SETS);
+        ArgumentativeGraph graph = new InferenceEngine(program.facts(), program.rules(), program.functions()).buildTree();
+
+        assertThat(Programs.canonical(graph)).containsExactly(
+                "a(x).s3 s1 -> c(x).s3 s1 s2 s0",
+                "a(y).s3 s1 -> c(y).s3 s1 s2 s0",
+                "b(x).s2 -> c(x).s3 s1 s2 s0",
+                "b(y).s2 -> c(y).s3 s1 s2 s0",
+                "c(X) :- a(X), b(X).s0 -> c(x).s3 s1 s2 s0",
+                "c(X) :- a(X), b(X).s0 -> c(y).s3 s1 s2 s0",
+                "c(x).s3 s1 s2 s0 -> c(x).s1 s0 s5",
+                "c(x).s5 s1 -> c(x).s1 s0 s5",
+                "~c(x).s1 s5 s0 x c(x).s1 s0 s5");
+    }
+
+    @Test
+    void setLabelsAcrossBitmapWords() {
+        // 70 elements, written backwards, take two words of a bitmap
+        String elements = String.join(" ", IntStream.iterate(69, i -> i >= 0, i -> i - 1)
+                .mapToObj(i -> "e" + i).toList());
+        Programs.Program program = new Programs.Program(
+                List.of(Programs.fact("a", "x", elements), Programs.fact("b", "x", "f0"),
+                        Programs.fact("~c", "x", "e66 e1 h e65"), Programs.fact("a", "y", elements),
+                        Programs.fact("b", "y", "f0")),
+                List.of(Programs.rule("c", List.of("a", "b"), "e64 g")), SETS);
+        ArgumentativeGraph graph = new InferenceEngine(program.facts(), program.rules(), program.functions()).buildTree();
+
+        assertThat(Programs.canonical(graph)).contains(
+                "b(y).f0 -> c(y)." + elements + " f0 g",
+                "~c(x).e66 e1 e65 x c(x).e66 e65 e1");
+    }
+
+    @Test
+    void disjointSetLabelsIntersectToTheEmptyLabel() {
+        Programs.Program program = new Programs.Program(
+                List.of(Programs.fact("d", "x", "y"), Programs.fact("~d", "x", "z")), List.of(), SETS);
+        ArgumentativeGraph graph = new InferenceEngine(program.facts(), program.rules(), program.functions()).buildTree();
+
+        assertThat(Programs.canonical(graph)).containsExactly("~d(x). x d(x).");
+    }
+
+    @Test
+    void argumentsAreDerivedIndependently() {
+        for (long seed = 1; seed <= 200; seed++) {
+            Programs.Program program = Programs.random(seed, 6, "double");
+            ArgumentativeGraph graph = new InferenceEngine(program.facts(), program.rules(), program.functions()).buildTree();
+            assertThat(Programs.canonical(graph)).as("seed %d", seed).isEqualTo(separately(program));
+        }
+    }
+
+    /**
+     * Derives every argument of a program on its own.
+     *
+     * @return the canonical form of the union of the graphs
+     */
+    private static List<String> separately(Programs.Program program) {
+        List<String> lines = new ArrayList<>();
+        for (String argument : program.arguments()) {
+            ArgumentativeGraph graph = new InferenceEngine(program.facts(argument), program.rules(), program.functions())
+                    .buildTree();
+            lines.addAll(Programs.canonical(graph));
+        }
+        lines.sort(null);
+        return lines;
+    }
+}
@@ -0,0 +1,97 @@
+package Argumentation.LAF.Domain;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the Vector API kernels of {@link LabelKernels} with their scalar
+ * loops. Run it from the test classpath with
+ * {@code java --add-modules jdk.incubator.vector -cp <test classpath> org.openjdk.jmh.Main LabelKernelsBenchmark}.
+ *
+ * @author JaviDebórtoli
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class LabelKernelsBenchmark {
+    @Param({"1024", "65536"})
+    private int size;
+
+    @Param({"PRODUCT", "PROBABILISTIC_SUM", "MAX"})
+    private LabelKernels.Operation operation;
+
+    private double[] x;
+    private double[] y;
+    private double[] out;
+
+    /**
+     * Fills the operands with labels in {@code [0, 1]}.
+     */
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        x = random.doubles(size).toArray();
+        y = random.doubles(size).toArray();
+        out = new double[size];
+    }
+
+    /**
+     * Applies the operation with the Vector API.
+     *
+     * @return the results
+     */
+    @Benchmark
+    public double[] vector() {
+        VectorLabelKernels.apply(operation, x, y, out, size);
+        return out;
+    }
+
+    /**
+     * Applies the operation with the scalar loop.
+     *
+     * @return the results
+     */
+    @Benchmark
+    public double[] scalar() {
+        LabelKernels.applyScalar(operation, x, y, out, size);
+        return out;
+    }
+
+    /**
+     * Applies the operation and clamps with the Vector API.
+     *
+     * @return the results
+     */
+    @Benchmark
+    public double[] vectorClamped() {
+        VectorLabelKernels.apply(operation, x, y, out, size);
+        VectorLabelKernels.clamp(out, size);
+        return out;
+    }
+
+    /**
+     * Applies the operation and clamps with the scalar loops.
+     *
+     * @return the results
+     */
+    @Benchmark
+    public double[] scalarClamped() {
+        LabelKernels.applyScalar(operation, x, y, out, size);
+        LabelKernels.clampScalar(out, size);
+        return out;
+    }
+}
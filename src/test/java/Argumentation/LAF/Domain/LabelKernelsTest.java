@@ -0,0 +1,145 @@
+package Argumentation.LAF.Domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.SplittableRandom;
+import jdk.incubator.vector.DoubleVector;
+import net.objecthunter.exp4j.Expression;
+import net.objecthunter.exp4j.ExpressionBuilder;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Differential tests of {@link LabelKernels}: the Vector API kernels, the
+ * scalar loops and an exp4j evaluation of the label algebra expressions give
+ * bit-identical results, whatever the length of the arrays.
+ *
+ * @author JaviDebórtoli
+ */
+class LabelKernelsTest {
+    /** Expressions of the operations, as written in a label algebra. */
+    private static final Map<LabelKernels.Operation, String> EXPRESSIONS = Map.of(
+            LabelKernels.Operation.PRODUCT, "X*Y",
+            LabelKernels.Operation.SUM, "X+Y",
+            LabelKernels.Operation.PROBABILISTIC_SUM, "X+Y-X*Y",
+            LabelKernels.Operation.MAX, "(X+Y+abs(X-Y))/2",
+            LabelKernels.Operation.MIN, "(X+Y-abs(X-Y))/2",
+            LabelKernels.Operation.DIFFERENCE, "X-Y",
+            LabelKernels.Operation.DISCOUNT, "X*(1-Y)");
+
+    /** Values past the processed length, which must be left alone. */
+    private static final double UNTOUCHED = 42.0;
+
+    @Test
+    void kernelsAgreeWithTheScalarLoopsAndExp4j() {
+        SplittableRandom random = new SplittableRandom(7);
+        for (LabelKernels.Operation operation : LabelKernels.Operation.values()) {
+            Expression expression = EXPRESSIONS.containsKey(operation)
+                    ? new ExpressionBuilder(EXPRESSIONS.get(operation)).variables("X", "Y").build()
+                    : null;
+            for (int length : lengths()) {
+                double[] x = values(random, length);
+                double[] y = values(random, length);
+                double[] vector = untouched(length);
+                double[] scalar = untouched(length);
+                double[] dispatched = untouched(length);
+                VectorLabelKernels.apply(operation, x, y, vector, length);
+                LabelKernels.applyScalar(operation, x, y, scalar, length);
+                LabelKernels.apply(operation, x, y, dispatched, length);
+
+                assertThat(bits(vector)).as("%s, length %d", operation, length).isEqualTo(bits(scalar));
+                assertThat(bits(dispatched)).as("%s, length %d", operation, length).isEqualTo(bits(scalar));
+                for (int i = 0; i < length; i++) {
+                    double expected = expression == null
+                            ? Math.min(x[i] + y[i], 1.0)
+                            : expression.setVariable("X", x[i]).setVariable("Y", y[i]).evaluate();
+                    assertThat(Double.doubleToLongBits(scalar[i])).as("%s(%s, %s)", operation, x[i], y[i])
+                            .isEqualTo(Double.doubleToLongBits(expected));
+                }
+                assertThat(Arrays.copyOfRange(vector, length, vector.length)).containsOnly(UNTOUCHED);
+            }
+        }
+    }
+
+    @Test
+    void outputMayBeAnInput() {
+        SplittableRandom random = new SplittableRandom(11);
+        for (int length : lengths()) {
+            double[] x = values(random, length);
+            double[] y = values(random, length);
+            double[] expected = new double[length];
+            LabelKernels.applyScalar(LabelKernels.Operation.DISCOUNT, x, y, expected, length);
+            VectorLabelKernels.apply(LabelKernels.Operation.DISCOUNT, x, y, x, length);
+
+            assertThat(bits(x)).as("length %d", length).isEqualTo(bits(expected));
+        }
+    }
+
+    @Test
+    void clampAgreesWithTheScalarLoop() {
+        SplittableRandom random = new SplittableRandom(13);
+        for (int length : lengths()) {
+            double[] vector = Arrays.copyOf(values(random, length), length + 3);
+            Arrays.fill(vector, length, vector.length, UNTOUCHED);
+            for (int i = 0; i < length; i += 5) {
+                vector[i] = i % 3 == 0 ? -0.0 : Double.NaN;
+            }
+            double[] scalar = vector.clone();
+            VectorLabelKernels.clamp(vector, length);
+            LabelKernels.clampScalar(scalar, length);
+
+            assertThat(bits(vector)).as("length %d", length).isEqualTo(bits(scalar));
+            for (int i = 0; i < length; i++) {
+                assertThat(Double.isNaN(scalar[i]) || scalar[i] >= 0 && scalar[i] <= 1).as("%s", scalar[i]).isTrue();
+            }
+            assertThat(Arrays.copyOfRange(vector, length, vector.length)).containsOnly(UNTOUCHED);
+        }
+    }
+
+    @Test
+    void expressionsAreRecognizedWhateverTheirSpacing() {
+        EXPRESSIONS.forEach((operation, expression) -> {
+            assertThat(LabelKernels.Operation.of(expression)).as(expression).contains(operation);
+            assertThat(LabelKernels.Operation.of(expression.replace("+", " + ").replace("*", " * ")))
+                    .as(expression).contains(operation);
+        });
+        assertThat(LabelKernels.Operation.of("X/Y")).isEmpty();
+        assertThat(LabelKernels.Operation.of(null)).isEmpty();
+    }
+
+    /**
+     * Lengths around multiples of the vector length, so that the vector
+     * loops run with and without a scalar tail.
+     */
+    private static int[] lengths() {
+        int lanes = DoubleVector.SPECIES_PREFERRED.length();
+        return new int[] {0, 1, lanes - 1, lanes, lanes + 1, 2 * lanes + 3, 3 * lanes - 1, 1000, 1003};
+    }
+
+    /**
+     * Draws labels, mostly in {@code [0, 1]} and some outside, with the
+     * bounds themselves.
+     */
+    private static double[] values(SplittableRandom random, int length) {
+        double[] values = new double[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = switch (random.nextInt(8)) {
+                case 0 -> random.nextDouble(-2, 2);
+                case 1 -> random.nextBoolean() ? 0.0 : 1.0;
+                default -> random.nextDouble();
+            };
+        }
+        return values;
+    }
+
+    private static double[] untouched(int length) {
+        double[] values = new double[length + 3];
+        Arrays.fill(values, UNTOUCHED);
+        return values;
+    }
+
+    private static long[] bits(double[] values) {
+        return Arrays.stream(values).mapToLong(Double::doubleToLongBits).toArray();
+    }
+}
@@ -0,0 +1,118 @@
+package Argumentation.LAF.Domain;
+
+import java.lang.foreign.Arena;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares label inference in {@link LabelPrecision#DOUBLE double} and
+ * {@link LabelPrecision#FLOAT32 float32} precision, on a program of
+ * independent arguments that goes through {@link ColumnarInference}. Run it
+ * from the test classpath with
+ * {@code java --add-modules jdk.incubator.vector -cp <test classpath> org.openjdk.jmh.Main LabelPrecisionBenchmark -prof gc}.
+ *
+ * <p>
+ * The score is the time of one inference, or of loading the facts into an
+ * {@link OffHeapFactStore}; with {@code -prof gc}, {@code gc.alloc.rate.norm}
+ * is the heap memory allocated by one operation, most of which is the labels
+ * of the resulting graph. The off-heap memory of the store is
+ * {@code labels * precision.byteSize()} bytes per fact, plus 8 bytes for its
+ * predicate and argument ids.
+ * </p>
+ *
+ * @author JaviDebórtoli
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class LabelPrecisionBenchmark {
+    @Param({"1000", "10000"})
+    private int arguments;
+
+    @Param({"double", "float32"})
+    private String precision;
+
+    private List<Fact> facts;
+    private List<Rule> rules;
+    private String[][] functions;
+
+    /**
+     * Builds a program of house recommendations, with labels of two
+     * decimals in {@code [0, 1]}.
+     */
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        facts = new ArrayList<>();
+        for (int argument = 0; argument < arguments; argument++) {
+            String house = "h" + argument;
+            for (String predicate : new String[] {"goodArea", "cheap", "nearSchool", "expensive"}) {
+                facts.add(new Fact(predicate, house, new String[] {label(random), label(random)}));
+            }
+        }
+        rules = List.of(
+                new Rule("buy", List.of("goodArea", "cheap"), new String[] {"0.9", "0.8"}),
+                new Rule("buy", List.of("nearSchool"), new String[] {"0.5", "0.5"}),
+                new Rule("~buy", List.of("expensive"), new String[] {"0.7", "0.6"}),
+                new Rule("recommend", List.of("buy"), new String[] {"0.6", "0.7"}));
+        functions = new String[][] {
+            {"(X+Y+abs(X-Y))/2", "(X+Y+abs(X-Y))/2", "X-Y", precision},
+            {"X*Y", "X+Y-X*Y", "X*(1-Y)", precision}
+        };
+    }
+
+    private static String label(SplittableRandom random) {
+        return String.valueOf(random.nextInt(101) / 100.0);
+    }
+
+    /**
+     * Derives the graph of every argument column-wise.
+     *
+     * @return the graph
+     */
+    @Benchmark
+    public ArgumentativeGraph columnar() {
+        // The engine mutates the labels of its facts, so every run starts from copies
+        List<Fact> copies = new ArrayList<>(facts.size());
+        for (Fact fact : facts) {
+            copies.add(new Fact(fact.getName(), fact.getArgument(), fact.getAttributes()));
+        }
+        return ColumnarInference.graph(copies, rules, functions).orElseThrow();
+    }
+
+    /**
+     * Loads the facts into an off-heap store and reads every label back.
+     *
+     * @return the sum of the labels
+     */
+    @Benchmark
+    public double offHeapStore() {
+        try (Arena arena = Arena.ofConfined()) {
+            OffHeapFactStore store = new OffHeapFactStore(arena, 2, LabelPrecision.of(precision));
+            for (Fact fact : facts) {
+                store.add(fact.getName(), fact.getArgument(), fact.getAttributes());
+            }
+            double sum = 0;
+            for (int fact = 0; fact < store.size(); fact++) {
+                sum += store.label(fact, 0) + store.label(fact, 1);
+            }
+            return sum;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package Argumentation.LAF.Domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of {@link LabelPrecision}: a program evaluated in {@code float32}
+ * has the derivations it has in {@code double}, with labels that are
+ * {@code float}s and close to the {@code double} ones.
+ *
+ * @author JaviDebórtoli
+ */
+class LabelPrecisionTest {
+    /** A label, as {@link Double#toString} and {@link Float#toString} write it. */
+    private static final Pattern LABEL = Pattern.compile("(?<!\\w)-?\\d+\\.\\d+(E-?\\d+)?");
+
+    @Test
+    void float32GraphIsTheDoubleGraphWithinRoundingErrors() {
+        for (long seed = 1; seed <= 50; seed++) {
+            for (boolean houses : new boolean[] {false, true}) {
+                ArgumentativeGraph exact = evaluate(program(seed, houses, "double"));
+                ArgumentativeGraph rounded = evaluate(program(seed, houses, "float32"));
+
+                assertThat(structure(rounded)).as("seed %d", seed).isEqualTo(structure(exact));
+                Map<String, List<double[]>> expected = labelsByFact(exact);
+                Map<String, List<double[]>> actual = labelsByFact(rounded);
+                assertThat(actual.keySet()).as("seed %d", seed).isEqualTo(expected.keySet());
+                for (Map.Entry<String, List<double[]>> fact : expected.entrySet()) {
+                    List<double[]> unmatched = new ArrayList<>(actual.get(fact.getKey()));
+                    assertThat(unmatched).as("seed %d, %s", seed, fact.getKey()).hasSameSizeAs(fact.getValue());
+                    for (double[] version : fact.getValue()) {
+                        double[] closest = unmatched.stream()
+                                .min(Comparator.comparingDouble(other -> distance(version, other))).orElseThrow();
+                        assertThat(distance(version, closest)).as("seed %d, %s", seed, fact.getKey())
+                                .isLessThan(1e-5);
+                        unmatched.remove(closest);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void float32LabelsAreWrittenAsFloats() {
+        for (long seed = 1; seed <= 20; seed++) {
+            for (Fact fact : facts(evaluate(program(seed, true, "float32")))) {
+                for (String[] labels : List.of(fact.getAttributes(), fact.getDeltaAttributes())) {
+                    for (String label : labels) {
+                        assertThat(String.valueOf(Float.parseFloat(label))).as("seed %d, %s", seed, fact)
+                                .isEqualTo(label);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void eachLabelIsRoundedToItsOwnPrecision() {
+        // Label 0 is a double and label 1 a float32, in the same program
+        String[][] functions = {{"X+Y", "(X+Y+abs(X-Y))/2", "X-Y", "double"},
+            {"X+Y", "(X+Y+abs(X-Y))/2", "X-Y", " FLOAT32 "}};
+        assertThat(LabelPrecision.of(functions)).containsExactly(LabelPrecision.DOUBLE, LabelPrecision.FLOAT32);
+        Programs.Program program = new Programs.Program(
+                List.of(Programs.fact("a", "x", "0.1", "0.1"), Programs.fact("b", "x", "0.2", "0.2")),
+                List.of(Programs.rule("c", List.of("a", "b"), "0.0", "0.0")), functions);
+
+        // 0.1 + 0.2 is 0.30000000000000004 in double; 0.1f + 0.2f rounds to the float nearest to 0.3
+        assertThat(Programs.canonical(evaluate(program))).containsExactly(
+                "a(x).0.1,0.1 -> c(x).0.30000000000000004,0.3",
+                "b(x).0.2,0.2 -> c(x).0.30000000000000004,0.3",
+                "c(X) :- a(X), b(X).0.0,0.0 -> c(x).0.30000000000000004,0.3");
+        assertThat(LabelPrecision.FLOAT32.parse("0.3")).isEqualTo((double) 0.3f).isNotEqualTo(0.3);
+        assertThat(LabelPrecision.FLOAT32.byteSize()).isEqualTo(4);
+        assertThat(LabelPrecision.of((String) null)).isEqualTo(LabelPrecision.DOUBLE);
+    }
+
+    private static Programs.Program program(long seed, boolean houses, String precision) {
+        return houses ? Programs.houses(seed, 4, precision) : Programs.random(seed, 4, precision);
+    }
+
+    private static ArgumentativeGraph evaluate(Programs.Program program) {
+        return new InferenceEngine(program.facts(), program.rules(), program.functions()).buildTree();
+    }
+
+    /**
+     * Returns the canonical form of a graph without its labels.
+     */
+    private static List<String> structure(ArgumentativeGraph graph) {
+        return Programs.canonical(graph).stream().map(line -> LABEL.matcher(line).replaceAll("#")).sorted().toList();
+    }
+
+    /**
+     * Groups the labels of the versions of each fact of a graph, support
+     * then conflict labels.
+     */
+    private static Map<String, List<double[]>> labelsByFact(ArgumentativeGraph graph) {
+        Map<String, List<double[]>> labels = new TreeMap<>();
+        for (Fact fact : facts(graph)) {
+            labels.computeIfAbsent(fact.toString(), key -> new ArrayList<>())
+                    .add(Stream.concat(Arrays.stream(fact.getAttributes()), Arrays.stream(fact.getDeltaAttributes()))
+                            .mapToDouble(Double::parseDouble).toArray());
+        }
+        return labels;
+    }
+
+    private static double distance(double[] first, double[] second) {
+        double distance = 0;
+        for (int i = 0; i < first.length; i++) {
+            distance = Math.max(distance, Math.abs(first[i] - second[i]));
+        }
+        return distance;
+    }
+
+    private static Set<Fact> facts(ArgumentativeGraph graph) {
+        Set<Fact> facts = Collections.newSetFromMap(new IdentityHashMap<>());
+        graph.edges().forEach((parent, children) -> {
+            if (parent instanceof Fact fact) {
+                facts.add(fact);
+            }
+            facts.addAll(children);
+        });
+        for (PairInConflict pair : graph.conflictiveNodes()) {
+            facts.add(pair.first());
+            facts.add(pair.second());
+        }
+        return facts;
+    }
+}
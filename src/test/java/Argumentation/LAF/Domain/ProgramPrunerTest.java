@@ -0,0 +1,108 @@
+package Argumentation.LAF.Domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of {@link ProgramPruner}.
+ *
+ * @author JaviDebórtoli
+ */
+class ProgramPrunerTest {
+
+    @Test
+    void derivabilityIsFollowedThroughChainsInAnyRuleOrder() {
+        Rule first = Programs.rule("b", List.of("a"), "0.5");
+        Rule second = Programs.rule("c", List.of("b", "b"), "0.5");
+        Rule third = Programs.rule("d", List.of("c", "a"), "0.5");
+        Rule broken = Programs.rule("e", List.of("d", "missing"), "0.5");
+        Rule afterBroken = Programs.rule("f", List.of("e"), "0.5");
+        List<Fact> facts = List.of(Programs.fact("a", "x", "0.5"));
+
+        ProgramPruner.Result result = ProgramPruner.prune(facts,
+                List.of(afterBroken, third, broken, second, first));
+
+        assertThat(result.rules()).containsExactly(third, second, first);
+        assertThat(result.facts()).isEqualTo(facts);
+        assertThat(result.report().prunedRuleCount()).isEqualTo(2);
+        assertThat(result.report().prunedRules()).containsExactly(afterBroken.toString(), broken.toString());
+    }
+
+    @Test
+    void factsAreKeptForTheirComplementOnly() {
+        List<Fact> facts = List.of(Programs.fact("~b", "x", "0.5"), Programs.fact("a", "x", "0.5"),
+                Programs.fact("~a", "x", "0.5"), Programs.fact("unused", "x", "0.5"));
+        List<Rule> rules = List.of(Programs.rule("b", List.of("a"), "0.5"));
+
+        ProgramPruner.Result result = ProgramPruner.prune(facts, rules);
+
+        // ~b conflicts with the derivable b, ~a with the fact a
+        assertThat(result.facts()).containsExactly(facts.get(0), facts.get(1), facts.get(2));
+        assertThat(result.report().prunedPredicates()).containsExactly("unused");
+        assertThat(result.report().matchChecksAfter()).isLessThan(result.report().matchChecksBefore());
+    }
+
+    @Test
+    void derivableRuleWithoutBodyKeepsEveryFact() {
+        List<Fact> facts = List.of(Programs.fact("a", "x", "0.5"), Programs.fact("unused", "y", "0.5"));
+        Rule axiom = Programs.rule("b", List.of(), "0.5");
+        Rule underivable = Programs.rule("c", List.of("missing"), "0.5");
+
+        ProgramPruner.Result result = ProgramPruner.prune(facts, List.of(underivable, axiom));
+
+        assertThat(result.rules()).containsExactly(axiom);
+        assertThat(result.facts()).isEqualTo(facts);
+        assertThat(result.report().prunedFactCount()).isZero();
+    }
+
+    @Test
+    void prunedProgramDerivesTheSameGraph() {
+        for (long seed = 1; seed <= 100; seed++) {
+            Programs.Program program = Programs.random(seed, 4, "double");
+            List<Rule> rules = new ArrayList<>(program.rules());
+            rules.add(Programs.rule("p6", List.of("q0"), "0.5", "0.5"));
+            List<Fact> facts = program.facts();
+            facts.add(Programs.fact("q1", "a0", "0.5", "0.5"));
+
+            ProgramPruner.Result pruned = ProgramPruner.prune(facts, rules);
+
+            assertThat(pruned.report().anyPruned()).isTrue();
+            assertThat(Programs.canonical(new InferenceEngine(Programs.copies(pruned.facts()), pruned.rules(),
+                    program.functions()).buildTree()))
+                    .as("seed %d", seed)
+                    .isEqualTo(Programs.canonical(new InferenceEngine(Programs.copies(facts), rules,
+                            program.functions()).buildTree()));
+        }
+    }
+
+    @Test
+    void pruningOneFactPerPredicateKeepsWhatPruningEveryFactKeeps() {
+        for (long seed = 1; seed <= 100; seed++) {
+            Programs.Program program = Programs.random(seed, 4, "double");
+            List<Rule> rules = new ArrayList<>(program.rules());
+            // A rule whose body has no fact and, for every seventh seed, a rule without a body
+            rules.add(Programs.rule("p6", List.of("q0"), "0.5", "0.5"));
+            if (seed % 7 == 0) {
+                rules.add(Programs.rule("q1", List.of(), "0.5", "0.5"));
+            }
+            List<Fact> placeholders = program.facts().stream().map(Fact::getName).distinct()
+                    .map(predicate -> new Fact(predicate, "", null))
+                    .toList();
+
+            ProgramPruner.Result byFact = ProgramPruner.prune(program.facts(), rules);
+            ProgramPruner.Result byPredicate = ProgramPruner.prune(placeholders, rules);
+
+            assertThat(byPredicate.rules()).as("seed %d", seed).isEqualTo(byFact.rules());
+            assertThat(predicates(byPredicate.facts())).as("seed %d", seed).isEqualTo(predicates(byFact.facts()));
+        }
+    }
+
+    private static Set<String> predicates(List<Fact> facts) {
+        return facts.stream().map(Fact::getName).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,293 @@
+package Argumentation.LAF.Domain;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.Predicate;
+
+/**
+ * Programs shared by the tests, and a canonical form of the graphs they
+ * produce.
+ *
+ * <p>
+ * The inference engine replaces the labels of the facts it is given, so a
+ * {@link Program} hands out fresh copies of its facts on every call of
+ * {@link Program#facts()}, and can be run any number of times.
+ * </p>
+ *
+ * @author JaviDebórtoli
+ */
+public final class Programs {
+    private Programs() {
+    }
+
+    /**
+     * A program: facts, rules and label algebra function table.
+     *
+     * @param initialFacts the facts, never handed to an engine
+     * @param rules        the rules
+     * @param functions    the function table, one row per label
+     */
+    public record Program(List<Fact> initialFacts, List<Rule> rules, String[][] functions) {
+        /**
+         * Returns copies of the facts of the program.
+         *
+         * @return new facts, in the order of the program
+         */
+        public List<Fact> facts() {
+            return copies(initialFacts);
+        }
+
+        /**
+         * Returns the arguments of the program, in order of appearance.
+         *
+         * @return the distinct arguments of the facts
+         */
+        public List<String> arguments() {
+            return initialFacts.stream().map(Fact::getArgument).distinct().toList();
+        }
+
+        /**
+         * Returns copies of the facts of one argument.
+         *
+         * @param argument the argument
+         * @return new facts of the argument, in the order of the program
+         */
+        public List<Fact> facts(String argument) {
+            return copies(initialFacts.stream().filter(fact -> fact.getArgument().equals(argument)).toList());
+        }
+    }
+
+    /**
+     * The program in which an aggregation of {@code b(x)} used to erase the
+     * derivation of {@code d(y)}: rule {@code d :- b} is shared by both
+     * arguments, and {@code b(x)} has two derivations.
+     *
+     * @return the program
+     */
+    public static Program crossArgumentAggregation() {
+        return new Program(
+                List.of(fact("a", "y", "0.5"), fact("a", "x", "0.6"), fact("c", "x", "0.7")),
+                List.of(rule("b", List.of("a"), "1.0"), rule("d", List.of("b"), "1.0"), rule("b", List.of("c"), "1.0")),
+                new String[][] {{"(X+Y)/2", "X+Y", "X-Y", "double"}});
+    }
+
+    /**
+     * Builds the house recommendation program over many houses, with random
+     * labels of two decimals. Its derivations are the same for every house,
+     * and no aggregation detaches a rule, so it can be evaluated by columns.
+     *
+     * @param seed      seed of the labels
+     * @param houses    number of houses, i.e. arguments
+     * @param precision precision of the labels, {@code "double"} or {@code "float32"}
+     * @return the program
+     */
+    public static Program houses(long seed, int houses, String precision) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Fact> facts = new ArrayList<>();
+        for (int house = 0; house < houses; house++) {
+            for (String predicate : new String[] {"goodArea", "cheap", "nearSchool", "expensive"}) {
+                facts.add(fact(predicate, "h" + house, label(random), label(random)));
+            }
+        }
+        List<Rule> rules = List.of(
+                rule("buy", List.of("goodArea", "cheap"), "0.9", "0.8"),
+                rule("buy", List.of("nearSchool"), "0.5", "0.5"),
+                rule("~buy", List.of("expensive"), "0.7", "0.6"),
+                rule("recommend", List.of("buy"), "0.6", "0.7"));
+        String[][] functions = {
+            {"(X+Y+abs(X-Y))/2", "(X+Y+abs(X-Y))/2", "X-Y", precision},
+            {"X*Y", "X+Y-X*Y", "X*(1-Y)", precision}
+        };
+        return new Program(facts, rules, functions);
+    }
+
+    /**
+     * Builds a random program over predicates {@code p0 .. p7}. Rules only
+     * derive a predicate from lower ones, so inference always ends; heads may
+     * be negated, so arguments have conflicts, and most derived predicates
+     * have several rules, so arguments have aggregations.
+     *
+     * @param seed      seed of the program
+     * @param arguments number of arguments
+     * @param precision precision of the labels, {@code "double"} or {@code "float32"}
+     * @return the program
+     */
+    public static Program random(long seed, int arguments, String precision) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Rule> rules = new ArrayList<>();
+        for (int head = 3; head < 8; head++) {
+            int count = 1 + random.nextInt(3);
+            for (int i = 0; i < count; i++) {
+                List<String> body = new ArrayList<>();
+                body.add("p" + random.nextInt(head));
+                if (random.nextBoolean()) {
+                    String other = "p" + random.nextInt(head);
+                    if (!body.contains(other)) {
+                        body.add(other);
+                    }
+                }
+                String name = random.nextInt(4) == 0 ? "~p" + head : "p" + head;
+                rules.add(rule(name, body, label(random), label(random)));
+            }
+        }
+        List<Fact> facts = new ArrayList<>();
+        for (int argument = 0; argument < arguments; argument++) {
+            for (int predicate = 0; predicate < 4; predicate++) {
+                if (random.nextInt(4) != 0) {
+                    facts.add(fact("p" + predicate, "a" + argument, label(random), label(random)));
+                }
+            }
+        }
+        // Shuffled, so arguments are interleaved and rules fire before the rules they depend on
+        shuffle(facts, random);
+        shuffle(rules, random);
+        String[][] functions = {
+            {"X*Y", "(X+Y+abs(X-Y))/2", "X*(1-Y)", precision},
+            {"(X+Y-abs(X-Y))/2", "X+Y-X*Y", "X-Y", precision}
+        };
+        return new Program(facts, rules, functions);
+    }
+
+    /**
+     * Builds by hand a graph of {@code arguments} arguments, as deriving one
+     * this large takes too long. Each argument has two rules, two derived
+     * facts aggregated into a third one, and a fact with no edge that is in
+     * conflict with the aggregation; the graph has 8 nodes and 7 edges per
+     * argument.
+     *
+     * @param arguments number of arguments
+     * @return the graph
+     */
+    public static ArgumentativeGraph largeGraph(int arguments) {
+        Map<KnowledgePiece, List<Fact>> edges = new LinkedHashMap<>();
+        List<PairInConflict> conflicts = new ArrayList<>();
+        for (int argument = 0; argument < arguments; argument++) {
+            String a = "a" + argument;
+            String label = String.valueOf((argument % 100) / 100.0);
+            Fact p = fact("p", a, label, "0.5");
+            Fact q = fact("q", a, "0.5", label);
+            Rule both = rule("r", List.of("p", "q"), "0.9", "0.8");
+            Rule one = rule("r", List.of("q"), "0.7", "0.6");
+            Fact byBoth = fact("r", a, label, label);
+            Fact byOne = fact("r", a, "0.3", "0.2");
+            Fact aggregated = fact("r", a, label, "0.1");
+            aggregated.setDeltaAttributes(new String[] {"0.0", label});
+            edges.put(p, List.of(byBoth));
+            edges.put(q, List.of(byBoth, byOne));
+            edges.put(both, List.of(byBoth));
+            edges.put(one, List.of(byOne));
+            edges.put(byBoth, List.of(aggregated));
+            edges.put(byOne, List.of(aggregated));
+            conflicts.add(new PairInConflict(aggregated, fact("~r", a, "0.4", "0.4")));
+        }
+        return new ArgumentativeGraph(edges, conflicts);
+    }
+
+    private static <T> void shuffle(List<T> list, SplittableRandom random) {
+        for (int i = list.size() - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            list.set(i, list.set(j, list.get(i)));
+        }
+    }
+
+    private static String label(SplittableRandom random) {
+        return String.valueOf(random.nextInt(101) / 100.0);
+    }
+
+    /**
+     * Builds a fact.
+     *
+     * @param name     the predicate
+     * @param argument the argument
+     * @param labels   the labels
+     * @return the fact
+     */
+    public static Fact fact(String name, String argument, String... labels) {
+        return new Fact(name, argument, labels);
+    }
+
+    /**
+     * Builds a rule.
+     *
+     * @param head   the head predicate
+     * @param body   the body predicates
+     * @param labels the labels
+     * @return the rule
+     */
+    public static Rule rule(String head, List<String> body, String... labels) {
+        return new Rule(head, body, labels);
+    }
+
+    /**
+     * Copies facts with their original labels.
+     *
+     * @param facts the facts
+     * @return new facts
+     */
+    public static List<Fact> copies(List<Fact> facts) {
+        List<Fact> copies = new ArrayList<>(facts.size());
+        for (Fact fact : facts) {
+            copies.add(new Fact(fact.getName(), fact.getArgument(), fact.getAttributes().clone()));
+        }
+        return copies;
+    }
+
+    /**
+     * Writes a graph in a canonical form: one line per edge and per
+     * conflict, sorted, with the current labels of every fact. Two graphs
+     * have the same form when they have the same derivations and labels,
+     * whatever the order in which they were built.
+     *
+     * @param graph the graph
+     * @return its canonical form
+     */
+    public static List<String> canonical(ArgumentativeGraph graph) {
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<KnowledgePiece, List<Fact>> edge : graph.edges().entrySet()) {
+            for (Fact fact : edge.getValue()) {
+                lines.add(describe(edge.getKey()) + " -> " + describe(fact));
+            }
+        }
+        for (PairInConflict pair : graph.conflictiveNodes()) {
+            lines.add(describe(pair.first()) + " x " + describe(pair.second()));
+        }
+        lines.sort(null);
+        return lines;
+    }
+
+    /**
+     * Writes the canonical form of the part of a graph made of some facts:
+     * the edges towards them and their conflicts.
+     *
+     * @param graph the graph
+     * @param kept  tells whether a fact belongs to the part
+     * @return the canonical form of the part of the graph
+     */
+    public static List<String> canonical(ArgumentativeGraph graph, Predicate<Fact> kept) {
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<KnowledgePiece, List<Fact>> edge : graph.edges().entrySet()) {
+            for (Fact fact : edge.getValue()) {
+                if (kept.test(fact)) {
+                    lines.add(describe(edge.getKey()) + " -> " + describe(fact));
+                }
+            }
+        }
+        for (PairInConflict pair : graph.conflictiveNodes()) {
+            if (kept.test(pair.first())) {
+                lines.add(describe(pair.first()) + " x " + describe(pair.second()));
+            }
+        }
+        lines.sort(null);
+        return lines;
+    }
+
+    private static String describe(KnowledgePiece piece) {
+        if (piece instanceof Fact fact) {
+            return fact + String.join(",", fact.getDeltaAttributes());
+        }
+        return piece + String.join(",", piece.getAttributes());
+    }
+}
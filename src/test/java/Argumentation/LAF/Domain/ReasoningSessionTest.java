@@ -0,0 +1,414 @@
+package Argumentation.LAF.Domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of {@link ReasoningSession}: after every update, the graph of the
+ * session is the graph the engine derives from its current base facts,
+ * neighborhoods are searched in that graph, and pages list its nodes and
+ * edges.
+ *
+ * @author JaviDebórtoli
+ */
+class ReasoningSessionTest {
+
+    @Test
+    void updatedSessionHasTheGraphOfItsBaseFacts() {
+        for (long seed = 1; seed <= 50; seed++) {
+            for (boolean columnar : new boolean[] {false, true}) {
+                Programs.Program program = Programs.random(seed, 5, "double");
+                ReasoningSession session = new ReasoningSession(program.facts(), program.rules(), program.functions(),
+                        null, columnar);
+                List<Fact> base = program.facts();
+                assertThat(Programs.canonical(session.graph()))
+                        .as("seed %d, columnar %s, opened", seed, columnar)
+                        .isEqualTo(derive(base, program));
+
+                SplittableRandom random = new SplittableRandom(seed);
+                for (int update = 0; update < 20; update++) {
+                    String name = "p" + random.nextInt(4);
+                    String argument = "a" + random.nextInt(6);
+                    // As the session does, an assertion replaces the fact and moves it last
+                    base.removeIf(fact -> fact.getName().equals(name) && fact.getArgument().equals(argument));
+                    if (random.nextInt(3) == 0) {
+                        session.retractFact(name, argument);
+                    } else {
+                        String[] labels = {label(random), label(random)};
+                        session.assertFact(Programs.fact(name, argument, labels));
+                        base.add(Programs.fact(name, argument, labels));
+                    }
+                    assertThat(Programs.canonical(session.graph()))
+                            .as("seed %d, columnar %s, update %d", seed, columnar, update)
+                            .isEqualTo(derive(base, program));
+                }
+            }
+        }
+    }
+
+    @Test
+    void updatesOfAHandWrittenProgramHaveTheLabelsComputedByHand() {
+        // Labels are sums of powers of two, so max is computed exactly
+        Rule both = Programs.rule("d", List.of("a", "b"), "0.5");
+        Rule one = Programs.rule("d", List.of("c"), "0.25");
+        Rule chain = Programs.rule("e", List.of("d"), "0.25");
+        String[][] functions = {{"(X+Y+abs(X-Y))/2", "(X+Y+abs(X-Y))/2", "X-Y", "double"}};
+        for (boolean columnar : new boolean[] {false, true}) {
+            ReasoningSession session = new ReasoningSession(
+                    List.of(Programs.fact("a", "x", "0.25"), Programs.fact("b", "x", "0.5"),
+                            Programs.fact("c", "y", "0.75")),
+                    List.of(both, one, chain), functions, null, columnar);
+
+            // Retracting the only fact of y releases the rule no other argument uses
+            SessionUpdate retracted = session.retractFact("c", "y");
+            assertThat(retracted.argument()).isEqualTo("y");
+            assertThat(Programs.canonical(retracted.before())).as("columnar %s", columnar).containsExactly(
+                    "c(y).0.75 -> d(y).0.75",
+                    "d(X) :- c(X).0.25 -> d(y).0.75",
+                    "d(y).0.75 -> e(y).0.75",
+                    "e(X) :- d(X).0.25 -> e(y).0.75");
+            assertThat(Programs.canonical(retracted.after())).isEmpty();
+            assertThat(retracted.activated()).isEmpty();
+            assertThat(retracted.released()).containsExactly(one);
+
+            // Asserting it for x activates the rule again, and d(x) aggregates
+            // its two derivations: max(0.5, max(1.0, 0.25))
+            SessionUpdate asserted = session.assertFact(Programs.fact("c", "x", "1.0"));
+            assertThat(asserted.activated()).containsExactly(one);
+            assertThat(asserted.released()).isEmpty();
+            assertThat(Programs.canonical(session.graph())).as("columnar %s", columnar).containsExactly(
+                    "a(x).0.25 -> d(x).0.5",
+                    "b(x).0.5 -> d(x).0.5",
+                    "c(x).1.0 -> d(x).1.0",
+                    "d(X) :- a(X), b(X).0.5 -> d(x).0.5",
+                    "d(X) :- c(X).0.25 -> d(x).1.0",
+                    "d(x).0.5 -> d(x).1.0",
+                    "d(x).1.0 -> d(x).1.0",
+                    "d(x).1.0 -> e(x).1.0",
+                    "e(X) :- d(X).0.25 -> e(x).1.0");
+        }
+    }
+
+    @Test
+    void neighborhoodIsTheBreadthFirstSearchOfTheSessionGraph() {
+        for (long seed = 1; seed <= 20; seed++) {
+            Programs.Program program = Programs.random(seed, 4, "double");
+            ReasoningSession session = new ReasoningSession(program.facts(), program.rules(), program.functions());
+            assertNeighborhoodsAreSearched(session, "seed " + seed + ", opened");
+
+            // The indexes are built; updates replace those of one partition
+            SplittableRandom random = new SplittableRandom(seed);
+            for (int update = 0; update < 5; update++) {
+                String name = "p" + random.nextInt(4);
+                String argument = "a" + random.nextInt(5);
+                if (random.nextInt(3) == 0) {
+                    session.retractFact(name, argument);
+                } else {
+                    session.assertFact(Programs.fact(name, argument, label(random), label(random)));
+                }
+                assertNeighborhoodsAreSearched(session, "seed " + seed + ", update " + update);
+            }
+            assertThat(session.neighborhood(Long.MIN_VALUE, 1, GraphIndex.Direction.BOTH)).isEmpty();
+        }
+    }
+
+    @Test
+    void pagesListTheMatchingNodesOfTheSessionGraph() {
+        for (long seed = 1; seed <= 10; seed++) {
+            Programs.Program program = Programs.random(seed, 4, "double");
+            ReasoningSession session = new ReasoningSession(program.facts(), program.rules(), program.functions());
+            SplittableRandom random = new SplittableRandom(seed);
+            for (int update = 0; update <= 5; update++) {
+                for (LabelIndex.Query query : QUERIES) {
+                    List<String> expected = nodes(session.keyedGraph(), query);
+                    for (int limit : new int[] {1, 3, 1000}) {
+                        assertThat(pages(limit, cursor -> session.nodes(query, cursor, limit), ReasoningSessionTest::describe))
+                                .as("seed %d, update %d, %s, limit %d", seed, update, query, limit)
+                                .isEqualTo(expected);
+                    }
+                }
+                for (EdgeIndex.Kind kind : new EdgeIndex.Kind[] {null, EdgeIndex.Kind.SUPPORT,
+                        EdgeIndex.Kind.AGGREGATION, EdgeIndex.Kind.CONFLICT}) {
+                    List<String> expected = edges(session.keyedGraph(), kind);
+                    for (int limit : new int[] {1, 3, 1000}) {
+                        assertThat(pages(limit, cursor -> session.edges(kind, cursor, limit), ReasoningSessionTest::describe))
+                                .as("seed %d, update %d, %s, limit %d", seed, update, kind, limit)
+                                .isEqualTo(expected);
+                    }
+                }
+                // The indexes are built; updates replace the entries of one partition
+                update(session, random);
+            }
+        }
+    }
+
+    @Test
+    void cursorResumesAfterItsPositionAcrossUpdates() {
+        for (long seed = 1; seed <= 10; seed++) {
+            Programs.Program program = Programs.random(seed, 4, "double");
+            ReasoningSession session = new ReasoningSession(program.facts(), program.rules(), program.functions());
+            SplittableRandom random = new SplittableRandom(seed);
+            LabelIndex.Query query = new LabelIndex.Query("FACT", null, 0, 0.0, 1.0);
+            for (int update = 0; update < 5; update++) {
+                Page<LabelIndex.Entry> first = session.nodes(query, null, 4);
+                Page<EdgeIndex.Entry> firstEdges = session.edges(null, null, 4);
+                update(session, random);
+                if (first.nextCursor() != null) {
+                    LabelIndex.Entry last = first.items().getLast();
+                    List<String> expected = new ArrayList<>();
+                    for (String node : nodes(session.keyedGraph(), query)) {
+                        String[] parts = node.split(" ");
+                        int order = Double.compare(Double.parseDouble(parts[1]), last.value());
+                        if (order > 0 || order == 0 && Long.compareUnsigned(Long.parseUnsignedLong(parts[0], 16),
+                                last.key()) > 0) {
+                            expected.add(node);
+                        }
+                    }
+                    assertThat(pages(first.nextCursor(), 3, (cursor, limit) -> session.nodes(query, cursor, limit),
+                            ReasoningSessionTest::describe)).as("seed %d, update %d", seed, update).isEqualTo(expected);
+                }
+                if (firstEdges.nextCursor() != null) {
+                    String last = describe(firstEdges.items().getLast());
+                    List<String> expected = edges(session.keyedGraph(), null).stream()
+                            .filter(edge -> EDGE_ORDER.compare(edge, last) > 0)
+                            .toList();
+                    assertThat(pages(firstEdges.nextCursor(), 3, (cursor, limit) -> session.edges(null, cursor, limit),
+                            ReasoningSessionTest::describe)).as("seed %d, update %d", seed, update).isEqualTo(expected);
+                }
+            }
+        }
+    }
+
+    @Test
+    void emptyQueriesHaveOneEmptyLastPage() {
+        Programs.Program program = Programs.random(1, 4, "double");
+        ReasoningSession session = new ReasoningSession(program.facts(), program.rules(), program.functions());
+
+        for (LabelIndex.Query query : List.of(new LabelIndex.Query(null, "none", null, null, null),
+                new LabelIndex.Query(null, null, 0, 2.0, 3.0), new LabelIndex.Query(null, null, 9, null, null),
+                new LabelIndex.Query(null, null, 0, 0.8, 0.2))) {
+            assertThat(session.nodes(query, null, 10)).as("%s", query).isEqualTo(new Page<>(List.of(), null));
+        }
+        // A cursor past the end of the range, as when the range of a query is narrowed between pages
+        LabelIndex.Query all = new LabelIndex.Query(null, null, 0, null, null);
+        String cursor = session.nodes(all, null, 1).nextCursor();
+        assertThat(cursor).isNotNull();
+        assertThat(session.nodes(new LabelIndex.Query(null, null, 0, null, -1.0), cursor, 10))
+                .isEqualTo(new Page<>(List.of(), null));
+        assertThatThrownBy(() -> session.nodes(all, "zz", 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> session.edges(null, "1.2", 10)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Checks the neighborhood of every node of a session, for every
+     * direction and a few depths, against a breadth-first search over the
+     * whole session graph.
+     */
+    private static void assertNeighborhoodsAreSearched(ReasoningSession session, String as) {
+        ReasoningSession.KeyedGraph keyed = session.keyedGraph();
+        ArgumentativeGraph graph = keyed.graph();
+        Map<KnowledgePiece, Long> keys = keyed.keys();
+        Set<Fact> supported = Collections.newSetFromMap(new IdentityHashMap<>());
+        graph.edges().forEach((parent, children) -> {
+            if (parent instanceof Rule) {
+                supported.addAll(children);
+            }
+        });
+        for (Map.Entry<KnowledgePiece, Long> node : keys.entrySet()) {
+            for (GraphIndex.Direction direction : GraphIndex.Direction.values()) {
+                for (int depth = 0; depth <= 3; depth++) {
+                    Neighborhood neighborhood = session.neighborhood(node.getValue(), depth, direction).orElseThrow();
+                    String at = as + ", " + node.getKey() + ", " + direction + " " + depth;
+
+                    assertThat(Programs.canonical(neighborhood.graph())).as(at)
+                            .isEqualTo(Programs.canonical(search(graph, node.getKey(), depth, direction)));
+                    assertThat(neighborhood.keys().get(neighborhood.root())).as(at).isEqualTo(node.getValue());
+                    neighborhood.keys().forEach((piece, key) -> assertThat(key).as(at).isEqualTo(keys.get(piece)));
+                    neighborhood.graph().edges().values().forEach(children -> children.forEach(child ->
+                            assertThat(neighborhood.supported().contains(child)).as(at + ", " + child)
+                                    .isEqualTo(supported.contains(child))));
+                }
+            }
+        }
+    }
+
+    /**
+     * Searches a graph breadth first from a node, following the edges up to
+     * a depth, and adds the conflicts of every node reached.
+     */
+    private static ArgumentativeGraph search(ArgumentativeGraph graph, KnowledgePiece root, int depth,
+                                             GraphIndex.Direction direction) {
+        Map<KnowledgePiece, Set<Fact>> edges = new IdentityHashMap<>();
+        Set<KnowledgePiece> reached = Collections.newSetFromMap(new IdentityHashMap<>());
+        reached.add(root);
+        for (boolean ancestors : new boolean[] {true, false}) {
+            if (direction == (ancestors ? GraphIndex.Direction.DESCENDANTS : GraphIndex.Direction.ANCESTORS)) {
+                continue;
+            }
+            Set<KnowledgePiece> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+            visited.add(root);
+            Set<KnowledgePiece> frontier = visited;
+            for (int level = 0; level < depth; level++) {
+                Set<KnowledgePiece> next = Collections.newSetFromMap(new IdentityHashMap<>());
+                for (Map.Entry<KnowledgePiece, List<Fact>> edge : graph.edges().entrySet()) {
+                    for (Fact child : edge.getValue()) {
+                        if (frontier.contains(ancestors ? child : edge.getKey())) {
+                            edges.computeIfAbsent(edge.getKey(), k -> new LinkedHashSet<>()).add(child);
+                            next.add(ancestors ? edge.getKey() : child);
+                        }
+                    }
+                }
+                next.removeAll(visited);
+                visited.addAll(next);
+                frontier = next;
+            }
+            reached.addAll(visited);
+        }
+        Map<KnowledgePiece, List<Fact>> subgraph = new IdentityHashMap<>();
+        edges.forEach((parent, children) -> subgraph.put(parent, new ArrayList<>(children)));
+        return new ArgumentativeGraph(subgraph, graph.conflictiveNodes().stream()
+                .filter(pair -> reached.contains(pair.first()) || reached.contains(pair.second()))
+                .toList());
+    }
+
+    /** Node queries: by type, predicate, label range and open-ended label range. */
+    private static final List<LabelIndex.Query> QUERIES = List.of(
+            new LabelIndex.Query(null, null, null, null, null),
+            new LabelIndex.Query("RULE", null, null, null, null),
+            new LabelIndex.Query(null, "p3", null, null, null),
+            new LabelIndex.Query(null, null, 0, 0.2, 0.7),
+            new LabelIndex.Query("FACT", null, 1, null, 0.5),
+            new LabelIndex.Query(null, "p5", 1, 0.1, null),
+            new LabelIndex.Query(null, null, 0, 0.0, 0.0));
+
+    /** Order of the edges described by {@link #describe(EdgeIndex.Entry)}. */
+    private static final Comparator<String> EDGE_ORDER = Comparator
+            .<String, Long>comparing(edge -> Long.parseUnsignedLong(edge.split(" ")[0], 16), Long::compareUnsigned)
+            .thenComparing(edge -> Long.parseUnsignedLong(edge.split(" ")[1], 16), Long::compareUnsigned)
+            .thenComparing(edge -> EdgeIndex.Kind.valueOf(edge.split(" ")[2]));
+
+    private static void update(ReasoningSession session, SplittableRandom random) {
+        String name = "p" + random.nextInt(4);
+        String argument = "a" + random.nextInt(5);
+        if (random.nextInt(3) == 0) {
+            session.retractFact(name, argument);
+        } else {
+            session.assertFact(Programs.fact(name, argument, label(random), label(random)));
+        }
+    }
+
+    /**
+     * Lists the nodes of a graph matching a query, in index order, as the
+     * index describes them.
+     */
+    private static List<String> nodes(ReasoningSession.KeyedGraph graph, LabelIndex.Query query) {
+        List<LabelIndex.Entry> nodes = new ArrayList<>();
+        graph.keys().forEach((node, key) -> {
+            String predicate = node instanceof Rule rule ? rule.getHead() : ((Fact) node).getName();
+            if (query.type() != null && !query.type().equals(node instanceof Rule ? "RULE" : "FACT")
+                    || query.predicate() != null && !query.predicate().equals(predicate)) {
+                return;
+            }
+            if (query.label() == null) {
+                nodes.add(new LabelIndex.Entry(node, key, 0));
+                return;
+            }
+            String[] labels = node.getDeltaAttributes();
+            if (query.label() < labels.length) {
+                double value = Double.parseDouble(labels[query.label()]);
+                if ((query.min() == null || value >= query.min()) && (query.max() == null || value <= query.max())) {
+                    nodes.add(new LabelIndex.Entry(node, key, value));
+                }
+            }
+        });
+        nodes.sort(Comparator.comparingDouble(LabelIndex.Entry::value)
+                .thenComparing(LabelIndex.Entry::key, Long::compareUnsigned));
+        return nodes.stream().map(ReasoningSessionTest::describe).toList();
+    }
+
+    /**
+     * Lists the edges of a graph of a kind, in index order, as the index
+     * describes them: the edges into a fact derived by a rule are supports.
+     */
+    private static List<String> edges(ReasoningSession.KeyedGraph graph, EdgeIndex.Kind kind) {
+        Set<Fact> supported = Collections.newSetFromMap(new IdentityHashMap<>());
+        graph.graph().edges().forEach((parent, children) -> {
+            if (parent instanceof Rule) {
+                supported.addAll(children);
+            }
+        });
+        Set<String> edges = new TreeSet<>(EDGE_ORDER);
+        graph.graph().edges().forEach((parent, children) -> {
+            for (Fact child : children) {
+                edges.add(describe(new EdgeIndex.Entry(parent, graph.keys().get(parent), child,
+                        graph.keys().get(child), supported.contains(child)
+                                ? EdgeIndex.Kind.SUPPORT : EdgeIndex.Kind.AGGREGATION)));
+            }
+        });
+        for (PairInConflict pair : graph.graph().conflictiveNodes()) {
+            long first = graph.keys().get(pair.first());
+            long second = graph.keys().get(pair.second());
+            edges.add(describe(new EdgeIndex.Entry(pair.first(), first, pair.second(), second,
+                    EdgeIndex.Kind.CONFLICT)));
+            edges.add(describe(new EdgeIndex.Entry(pair.second(), second, pair.first(), first,
+                    EdgeIndex.Kind.CONFLICT)));
+        }
+        return edges.stream().filter(edge -> kind == null || edge.split(" ")[2].equals(kind.name())).toList();
+    }
+
+    /**
+     * Walks every page of a query from the first one, checking that every
+     * page but the last is full.
+     */
+    private static <T> List<String> pages(int limit, Function<String, Page<T>> query,
+                                          Function<T, String> describe) {
+        return pages(null, limit, (cursor, size) -> query.apply(cursor), describe);
+    }
+
+    private static <T> List<String> pages(String cursor, int limit, BiFunction<String, Integer, Page<T>> query,
+                                          Function<T, String> describe) {
+        List<String> items = new ArrayList<>();
+        do {
+            Page<T> page = query.apply(cursor, limit);
+            if (page.nextCursor() != null) {
+                assertThat(page.items()).hasSize(limit);
+            }
+            page.items().forEach(item -> items.add(describe.apply(item)));
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        return items;
+    }
+
+    private static String describe(LabelIndex.Entry entry) {
+        return Long.toHexString(entry.key()) + " " + entry.value() + " " + entry.node();
+    }
+
+    private static String describe(EdgeIndex.Entry edge) {
+        return Long.toHexString(edge.fromKey()) + " " + Long.toHexString(edge.toKey()) + " " + edge.kind()
+                + " " + edge.from() + " -> " + edge.to();
+    }
+
+    private static List<String> derive(List<Fact> base, Programs.Program program) {
+        return Programs.canonical(new InferenceEngine(Programs.copies(base), program.rules(), program.functions())
+                .buildTree());
+    }
+
+    private static String label(SplittableRandom random) {
+        return String.valueOf(random.nextInt(101) / 100.0);
+    }
+}
@@ -0,0 +1,71 @@
+package Argumentation.LAF.Domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of {@link SupportMemo}: keys compare by content, and results are
+ * evicted least recently used first.
+ *
+ * @author JaviDebórtoli
+ */
+class SupportMemoTest {
+    private static final String[][] FUNCTIONS = {{"X*Y", "max(X,Y)", "X-Y", "double"}};
+
+    @Test
+    void keysCompareByTheContentOfTheLabels() {
+        SupportMemo memo = new SupportMemo(8);
+        memo.put(key("0.5", "0.4"), new String[] {"0.2"});
+
+        assertThat(memo.get(key("0.5", "0.4"))).containsExactly("0.2");
+        assertThat(memo.get(key("0.4", "0.5"))).isNull();
+        assertThat(memo.get(SupportMemo.keyOf(new String[][] {{"X*Y", "max(X,Y)", "X-Y", "float32"}},
+                List.of(Programs.fact("a", "x", "0.4")), Programs.rule("b", List.of("a"), "0.5")))).isNull();
+        assertThat(memo.stats()).isEqualTo(new SupportMemo.Stats(8, 1, 1, 2));
+    }
+
+    @Test
+    void keptKeysDoNotFollowTheLabelsTheyWereBuiltFrom() {
+        SupportMemo memo = new SupportMemo(8);
+        String[] labels = {"0.4"};
+        Fact premise = new Fact("a", "x", labels);
+        memo.put(SupportMemo.keyOf(FUNCTIONS, List.of(premise), Programs.rule("b", List.of("a"), "0.5")),
+                new String[] {"0.2"});
+        labels[0] = "0.9";
+
+        assertThat(memo.get(key("0.5", "0.4"))).containsExactly("0.2");
+        assertThat(memo.get(key("0.5", "0.9"))).isNull();
+    }
+
+    @Test
+    void leastRecentlyUsedResultIsEvicted() {
+        SupportMemo memo = new SupportMemo(2, 1);
+        memo.put(key("0.1", "0.1"), new String[] {"a"});
+        memo.put(key("0.2", "0.2"), new String[] {"b"});
+        assertThat(memo.get(key("0.1", "0.1"))).containsExactly("a");
+        memo.put(key("0.3", "0.3"), new String[] {"c"});
+
+        assertThat(memo.get(key("0.2", "0.2"))).isNull();
+        assertThat(memo.get(key("0.1", "0.1"))).containsExactly("a");
+        assertThat(memo.get(key("0.3", "0.3"))).containsExactly("c");
+        assertThat(memo.stats().size()).isEqualTo(2);
+    }
+
+    @Test
+    void stripedMemoKeepsAtMostItsCapacity() {
+        SupportMemo memo = new SupportMemo(100);
+        for (int i = 0; i < 1000; i++) {
+            memo.put(key("0." + i, "0.5"), new String[] {String.valueOf(i)});
+        }
+
+        assertThat(memo.stats().size()).isBetween(1, 100);
+        assertThat(memo.get(key("0.999", "0.5"))).containsExactly("999");
+    }
+
+    private static SupportMemo.Key key(String rule, String premise) {
+        return SupportMemo.keyOf(FUNCTIONS, List.of(Programs.fact("a", "x", premise)),
+                Programs.rule("b", List.of("a"), rule));
+    }
+}
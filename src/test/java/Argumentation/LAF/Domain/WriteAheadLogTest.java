@@ -0,0 +1,136 @@
+package Argumentation.LAF.Domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests of {@link WriteAheadLog}.
+ *
+ * @author JaviDebórtoli
+ */
+class WriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void syncedRecordsAreReplayedInOrder() throws Exception {
+        Path file = directory.resolve("wal");
+        try (WriteAheadLog log = new WriteAheadLog(file);
+             ExecutorService executor = Executors.newFixedThreadPool(4)) {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int writer = 0; writer < 4; writer++) {
+                int id = writer;
+                writers.add(executor.submit(() -> {
+                    for (int record = 0; record < 50; record++) {
+                        log.sync(log.append(bytes(id + ":" + record)));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+            assertThat(log.commits()).isBetween(1L, 200L);
+        }
+
+        List<String> records = replay(file);
+
+        assertThat(records).hasSize(200);
+        for (int writer = 0; writer < 4; writer++) {
+            String prefix = writer + ":";
+            assertThat(records.stream().filter(record -> record.startsWith(prefix)))
+                    .containsExactlyElementsOf(expected(prefix));
+        }
+    }
+
+    @Test
+    void tornTailIsDiscardedAndOverwritten() throws IOException {
+        Path file = directory.resolve("wal");
+        try (WriteAheadLog log = new WriteAheadLog(file)) {
+            log.append(bytes("first"));
+            log.sync(log.append(bytes("second")));
+        }
+        long size = Files.size(file);
+        // The frame of a third record, cut short by a crash
+        Files.write(file, new byte[] {0, 0, 0, 9, 1, 2, 3, 4, 't', 'h'}, StandardOpenOption.APPEND);
+
+        try (WriteAheadLog log = new WriteAheadLog(file)) {
+            List<String> records = new ArrayList<>();
+            assertThat(log.replay(payload -> records.add(string(payload)))).isEqualTo(2);
+            assertThat(records).containsExactly("first", "second");
+            assertThat(log.size()).isEqualTo(size);
+            log.sync(log.append(bytes("third")));
+        }
+
+        assertThat(replay(file)).containsExactly("first", "second", "third");
+    }
+
+    @Test
+    void failedGroupFailsItsRecordsUntilTheLogIsReset() throws IOException {
+        Path file = directory.resolve("wal");
+        FailingChannel channel = new FailingChannel(FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE));
+        try (WriteAheadLog log = new WriteAheadLog(channel)) {
+            log.sync(log.append(bytes("durable")));
+            long second = log.append(bytes("second"));
+            long third = log.append(bytes("third"));
+
+            channel.failForces(1);
+            assertThatThrownBy(() -> log.sync(second)).isInstanceOf(IOException.class);
+
+            // A later force must not pass the group off as durable
+            assertThatThrownBy(() -> log.sync(third)).isInstanceOf(IOException.class)
+                    .hasCauseInstanceOf(IOException.class);
+            assertThatThrownBy(() -> log.append(bytes("fourth"))).isInstanceOf(UncheckedIOException.class);
+            log.sync(1);
+
+            log.reset();
+            log.sync(log.append(bytes("fifth")));
+        }
+
+        assertThat(replay(file)).containsExactly("fifth");
+    }
+
+    private static List<String> expected(String prefix) {
+        List<String> records = new ArrayList<>();
+        for (int record = 0; record < 50; record++) {
+            records.add(prefix + record);
+        }
+        return records;
+    }
+
+    private static List<String> replay(Path file) throws IOException {
+        List<String> records = new ArrayList<>();
+        try (WriteAheadLog log = new WriteAheadLog(file)) {
+            log.replay(payload -> records.add(string(payload)));
+        }
+        return records;
+    }
+
+    private static byte[] bytes(String record) {
+        return record.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(ByteBuffer payload) {
+        byte[] bytes = new byte[payload.remaining()];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
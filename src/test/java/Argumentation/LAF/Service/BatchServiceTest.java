@@ -0,0 +1,118 @@
+package Argumentation.LAF.Service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import Argumentation.LAF.DTO.Request.BatchProgramRequest;
+import Argumentation.LAF.DTO.Response.BatchResultResponse;
+import Argumentation.LAF.Domain.ArgumentativeGraph;
+import Argumentation.LAF.Domain.Fact;
+import Argumentation.LAF.Domain.OperationSet;
+import Argumentation.LAF.Domain.Rule;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Tests of {@link BatchService}, over an inference that fails or blocks
+ * depending on the predicate of the first fact of each program.
+ *
+ * @author JaviDebórtoli
+ */
+class BatchServiceTest {
+    private final JsonMapper mapper = JsonMapper.builder().build();
+
+    @Test
+    void errorInOneProgramOnlyFailsThatProgram() {
+        BatchService service = service(2, new CountDownLatch(0), new CountDownLatch(0), new CountDownLatch(0));
+        try {
+            for (boolean ordered : new boolean[] {true, false}) {
+                List<BatchResultResponse> results = new ArrayList<>();
+                service.evaluate(List.of(program("ok"), program("overflow"), program("ok")), ordered, results::add);
+
+                assertThat(results).hasSize(3);
+                for (BatchResultResponse result : results) {
+                    if (result.getId().equals("1")) {
+                        assertThat(result.getError()).contains("StackOverflowError");
+                    } else {
+                        assertThat(result.getError()).as("ordered %s", ordered).isNull();
+                    }
+                }
+            }
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void programsInFlightAreCancelledWhenTheSinkFails() throws InterruptedException {
+        for (boolean ordered : new boolean[] {true, false}) {
+            CountDownLatch blocked = new CountDownLatch(2);
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch interrupted = new CountDownLatch(2);
+            BatchService service = service(3, blocked, release, interrupted);
+            try {
+                List<BatchProgramRequest> programs = new ArrayList<>(List.of(program("ok")));
+                for (int i = 0; i < 5; i++) {
+                    programs.add(program("block"));
+                }
+
+                assertThatThrownBy(() -> service.evaluate(programs, ordered, result -> {
+                    throw new IllegalStateException("Client gone");
+                })).hasMessage("Client gone");
+
+                // The two workers left running blocked programs are interrupted
+                assertThat(interrupted.await(5, TimeUnit.SECONDS)).as("ordered %s", ordered).isTrue();
+            } finally {
+                release.countDown();
+                service.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Builds a service whose blocked programs count down a latch once
+     * blocked, wait for a second one to be released, and count down a third
+     * one when they are interrupted. Other programs only complete once the
+     * first latch is down, so that the blocked programs are running by then.
+     */
+    private BatchService service(int parallelism, CountDownLatch blocked, CountDownLatch release,
+                                 CountDownLatch interrupted) {
+        InferenceService inference = new InferenceService(0, false) {
+            @Override
+            public ArgumentativeGraph buildGraph(List<Fact> facts, List<Rule> rules,
+                                                 Map<String, OperationSet> operations) {
+                try {
+                    switch (facts.getFirst().getName()) {
+                        case "overflow" -> throw new StackOverflowError();
+                        case "block" -> {
+                            blocked.countDown();
+                            release.await();
+                        }
+                        default -> blocked.await();
+                    }
+                } catch (InterruptedException exception) {
+                    interrupted.countDown();
+                    Thread.currentThread().interrupt();
+                }
+                return super.buildGraph(facts, rules, operations);
+            }
+        };
+        return new BatchService(new ProgramMapperService(), new AlgebraMapperService(), inference,
+                new GraphBuilderService(false), parallelism);
+    }
+
+    private BatchProgramRequest program(String predicate) {
+        return mapper.readValue("""
+                {"facts": [{"name": "%s", "argument": "a", "attributes": ["0.5"]}],
+                 "rules": [{"headName": "q", "bodyLiterals": ["%s"], "attributes": ["0.9"]}],
+                 "operations": {"labels": [
+                   {"labelName": "l0", "supportFunction": "X*Y", "aggregationFunction": "X+Y-X*Y",
+                    "conflictFunction": "X-Y"}]}}
+                """.formatted(predicate, predicate), BatchProgramRequest.class);
+    }
+}
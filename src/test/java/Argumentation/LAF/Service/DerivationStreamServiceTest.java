@@ -0,0 +1,181 @@
+package Argumentation.LAF.Service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import Argumentation.LAF.Domain.Programs;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.databind.node.ObjectNode;
+
+/**
+ * Tests of {@link DerivationStreamService}: replaying the events of a stream
+ * yields the graph of the {@code /api/graph} endpoint.
+ *
+ * <p>
+ * The stream numbers nodes in the order it discovers them, and the graph
+ * response in the order it serializes them, so graphs are compared with
+ * every node identifier replaced by the content of the node.
+ * </p>
+ *
+ * @author JaviDebórtoli
+ */
+class DerivationStreamServiceTest {
+    private final InferenceService inferenceService = new InferenceService(0, false);
+    private final GraphBuilderService graphBuilderService = new GraphBuilderService(false);
+    private final JsonMapper mapper = JsonMapper.builder().build();
+    private final DerivationStreamService service =
+            new DerivationStreamService(inferenceService, graphBuilderService, mapper);
+
+    @Test
+    void replayedStreamIsTheGraph() {
+        for (long seed = 1; seed <= 30; seed++) {
+            for (Programs.Program program : List.of(Programs.random(seed, 4, "double"),
+                    Programs.houses(seed, 4, "float32"))) {
+                assertReplayIsTheGraph(program, "seed " + seed);
+            }
+        }
+        assertReplayIsTheGraph(Programs.crossArgumentAggregation(), "cross-argument aggregation");
+    }
+
+    @Test
+    void streamOfAHandWrittenProgramHasTheEventsComputedByHand() {
+        // Labels are sums of powers of two, so max and subtraction are exact
+        Programs.Program program = new Programs.Program(
+                List.of(Programs.fact("a", "x", "0.5"), Programs.fact("c", "x", "0.25")),
+                List.of(Programs.rule("d", List.of("a"), "0.5"), Programs.rule("d", List.of("c"), "0.75"),
+                        Programs.rule("~d", List.of("c"), "0.25")),
+                new String[][] {{"(X+Y+abs(X-Y))/2", "(X+Y+abs(X-Y))/2", "X-Y", "double"}});
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        service.stream(program.facts(), program.rules(), QueryServiceTest.operations(program), output);
+
+        // d(x) is max(0.5, 0.5) by a and max(0.25, 0.75) by c, aggregated to 0.75; ~d(x) is max(0.25, 0.25).
+        // Both sides of the conflict are weakened by the label the other had before: 0.25 - 0.75 is clamped
+        // to 0 and 0.75 - 0.25 is 0.5, and each fact is sent again with its new label
+        List<String> events = new ArrayList<>(events(output.toString(StandardCharsets.UTF_8)).stream()
+                .map(DerivationStreamServiceTest::summary).toList());
+        // The versions of a fact are aggregated in no particular order
+        List<String> aggregations = events.subList(11, 13);
+        assertThat(aggregations).containsExactlyInAnyOrder("aggregation F1 F5", "aggregation F3 F5");
+        aggregations.clear();
+        assertThat(events).containsExactly(
+                "node R1 d(X) :- a(X). [\"0.5\"]",
+                "node F1 d(x) [\"0.5\"]",
+                "support R1 F1",
+                "node F2 a(x) [\"0.5\"]",
+                "support F2 F1",
+                "node R2 d(X) :- c(X). [\"0.75\"]",
+                "node F3 d(x) [\"0.75\"]",
+                "support R2 F3",
+                "node F4 c(x) [\"0.25\"]",
+                "support F4 F3",
+                "node F5 d(x) [\"0.75\"]",
+                "node R3 ~d(X) :- c(X). [\"0.25\"]",
+                "node F6 ~d(x) [\"0.25\"]",
+                "support R3 F6",
+                "support F4 F6",
+                "node F6 ~d(x) [\"0.0\"]",
+                "node F5 d(x) [\"0.5\"]",
+                "conflict F6 F5",
+                "conflict F5 F6",
+                "complete {\"addedEdges\":[],\"addedNodes\":[],\"changedNodes\":[],\"removedEdges\":[],"
+                        + "\"removedNodes\":[]}");
+    }
+
+    private void assertReplayIsTheGraph(Programs.Program program, String as) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        service.stream(program.facts(), program.rules(), QueryServiceTest.operations(program), output);
+        List<Map.Entry<String, JsonNode>> events = events(output.toString(StandardCharsets.UTF_8));
+
+        Map<String, JsonNode> nodes = new HashMap<>();
+        Map<String, String> edges = new LinkedHashMap<>();
+        for (Map.Entry<String, JsonNode> event : events.subList(0, events.size() - 1)) {
+            JsonNode data = event.getValue();
+            if (event.getKey().equals("node")) {
+                nodes.put(data.get("id").asString(), data);
+            } else {
+                assertThat(data.get("kind").asString()).as(as).isEqualToIgnoringCase(event.getKey());
+                edges.put(data.get("from").asString() + "|" + data.get("to").asString(), data.get("kind").asString());
+            }
+        }
+        assertThat(events.getLast().getKey()).as(as).isEqualTo("complete");
+        JsonNode marker = events.getLast().getValue();
+        marker.get("removedNodes").forEach(id -> nodes.remove(id.asString()));
+        marker.get("removedEdges").forEach(edge ->
+                edges.remove(edge.get("from").asString() + "|" + edge.get("to").asString()));
+        marker.get("addedEdges").forEach(edge ->
+                edges.put(edge.get("from").asString() + "|" + edge.get("to").asString(), edge.get("kind").asString()));
+        List<String> replayedEdges = new ArrayList<>();
+        edges.forEach((key, kind) -> {
+            String[] ends = key.split("\\|");
+            assertThat(nodes).as(as).containsKeys(ends);
+            replayedEdges.add(content(nodes.get(ends[0])) + " -> " + content(nodes.get(ends[1])) + " : " + kind);
+        });
+
+        JsonNode graph = mapper.valueToTree(graphBuilderService.toGraphResponse(inferenceService.buildGraph(
+                program.facts(), program.rules(), QueryServiceTest.operations(program))));
+        Map<String, JsonNode> expectedNodes = new HashMap<>();
+        graph.get("nodes").forEach(node -> expectedNodes.put(node.get("id").asString(), node));
+        List<String> expectedEdges = new ArrayList<>();
+        graph.get("edges").forEach(edge -> expectedEdges.add(content(expectedNodes.get(edge.get("from").asString()))
+                + " -> " + content(expectedNodes.get(edge.get("to").asString())) + " : " + edge.get("kind").asString()));
+
+        assertThat(contents(nodes)).as(as).isEqualTo(contents(expectedNodes));
+        assertThat(replayedEdges.stream().sorted().toList()).as(as)
+                .isEqualTo(expectedEdges.stream().sorted().toList());
+    }
+
+    /**
+     * Splits a stream into its events, as pairs of event type and data.
+     */
+    private List<Map.Entry<String, JsonNode>> events(String stream) {
+        List<Map.Entry<String, JsonNode>> events = new ArrayList<>();
+        for (String block : stream.split("\n\n")) {
+            String event = null;
+            JsonNode data = null;
+            for (String line : block.split("\n")) {
+                if (line.startsWith("event:")) {
+                    event = line.substring("event:".length());
+                } else if (line.startsWith("data:")) {
+                    data = mapper.readTree(line.substring("data:".length()));
+                }
+            }
+            events.add(Map.entry(event, data));
+        }
+        return events;
+    }
+
+    /**
+     * Describes an event by its type and the identifiers, labels and
+     * final labels of its data.
+     */
+    private static String summary(Map.Entry<String, JsonNode> event) {
+        JsonNode data = event.getValue();
+        return switch (event.getKey()) {
+            case "node" -> "node " + data.get("id").asString() + " " + data.get("label").asString() + " "
+                    + data.get("deltaAttributes");
+            case "complete" -> "complete " + data;
+            default -> event.getKey() + " " + data.get("from").asString() + " " + data.get("to").asString();
+        };
+    }
+
+    private static List<String> contents(Map<String, JsonNode> nodes) {
+        return nodes.values().stream().map(DerivationStreamServiceTest::content).sorted().toList();
+    }
+
+    /**
+     * Returns a node without its identifier.
+     */
+    private static String content(JsonNode node) {
+        ObjectNode content = (ObjectNode) node.deepCopy();
+        content.remove("id");
+        return content.toString();
+    }
+}
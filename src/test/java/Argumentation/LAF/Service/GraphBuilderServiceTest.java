@@ -0,0 +1,229 @@
+package Argumentation.LAF.Service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import Argumentation.LAF.DTO.Response.GraphDeltaResponse;
+import Argumentation.LAF.Domain.ArgumentativeGraph;
+import Argumentation.LAF.Domain.CompactGraph;
+import Argumentation.LAF.Domain.Fact;
+import Argumentation.LAF.Domain.InferenceEngine;
+import Argumentation.LAF.Domain.KnowledgePiece;
+import Argumentation.LAF.Domain.PairInConflict;
+import Argumentation.LAF.Domain.Programs;
+import Argumentation.LAF.Domain.Rule;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.StreamSupport;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Tests of {@link GraphBuilderService}.
+ *
+ * <p>
+ * Responses are read back as JSON, the way clients see them.
+ * </p>
+ *
+ * @author JaviDebórtoli
+ */
+class GraphBuilderServiceTest {
+    private final GraphBuilderService service = new GraphBuilderService(true);
+    private final JsonMapper mapper = JsonMapper.builder().build();
+
+    @Test
+    void deltaTurnsTheOldGraphIntoTheNewOne() {
+        for (long seed = 1; seed <= 50; seed++) {
+            Programs.Program program = Programs.random(seed, 5, "double");
+            List<Fact> edited = program.facts();
+            edited.remove(0);
+            Fact changed = edited.get(edited.size() / 2);
+            edited.set(edited.size() / 2,
+                    new Fact(changed.getName(), changed.getArgument(), new String[] {"0.5", "0.5"}));
+
+            ArgumentativeGraph before = derive(program.facts(), program);
+            ArgumentativeGraph after = derive(edited, program);
+            Map<KnowledgePiece, String> idsBefore = service.contentIds(before);
+            Map<KnowledgePiece, String> idsAfter = service.contentIds(after);
+            GraphDeltaResponse delta = service.toGraphDelta(before, idsBefore, after, idsAfter);
+
+            JsonNode graph = json(service.toGraphResponse(before, idsBefore));
+            Map<String, JsonNode> nodes = nodesOf(graph);
+            Set<String> edges = edgesOf(graph.get("edges"));
+            JsonNode changes = json(delta);
+            changes.get("removedNodes").forEach(id -> nodes.remove(id.asString()));
+            changes.get("addedNodes").forEach(node -> nodes.put(node.get("id").asString(), node));
+            changes.get("changedNodes").forEach(node -> nodes.put(node.get("id").asString(), node));
+            edges.removeAll(edgesOf(changes.get("removedEdges")));
+            edges.addAll(edgesOf(changes.get("addedEdges")));
+
+            JsonNode expected = json(service.toGraphResponse(after, idsAfter));
+            assertThat(nodes).as("seed %d", seed).isEqualTo(nodesOf(expected));
+            assertThat(edges).as("seed %d", seed).isEqualTo(edgesOf(expected.get("edges")));
+        }
+    }
+
+    @Test
+    void deltaLeavesOutNodesThatAreNotReported() {
+        Programs.Program program = Programs.random(7, 5, "double");
+        ArgumentativeGraph after = derive(program.facts(), program);
+        ArgumentativeGraph empty = new ArgumentativeGraph(Map.of(), List.of());
+
+        JsonNode added = json(service.toGraphDelta(empty, Map.of(), after, service.contentIds(after),
+                kp -> !(kp instanceof Rule)));
+        JsonNode removed = json(service.toGraphDelta(after, service.contentIds(after), empty, Map.of(),
+                kp -> !(kp instanceof Rule)));
+
+        assertThat(added.get("addedNodes")).isNotEmpty()
+                .allSatisfy(node -> assertThat(node.get("type").asString()).isEqualTo("FACT"));
+        assertThat(removed.get("removedNodes")).hasSameSizeAs(added.get("addedNodes"));
+        assertThat(added.get("addedEdges")).hasSameSizeAs(removed.get("removedEdges"));
+    }
+
+    @Test
+    void isolatedNodeIsListed() {
+        Fact root = new Fact("p", "a", new String[] {"1.0"});
+        Map<KnowledgePiece, String> ids = new HashMap<>(Map.of(root, "F9"));
+        JsonNode graph = json(service.toGraphResponse(new ArgumentativeGraph(Map.of(), List.of()), ids, root));
+
+        assertThat(graph.get("nodes")).hasSize(1);
+        assertThat(graph.get("nodes").get(0).get("id").asString()).isEqualTo("F9");
+    }
+
+    @Test
+    void responseListsTheNodesAndEdgesOfThePreviousConversion() {
+        GraphBuilderService sequential = new GraphBuilderService(false);
+        for (long seed = 1; seed <= 30; seed++) {
+            for (Programs.Program program : List.of(Programs.random(seed, 5, "double"),
+                    Programs.houses(seed, 4, "double"), Programs.crossArgumentAggregation())) {
+                ArgumentativeGraph graph = derive(program.facts(), program);
+                assertThat(describe(json(sequential.toGraphResponse(graph)))).as("seed %d", seed)
+                        .isEqualTo(previous(graph, new HashMap<>()));
+
+                // Every other parent keeps the identifier of an earlier conversion
+                Map<KnowledgePiece, String> kept = new HashMap<>();
+                for (KnowledgePiece parent : graph.edges().keySet()) {
+                    if (kept.size() % 2 == 0 || parent instanceof Rule) {
+                        kept.put(parent, "kept-" + kept.size());
+                    }
+                }
+                assertThat(describe(json(sequential.toGraphResponse(graph, new HashMap<>(kept))))).as("seed %d", seed)
+                        .isEqualTo(previous(graph, new HashMap<>(kept)));
+            }
+        }
+    }
+
+    @Test
+    void largeResponseListsTheNodesAndEdgesOfThePreviousConversion() {
+        ArgumentativeGraph graph = Programs.largeGraph(5000);
+        int edges = graph.edges().values().stream().mapToInt(List::size).sum();
+        assertThat(CompactGraph.of(graph).nodeCount() + edges).as("converted in parallel")
+                .isGreaterThanOrEqualTo(1 << 16);
+
+        GraphBuilderService sequential = new GraphBuilderService(false);
+        assertThat(describe(json(sequential.toGraphResponse(graph)))).isEqualTo(previous(graph, new HashMap<>()));
+    }
+
+    @Test
+    void identicalNodesHaveDistinctContentIds() {
+        // Every argument of the graph has the same two rules
+        Map<KnowledgePiece, String> ids = service.contentIds(Programs.largeGraph(5000));
+        List<String> again = new ArrayList<>(service.contentIds(Programs.largeGraph(5000)).values());
+
+        assertThat(new HashSet<>(ids.values())).hasSameSizeAs(ids.values());
+        assertThat(new ArrayList<>(ids.values())).containsExactlyInAnyOrderElementsOf(again);
+    }
+
+    /**
+     * Describes a graph response as its nodes followed by its edges, one line
+     * each and in order.
+     */
+    private static List<String> describe(JsonNode graph) {
+        List<String> lines = new ArrayList<>();
+        graph.get("nodes").forEach(node -> lines.add(node.get("id").asString() + " " + node.get("label").asString()
+                + " " + node.get("type").asString() + " " + labels(node.get("attributes"))
+                + " " + labels(node.get("deltaAttributes"))));
+        graph.get("edges").forEach(edge -> lines.add(edge.get("from").asString() + " -> "
+                + edge.get("to").asString() + " : " + edge.get("kind").asString()));
+        return lines;
+    }
+
+    private static List<String> labels(JsonNode labels) {
+        return labels == null || labels.isNull()
+                ? null
+                : StreamSupport.stream(labels.spliterator(), false).map(JsonNode::asString).toList();
+    }
+
+    /**
+     * Describes a graph as the conversion before frozen graphs did: nodes
+     * numbered in the order of the edge map, its children and then the
+     * conflicts, the edges of the edge map and then both directions of every
+     * conflict.
+     */
+    private static List<String> previous(ArgumentativeGraph graph, Map<KnowledgePiece, String> idMap) {
+        Set<KnowledgePiece> allNodes = new LinkedHashSet<>(graph.edges().keySet());
+        for (List<Fact> children : graph.edges().values()) {
+            allNodes.addAll(children);
+        }
+        for (PairInConflict pair : graph.conflictiveNodes()) {
+            allNodes.add(pair.first());
+            allNodes.add(pair.second());
+        }
+        List<String> lines = new ArrayList<>();
+        int[] factCounter = {1};
+        int[] ruleCounter = {1};
+        for (KnowledgePiece kp : allNodes) {
+            String id = kp instanceof Rule
+                    ? idMap.computeIfAbsent(kp, key -> "R" + (ruleCounter[0]++))
+                    : idMap.computeIfAbsent(kp, key -> "F" + (factCounter[0]++));
+            String label = kp instanceof Fact fact ? fact.getName() + "(" + fact.getArgument() + ")" : kp.toString();
+            lines.add(id + " " + label + " " + (kp instanceof Rule ? "RULE" : "FACT")
+                    + " " + list(kp.getAttributes()) + " " + list(kp.getDeltaAttributes()));
+        }
+
+        Map<Fact, List<KnowledgePiece>> parents = new HashMap<>();
+        graph.edges().forEach((parent, children) -> children.forEach(child ->
+                parents.computeIfAbsent(child, key -> new ArrayList<>()).add(parent)));
+        graph.edges().forEach((parent, children) -> {
+            for (Fact child : children) {
+                String kind = parents.get(child).stream().anyMatch(Rule.class::isInstance) ? "SUPPORT" : "AGGREGATION";
+                lines.add(idMap.get(parent) + " -> " + idMap.get(child) + " : " + kind);
+            }
+        });
+        for (PairInConflict pair : graph.conflictiveNodes()) {
+            lines.add(idMap.get(pair.first()) + " -> " + idMap.get(pair.second()) + " : CONFLICT");
+            lines.add(idMap.get(pair.second()) + " -> " + idMap.get(pair.first()) + " : CONFLICT");
+        }
+        return lines;
+    }
+
+    private static List<String> list(String[] labels) {
+        return labels == null ? null : List.of(labels);
+    }
+
+    private static ArgumentativeGraph derive(List<Fact> facts, Programs.Program program) {
+        return new InferenceEngine(facts, program.rules(), program.functions()).buildTree();
+    }
+
+    private JsonNode json(Object response) {
+        return mapper.valueToTree(response);
+    }
+
+    private static Map<String, JsonNode> nodesOf(JsonNode graph) {
+        Map<String, JsonNode> nodes = new HashMap<>();
+        graph.get("nodes").forEach(node -> nodes.put(node.get("id").asString(), node));
+        return nodes;
+    }
+
+    private static Set<String> edgesOf(JsonNode edges) {
+        List<String> keys = new ArrayList<>();
+        edges.forEach(edge -> keys.add(edge.get("from").asString() + "->" + edge.get("to").asString()
+                + ":" + edge.get("kind").asString()));
+        return new HashSet<>(keys);
+    }
+}
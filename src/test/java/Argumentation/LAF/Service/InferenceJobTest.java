@@ -0,0 +1,113 @@
+package Argumentation.LAF.Service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import Argumentation.LAF.DTO.Response.GraphResponse;
+import Argumentation.LAF.DTO.Response.JobResponse;
+import Argumentation.LAF.Domain.Programs;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of {@link InferenceJob} and of the purge of expired jobs by
+ * {@link JobService}.
+ *
+ * @author JaviDebórtoli
+ */
+class InferenceJobTest {
+    private final Programs.Program program = Programs.random(3, 4, "double");
+
+    @Test
+    void slowSubscriberBlocksNeitherPollsNorCancellation() throws Exception {
+        InferenceJob job = new InferenceJob("job", program.rules(), program.facts());
+        CountDownLatch delivering = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<JobStatus> received = new CopyOnWriteArrayList<>();
+        job.subscribe(progress -> {
+            received.add(progress.getStatus());
+            if (progress.getStatus() == JobStatus.RUNNING) {
+                delivering.countDown();
+                await(release);
+            }
+        });
+        CompletableFuture<Void> engine = CompletableFuture.runAsync(job::start);
+        assertThat(delivering.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture.runAsync(() -> {
+            job.snapshot();
+            job.cancel();
+        }).get(5, TimeUnit.SECONDS);
+        assertThat(job.status()).isEqualTo(JobStatus.FAILED);
+
+        release.countDown();
+        engine.get(5, TimeUnit.SECONDS);
+        assertThat(received).containsExactly(JobStatus.QUEUED, JobStatus.RUNNING, JobStatus.FAILED);
+    }
+
+    @Test
+    void cancelledJobIgnoresTheOutcomeOfItsInference() {
+        InferenceJob job = new InferenceJob("job", program.rules(), program.facts());
+        job.start();
+        job.cancel();
+
+        assertThatThrownBy(() -> job.factDerived(program.facts().get(0), program.rules().get(0)))
+                .isInstanceOf(CancellationException.class);
+        job.fail("Interrupted");
+        job.succeed(new GraphResponse());
+        job.start();
+
+        JobResponse snapshot = job.snapshot();
+        assertThat(snapshot.getStatus()).isEqualTo(JobStatus.FAILED);
+        assertThat(snapshot.getError()).isEqualTo("Cancelled");
+        assertThat(job.result()).isNull();
+    }
+
+    @Test
+    void derivedFactsAreCountedAsRulesFire() {
+        InferenceJob job = new InferenceJob("job", program.rules(), program.facts());
+        for (int fired = 0; fired < 3; fired++) {
+            job.factDerived(program.facts().get(0), program.rules().get(0));
+        }
+
+        assertThat(job.snapshot().getDerivedFacts()).isEqualTo(3);
+    }
+
+    @Test
+    void expiredJobsArePurgedWithoutFurtherRequests() throws Exception {
+        JobService service = new JobService(new InferenceService(0, false), new GraphBuilderService(false),
+                1, 10, Duration.ofMillis(1));
+        service.startPurging();
+        try {
+            CountDownLatch finished = new CountDownLatch(1);
+            String jobId = service.submit(program.facts(), program.rules(), QueryServiceTest.operations(program))
+                    .orElseThrow().getJobId();
+            service.subscribe(jobId, progress -> {
+                if (progress.getStatus().isFinished()) {
+                    finished.countDown();
+                }
+            });
+            assertThat(finished.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // Unlike every other request, a cancellation does not purge by itself
+            Thread.sleep(500);
+            assertThat(service.cancel(jobId)).isFalse();
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package Argumentation.LAF.Service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import Argumentation.LAF.Domain.Fact;
+import Argumentation.LAF.Domain.LabelPrecision;
+import Argumentation.LAF.Domain.OffHeapFactStore;
+import Argumentation.LAF.Domain.OperationSet;
+import Argumentation.LAF.Domain.Programs;
+import java.lang.foreign.Arena;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of {@link InferenceService}.
+ *
+ * @author JaviDebórtoli
+ */
+class InferenceServiceTest {
+    private final InferenceService service = new InferenceService(0, false);
+
+    @Test
+    void memoizedSupportGivesTheSameGraph() {
+        // A small memo evicts, a large one answers repeated runs: neither changes the graph
+        for (int memoSize : new int[] {16, 4096}) {
+            InferenceService memoized = new InferenceService(memoSize, false);
+            for (long seed = 1; seed <= 30; seed++) {
+                for (Programs.Program program : new Programs.Program[] {
+                        Programs.random(seed, 4, "double"), Programs.houses(seed, 4, "float32")}) {
+                    Map<String, OperationSet> operations = QueryServiceTest.operations(program);
+                    List<String> expected = Programs.canonical(
+                            service.buildGraph(Programs.copies(program.facts()), program.rules(), operations));
+                    for (int run = 0; run < 2; run++) {
+                        assertThat(Programs.canonical(memoized.buildGraph(
+                                Programs.copies(program.facts()), program.rules(), operations)))
+                                .as("memo %d, seed %d, run %d", memoSize, seed, run).isEqualTo(expected);
+                    }
+                }
+            }
+            assertThat(memoized.supportMemoStats()).get().satisfies(stats -> {
+                assertThat(stats.hits()).isPositive();
+                assertThat(stats.size()).isBetween(1, memoSize);
+            });
+        }
+    }
+
+    @Test
+    void offHeapFactsGiveTheGraphOfTheSameFactsOnTheHeap() {
+        for (long seed = 1; seed <= 30; seed++) {
+            for (String precision : new String[] {"double", "float32"}) {
+                for (Programs.Program program : new Programs.Program[] {
+                        Programs.random(seed, 4, precision), Programs.houses(seed, 4, precision)}) {
+                    Map<String, OperationSet> operations = QueryServiceTest.operations(program);
+                    try (Arena arena = Arena.ofConfined()) {
+                        OffHeapFactStore store = new OffHeapFactStore(arena, program.functions().length,
+                                LabelPrecision.of(precision));
+                        for (Fact fact : program.facts()) {
+                            store.add(fact.getName(), fact.getArgument(), fact.getAttributes());
+                        }
+
+                        assertThat(Programs.canonical(service.buildGraph(store, program.rules(), operations)))
+                                .as("seed %d, %s", seed, precision)
+                                .isEqualTo(Programs.canonical(
+                                        service.buildGraph(program.facts(), program.rules(), operations)));
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package Argumentation.LAF.Service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import Argumentation.LAF.DTO.Response.QueryResponse;
+import Argumentation.LAF.Domain.ArgumentativeGraph;
+import Argumentation.LAF.Domain.Fact;
+import Argumentation.LAF.Domain.GoalRelevance;
+import Argumentation.LAF.Domain.KnowledgePiece;
+import Argumentation.LAF.Domain.LabelBounds;
+import Argumentation.LAF.Domain.LabelPrecision;
+import Argumentation.LAF.Domain.OperationSet;
+import Argumentation.LAF.Domain.PairInConflict;
+import Argumentation.LAF.Domain.Programs;
+import Argumentation.LAF.Domain.Rule;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Tests of {@link QueryService}: answers are compared with the goal nodes
+ * of the part of the complete graph relevant to the goal, and ranked
+ * answers with those of evaluating every argument.
+ *
+ * @author JaviDebórtoli
+ */
+class QueryServiceTest {
+    private final InferenceService inferenceService = new InferenceService(0, false);
+    private final GraphBuilderService graphBuilderService = new GraphBuilderService(false);
+    private final QueryService service = new QueryService(inferenceService, graphBuilderService);
+    private final JsonMapper mapper = JsonMapper.builder().build();
+
+    @Test
+    void answersAreTheGoalNodesOfTheRelevantPartOfTheCompleteGraph() {
+        for (long seed = 1; seed <= 50; seed++) {
+            Programs.Program program = Programs.random(seed, 4, "double");
+            Map<String, OperationSet> operations = operations(program);
+            ArgumentativeGraph full = inferenceService.buildGraph(program.facts(), program.rules(), operations);
+
+            List<String> arguments = new ArrayList<>(program.arguments());
+            arguments.add(null);
+            for (int predicate = 3; predicate < 8; predicate++) {
+                String goal = "p" + predicate;
+                Set<String> relevant = GoalRelevance.relevantPredicates(goal, program.rules());
+                for (String argument : arguments) {
+                    QueryResponse response = service.query(program.facts(), program.rules(), operations, goal, argument);
+
+                    List<String> answers = new ArrayList<>();
+                    mapper.valueToTree(response.getAnswers()).forEach(node -> answers.add(describe(node)));
+                    List<String> expected = new ArrayList<>();
+                    for (Fact fact : finalFacts(relevantPart(full, relevant, argument), goal, argument)) {
+                        expected.add(describe(mapper.valueToTree(graphBuilderService.toNodeResponse(fact, null))));
+                    }
+                    assertThat(answers).as("seed %d, goal %s, argument %s", seed, goal, argument)
+                            .containsExactlyInAnyOrderElementsOf(expected);
+                }
+            }
+        }
+    }
+
+    @Test
+    void queryEvaluatesOnlyTheGoalArgumentAndTheRulesLeadingToTheGoal() {
+        Programs.Program houses = fourHouses("0.3", "double");
+        List<Fact> facts = new ArrayList<>(houses.facts());
+        facts.add(Programs.fact("d", "h4", "0.8", "0.8"));
+        List<Rule> rules = new ArrayList<>(houses.rules());
+        rules.add(Programs.rule("e", List.of("a", "d"), "0.9", "0.9"));
+        Map<String, OperationSet> operations = operations(houses);
+
+        // Label 0 of g(h4) is min(max(0.2, 0.1, 0.7), max(0.55, 0.5)), left as it is by ~g
+        QueryResponse response = service.query(facts, rules, operations, "g", "h4");
+        assertThat(values(response)).containsExactly("g(h4) 0.55");
+        List<String> nodes = new ArrayList<>();
+        mapper.valueToTree(response.getGraph()).get("nodes").forEach(node -> nodes.add(node.get("label").asString()));
+        assertThat(nodes).doesNotContain("a(h1)", "c(h3)", "d(h4)")
+                .contains("a(h4)", "b(h4)", "c(h4)", "g(h4)", "~g(h4)")
+                .noneMatch(label -> label.startsWith("e("));
+    }
+
+    @Test
+    void rankedAnswersAreThoseOfEvaluatingEveryArgument() {
+        int pruned = 0;
+        for (long seed = 1; seed <= 30; seed++) {
+            Programs.Program program = Programs.random(seed, 6, "double");
+            Map<String, OperationSet> operations = operations(program);
+            for (int predicate = 3; predicate < 8; predicate++) {
+                String goal = "p" + predicate;
+                for (int label = 0; label < 2; label++) {
+                    for (Double threshold : new Double[] {null, 0.2, 0.5}) {
+                        for (Integer top : new Integer[] {null, 1, 3}) {
+                            QueryResponse response = service.rankedQuery(program.facts(), program.rules(), operations,
+                                    goal, null, label, threshold, top);
+
+                            List<String> answers = new ArrayList<>();
+                            mapper.valueToTree(response.getAnswers()).forEach(node -> answers.add(describe(node)));
+                            assertThat(answers)
+                                    .as("seed %d, goal %s, label %d, threshold %s, top %s", seed, goal, label, threshold, top)
+                                    .isEqualTo(rankedOneByOne(program, operations, goal, label, threshold, top));
+                            if (label == 1) {
+                                // Not bounded: the aggregation X+Y-X*Y exceeds its operands
+                                assertThat(response.getPrunedArguments()).isZero();
+                            }
+                            pruned += response.getPrunedArguments();
+                        }
+                    }
+                }
+            }
+        }
+        // Otherwise the bounds were never put to the test
+        assertThat(pruned).isPositive();
+    }
+
+    @Test
+    void rankedAnswersUnderMinAggregationAreThoseComputedByHand() {
+        Programs.Program program = fourHouses("0.3", "double");
+        Map<String, OperationSet> operations = operations(program);
+
+        // Label 0 of g: max(0.9, 0.8, 0.7) in h1, max(0.3, 0.4, 0.7) in h2, max(0.6, 0.5) in h3, left as it is
+        // by ~g, and min(max(0.2, 0.1, 0.7), max(0.55, 0.5)) in h4, whose bound is the larger support 0.7
+        QueryResponse above = service.rankedQuery(program.facts(), program.rules(), operations, "g", null, 0, 0.65, null);
+        assertThat(values(above)).containsExactly("g(h1) 0.90", "g(h2) 0.70");
+        assertThat(above.getPrunedArguments()).isEqualTo(1);
+        QueryResponse best = service.rankedQuery(program.facts(), program.rules(), operations, "g", null, 0, null, 1);
+        assertThat(values(best)).containsExactly("g(h1) 0.90");
+        assertThat(best.getPrunedArguments()).isEqualTo(3);
+
+        for (String precision : new String[] {"double", "float32"}) {
+            assertRankedAnswersAreThoseOfEvaluatingEveryArgument(fourHouses("0.3", precision));
+        }
+    }
+
+    @Test
+    void argumentsWithLabelsOutsideTheUnitIntervalAreNotPruned() {
+        Programs.Program program = fourHouses("1.5", "double");
+        Map<String, OperationSet> operations = operations(program);
+
+        // g(h2) is max(1.5, 0.4, 0.7) clamped to 1, though its bound is unknown
+        QueryResponse best = service.rankedQuery(program.facts(), program.rules(), operations, "g", null, 0, null, 1);
+        assertThat(values(best)).containsExactly("g(h2) 1.00");
+        assertThat(best.getPrunedArguments()).isEqualTo(3);
+
+        assertRankedAnswersAreThoseOfEvaluatingEveryArgument(program);
+    }
+
+    /**
+     * Builds four houses whose goal {@code g} is derived from {@code a} and
+     * {@code b}, or from {@code c}, which also derives its negation. Label 0
+     * has max supports, min aggregations and conflicts that leave the
+     * attacked label as it is; label 1 has min supports, which fold the
+     * premises from {@code 0}, max aggregations and conflicts that subtract.
+     */
+    private static Programs.Program fourHouses(String a2, String precision) {
+        List<Fact> facts = List.of(
+                Programs.fact("a", "h1", "0.9", "0.9"), Programs.fact("b", "h1", "0.8", "0.8"),
+                Programs.fact("a", "h2", a2, "0.3"), Programs.fact("b", "h2", "0.4", "0.4"),
+                Programs.fact("c", "h3", "0.6", "0.6"),
+                Programs.fact("a", "h4", "0.2", "0.2"), Programs.fact("b", "h4", "0.1", "0.1"),
+                Programs.fact("c", "h4", "0.55", "0.55"));
+        List<Rule> rules = List.of(
+                Programs.rule("g", List.of("a", "b"), "0.7", "0.7"),
+                Programs.rule("g", List.of("c"), "0.5", "0.5"),
+                Programs.rule("~g", List.of("c"), "0.2", "0.2"));
+        String[][] functions = {
+            {"(X+Y+abs(X-Y))/2", "(X+Y-abs(X-Y))/2", "X", precision},
+            {"(X+Y-abs(X-Y))/2", "(X+Y+abs(X-Y))/2", "X-Y", precision}
+        };
+        return new Programs.Program(facts, rules, functions);
+    }
+
+    /**
+     * Checks the ranked answers of a program against those of evaluating
+     * every argument, and the bound of every argument against its labels.
+     */
+    private void assertRankedAnswersAreThoseOfEvaluatingEveryArgument(Programs.Program program) {
+        Map<String, OperationSet> operations = operations(program);
+        for (int label = 0; label < 2; label++) {
+            for (String argument : program.arguments()) {
+                ArgumentativeGraph graph = inferenceService.buildGraph(program.facts(argument), program.rules(),
+                        operations);
+                double bound = LabelBounds.upperBound("g", program.facts(argument), program.rules(),
+                        program.functions()[label], label);
+                for (Fact fact : finalFacts(graph, "g", argument)) {
+                    assertThat(bound).as("label %d, %s", label, fact)
+                            .isGreaterThanOrEqualTo(Double.parseDouble(fact.getDeltaAttributes()[label]));
+                }
+            }
+            for (Double threshold : new Double[] {null, 0.4, 0.65}) {
+                for (Integer top : new Integer[] {null, 1, 2}) {
+                    QueryResponse response = service.rankedQuery(program.facts(), program.rules(), operations,
+                            "g", null, label, threshold, top);
+                    List<String> answers = new ArrayList<>();
+                    mapper.valueToTree(response.getAnswers()).forEach(node -> answers.add(describe(node)));
+                    assertThat(answers).as("label %d, threshold %s, top %s", label, threshold, top)
+                            .isEqualTo(rankedOneByOne(program, operations, "g", label, threshold, top));
+                }
+            }
+        }
+    }
+
+    /**
+     * Lists the answers of a query with their label 0, to two decimals.
+     */
+    private List<String> values(QueryResponse response) {
+        List<String> values = new ArrayList<>();
+        mapper.valueToTree(response.getAnswers()).forEach(node ->
+                values.add(String.format(Locale.ROOT, "%s %.2f", node.get("label").asString(), valueOf(node, 0))));
+        return values;
+    }
+
+    /**
+     * Answers a ranked query by evaluating every argument with the whole
+     * program, without bounds.
+     */
+    private List<String> rankedOneByOne(Programs.Program program, Map<String, OperationSet> operations, String goal,
+                                        int label, Double threshold, Integer top) {
+        Set<String> relevant = GoalRelevance.relevantPredicates(goal, program.rules());
+        List<String> arguments = GoalRelevance.relevantFacts(program.facts(), relevant, null).stream()
+                .map(Fact::getArgument).distinct().toList();
+        List<JsonNode> answers = new ArrayList<>();
+        for (String argument : arguments) {
+            ArgumentativeGraph graph = inferenceService.buildGraph(program.facts(argument), program.rules(), operations);
+            for (Fact fact : finalFacts(relevantPart(graph, relevant, argument), goal, argument)) {
+                JsonNode node = mapper.valueToTree(graphBuilderService.toNodeResponse(fact, null));
+                double value = valueOf(node, label);
+                if (threshold == null || value >= threshold) {
+                    answers.add(node);
+                }
+            }
+        }
+        if (top != null) {
+            // Stable, so ties keep the order of the arguments
+            answers.sort(Comparator.comparingDouble((JsonNode node) -> valueOf(node, label)).reversed());
+            answers = answers.subList(0, Math.min(top, answers.size()));
+        }
+        return answers.stream().map(QueryServiceTest::describe).toList();
+    }
+
+    private static double valueOf(JsonNode node, int label) {
+        return Double.parseDouble(node.get("deltaAttributes").get(label).asString());
+    }
+
+    static Map<String, OperationSet> operations(Programs.Program program) {
+        Map<String, OperationSet> operations = new LinkedHashMap<>();
+        for (String[] row : program.functions()) {
+            operations.put("l" + operations.size(),
+                    new OperationSet(row[0], row[1], row[2], LabelPrecision.of(row[3])));
+        }
+        return operations;
+    }
+
+    /**
+     * Keeps the edges of a graph towards the relevant facts of an argument,
+     * or of every argument, and their conflicts.
+     */
+    static ArgumentativeGraph relevantPart(ArgumentativeGraph graph, Set<String> relevant, String argument) {
+        Predicate<Fact> kept = fact -> relevant.contains(fact.getName())
+                && (argument == null || argument.equals(fact.getArgument()));
+        Map<KnowledgePiece, List<Fact>> edges = new LinkedHashMap<>();
+        graph.edges().forEach((parent, children) -> {
+            List<Fact> keptChildren = children.stream().filter(kept).toList();
+            if (!keptChildren.isEmpty()) {
+                edges.put(parent, keptChildren);
+            }
+        });
+        List<PairInConflict> conflicts = graph.conflictiveNodes().stream()
+                .filter(pair -> kept.test(pair.first()))
+                .toList();
+        return new ArgumentativeGraph(edges, conflicts);
+    }
+
+    /**
+     * Collects the goal facts of a graph that are not aggregated into a
+     * later version.
+     */
+    static List<Fact> finalFacts(ArgumentativeGraph graph, String goal, String argument) {
+        Set<Fact> facts = new LinkedHashSet<>();
+        for (Map.Entry<KnowledgePiece, List<Fact>> edge : graph.edges().entrySet()) {
+            if (edge.getKey() instanceof Fact fact) {
+                facts.add(fact);
+            }
+            facts.addAll(edge.getValue());
+        }
+        for (PairInConflict pair : graph.conflictiveNodes()) {
+            facts.add(pair.first());
+            facts.add(pair.second());
+        }
+        List<Fact> finals = new ArrayList<>();
+        for (Fact fact : facts) {
+            if (fact.getName().equals(goal) && (argument == null || argument.equals(fact.getArgument()))
+                    && graph.edges().getOrDefault(fact, List.of()).stream()
+                            .noneMatch(child -> child.getName().equals(goal)
+                                    && child.getArgument().equals(fact.getArgument()))) {
+                finals.add(fact);
+            }
+        }
+        return finals;
+    }
+
+    private static String describe(JsonNode node) {
+        return node.get("label").asString() + " " + node.get("attributes") + " " + node.get("deltaAttributes");
+    }
+}
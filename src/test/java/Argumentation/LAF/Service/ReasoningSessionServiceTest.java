@@ -0,0 +1,266 @@
+package Argumentation.LAF.Service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import Argumentation.LAF.DTO.Response.EdgePageResponse;
+import Argumentation.LAF.DTO.Response.NodePageResponse;
+import Argumentation.LAF.Domain.FailingChannel;
+import Argumentation.LAF.Domain.Fact;
+import Argumentation.LAF.Domain.GraphIndex;
+import Argumentation.LAF.Domain.LabelIndex;
+import Argumentation.LAF.Domain.OperationSet;
+import Argumentation.LAF.Domain.Programs;
+import Argumentation.LAF.Domain.WriteAheadLog;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Tests of the eviction and journaling of {@link ReasoningSessionService}
+ * sessions.
+ *
+ * @author JaviDebórtoli
+ */
+class ReasoningSessionServiceTest {
+    private final Programs.Program program = Programs.random(3, 4, "double");
+    private final Map<String, OperationSet> operations = QueryServiceTest.operations(program);
+    private final JsonMapper mapper = JsonMapper.builder().build();
+
+    @TempDir
+    Path store;
+
+    @Test
+    void idleSessionsAreReopenedWithTheirGraph() {
+        ReasoningSessionService service = service(store.toString(), Duration.ofNanos(1), 0);
+        String stored = service.open(program.facts(), program.rules(), operations);
+        String unstored = service.open(program.facts(), program.rules(), operations);
+        service.persist(stored);
+        Fact fact = program.initialFacts().get(0);
+        service.retractFact(stored, fact.getName(), fact.getArgument());
+        Set<JsonNode> storedGraph = elements(service.graph(stored).orElseThrow());
+        Set<JsonNode> unstoredGraph = elements(service.graph(unstored).orElseThrow());
+
+        service.evictSessions();
+
+        assertThat(store.resolve(unstored + ".laf")).exists();
+        assertThat(elements(service.graph(unstored).orElseThrow())).isEqualTo(unstoredGraph);
+        assertThat(elements(service.graph(stored).orElseThrow())).isEqualTo(storedGraph);
+        assertThat(service.assertFact(stored, fact)).isPresent();
+    }
+
+    @Test
+    void sessionsAreOnlyEvictedByDefaultWithAStore() {
+        ReasoningSessionService inMemory = service("", null, null);
+        List<String> sessions = new ArrayList<>();
+        for (int i = 0; i <= 1000; i++) {
+            sessions.add(inMemory.open(program.facts(), program.rules(), operations));
+        }
+        inMemory.evictSessions();
+        assertThat(sessions).allSatisfy(id -> assertThat(inMemory.graph(id)).isPresent());
+
+        ReasoningSessionService stored = service(store.toString(), null, null);
+        String first = stored.open(program.facts(), program.rules(), operations);
+        Set<JsonNode> graph = elements(stored.graph(first).orElseThrow());
+        for (int i = 0; i < 1000; i++) {
+            stored.open(program.facts(), program.rules(), operations);
+        }
+        assertThat(store.resolve(first + ".laf")).exists();
+        assertThat(elements(stored.graph(first).orElseThrow())).isEqualTo(graph);
+    }
+
+    @Test
+    void sessionsUpdatedWhileTheyAreEvictedKeepTheirUpdates() throws InterruptedException {
+        ReasoningSessionService service = service(store.toString(), Duration.ofNanos(1), 0);
+        ReasoningSessionService reference = service("", Duration.ZERO, 0);
+        Programs.Program houses = Programs.houses(1, 2, "double");
+        Map<String, OperationSet> houseOperations = QueryServiceTest.operations(houses);
+        List<String> sessions = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            sessions.add(service.open(houses.facts(), houses.rules(), houseOperations));
+        }
+        String expected = reference.open(houses.facts(), houses.rules(), houseOperations);
+        for (int i = 0; i < 100; i++) {
+            reference.assertFact(expected, nearSchool(i));
+        }
+
+        AtomicBoolean done = new AtomicBoolean();
+        Thread evictor = Thread.ofPlatform().start(() -> {
+            while (!done.get()) {
+                service.evictSessions();
+            }
+        });
+        try {
+            List<Thread> updaters = new ArrayList<>();
+            for (String sessionId : sessions) {
+                updaters.add(Thread.ofPlatform().start(() -> {
+                    for (int i = 0; i < 100; i++) {
+                        service.assertFact(sessionId, nearSchool(i));
+                    }
+                }));
+            }
+            for (Thread updater : updaters) {
+                updater.join();
+            }
+        } finally {
+            done.set(true);
+            evictor.join();
+        }
+        Set<JsonNode> graph = elements(reference.graph(expected).orElseThrow());
+        assertThat(sessions).allSatisfy(sessionId ->
+                assertThat(elements(service.graph(sessionId).orElseThrow())).isEqualTo(graph));
+    }
+
+    /**
+     * Returns a fact about a new house, from which a purchase is derived, so
+     * that every update adds to the graph.
+     */
+    private static Fact nearSchool(int house) {
+        return Programs.fact("nearSchool", "n" + house, "0.5", "0.5");
+    }
+
+    @Test
+    void closingAnEvictedSessionDeletesItsStoreFile() {
+        ReasoningSessionService service = service(store.toString(), Duration.ofNanos(1), 0);
+        String sessionId = service.open(program.facts(), program.rules(), operations);
+        service.persist(sessionId);
+        service.evictSessions();
+
+        assertThat(service.close(sessionId)).isTrue();
+        assertThat(store.resolve(sessionId + ".laf")).doesNotExist();
+        assertThat(service.graph(sessionId)).isEmpty();
+    }
+
+    @Test
+    void updateThatCannotBeJournaledIsNotApplied() throws IOException {
+        FailingChannel channel = new FailingChannel(FileChannel.open(store.resolve("sessions.wal"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE));
+        ReasoningSessionService service = new ReasoningSessionService(new InferenceService(0, false),
+                new GraphBuilderService(false), store.toString(), true, 10000, Duration.ZERO, 0) {
+            @Override
+            SessionJournal openJournal(Path file) throws IOException {
+                return new SessionJournal(new WriteAheadLog(channel), 10000);
+            }
+        };
+        service.restoreStoredSessions();
+        String sessionId = service.open(program.facts(), program.rules(), operations);
+        Set<JsonNode> graph = elements(service.graph(sessionId).orElseThrow());
+        Fact retracted = program.initialFacts().get(0);
+
+        channel.failForces(1);
+        assertThatThrownBy(() -> service.retractFact(sessionId, retracted.getName(), retracted.getArgument()))
+                .isInstanceOf(UncheckedIOException.class);
+
+        assertThat(elements(service.graph(sessionId).orElseThrow())).isEqualTo(graph);
+        // The failed log was emptied by a checkpoint, so later updates are journaled again
+        Fact asserted = program.initialFacts().get(1);
+        assertThat(service.assertFact(sessionId, Programs.fact(asserted.getName(), asserted.getArgument(),
+                "0.25", "0.75"))).isPresent();
+        Set<JsonNode> updated = elements(service.graph(sessionId).orElseThrow());
+
+        // Without a final checkpoint, as after a crash
+        ReasoningSessionService restarted = new ReasoningSessionService(new InferenceService(0, false),
+                new GraphBuilderService(false), store.toString(), true, 10000, Duration.ZERO, 0);
+        restarted.restoreStoredSessions();
+        assertThat(elements(restarted.graph(sessionId).orElseThrow())).isEqualTo(updated);
+        restarted.persistStoredSessions();
+        service.persistStoredSessions();
+    }
+
+    @Test
+    void neighborhoodIsPartOfTheGraph() {
+        ReasoningSessionService service = service("", Duration.ZERO, 0);
+        String sessionId = service.open(program.facts(), program.rules(), operations);
+        assertNeighborhoodsArePartOfTheGraph(service, sessionId);
+
+        service.assertFact(sessionId, new Fact("p1", "a0", new String[] {"0.3", "0.6"}));
+        service.retractFact(sessionId, "p0", "a1");
+        assertNeighborhoodsArePartOfTheGraph(service, sessionId);
+        assertThat(service.neighborhood(sessionId, "F0", 1, GraphIndex.Direction.BOTH)).isEmpty();
+    }
+
+    @Test
+    void pagesListTheNodesAndEdgesOfTheGraph() {
+        ReasoningSessionService service = service("", Duration.ZERO, 0);
+        String sessionId = service.open(program.facts(), program.rules(), operations);
+        LabelIndex.Query everything = new LabelIndex.Query(null, null, null, null, null);
+        for (int update = 0; update < 2; update++) {
+            Set<JsonNode> nodes = new HashSet<>();
+            Set<JsonNode> edges = new HashSet<>();
+            String cursor = null;
+            do {
+                NodePageResponse page = service.nodes(sessionId, everything, cursor, 7).orElseThrow();
+                page.getNodes().forEach(node -> assertThat(nodes.add(mapper.valueToTree(node))).isTrue());
+                cursor = page.getNextCursor();
+            } while (cursor != null);
+            do {
+                EdgePageResponse page = service.edges(sessionId, null, cursor, 7).orElseThrow();
+                page.getEdges().forEach(edge -> edges.add(mapper.valueToTree(edge)));
+                cursor = page.getNextCursor();
+            } while (cursor != null);
+
+            Set<JsonNode> graph = elements(service.graph(sessionId).orElseThrow());
+            nodes.addAll(edges);
+            assertThat(nodes).as("update %d", update).isEqualTo(graph);
+
+            service.assertFact(sessionId, new Fact("p1", "a0", new String[] {"0.3", "0.6"}));
+        }
+        assertThat(service.nodes("none", everything, null, 7)).isEmpty();
+        assertThatThrownBy(() -> service.nodes(sessionId, everything, null, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Checks that the neighborhood of every node lists nodes and edges of
+     * the session graph, with the same identifiers, and reaches every
+     * neighbor of the node.
+     */
+    private void assertNeighborhoodsArePartOfTheGraph(ReasoningSessionService service, String sessionId) {
+        Set<JsonNode> graph = elements(service.graph(sessionId).orElseThrow());
+        for (JsonNode node : graph) {
+            if (!node.has("id")) {
+                continue;
+            }
+            String id = node.get("id").asString();
+            Set<JsonNode> neighborhood = elements(service.neighborhood(sessionId, id, 1, GraphIndex.Direction.BOTH)
+                    .orElseThrow());
+            assertThat(graph).as(id).containsAll(neighborhood);
+            for (JsonNode edge : graph) {
+                if (edge.has("from") && !edge.get("kind").asString().equals("CONFLICT")
+                        && (edge.get("from").asString().equals(id) || edge.get("to").asString().equals(id))) {
+                    assertThat(neighborhood).as(id).contains(edge);
+                }
+            }
+        }
+    }
+
+    private static ReasoningSessionService service(String store, Duration idleTtl, Integer maxCount) {
+        return new ReasoningSessionService(new InferenceService(0, false), new GraphBuilderService(false),
+                store, false, 10000, idleTtl, maxCount);
+    }
+
+    /**
+     * Returns the nodes and edges of a graph, which are listed in no
+     * particular order.
+     */
+    private Set<JsonNode> elements(Object graph) {
+        JsonNode json = mapper.valueToTree(graph);
+        Set<JsonNode> elements = new HashSet<>();
+        json.get("nodes").forEach(elements::add);
+        json.get("edges").forEach(elements::add);
+        return elements;
+    }
+}